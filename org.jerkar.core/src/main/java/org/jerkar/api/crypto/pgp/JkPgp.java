@@ -45,6 +45,9 @@ public final class JkPgp implements Serializable {
 
     private final String password;
 
+    // Decrypted key cached on first signature
+    private transient JkPgpSigner signer;
+
     /**
      * Creates a {@link JkPgp} with the specified public and secret ring.
      */
@@ -123,21 +126,28 @@ public final class JkPgp implements Serializable {
 
     /**
      * Signs the specified files in a detached signature file which will have
-     * the same name of the signed file plus ".asc" suffix.
+     * the same name of the signed file plus ".asc" suffix. Files are signed
+     * concurrently by the {@link #signer()} of this object.
      */
     public File[] sign(File... filesToSign) {
-        final File[] result = new File[filesToSign.length];
-        int i = 0;
-        for (final File file : filesToSign) {
-            if (!file.exists()) {
-                continue;
-            }
-            final File signatureFile = new File(file.getParent(), file.getName() + ".asc");
-            result[i] = signatureFile;
-            sign(file, signatureFile, password);
-            i++;
+        return signer().sign(filesToSign);
+    }
+
+    /**
+     * Returns the signing session of this object. The secret key is read and
+     * decrypted on the first call only, then the returned signer is reused for
+     * all the signatures made with this object.
+     */
+    public synchronized JkPgpSigner signer() {
+        if (signer == null) {
+            JkUtilsAssert.isTrue(secRing != null,
+                    "You must supply a secret ring file (as secring.gpg) to sign files");
+            final char[] pass = password == null ? new char[0] : password.toCharArray();
+            final Object delegate = JkUtilsReflect.invokeStaticMethod(PGPUTILS_CLASS, "signer",
+                    secRing, pass, true);
+            signer = new JkPgpSigner(delegate, new String[0], Runtime.getRuntime().availableProcessors());
         }
-        return result;
+        return signer;
     }
 
     /**
@@ -0,0 +1,128 @@
+package org.jerkar.api.crypto.pgp;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsReflect;
+import org.jerkar.api.utils.JkUtilsThrowable;
+
+/**
+ * Signing session holding a secret key decrypted once for all, so signing
+ * many files does not read the secret ring and decrypt the key for each of
+ * them. Files are signed concurrently and each file is read only once, even
+ * when checksum files are produced along the signatures.
+ * <p>
+ * Instances are obtained through {@link JkPgp#signer()} and can be shared by
+ * several threads.
+ *
+ * @author Jerome Angibaud
+ */
+public final class JkPgpSigner {
+
+    // Signer loaded in the Bouncy Castle class loader
+    private final Object delegate;
+
+    private final String[] checksumAlgorithms;
+
+    private final int threads;
+
+    JkPgpSigner(Object delegate, String[] checksumAlgorithms, int threads) {
+        this.delegate = delegate;
+        this.checksumAlgorithms = checksumAlgorithms;
+        this.threads = threads;
+    }
+
+    /**
+     * Returns a copy of this signer producing also a checksum file for each
+     * signed file, for each of the specified algorithms (as 'MD5' or
+     * 'SHA-1'). A checksum file has the same name as the signed file plus the
+     * algorithm name in lower case without dash as suffix (as '.md5' or
+     * '.sha1').
+     */
+    public JkPgpSigner withChecksums(String... algorithms) {
+        return new JkPgpSigner(delegate, algorithms, threads);
+    }
+
+    /**
+     * Returns a copy of this signer signing at most the specified number of
+     * files concurrently.
+     */
+    public JkPgpSigner withThreads(int threads) {
+        return new JkPgpSigner(delegate, checksumAlgorithms, Math.max(1, threads));
+    }
+
+    /**
+     * Signs the specified files in a detached signature file which will have
+     * the same name of the signed file plus ".asc" suffix. Files that do not
+     * exist are skipped.
+     */
+    public File[] sign(File... filesToSign) {
+        final List<File> files = new ArrayList<File>(filesToSign.length);
+        for (final File file : filesToSign) {
+            if (file.exists()) {
+                files.add(file);
+            }
+        }
+        final File[] result = new File[filesToSign.length];
+        if (files.size() <= 1) {
+            for (int i = 0; i < files.size(); i++) {
+                result[i] = sign(files.get(i));
+            }
+            return result;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        try {
+            final List<Future<File>> futures = new ArrayList<Future<File>>(files.size());
+            for (final File file : files) {
+                futures.add(executor.submit(new Callable<File>() {
+
+                    @Override
+                    public File call() {
+                        return sign(file);
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                result[i] = get(futures.get(i));
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private File sign(File file) {
+        final File signatureFile = new File(file.getParent(), file.getName() + ".asc");
+        final String[] checksums = JkUtilsReflect.invokeInstanceMethod(delegate, "sign", file,
+                signatureFile, checksumAlgorithms);
+        for (int i = 0; i < checksums.length; i++) {
+            final String extension = checksumAlgorithms[i].toLowerCase().replace("-", "");
+            JkUtilsFile.writeString(new File(file.getParent(), file.getName() + "." + extension),
+                    checksums[i], false);
+        }
+        return signatureFile;
+    }
+
+    private static <T> T get(Future<T> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw JkUtilsThrowable.unchecked(e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw JkUtilsThrowable.unchecked(e);
+        }
+    }
+
+}
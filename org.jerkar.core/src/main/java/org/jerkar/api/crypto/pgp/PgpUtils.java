@@ -6,6 +6,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -38,11 +40,14 @@ import org.bouncycastle.openpgp.operator.bc.BcPGPDigestCalculatorProvider;
 import org.bouncycastle.openpgp.operator.jcajce.JcaKeyFingerprintCalculator;
 import org.jerkar.api.utils.JkUtilsFile;
 import org.jerkar.api.utils.JkUtilsIO;
+import org.jerkar.api.utils.JkUtilsString;
 
 final class PgpUtils {
 
     private static final int HASH_ALGO = PGPUtil.SHA1;
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     public static boolean verify(File fileToVerify, File pubringFile, File signatureFile) {
         final InputStream streamToVerify = JkUtilsIO.inputStream(fileToVerify);
         final InputStream signatureStream = JkUtilsIO.inputStream(signatureFile);
@@ -113,35 +118,32 @@ final class PgpUtils {
 
     public static void sign(InputStream toSign, InputStream keyRing, OutputStream out, char[] pass,
             boolean armor) {
-
-        if (armor) {
-            out = new ArmoredOutputStream(out);
-        }
         final PGPSecretKey pgpSecretKey = readFirstSecretKey(keyRing);
+        new Signer(pgpSecretKey, extractPrivateKey(pgpSecretKey, pass), armor).sign(toSign, out,
+                new MessageDigest[0]);
+    }
+
+    /**
+     * Returns a signer holding the first signing key of the specified secret
+     * ring, decrypted once for all the files to sign.
+     */
+    public static Signer signer(File secringFile, char[] pass, boolean armor) {
+        JkUtilsFile.assertAllExist(secringFile);
+        final InputStream keyRing = JkUtilsIO.inputStream(secringFile);
         try {
+            final PGPSecretKey pgpSecretKey = readFirstSecretKey(keyRing);
+            return new Signer(pgpSecretKey, extractPrivateKey(pgpSecretKey, pass), armor);
+        } finally {
+            JkUtilsIO.closeQuietly(keyRing);
+        }
+    }
 
-            final PGPDigestCalculatorProvider pgpDigestCalculatorProvider = new BcPGPDigestCalculatorProvider();
-            final PBESecretKeyDecryptor secretKeyDecryptor = new BcPBESecretKeyDecryptorBuilder(
-                    pgpDigestCalculatorProvider).build(pass);
-            final PGPPrivateKey pgpPrivKey = pgpSecretKey.extractPrivateKey(secretKeyDecryptor);
-
-            final int secretKeyAlgo = pgpSecretKey.getPublicKey().getAlgorithm();
-            final PGPContentSignerBuilder contentSignerBuilder = new BcPGPContentSignerBuilder(
-                    secretKeyAlgo, HASH_ALGO);
-            final PGPSignatureGenerator signatureGenerator = new PGPSignatureGenerator(
-                    contentSignerBuilder);
-            signatureGenerator.init(PGPSignature.BINARY_DOCUMENT, pgpPrivKey);
-            final BCPGOutputStream bcpgOut = new BCPGOutputStream(out);
-            final InputStream fileInputStream = new BufferedInputStream(toSign);
-            int ch;
-            while ((ch = fileInputStream.read()) >= 0) {
-                signatureGenerator.update((byte) ch);
-            }
-            fileInputStream.close();
-            signatureGenerator.generate().encode(bcpgOut);
-            out.close();
-        } catch (final IOException e) {
-            throw new RuntimeException(e);
+    private static PGPPrivateKey extractPrivateKey(PGPSecretKey pgpSecretKey, char[] pass) {
+        final PGPDigestCalculatorProvider pgpDigestCalculatorProvider = new BcPGPDigestCalculatorProvider();
+        final PBESecretKeyDecryptor secretKeyDecryptor = new BcPBESecretKeyDecryptorBuilder(
+                pgpDigestCalculatorProvider).build(pass);
+        try {
+            return pgpSecretKey.extractPrivateKey(secretKeyDecryptor);
         } catch (final PGPException e) {
             if (e.getMessage().equals("checksum mismatch at 0 of 20")) {
                 throw new IllegalStateException("Secret key password is probably wrong.", e);
@@ -150,6 +152,87 @@ final class PgpUtils {
         }
     }
 
+    /**
+     * Signs files with an already decrypted private key. A signer can be used
+     * by several threads at once.
+     */
+    static final class Signer {
+
+        private final PGPSecretKey secretKey;
+
+        private final PGPPrivateKey privateKey;
+
+        private final boolean armor;
+
+        private Signer(PGPSecretKey secretKey, PGPPrivateKey privateKey, boolean armor) {
+            this.secretKey = secretKey;
+            this.privateKey = privateKey;
+            this.armor = armor;
+        }
+
+        /**
+         * Writes the detached signature of the specified file in the specified
+         * signature file. The file is read only once to compute both its
+         * signature and the checksums for the specified algorithms (as MD5 or
+         * SHA-1), returned as hexadecimal strings.
+         */
+        public String[] sign(File fileToSign, File signatureFile, String[] checksumAlgorithms) {
+            JkUtilsFile.assertAllExist(fileToSign);
+            final MessageDigest[] digests = new MessageDigest[checksumAlgorithms.length];
+            for (int i = 0; i < checksumAlgorithms.length; i++) {
+                try {
+                    digests[i] = MessageDigest.getInstance(checksumAlgorithms[i]);
+                } catch (final NoSuchAlgorithmException e) {
+                    throw new IllegalArgumentException("Unknown checksum algorithm " + checksumAlgorithms[i], e);
+                }
+            }
+            final InputStream toSign = JkUtilsIO.inputStream(fileToSign);
+            final FileOutputStream out = JkUtilsIO.outputStream(signatureFile, false);
+            try {
+                sign(toSign, out, digests);
+            } finally {
+                JkUtilsIO.closeQuietly(toSign);
+                JkUtilsIO.closeQuietly(out);
+            }
+            final String[] result = new String[digests.length];
+            for (int i = 0; i < digests.length; i++) {
+                result[i] = JkUtilsString.toHexString(digests[i].digest());
+            }
+            return result;
+        }
+
+        void sign(InputStream toSign, OutputStream out, MessageDigest[] digests) {
+            if (armor) {
+                out = new ArmoredOutputStream(out);
+            }
+            try {
+                final int secretKeyAlgo = secretKey.getPublicKey().getAlgorithm();
+                final PGPContentSignerBuilder contentSignerBuilder = new BcPGPContentSignerBuilder(
+                        secretKeyAlgo, HASH_ALGO);
+                final PGPSignatureGenerator signatureGenerator = new PGPSignatureGenerator(
+                        contentSignerBuilder);
+                signatureGenerator.init(PGPSignature.BINARY_DOCUMENT, privateKey);
+                final BCPGOutputStream bcpgOut = new BCPGOutputStream(out);
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int count;
+                while ((count = toSign.read(buffer)) >= 0) {
+                    signatureGenerator.update(buffer, 0, count);
+                    for (final MessageDigest digest : digests) {
+                        digest.update(buffer, 0, count);
+                    }
+                }
+                toSign.close();
+                signatureGenerator.generate().encode(bcpgOut);
+                out.close();
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            } catch (final PGPException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+    }
+
     private static PGPSecretKey readFirstSecretKey(InputStream keyRingIs) {
         for (final PGPSecretKeyRing keyRing : extractSecrectKeyRings(keyRingIs)) {
             final Iterator<PGPSecretKey> keyIter = keyRing.getSecretKeys();
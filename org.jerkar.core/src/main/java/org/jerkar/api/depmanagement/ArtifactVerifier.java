@@ -0,0 +1,258 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+import org.jerkar.api.system.JkLog;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsIO;
+import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.api.utils.JkUtilsThrowable;
+
+/**
+ * Not part of the public API.<br/>
+ * Verifies the artifacts of a resolved dependency tree according a
+ * {@link JkArtifactVerification}. Published checksums and signatures are
+ * fetched directly from the Maven repositories, using the Maven layout, and
+ * artifacts are verified concurrently. Artifacts recorded in the
+ * {@link VerifiedArtifactIndex} are skipped, so a build on a warm cache does
+ * not access network. An artifact failing verification is removed from the
+ * repository cache so it will be downloaded again at next resolution.
+ *
+ * @author Jerome Angibaud
+ */
+final class ArtifactVerifier {
+
+    private static final int TIMEOUT = 10000;
+
+    private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+            .toCharArray();
+
+    private final JkArtifactVerification verification;
+
+    private final JkRepos repos;
+
+    private final VerifiedArtifactIndex index;
+
+    ArtifactVerifier(JkArtifactVerification verification, JkRepos repos, VerifiedArtifactIndex index) {
+        this.verification = verification;
+        this.repos = repos;
+        this.index = index;
+    }
+
+    /**
+     * Verifies all the artifacts of the specified tree and returns the
+     * problems encountered.
+     */
+    List<JkModuleDepProblem> verify(JkDependencyNode tree) {
+        final String stamp = verification.toString();
+        final List<Check> checks = new LinkedList<Check>();
+        for (final JkDependencyNode node : tree.flatten()) {
+            if (!node.isModuleNode() || node.moduleInfo().isEvicted()) {
+                continue;
+            }
+            final JkDependencyNode.ModuleNodeInfo info = node.moduleInfo();
+            for (final File file : info.files()) {
+                if (file.exists() && !index.isVerified(file, stamp)) {
+                    checks.add(new Check(info.moduleId(), info.resolvedVersion(), file));
+                }
+            }
+        }
+        final List<JkModuleDepProblem> problems = new LinkedList<JkModuleDepProblem>();
+        if (checks.isEmpty()) {
+            return problems;
+        }
+        JkLog.startln("Verifying " + JkUtilsString.plurialize(checks.size(), "artifact") + " " + verification);
+        final List<String> results = run(checks);
+        for (int i = 0; i < checks.size(); i++) {
+            final Check check = checks.get(i);
+            final String problem = results.get(i);
+            if (problem == null) {
+                index.verified(check.file, stamp);
+            } else {
+                JkLog.warn(problem);
+                if (!check.file.delete()) {
+                    JkLog.warn("Unable to delete " + check.file.getPath());
+                }
+                problems.add(JkModuleDepProblem.of(check.moduleId, check.version.name(), problem));
+            }
+        }
+        index.saveIfChanged();
+        JkLog.done();
+        return problems;
+    }
+
+    private List<String> run(List<Check> checks) {
+        final int threadCount = Math.min(verification.threadCount(), checks.size());
+        final List<String> result = new ArrayList<String>(checks.size());
+        if (threadCount <= 1) {
+            for (final Check check : checks) {
+                result.add(check.call());
+            }
+            return result;
+        }
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<String>> futures = executorService.invokeAll(checks);
+            for (final Future<String> future : futures) {
+                result.add(future.get());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw JkUtilsThrowable.unchecked(e);
+        } catch (final ExecutionException e) {
+            throw JkUtilsThrowable.unchecked(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+        return result;
+    }
+
+    private String checksumExtension(String algorithm) {
+        return algorithm.toLowerCase().replace("-", "");
+    }
+
+    private final class Check implements Callable<String> {
+
+        private final JkModuleId moduleId;
+
+        private final JkVersion version;
+
+        private final File file;
+
+        Check(JkModuleId moduleId, JkVersion version, File file) {
+            this.moduleId = moduleId;
+            this.version = version;
+            this.file = file;
+        }
+
+        // Returns the problem text or null if the artifact is fine
+        @Override
+        public String call() {
+            final String path = moduleId.group().replace('.', '/') + "/" + moduleId.name() + "/"
+                    + version.name() + "/" + file.getName();
+            boolean checksumFound = false;
+            for (final String algorithm : verification.checksumAlgorithms()) {
+                final File checksumFile = fetch(path + "." + checksumExtension(algorithm));
+                if (checksumFile == null) {
+                    continue;
+                }
+                final String expected = JkUtilsString.substringBeforeFirst(
+                        JkUtilsFile.read(checksumFile).trim() + " ", " ").trim();
+                checksumFile.delete();
+                final String actual = JkUtilsFile.checksum(file, algorithm);
+                if (!expected.equalsIgnoreCase(actual)) {
+                    return algorithm + " checksum of " + file.getName() + " does not match published one ("
+                            + actual + " instead of " + expected + ").";
+                }
+                checksumFound = true;
+                break;
+            }
+            if (!checksumFound && verification.isFailOnMissing()) {
+                return "No checksum " + verification.checksumAlgorithms() + " published for " + file.getName();
+            }
+            if (verification.pgp() == null) {
+                return null;
+            }
+            final File signature = fetch(path + ".asc");
+            if (signature == null) {
+                return verification.isFailOnMissing() ? "No PGP signature published for " + file.getName() : null;
+            }
+            try {
+                if (!verification.pgp().verify(file, signature)) {
+                    return "PGP signature of " + file.getName() + " is not valid.";
+                }
+            } finally {
+                signature.delete();
+            }
+            return null;
+        }
+
+        // Returns a temp file holding the specified resource found on the first
+        // repository having it, null if none has
+        private File fetch(String path) {
+            for (final JkRepo repo : repos) {
+                if (!(repo instanceof JkRepo.JkMavenRepository) || !repo.accepts(moduleId)) {
+                    continue;
+                }
+                final String base = repo.url().toExternalForm();
+                final String url = base.endsWith("/") ? base + path : base + "/" + path;
+                try {
+                    final InputStream inputStream = open(repo, new URL(url));
+                    if (inputStream == null) {
+                        continue;
+                    }
+                    final File result = JkUtilsFile.tempFile("jerkar-verify", ".tmp");
+                    final OutputStream outputStream = JkUtilsIO.outputStream(result, false);
+                    try {
+                        JkUtilsIO.copy(inputStream, outputStream);
+                    } finally {
+                        JkUtilsIO.closeQuietly(inputStream, outputStream);
+                    }
+                    return result;
+                } catch (final IOException e) {
+                    JkLog.trace("Unable to fetch " + url + " : " + e.getMessage());
+                }
+            }
+            return null;
+        }
+
+    }
+
+    private static InputStream open(JkRepo repo, URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            final File file;
+            try {
+                file = new File(url.toURI());
+            } catch (final URISyntaxException e) {
+                throw new IOException(e.getMessage());
+            }
+            return file.exists() ? JkUtilsIO.inputStream(file) : null;
+        }
+        final URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        if (repo.hasCredentials()) {
+            final String credentials = repo.userName() + ":" + repo.password();
+            connection.setRequestProperty("Authorization",
+                    "Basic " + base64(credentials.getBytes("UTF-8")));
+        }
+        if (connection instanceof HttpURLConnection
+                && ((HttpURLConnection) connection).getResponseCode() != HttpURLConnection.HTTP_OK) {
+            ((HttpURLConnection) connection).disconnect();
+            return null;
+        }
+        return connection.getInputStream();
+    }
+
+    private static String base64(byte[] bytes) {
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < bytes.length; i += 3) {
+            final int remaining = bytes.length - i;
+            final int b0 = bytes[i] & 0xff;
+            final int b1 = remaining > 1 ? bytes[i + 1] & 0xff : 0;
+            final int b2 = remaining > 2 ? bytes[i + 2] & 0xff : 0;
+            result.append(BASE64[b0 >> 2]);
+            result.append(BASE64[((b0 & 0x3) << 4) | (b1 >> 4)]);
+            result.append(remaining > 1 ? BASE64[((b1 & 0xf) << 2) | (b2 >> 6)] : '=');
+            result.append(remaining > 2 ? BASE64[b2 & 0x3f] : '=');
+        }
+        return result.toString();
+    }
+
+}
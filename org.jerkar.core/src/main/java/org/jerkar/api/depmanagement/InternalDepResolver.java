@@ -20,4 +20,10 @@ interface InternalDepResolver {
 
     File get(JkModuleDependency dependency);
 
+    /**
+     * Returns the location the specified dependency file has or will have in
+     * the repository cache, <code>null</code> if it can not be known.
+     */
+    File cacheLocation(JkModuleDependency dependency);
+
 }
\ No newline at end of file
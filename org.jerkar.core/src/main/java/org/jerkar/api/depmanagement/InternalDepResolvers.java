@@ -7,6 +7,9 @@ class InternalDepResolvers {
     /**
      * Dependency resolver based on Apache Ivy.
      * This resolver is loaded in a dedicated classloader containing Ivy classes.
+     * Each resolver has its own Ivy instance, so resolvers can run
+     * concurrently. They share the repository cache while resolution results
+     * are shared by {@link JkDependencyResolver}.
      */
     public static InternalDepResolver ivy(JkRepos repos) {
         return IvyClassloader.CLASSLOADER.transClassloaderProxy(
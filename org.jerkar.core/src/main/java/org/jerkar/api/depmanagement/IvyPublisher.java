@@ -206,20 +206,27 @@ final class IvyPublisher implements InternalPublisher {
     private int publishMavenArtifacts(JkMavenPublication publication,
             DefaultModuleDescriptor moduleDescriptor) {
         int count = 0;
-        for (final RepositoryResolver resolver : IvyTranslations.publishResolverOf(this.ivy
-                .getSettings())) {
-            final JkPublishRepo publishRepo = this.publishRepos.getRepoHavingUrl(IvyTranslations
-                    .publishResolverUrl(resolver));
-            final JkVersionedModule jkModule = IvyTranslations
-                    .toJkVersionedModule(moduleDescriptor.getModuleRevisionId());
-            if (isMaven(resolver) && publishRepo.filter().accept(jkModule)) {
-                JkLog.startln("Publishing for repository " + resolver);
-                final CheckFileFlag checkFileFlag = CheckFileFlag.of(publishRepo);
-                final IvyPublisherForMaven ivyPublisherForMaven = new IvyPublisherForMaven(
-                        checkFileFlag, resolver, descriptorOutputDir, publishRepo.uniqueSnapshot());
-                ivyPublisherForMaven.publish(moduleDescriptor, publication);
-                count++;
+        final PublicationStage stage = new PublicationStage();
+        try {
+            for (final RepositoryResolver resolver : IvyTranslations.publishResolverOf(this.ivy
+                    .getSettings())) {
+                final JkPublishRepo publishRepo = this.publishRepos.getRepoHavingUrl(IvyTranslations
+                        .publishResolverUrl(resolver));
+                final JkVersionedModule jkModule = IvyTranslations
+                        .toJkVersionedModule(moduleDescriptor.getModuleRevisionId());
+                if (isMaven(resolver) && publishRepo.filter().accept(jkModule)) {
+                    JkLog.startln("Publishing for repository " + resolver);
+                    final CheckFileFlag checkFileFlag = CheckFileFlag.of(publishRepo);
+                    final IvyPublisherForMaven ivyPublisherForMaven = new IvyPublisherForMaven(
+                            checkFileFlag, resolver, publishRepo, descriptorOutputDir, publishRepo.uniqueSnapshot(),
+                            stage);
+                    ivyPublisherForMaven.publish(moduleDescriptor, publication);
+                    JkLog.done();
+                    count++;
+                }
             }
+        } finally {
+            stage.close();
         }
         return count;
     }
@@ -5,6 +5,9 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
@@ -17,21 +20,22 @@ import org.apache.ivy.plugins.repository.Resource;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
 import org.apache.ivy.plugins.resolver.IBiblioResolver;
 import org.apache.ivy.plugins.resolver.RepositoryResolver;
-import org.apache.ivy.util.ChecksumHelper;
 import org.jerkar.api.depmanagement.IvyPublisher.CheckFileFlag;
 import org.jerkar.api.depmanagement.JkMavenPublication.JkClassifiedArtifact;
-import org.jerkar.api.depmanagement.MavenMetadata.Versioning.Snapshot;
 import org.jerkar.api.system.JkLog;
 import org.jerkar.api.utils.JkUtilsFile;
 import org.jerkar.api.utils.JkUtilsIO;
-import org.jerkar.api.utils.JkUtilsObject;
 import org.jerkar.api.utils.JkUtilsString;
 import org.jerkar.api.utils.JkUtilsThrowable;
 import org.jerkar.api.utils.JkUtilsTime;
 
 /**
  * {@link IvyPublisher} delegates to this class for publishing to Maven
- * repositories.
+ * repositories. Checksums and signatures are computed ahead on the
+ * {@link PublicationStage}, files are uploaded concurrently then
+ * maven-metadata.xml files are updated last, once all files are in place.
+ * Ivy resolvers are not thread-safe : each upload thread puts files through a
+ * resolver of its own.
  */
 final class IvyPublisherForMaven {
 
@@ -43,13 +47,26 @@ final class IvyPublisherForMaven {
 
     private final boolean uniqueSnapshot;
 
+    private final PublicationStage stage;
+
+    private final ThreadLocal<RepositoryResolver> uploadResolvers;
+
     IvyPublisherForMaven(CheckFileFlag checkFileFlag, RepositoryResolver dependencyResolver,
-            File descriptorOutputDir, boolean uniqueSnapshot) {
+            final JkPublishRepo publishRepo, File descriptorOutputDir, boolean uniqueSnapshot,
+            PublicationStage stage) {
         super();
         this.resolver = dependencyResolver;
+        this.uploadResolvers = new ThreadLocal<RepositoryResolver>() {
+
+            @Override
+            protected RepositoryResolver initialValue() {
+                return IvyTranslations.publishResolverOf(publishRepo);
+            }
+        };
         this.descriptorOutputDir = descriptorOutputDir;
         this.checkFileFlag = checkFileFlag;
         this.uniqueSnapshot = uniqueSnapshot;
+        this.stage = stage;
     }
 
     void publish(DefaultModuleDescriptor moduleDescriptor, JkMavenPublication publication) {
@@ -59,88 +76,88 @@ final class IvyPublisherForMaven {
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
-
-        // publish artifacts
         final JkVersionedModule versionedModule = IvyTranslations
                 .toJkVersionedModule(ivyModuleRevisionId);
-        final MavenMetadata returnedMetaData = publish(versionedModule, publication);
-
-        // publish pom
+        if (!versionedModule.version().isSnapshot()) {
+            final String existing = checkNotExist(versionedModule, publication);
+            if (existing != null) {
+                throw new IllegalArgumentException("Artifact " + existing
+                        + " already exists on repo.");
+            }
+        }
         final File pomXml = makePom(moduleDescriptor, publication);
+
+        // Compute the version under which files are published
         final String version;
+        final MavenMetadata snapshotMetadata;
         if (versionedModule.version().isSnapshot() && this.uniqueSnapshot) {
-            final String path = snapshotMetadataPath(versionedModule);
-            final MavenMetadata mavenMetadata = JkUtilsObject.firstNonNull(loadMavenMedatata(path),
-                    returnedMetaData);
-            final Snapshot snap = mavenMetadata.currentSnapshot();
-            version = versionForUniqueSnapshot(versionedModule.version().name(), snap.timestamp,
-                    snap.buildNumber);
-            final String pomDest = destination(versionedModule, "pom", null, version);
-            putAll(pomXml, pomDest, true);
-            mavenMetadata.addSnapshotVersion("pom", null);
-            push(mavenMetadata, path);
+            final String timestamp = JkUtilsTime.nowUtc("yyyyMMdd.HHmmss");
+            final MavenMetadata loaded = loadMavenMedatata(snapshotMetadataPath(versionedModule));
+            snapshotMetadata = loaded == null ? MavenMetadata.of(versionedModule, timestamp) : loaded;
+            snapshotMetadata.updateSnapshot(timestamp);
+            version = versionForUniqueSnapshot(versionedModule.version().name(), timestamp,
+                    snapshotMetadata.currentBuildNumber());
         } else {
+            snapshotMetadata = null;
             version = versionedModule.version().name();
-            final String pomDest = destination(versionedModule, "pom", null, version);
-            putAll(pomXml, pomDest, true);
         }
+
+        // Stage and upload artifacts and pom concurrently
+        final boolean overwrite = versionedModule.version().isSnapshot() && !this.uniqueSnapshot;
+        final List<File> files = new LinkedList<File>();
+        final List<Callable<Void>> uploads = new LinkedList<Callable<Void>>();
+        for (final File file : publication.mainArtifactFiles()) {
+            files.add(file);
+            uploads.add(upload(file, stagedDestination(versionedModule, null, extension(file), version,
+                    snapshotMetadata), overwrite));
+        }
+        for (final JkClassifiedArtifact classifiedArtifact : publication.classifiedArtifacts()) {
+            final File file = classifiedArtifact.file();
+            files.add(file);
+            uploads.add(upload(file, stagedDestination(versionedModule, classifiedArtifact.classifier(),
+                    extension(file), version, snapshotMetadata), overwrite));
+        }
+        files.add(pomXml);
+        uploads.add(upload(pomXml, stagedDestination(versionedModule, null, "pom", version, snapshotMetadata),
+                true));
+        stage.prepare(files, resolver.getChecksumAlgorithms(), checkFileFlag.pgpSigner);
+        stage.upload(uploads);
         if (this.descriptorOutputDir == null) {
             pomXml.delete();
         }
 
-        // update maven-metadata
-        if (returnedMetaData != null) {
+        // Commit : update maven-metadata once all files are uploaded
+        if (snapshotMetadata != null) {
+            push(snapshotMetadata, snapshotMetadataPath(versionedModule));
             updateMetadata(ivyModuleRevisionId.getModuleId(), ivyModuleRevisionId.getRevision(),
-                    returnedMetaData.lastUpdateTimestamp());
+                    snapshotMetadata.lastUpdateTimestamp());
         }
 
         commitPublication(resolver);
     }
 
-    private MavenMetadata publish(JkVersionedModule versionedModule,
-            JkMavenPublication mavenPublication) {
-        if (!versionedModule.version().isSnapshot()) {
-            final String existing = checkNotExist(versionedModule, mavenPublication);
-            if (existing != null) {
-                throw new IllegalArgumentException("Artifact " + existing
-                        + " already exists on repo.");
-            }
+    // Returns the destination path of the specified file and registers it in snapshot metadata if any
+    private static String stagedDestination(JkVersionedModule versionedModule, String classifier,
+            String extension, String version, MavenMetadata snapshotMetadata) {
+        if (snapshotMetadata != null) {
+            snapshotMetadata.addSnapshotVersion(extension, classifier);
         }
-        if (versionedModule.version().isSnapshot() && this.uniqueSnapshot) {
-            final String path = snapshotMetadataPath(versionedModule);
-            MavenMetadata mavenMetadata = loadMavenMedatata(path);
-            final String timestamp = JkUtilsTime.nowUtc("yyyyMMdd.HHmmss");
-            if (mavenMetadata == null) {
-                mavenMetadata = MavenMetadata.of(versionedModule, timestamp);
-            }
-            mavenMetadata.updateSnapshot(timestamp);
-            push(mavenMetadata, path);
-            final int buildNumber = mavenMetadata.currentBuildNumber();
+        return destination(versionedModule, extension, classifier, version);
+    }
 
-            final String versionUniqueSnapshot = versionForUniqueSnapshot(versionedModule.version()
-                    .name(), timestamp, buildNumber);
+    private static String extension(File file) {
+        return JkUtilsString.substringAfterLast(file.getName(), ".");
+    }
 
-            for (final File file : mavenPublication.mainArtifactFiles()) {
-                publishUniqueSnapshot(versionedModule, null, file, versionUniqueSnapshot,
-                        mavenMetadata);
-            }
-            for (final JkClassifiedArtifact classifiedArtifact : mavenPublication
-                    .classifiedArtifacts()) {
-                publishUniqueSnapshot(versionedModule, classifiedArtifact.classifier(),
-                        classifiedArtifact.file(), versionUniqueSnapshot, mavenMetadata);
-            }
-            return mavenMetadata;
-        } else {
-            for (final File file : mavenPublication.mainArtifactFiles()) {
-                publishNormal(versionedModule, null, file);
-            }
-            for (final JkClassifiedArtifact classifiedArtifact : mavenPublication
-                    .classifiedArtifacts()) {
-                publishNormal(versionedModule, classifiedArtifact.classifier(),
-                        classifiedArtifact.file());
+    private Callable<Void> upload(final File source, final String dest, final boolean overwrite) {
+        return new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                putAll(uploadResolvers.get(), source, dest, overwrite, true);
+                return null;
             }
-            return null;
-        }
+        };
     }
 
     private File makePom(ModuleDescriptor moduleDescriptor, JkMavenPublication publication) {
@@ -211,27 +228,6 @@ final class IvyPublisherForMaven {
         }
     }
 
-    private void publishUniqueSnapshot(JkVersionedModule versionedModule, String classifier,
-            File source, String versionForUniqueSpshot, MavenMetadata mavenMetadata) {
-
-        final String extension = JkUtilsString.substringAfterLast(source.getName(), ".");
-        final String dest = destination(versionedModule, extension, classifier,
-                versionForUniqueSpshot);
-        putAll(source, dest, false);
-        final String path = snapshotMetadataPath(versionedModule);
-        mavenMetadata.addSnapshotVersion(extension, classifier);
-        push(mavenMetadata, path);
-    }
-
-    private void publishNormal(JkVersionedModule versionedModule, String classifier, File source) {
-
-        final String extension = JkUtilsString.substringAfterLast(source.getName(), ".");
-        final String version = versionedModule.version().name();
-        final String dest = destination(versionedModule.withVersion(version), extension, classifier);
-        final boolean overwrite = versionedModule.version().isSnapshot();
-        putAll(source, dest, overwrite);
-    }
-
     private static String destination(JkVersionedModule versionedModule, String ext,
             String classifier) {
         return destination(versionedModule, ext, classifier, versionedModule.version().name());
@@ -280,7 +276,7 @@ final class IvyPublisherForMaven {
             throw new RuntimeException(e);
         }
         JkUtilsIO.closeQuietly(outputStream);
-        putAll(file, path, true);
+        putAll(resolver, file, path, true, true);
     }
 
     private static JkVersionedModule of(ModuleId moduleId, String version) {
@@ -316,10 +312,6 @@ final class IvyPublisherForMaven {
         }
     }
 
-    private void putAll(File source, String dest, boolean overwrite) {
-        putAll(source, dest, overwrite, true);
-    }
-
     private String completePath(String path) {
         if (this.resolver instanceof IBiblioResolver) {
             final IBiblioResolver iBiblioResolver = (IBiblioResolver) this.resolver;
@@ -328,16 +320,17 @@ final class IvyPublisherForMaven {
         return path;
     }
 
-    private void putAll(File source, String destination, boolean overwrite, boolean signIfneeded) {
-        final String[] checksums = this.resolver.getChecksumAlgorithms();
-        final Repository repository = this.resolver.getRepository();
+    private void putAll(RepositoryResolver resolver, File source, String destination, boolean overwrite,
+            boolean signIfneeded) {
+        final String[] checksums = resolver.getChecksumAlgorithms();
+        final Repository repository = resolver.getRepository();
         try {
             final String dest = completePath(destination);
             JkLog.info("publishing to " + dest);
             repository.put(null, source, dest, overwrite);
             for (final String algo : checksums) {
                 final File temp = JkUtilsFile.tempFile("jk-checksum-", algo);
-                final String checkSum = ChecksumHelper.computeAsString(source, algo);
+                final String checkSum = stage.checksum(source, algo);
                 JkUtilsFile.writeString(temp, checkSum, false);
                 final String csDest = dest + "." + algo;
                 JkLog.info("publishing to " + csDest);
@@ -345,9 +338,9 @@ final class IvyPublisherForMaven {
                 temp.delete();
             }
             if (this.checkFileFlag.pgpSigner != null && signIfneeded) {
-                final File signed = checkFileFlag.pgpSigner.sign(source)[0];
+                final File signed = stage.signature(source, checkFileFlag.pgpSigner);
                 final String signedDest = destination + ".asc";
-                putAll(signed, signedDest, overwrite, false);
+                putAll(resolver, signed, signedDest, overwrite, false);
             }
         } catch (final IOException e) {
             throw new RuntimeException(e);
@@ -2,10 +2,13 @@ package org.jerkar.api.depmanagement;
 
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.IvyContext;
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
+import org.apache.ivy.core.cache.RepositoryCacheManager;
 import org.apache.ivy.core.cache.ResolutionCacheManager;
 import org.apache.ivy.core.module.descriptor.*;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.DownloadStatus;
 import org.apache.ivy.core.report.ResolveReport;
 import org.apache.ivy.core.resolve.DownloadOptions;
 import org.apache.ivy.core.resolve.IvyNode;
@@ -16,6 +19,7 @@ import org.apache.ivy.util.url.URLHandlerRegistry;
 import org.jerkar.api.depmanagement.JkDependencyNode.ModuleNodeInfo;
 import org.jerkar.api.system.JkLocator;
 import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkMetrics;
 import org.jerkar.api.utils.JkUtilsIterable;
 import org.jerkar.api.utils.JkUtilsObject;
 import org.jerkar.api.utils.JkUtilsThrowable;
@@ -38,6 +42,10 @@ final class IvyResolver implements InternalDepResolver {
 
     private final Ivy ivy;
 
+    private Ivy offlineIvy;
+
+    private LocalModuleIndex localModuleIndex;
+
     private IvyResolver(Ivy ivy) {
         super();
         this.ivy = ivy;
@@ -66,11 +74,43 @@ final class IvyResolver implements InternalDepResolver {
      */
     private static IvySettings ivySettingsOf(JkRepos resolveRepos) {
         final IvySettings ivySettings = new IvySettings();
+        ivySettings.setDefaultCache(JkLocator.jerkarRepositoryCache());
+        lockCache(ivySettings);
         IvyTranslations.populateIvySettingsWithRepo(ivySettings, resolveRepos);
+        return ivySettings;
+    }
+
+    /**
+     * Creates an <code>IvySettings</code> resolving only from the local repository cache.
+     */
+    private static IvySettings offlineIvySettings() {
+        final IvySettings ivySettings = new IvySettings();
         ivySettings.setDefaultCache(JkLocator.jerkarRepositoryCache());
+        lockCache(ivySettings);
+        IvyTranslations.populateIvySettingsWithCache(ivySettings);
         return ivySettings;
     }
 
+    // Ivy instances resolving concurrently write to the same repository cache
+    private static void lockCache(IvySettings ivySettings) {
+        ivySettings.setDefaultLockStrategy(ivySettings.getLockStrategy("artifact-lock"));
+    }
+
+    private Ivy offlineIvy() {
+        if (offlineIvy == null) {
+            offlineIvy = ivy(offlineIvySettings());
+        }
+        return offlineIvy;
+    }
+
+    // Only offline resolutions read the index, so the cache is not scanned otherwise
+    private LocalModuleIndex localModuleIndex() {
+        if (localModuleIndex == null) {
+            localModuleIndex = LocalModuleIndex.of(JkLocator.jerkarRepositoryCache());
+        }
+        return localModuleIndex;
+    }
+
     /**
      * Creates an instance using specified repository for publishing and the
      * specified repositories for resolving.
@@ -79,9 +119,10 @@ final class IvyResolver implements InternalDepResolver {
         return of(ivySettingsOf(resolveRepos));
     }
 
+    // Ivy instances are not thread-safe
     @SuppressWarnings("unchecked")
     @Override
-    public JkResolveResult resolve(JkVersionedModule moduleArg, JkDependencies deps,
+    public synchronized JkResolveResult resolve(JkVersionedModule moduleArg, JkDependencies deps,
             JkResolutionParameters parameters, JkVersionProvider versionProvider, JkScope ... resolvedScopes) {
 
         final JkVersionedModule module;
@@ -97,6 +138,20 @@ final class IvyResolver implements InternalDepResolver {
         if (versionProvider == null) {
             versionProvider = JkVersionProvider.empty();
         }
+        final Ivy ivy;
+        if (parameters.offline()) {
+            final LocalModuleIndex localModuleIndex = localModuleIndex();
+            final List<JkModuleDepProblem> missings = localModuleIndex.missingModules(deps, versionProvider);
+            localModuleIndex.saveIfChanged();
+            if (!missings.isEmpty()) {
+                final JkDependencyNode root = JkDependencyNode.ofModuleDep(ModuleNodeInfo.root(module),
+                        new LinkedList<JkDependencyNode>());
+                return JkResolveResult.of(root, JkResolveResult.JkErrorReport.failure(missings));
+            }
+            ivy = offlineIvy();
+        } else {
+            ivy = this.ivy;
+        }
         final DefaultModuleDescriptor moduleDescriptor = IvyTranslations.toPublicationLessModule(module, deps,
                 parameters.defaultMapping(), versionProvider, ivy.getSettings());
 
@@ -106,8 +161,15 @@ final class IvyResolver implements InternalDepResolver {
         resolveOptions.setTransitive(true);
         resolveOptions.setOutputReport(JkLog.verbose());
         resolveOptions.setLog(logLevel());
-        resolveOptions.setRefresh(parameters.refreshed());
-        resolveOptions.setCheckIfChanged(true);
+        if (parameters.offline()) {
+            resolveOptions.setUseCacheOnly(true);
+            resolveOptions.setRefresh(false);
+            resolveOptions.setCheckIfChanged(false);
+        } else {
+            final boolean updatePolicy = IvyUpdatePolicyCacheManager.configure(ivy.getSettings(), parameters);
+            resolveOptions.setRefresh(parameters.refreshed() && !updatePolicy);
+            resolveOptions.setCheckIfChanged(true);
+        }
         if (resolvedScopes.length == 0) {   // if no scope, verbose ivy report turns in exception
             resolveOptions.setOutputReport(false);
         }
@@ -125,17 +187,33 @@ final class IvyResolver implements InternalDepResolver {
             errorReport = JkResolveResult.JkErrorReport.allFine();
         }
         final ArtifactDownloadReport[] artifactDownloadReports = ivyReport.getAllArtifactsReports();
+        collectMetrics(artifactDownloadReports);
         IvyArtifactContainer artifactContainer = IvyArtifactContainer.of(artifactDownloadReports);
         JkResolveResult resolveResult = getResolveConf(ivyReport.getDependencies(), module,
                 errorReport, artifactContainer);
         if (moduleArg == null) {
-            deleteResolveCache(module);
+            deleteResolveCache(ivy, module);
         }
+        IvyTranslations.saveRoutingTable(ivy.getSettings());
+        IvyUpdatePolicyCacheManager.saveCheckIndex(ivy.getSettings());
         return resolveResult;
     }
 
-    private void deleteResolveCache(JkVersionedModule module) {
-        final ResolutionCacheManager cacheManager = this.ivy.getSettings().getResolutionCacheManager();
+    private static void collectMetrics(ArtifactDownloadReport[] reports) {
+        for (final ArtifactDownloadReport report : reports) {
+            if (report.getDownloadStatus() == DownloadStatus.SUCCESSFUL) {
+                JkMetrics.increment("resolution.artifacts.downloaded");
+                JkMetrics.add("resolution.bytesDownloaded", report.getSize());
+            } else if (report.getDownloadStatus() == DownloadStatus.NO) {
+                JkMetrics.increment("resolution.artifacts.cacheHits");
+            } else if (report.getDownloadStatus() == DownloadStatus.FAILED) {
+                JkMetrics.increment("resolution.artifacts.failed");
+            }
+        }
+    }
+
+    private static void deleteResolveCache(Ivy ivy, JkVersionedModule module) {
+        final ResolutionCacheManager cacheManager = ivy.getSettings().getResolutionCacheManager();
         final ModuleRevisionId moduleRevisionId = IvyTranslations.toModuleRevisionId(module);
         final File propsFile = cacheManager.getResolvedIvyPropertiesInCache(moduleRevisionId);
         propsFile.delete();
@@ -168,8 +246,31 @@ final class IvyResolver implements InternalDepResolver {
         return JkVersionedModule.of(JkModuleId.of("anonymousGroup", "anonymousName"), JkVersion.name(version));
     }
 
+    // Synchronized as resolve
     @Override
-    public File get(JkModuleDependency dependency) {
+    public synchronized File get(JkModuleDependency dependency) {
+        final DefaultArtifact artifact = toArtifact(dependency);
+
+        // Ivy keeps its context in a thread local, so each thread needs its own one
+        ivy.pushContext();
+        try {
+            final ArtifactDownloadReport report = ivy.getResolveEngine().download(artifact, new DownloadOptions());
+            return report.getLocalFile();
+        } finally {
+            ivy.popContext();
+        }
+    }
+
+    @Override
+    public File cacheLocation(JkModuleDependency dependency) {
+        final RepositoryCacheManager cacheManager = ivy.getSettings().getDefaultRepositoryCacheManager();
+        if (!(cacheManager instanceof DefaultRepositoryCacheManager)) {
+            return null;
+        }
+        return ((DefaultRepositoryCacheManager) cacheManager).getArchiveFileInCache(toArtifact(dependency));
+    }
+
+    private static DefaultArtifact toArtifact(JkModuleDependency dependency) {
         final ModuleRevisionId moduleRevisionId = IvyTranslations.toModuleRevisionId(dependency.moduleId(),
                 dependency.versionRange());
         final boolean isMetadata = "pom".equalsIgnoreCase(dependency.ext());
@@ -186,8 +287,7 @@ final class IvyResolver implements InternalDepResolver {
             artifact = new DefaultArtifact(moduleRevisionId, null, dependency.moduleId().name(), typeAndExt,
                     typeAndExt, extra);
         }
-        final ArtifactDownloadReport report = ivy.getResolveEngine().download(artifact, new DownloadOptions());
-        return report.getLocalFile();
+        return artifact;
     }
 
     private static JkDependencyNode createTree(Iterable<IvyNode> nodes, JkVersionedModule rootVersionedModule,
@@ -0,0 +1,164 @@
+package org.jerkar.api.depmanagement;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.resolve.ResolveData;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.resolver.ChainResolver;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.version.VersionMatcher;
+import org.jerkar.api.system.JkLog;
+
+/**
+ * Not part of the public API.<br/>
+ * Chain resolver that avoids querying repositories known not to host a module.
+ * For each module, the candidate repositories are those accepting the module
+ * group (see {@link JkRepo#groupPrefixes()}) and, for remote ones, not having
+ * recently missed it. For static revisions, the repository the module has been last found in
+ * is tried first and alone ; other candidates are tried only if it fails.
+ * Lookups never alter the chain so they can run concurrently. Repositories
+ * failing to provide a module revision are recorded as missing it
+ * in the {@link RepoRoutingTable}, the repository providing it is recorded as
+ * its route.
+ *
+ * @author Jerome Angibaud
+ */
+final class IvyRoutingChainResolver extends ChainResolver {
+
+    private final RepoRoutingTable routingTable;
+
+    private final Map<String, JkRepo> repos = new HashMap<String, JkRepo>();
+
+    IvyRoutingChainResolver(RepoRoutingTable routingTable) {
+        super();
+        this.routingTable = routingTable;
+    }
+
+    /**
+     * Adds the specified resolver to this chain. The specified repo is the one
+     * the resolver has been created from.
+     */
+    void add(DependencyResolver resolver, JkRepo repo) {
+        super.add(resolver);
+        repos.put(resolver.getName(), repo);
+    }
+
+    RepoRoutingTable routingTable() {
+        return routingTable;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public ResolvedModuleRevision getDependency(DependencyDescriptor dd, ResolveData data)
+            throws ParseException {
+        final ModuleRevisionId mrid = dd.getDependencyRevisionId();
+        final JkModuleId moduleId = JkModuleId.of(mrid.getOrganisation(), mrid.getName());
+        final String moduleRevision = moduleId.groupAndName() + ":" + mrid.getRevision();
+        final List<DependencyResolver> all = new ArrayList<DependencyResolver>(getResolvers());
+        final List<DependencyResolver> candidates = new LinkedList<DependencyResolver>();
+        for (final DependencyResolver resolver : all) {
+            final JkRepo repo = repos.get(resolver.getName());
+            if (repo != null && !repo.accepts(moduleId)) {
+                continue;
+            }
+            if (isRemote(resolver) && routingTable.isKnownMissing(resolver.getName(), moduleRevision)) {
+                JkLog.trace("Skip " + resolver.getName() + " for " + moduleRevision + " : known as missing.");
+                continue;
+            }
+            candidates.add(resolver);
+        }
+        if (candidates.isEmpty()) {
+            candidates.addAll(all);
+        }
+        final VersionMatcher versionMatcher = data.getSettings().getVersionMatcher();
+        final boolean dynamic = versionMatcher.isDynamic(mrid);
+        if (!dynamic) {
+            final DependencyResolver routed = routed(moduleId, candidates);
+            if (routed != null) {
+                final ResolvedModuleRevision result = getDependency(dd, data, routed, moduleId,
+                        moduleRevision);
+                if (result != null) {
+                    return result;
+                }
+                candidates.remove(routed);
+            }
+        }
+        return getDependency(dd, data, candidates, moduleId, moduleRevision);
+    }
+
+    // Local repositories are cheap to query and may be published in at any moment
+    private boolean isRemote(DependencyResolver resolver) {
+        final JkRepo repo = repos.get(resolver.getName());
+        return repo != null && !"file".equals(repo.url().getProtocol());
+    }
+
+    private DependencyResolver routed(JkModuleId moduleId, List<DependencyResolver> candidates) {
+        final String route = routingTable.route(moduleId.groupAndName());
+        if (route == null) {
+            return null;
+        }
+        for (final DependencyResolver resolver : candidates) {
+            if (route.equals(resolver.getName())) {
+                return resolver;
+            }
+        }
+        return null;
+    }
+
+    private ResolvedModuleRevision getDependency(DependencyDescriptor dd, ResolveData data,
+            DependencyResolver resolver, JkModuleId moduleId, String moduleRevision)
+                    throws ParseException {
+        final List<DependencyResolver> singleton = new LinkedList<DependencyResolver>();
+        singleton.add(resolver);
+        return getDependency(dd, data, singleton, moduleId, moduleRevision);
+    }
+
+    // The chain of this resolver is left untouched so lookups can run concurrently
+    private ResolvedModuleRevision getDependency(DependencyDescriptor dd, ResolveData data,
+            List<DependencyResolver> candidates, JkModuleId moduleId, String moduleRevision)
+                    throws ParseException {
+        final ResolvedModuleRevision result = narrowed(candidates).getDependency(dd, data);
+        final String moduleName = moduleId.groupAndName();
+        if (result == null) {
+            for (final DependencyResolver resolver : candidates) {
+                if (isRemote(resolver)) {
+                    routingTable.missing(moduleName, moduleRevision, resolver.getName());
+                }
+            }
+            return null;
+        }
+        final String foundName = result.getResolver() == null ? null : result.getResolver().getName();
+        if (foundName != null && repos.containsKey(foundName)) {
+            routingTable.found(moduleName, moduleRevision, foundName);
+        }
+        return result;
+    }
+
+    /*
+     * Returns a chain holding only the specified resolvers but otherwise
+     * configured as this one, so it shares its name and cache.
+     */
+    private ChainResolver narrowed(List<DependencyResolver> candidates) {
+        final ChainResolver result = new ChainResolver();
+        result.setName(getName());
+        result.setSettings(getSettings());
+        result.setEventManager(getEventManager());
+        result.setRepositoryCacheManager(getRepositoryCacheManager());
+        result.setLatestStrategy(getLatestStrategy());
+        result.setValidate(isValidate());
+        result.setReturnFirst(isReturnFirst());
+        result.setDual(isDual());
+        for (final DependencyResolver resolver : candidates) {
+            result.add(resolver);
+        }
+        return result;
+    }
+
+}
@@ -18,6 +18,8 @@ import org.apache.ivy.plugins.matcher.ExactOrRegexpPatternMatcher;
 import org.apache.ivy.plugins.matcher.ExactPatternMatcher;
 import org.apache.ivy.plugins.matcher.PatternMatcher;
 import org.apache.ivy.plugins.repository.file.FileRepository;
+import org.apache.ivy.plugins.resolver.AbstractResolver;
+import org.apache.ivy.plugins.resolver.CacheResolver;
 import org.apache.ivy.plugins.resolver.ChainResolver;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
 import org.apache.ivy.plugins.resolver.FileSystemResolver;
@@ -28,6 +30,7 @@ import org.apache.ivy.util.url.CredentialsStore;
 import org.jerkar.api.depmanagement.JkMavenPublication.JkClassifiedArtifact;
 import org.jerkar.api.depmanagement.JkRepo.JkIvyRepository;
 import org.jerkar.api.depmanagement.JkScopedDependency.ScopeType;
+import org.jerkar.api.system.JkLocator;
 import org.jerkar.api.utils.JkUtilsIterable;
 import org.jerkar.api.utils.JkUtilsObject;
 import org.jerkar.api.utils.JkUtilsReflect;
@@ -222,7 +225,18 @@ final class IvyTranslations {
     }
 
     static void populateIvySettingsWithRepo(IvySettings ivySettings, JkRepos repos) {
-        final DependencyResolver resolver = toChainResolver(repos);
+        final DependencyResolver resolver = toChainResolver(ivySettings, repos);
+        resolver.setName(MAIN_RESOLVER_NAME);
+        ivySettings.addResolver(resolver);
+        ivySettings.setDefaultResolver(MAIN_RESOLVER_NAME);
+    }
+
+    /**
+     * Populates the specified settings with a resolver fetching modules from the cache only.
+     * Such a resolver never accesses to the network.
+     */
+    static void populateIvySettingsWithCache(IvySettings ivySettings) {
+        final DependencyResolver resolver = new CacheResolver(ivySettings);
         resolver.setName(MAIN_RESOLVER_NAME);
         ivySettings.addResolver(resolver);
         ivySettings.setDefaultResolver(MAIN_RESOLVER_NAME);
@@ -241,6 +255,15 @@ final class IvyTranslations {
         return resolver.getName().substring(PUBLISH_RESOLVER_NAME.length());
     }
 
+    /**
+     * Creates a resolver publishing on the specified repository, having settings of its own.
+     */
+    static RepositoryResolver publishResolverOf(JkPublishRepo publishRepo) {
+        final IvySettings ivySettings = new IvySettings();
+        populateIvySettingsWithPublishRepo(ivySettings, JkPublishRepos.of(publishRepo));
+        return publishResolverOf(ivySettings).get(0);
+    }
+
     static List<RepositoryResolver> publishResolverOf(IvySettings ivySettings) {
         final List<RepositoryResolver> resolvers = new LinkedList<RepositoryResolver>();
         for (final Object resolverObject : ivySettings.getResolvers()) {
@@ -252,17 +275,44 @@ final class IvyTranslations {
         return resolvers;
     }
 
+    // Each resolver gets its own cache manager, sharing the same cache location, to apply update policies
     @SuppressWarnings("unchecked")
-    private static ChainResolver toChainResolver(JkRepos repos) {
-        final ChainResolver chainResolver = new ChainResolver();
+    private static ChainResolver toChainResolver(IvySettings ivySettings, JkRepos repos) {
+        final IvyRoutingChainResolver chainResolver = new IvyRoutingChainResolver(
+                RepoRoutingTable.of(JkLocator.jerkarRepositoryCache(), RepoRoutingTable.DEFAULT_NEGATIVE_TTL));
+        final MetadataCheckIndex checkIndex = MetadataCheckIndex.of(JkLocator.jerkarRepositoryCache());
+        chainResolver.setRepositoryCacheManager(policyCacheManager(ivySettings, MAIN_RESOLVER_NAME, null,
+                checkIndex));
         for (final JkRepo jkRepo : repos) {
             final DependencyResolver resolver = toResolver(jkRepo, Collections.EMPTY_SET, true);
             resolver.setName(jkRepo.toString());
-            chainResolver.add(resolver);
+            if (resolver instanceof AbstractResolver) {
+                ((AbstractResolver) resolver).setRepositoryCacheManager(policyCacheManager(ivySettings,
+                        jkRepo.toString(), jkRepo, checkIndex));
+            }
+            chainResolver.add(resolver, jkRepo);
         }
         return chainResolver;
     }
 
+    private static IvyUpdatePolicyCacheManager policyCacheManager(IvySettings ivySettings, String name,
+            JkRepo repo, MetadataCheckIndex checkIndex) {
+        final IvyUpdatePolicyCacheManager result = new IvyUpdatePolicyCacheManager("cache-" + name,
+                ivySettings, repo, checkIndex);
+        ivySettings.addRepositoryCacheManager(result);
+        return result;
+    }
+
+    /**
+     * Persists the repository routing table of the main resolver of the specified settings, if any.
+     */
+    static void saveRoutingTable(IvySettings ivySettings) {
+        final DependencyResolver resolver = ivySettings.getResolver(MAIN_RESOLVER_NAME);
+        if (resolver instanceof IvyRoutingChainResolver) {
+            ((IvyRoutingChainResolver) resolver).routingTable().saveIfChanged();
+        }
+    }
+
     static JkVersionedModule toJkVersionedModule(Artifact artifact) {
         final JkModuleId moduleId = JkModuleId.of(artifact.getModuleRevisionId().getOrganisation(),
                 artifact.getModuleRevisionId().getName());
@@ -0,0 +1,161 @@
+package org.jerkar.api.depmanagement;
+
+import java.text.ParseException;
+
+import org.apache.ivy.core.cache.CacheMetadataOptions;
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
+import org.apache.ivy.core.cache.RepositoryCacheManager;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.repository.ResourceDownloader;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.util.ResolvedResource;
+import org.jerkar.api.system.JkLog;
+
+/**
+ * Not part of the public API.<br/>
+ * Repository cache manager applying {@link JkUpdatePolicy}s. An instance is
+ * bound to a single repository (or to none for the main chain).
+ * <ul>
+ * <li>For dynamic versions, the policy gives the time-to-live of the version
+ * resolved from the remote metadata (maven-metadata.xml).</li>
+ * <li>For modules Ivy would check remotely at each resolution (snapshots and
+ * modules declared 'check modified'), the cached module is reused as long as
+ * the last check recorded in the {@link MetadataCheckIndex} is not expired
+ * according the policy. A check is recorded only once the module metadata
+ * has been fetched from the repository, so a failed check is retried at the
+ * next resolution.</li>
+ * </ul>
+ * The effective policy is the first defined among : module pattern policy of
+ * the resolution parameters, repository policy, default policy of the
+ * resolution parameters. If none is defined, Ivy default behavior applies.
+ *
+ * @author Jerome Angibaud
+ */
+final class IvyUpdatePolicyCacheManager extends DefaultRepositoryCacheManager {
+
+    private final JkRepo repo;
+
+    private final MetadataCheckIndex checkIndex;
+
+    private JkResolutionParameters parameters = JkResolutionParameters.of();
+
+    IvyUpdatePolicyCacheManager(String name, IvySettings settings, JkRepo repo, MetadataCheckIndex checkIndex) {
+        super(name, settings, settings.getDefaultRepositoryCacheBasedir());
+        this.repo = repo;
+        this.checkIndex = checkIndex;
+    }
+
+    /**
+     * Applies the specified resolution parameters to all the policy cache
+     * managers of the specified settings. Returns <code>true</code> if an
+     * update policy is defined either in parameters or in one of the
+     * repositories.
+     */
+    static boolean configure(IvySettings ivySettings, JkResolutionParameters parameters) {
+        boolean result = parameters.hasUpdatePolicy();
+        for (final RepositoryCacheManager cacheManager : ivySettings.getRepositoryCacheManagers()) {
+            if (cacheManager instanceof IvyUpdatePolicyCacheManager) {
+                final IvyUpdatePolicyCacheManager policyCacheManager = (IvyUpdatePolicyCacheManager) cacheManager;
+                policyCacheManager.parameters = parameters;
+                result = result || (policyCacheManager.repo != null && policyCacheManager.repo.updatePolicy() != null);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Persists the metadata check index shared by the policy cache managers of
+     * the specified settings.
+     */
+    static void saveCheckIndex(IvySettings ivySettings) {
+        for (final RepositoryCacheManager cacheManager : ivySettings.getRepositoryCacheManagers()) {
+            if (cacheManager instanceof IvyUpdatePolicyCacheManager) {
+                ((IvyUpdatePolicyCacheManager) cacheManager).checkIndex.saveIfChanged();
+            }
+        }
+    }
+
+    @Override
+    public long getTTL(ModuleRevisionId mrid) {
+        final JkUpdatePolicy policy = policy(mrid);
+        if (policy == null) {
+            return super.getTTL(mrid);
+        }
+        return policy.ttl();
+    }
+
+    @Override
+    public ResolvedModuleRevision findModuleInCache(DependencyDescriptor dd, ModuleRevisionId requestedRevisionId,
+            CacheMetadataOptions options, String expectedResolver) {
+        final JkUpdatePolicy policy = policy(requestedRevisionId);
+        if (policy == null || options.isForce() || !isRemotelyChecked(dd, requestedRevisionId, options)) {
+            return super.findModuleInCache(dd, requestedRevisionId, options, expectedResolver);
+        }
+        final String moduleRevision = moduleRevision(requestedRevisionId);
+        final Long lastCheck = checkIndex.lastCheck(repoName(), moduleRevision);
+        if (lastCheck != null && !policy.isExpired(lastCheck)) {
+            final ResolvedModuleRevision cached = super.findModuleInCache(dd, requestedRevisionId,
+                    upToDate(options), expectedResolver);
+            if (cached != null) {
+                JkLog.trace(moduleRevision + " metadata taken from cache (update policy " + policy + ").");
+                return cached;
+            }
+        }
+        return super.findModuleInCache(dd, requestedRevisionId, options, expectedResolver);
+    }
+
+    // Invoked once the metadata has been found in the repository, so the check has succeeded
+    @Override
+    public ResolvedModuleRevision cacheModuleDescriptor(DependencyResolver resolver, ResolvedResource mdRef,
+            DependencyDescriptor dd, Artifact moduleArtifact, ResourceDownloader downloader,
+            CacheMetadataOptions options) throws ParseException {
+        final ResolvedModuleRevision result = super.cacheModuleDescriptor(resolver, mdRef, dd, moduleArtifact,
+                downloader, options);
+        final ModuleRevisionId mrid = dd.getDependencyRevisionId();
+        if (result != null && policy(mrid) != null && isRemotelyChecked(dd, mrid, options)) {
+            checkIndex.checked(repoName(), moduleRevision(mrid));
+        }
+        return result;
+    }
+
+    private String repoName() {
+        return repo == null ? getName() : repo.url().toString();
+    }
+
+    private static String moduleRevision(ModuleRevisionId mrid) {
+        return mrid.getOrganisation() + ":" + mrid.getName() + ":" + mrid.getRevision();
+    }
+
+    private JkUpdatePolicy policy(ModuleRevisionId mrid) {
+        final JkUpdatePolicy modulePolicy = parameters.moduleUpdatePolicy(
+                JkModuleId.of(mrid.getOrganisation(), mrid.getName()));
+        if (modulePolicy != null) {
+            return modulePolicy;
+        }
+        if (repo != null && repo.updatePolicy() != null) {
+            return repo.updatePolicy();
+        }
+        return parameters.updatePolicy();
+    }
+
+    private static boolean isRemotelyChecked(DependencyDescriptor dd, ModuleRevisionId mrid,
+            CacheMetadataOptions options) {
+        return dd.isChanging() || Boolean.TRUE.equals(options.isCheckmodified())
+                || JkVersion.name(mrid.getRevision()).isSnapshot();
+    }
+
+    // Same options but not forcing to bypass the cache for changing or 'check modified' modules
+    private static CacheMetadataOptions upToDate(CacheMetadataOptions options) {
+        final CacheMetadataOptions result = new CacheMetadataOptions();
+        result.setNamespace(options.getNamespace()).setValidate(options.isValidate())
+                .setCheckmodified(Boolean.FALSE).setChangingMatcherName(null).setChangingPattern(null)
+                .setCheckTTL(options.isCheckTTL());
+        result.setForce(options.isForce()).setListener(options.getListener());
+        return result;
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.jerkar.api.depmanagement;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jerkar.api.crypto.pgp.JkPgp;
+
+/**
+ * Defines how artifacts downloaded during a resolution are verified. Each
+ * artifact is checked against the checksum published beside it on the Maven
+ * repository (first algorithm found among the specified ones) and optionally
+ * against its PGP signature (<code>.asc</code> file).<br/>
+ * Verifications are run concurrently and artifacts already verified are
+ * recorded in the repository cache so they are not verified twice.
+ *
+ * @author Jerome Angibaud
+ */
+public final class JkArtifactVerification {
+
+    /**
+     * Creates a verification checking SHA-256 or, if not published, SHA-1
+     * checksums. Artifacts with no checksum published are accepted.
+     */
+    public static JkArtifactVerification of() {
+        return new JkArtifactVerification(Arrays.asList("SHA-256", "SHA-1"), null, false,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    private final List<String> checksumAlgorithms;
+
+    private final JkPgp pgp;
+
+    private final boolean failOnMissing;
+
+    private final int threadCount;
+
+    private JkArtifactVerification(List<String> checksumAlgorithms, JkPgp pgp, boolean failOnMissing,
+            int threadCount) {
+        this.checksumAlgorithms = Collections.unmodifiableList(checksumAlgorithms);
+        this.pgp = pgp;
+        this.failOnMissing = failOnMissing;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Returns a copy of this verification but using the specified checksum
+     * algorithms (as "SHA-256", "SHA-1" or "MD5") by order of preference.
+     */
+    public JkArtifactVerification withChecksumAlgorithms(String... algorithms) {
+        return new JkArtifactVerification(Arrays.asList(algorithms), pgp, failOnMissing, threadCount);
+    }
+
+    /**
+     * Returns a copy of this verification but checking PGP signatures with the
+     * public ring of the specified {@link JkPgp}. Use <code>null</code> to skip
+     * signature verification.
+     */
+    public JkArtifactVerification withPgp(JkPgp pgp) {
+        return new JkArtifactVerification(checksumAlgorithms, pgp, failOnMissing, threadCount);
+    }
+
+    /**
+     * Returns a copy of this verification but failing or not when no checksum
+     * (or signature if PGP verification is on) is published for an artifact.
+     */
+    public JkArtifactVerification failOnMissing(boolean fail) {
+        return new JkArtifactVerification(checksumAlgorithms, pgp, fail, threadCount);
+    }
+
+    /**
+     * Returns a copy of this verification but running on the specified number
+     * of threads.
+     */
+    public JkArtifactVerification withThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be greater than 0. Was " + threadCount);
+        }
+        return new JkArtifactVerification(checksumAlgorithms, pgp, failOnMissing, threadCount);
+    }
+
+    /**
+     * Returns the checksum algorithms to check by order of preference.
+     */
+    public List<String> checksumAlgorithms() {
+        return checksumAlgorithms;
+    }
+
+    /**
+     * Returns the PGP used to verify signatures, <code>null</code> if
+     * signatures are not verified.
+     */
+    public JkPgp pgp() {
+        return pgp;
+    }
+
+    /**
+     * Returns <code>true</code> if an artifact with no published checksum or
+     * signature is considered as a failure.
+     */
+    public boolean isFailOnMissing() {
+        return failOnMissing;
+    }
+
+    /**
+     * Returns the number of threads used to verify artifacts.
+     */
+    public int threadCount() {
+        return threadCount;
+    }
+
+    @Override
+    public String toString() {
+        return checksumAlgorithms + (pgp == null ? "" : " + PGP") + (failOnMissing ? " (strict)" : "");
+    }
+
+}
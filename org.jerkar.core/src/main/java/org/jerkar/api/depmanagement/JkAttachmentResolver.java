@@ -0,0 +1,254 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jerkar.api.system.JkLocator;
+import org.jerkar.api.system.JkLog;
+import org.jerkar.api.utils.JkUtilsFile;
+
+/**
+ * Fetches the artifacts attached to modules, as sources or javadoc, for many
+ * modules at once. Lookups run concurrently and the ones that fail are
+ * remembered across builds, so a missing attachment is not asked again to the
+ * same repositories until a time-to-live expires. Each lookup thread has its
+ * own Ivy instance, so lookups do not interfere with resolutions running
+ * meanwhile.
+ * <p>
+ * Lookups still running when the wait budget is spent do not hold the caller :
+ * {@link #get(JkVersionedModule, String)} returns the location the file will
+ * have in the repository cache while the download goes on.
+ *
+ * @author Jerome Angibaud
+ */
+public final class JkAttachmentResolver {
+
+    private static final String FILE_NAME = "jerkar-attachment-misses.properties";
+
+    private static final int THREADS = 8;
+
+    private static final long DEFAULT_MAX_WAIT = 20000;
+
+    // Attachments seldom appear for a version already published
+    static final long DEFAULT_NEGATIVE_TTL = 7L * 24 * 60 * 60 * 1000;
+
+    private final JkRepos repos;
+
+    private final String reposFingerprint;
+
+    private final File missFile;
+
+    private final long negativeTtl;
+
+    private final long deadline;
+
+    private final Map<String, Long> misses = new HashMap<String, Long>();
+
+    private final Map<String, Future<File>> lookups = new HashMap<String, Future<File>>();
+
+    private final ThreadLocal<InternalDepResolver> threadResolvers = new ThreadLocal<InternalDepResolver>() {
+
+        @Override
+        protected InternalDepResolver initialValue() {
+            return InternalDepResolvers.ivy(repos);
+        }
+
+    };
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+
+        private int count;
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            return new Thread(runnable, "jerkar-attachment-" + count++);
+        }
+    });
+
+    private int pending;
+
+    private boolean changed;
+
+    private JkAttachmentResolver(JkRepos repos, File missFile, long negativeTtl, long maxWait) {
+        this.repos = repos;
+        this.reposFingerprint = fingerprint(repos);
+        this.missFile = missFile;
+        this.negativeTtl = negativeTtl;
+        this.deadline = System.currentTimeMillis() + maxWait;
+    }
+
+    /**
+     * Creates a resolver fetching attachments from the specified repositories
+     * and waiting at most 20 seconds for all of them.
+     */
+    public static JkAttachmentResolver of(JkRepos repos) {
+        return of(repos, DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * Creates a resolver fetching attachments from the specified repositories.
+     * Once the specified time in milliseconds has elapsed since creation, the
+     * resolver does not wait anymore for lookups to complete.
+     */
+    public static JkAttachmentResolver of(JkRepos repos, long maxWait) {
+        return of(repos, maxWait, new File(JkLocator.jerkarRepositoryCache(), FILE_NAME),
+                DEFAULT_NEGATIVE_TTL);
+    }
+
+    static JkAttachmentResolver of(JkRepos repos, long maxWait, File file, long negativeTtl) {
+        final JkAttachmentResolver result = new JkAttachmentResolver(repos, file, negativeTtl, maxWait);
+        if (file.exists()) {
+            final long now = System.currentTimeMillis();
+            for (final Map.Entry<String, String> entry : JkUtilsFile.readPropertyFileAsMap(file).entrySet()) {
+                final long timestamp = Long.parseLong(entry.getValue());
+                if (now - timestamp < result.negativeTtl) {
+                    result.misses.put(entry.getKey(), timestamp);
+                } else {
+                    result.changed = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Starts looking up the artifacts having the specified classifiers for
+     * all the specified modules.
+     */
+    public void prefetch(Iterable<JkVersionedModule> modules, String... classifiers) {
+        for (final JkVersionedModule module : modules) {
+            for (final String classifier : classifiers) {
+                lookup(module, classifier);
+            }
+        }
+    }
+
+    /**
+     * Returns the artifact having the specified classifier for the specified
+     * module, or <code>null</code> if the repositories do not have it. If the
+     * lookup is still running once the wait budget is spent, this method
+     * returns the location the artifact will have in the repository cache.
+     */
+    public File get(JkVersionedModule module, String classifier) {
+        final Future<File> future = lookup(module, classifier);
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            JkLog.trace("Still downloading " + classifier + " of " + module + ", mention its future location.");
+            return repos.cacheLocation(dependency(module, classifier));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (final ExecutionException e) {
+            JkLog.trace("Unable to fetch " + classifier + " of " + module + " : " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lets the running lookups complete in background, then releases the
+     * threads of this resolver. Lookups cannot be started anymore.
+     */
+    public void finish() {
+        executor.shutdown();
+        saveIfChanged();
+    }
+
+    private synchronized Future<File> lookup(final JkVersionedModule module, final String classifier) {
+        if (module.version() == null) {
+            return null;
+        }
+        final String key = reposFingerprint + ":" + module.moduleId().fullName() + ":"
+                + module.version().name() + ":" + classifier;
+        final Future<File> existing = lookups.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (misses.containsKey(key)) {
+            return null;
+        }
+        final JkModuleDependency dependency = dependency(module, classifier);
+        final File cached = repos.cacheLocation(dependency);
+        if (cached != null && cached.exists()) {
+            final FutureTask<File> result = new FutureTask<File>(new Callable<File>() {
+
+                @Override
+                public File call() {
+                    return cached;
+                }
+            });
+            result.run();
+            lookups.put(key, result);
+            return result;
+        }
+        pending++;
+        final Future<File> result = executor.submit(new Callable<File>() {
+
+            @Override
+            public File call() {
+                boolean missing = false;
+                try {
+                    final File file = threadResolvers.get().get(dependency);
+                    missing = file == null || !file.exists();
+                    return file;
+                } finally {
+                    done(key, missing);
+                }
+            }
+        });
+        lookups.put(key, result);
+        return result;
+    }
+
+    // Failures other than a missing artifact are not remembered
+    private synchronized void done(String key, boolean missing) {
+        if (missing) {
+            misses.put(key, System.currentTimeMillis());
+            changed = true;
+        }
+        pending--;
+        if (pending == 0 && executor.isShutdown()) {
+            saveIfChanged();
+        }
+    }
+
+    private synchronized void saveIfChanged() {
+        if (!changed) {
+            return;
+        }
+        final Map<String, String> props = new HashMap<String, String>();
+        for (final Map.Entry<String, Long> entry : misses.entrySet()) {
+            props.put(entry.getKey(), Long.toString(entry.getValue()));
+        }
+        missFile.getParentFile().mkdirs();
+        JkUtilsFile.writePropertyFile(missFile, props, "Module attachments not found in repositories");
+        changed = false;
+    }
+
+    // Misses are only relevant for the repositories they have been observed on
+    private static String fingerprint(JkRepos repos) {
+        final StringBuilder builder = new StringBuilder();
+        for (final JkRepo repo : repos) {
+            builder.append(repo.url()).append(',');
+        }
+        return Integer.toHexString(builder.toString().hashCode());
+    }
+
+    private static JkModuleDependency dependency(JkVersionedModule module, String classifier) {
+        return JkModuleDependency.of(module).classifier(classifier);
+    }
+
+}
@@ -2,10 +2,14 @@ package org.jerkar.api.depmanagement;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.jerkar.api.depmanagement.JkDependency.JkFileDependency;
 import org.jerkar.api.file.JkPath;
+import org.jerkar.api.system.JkLocator;
 import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkMetrics;
 import org.jerkar.api.utils.JkUtilsIterable;
 
 import static  org.jerkar.api.utils.JkUtilsString.*;
@@ -16,7 +20,12 @@ import static  org.jerkar.api.utils.JkUtilsString.*;
  * means that you must instantiate one for each dependency set you want to
  * resolve. <br/>
  * Each instance of <code>JkDependencyResolver</code> keep in cache resolution
- * setting so a resolution o a given scope is never computed twice.
+ * setting so a resolution o a given scope is never computed twice.<br/>
+ * Moreover, successful resolutions of module dependencies are shared among all
+ * the resolvers of the JVM : a resolver having the same module dependencies,
+ * repositories, parameters and version override than a previous one reuses its
+ * result whatever module it resolves for. So projects of a workspace declaring
+ * the same dependencies resolve them only once.
  *
  * The result of the resolution depends on the parameters you have set on it.
  * See {@link JkResolutionParameters}
@@ -31,6 +40,10 @@ public final class JkDependencyResolver {
         NULL_SCOPE = JkScope.of("JkDependencyResolver.NULL_SCOPE");
     }
 
+    // Module resolution results, before merge with file dependencies, shared by all resolvers
+    private static final ConcurrentMap<String, JkResolveResult> SHARED_RESULTS =
+            new ConcurrentHashMap<String, JkResolveResult>();
+
     /**
      * Creates a dependency resolver relying on a dependency manager. Such a
      * resolver is able to resolve dependencies transitively downloading
@@ -41,7 +54,7 @@ public final class JkDependencyResolver {
     public static JkDependencyResolver managed(JkRepos repos, JkDependencies dependencies) {
         final InternalDepResolver ivyResolver = InternalDepResolvers.ivy(repos);
         return new JkDependencyResolver(ivyResolver, dependencies, null, null,
-                null, repos);
+                null, repos, null);
     }
 
     /**
@@ -54,7 +67,7 @@ public final class JkDependencyResolver {
                     "Your dependencies contain a reference to a managed extarnal module."
                             + "Use #managed method factory instead.");
         }
-        return new JkDependencyResolver(null, dependencies, null, null, null, JkRepos.of());
+        return new JkDependencyResolver(null, dependencies, null, null, null, JkRepos.of(), null);
     }
 
     private final InternalDepResolver internalResolver;
@@ -71,15 +84,20 @@ public final class JkDependencyResolver {
 
     private final JkRepos repos;
 
+    private final JkArtifactVerification verification;
+
+    private final Map<Set<JkScope>, JkResolveResult> cachedResults = new HashMap<Set<JkScope>, JkResolveResult>();
+
     private JkDependencyResolver(InternalDepResolver internalResolver, JkDependencies dependencies,
             JkVersionedModule module, JkResolutionParameters resolutionParameters,
-            JkVersionProvider transitiveVersionOverride, JkRepos repos) {
+            JkVersionProvider transitiveVersionOverride, JkRepos repos, JkArtifactVerification verification) {
         this.internalResolver = internalResolver;
         this.dependencies = dependencies;
         this.module = module;
         this.parameters = resolutionParameters;
         this.transitiveVersionOverride = transitiveVersionOverride == null ? JkVersionProvider.empty() : transitiveVersionOverride;
         this.repos = repos;
+        this.verification = verification;
     }
 
     /**
@@ -157,13 +175,40 @@ public final class JkDependencyResolver {
         return JkPath.of(result).withoutDuplicates();
     }
 
-    private JkResolveResult getResolveResult(JkVersionProvider transitiveVersionOverride, JkScope ... scopes) {
+    private synchronized JkResolveResult getResolveResult(JkVersionProvider transitiveVersionOverride,
+            JkScope ... scopes) {
+        final Set<JkScope> key = JkUtilsIterable.setOf(scopes);
+        JkResolveResult result = cachedResults.get(key);
+        if (result == null) {
+            final long start = System.nanoTime();
+            result = doResolve(transitiveVersionOverride, scopes);
+            JkMetrics.time("resolution.time", start);
+            if (!result.errorReport().hasErrors()) {
+                cachedResults.put(key, result);
+            }
+        } else {
+            JkMetrics.increment("resolution.reusedResults");
+        }
+        return result;
+    }
+
+    private JkResolveResult doResolve(JkVersionProvider transitiveVersionOverride, JkScope ... scopes) {
         JkLog.trace("Preparing to resolve dependencies for module " + module);
-        JkLog.startln("Resolving dependencies with specified scopes " + Arrays.asList(scopes) );
-        JkResolveResult resolveResult = internalResolver.resolve(module, dependencies.onlyModules(),
-                    parameters, transitiveVersionOverride, scopes);
+        final String offline = offline() ? " (offline)" : "";
+        JkLog.startln("Resolving dependencies with specified scopes " + Arrays.asList(scopes) + offline);
+        JkResolveResult resolveResult = moduleResolveResult(transitiveVersionOverride, scopes);
         JkDependencyNode mergedNode = resolveResult.dependencyTree().mergeNonModules(dependencies, JkUtilsIterable.setOf(scopes));
         resolveResult = JkResolveResult.of(mergedNode, resolveResult.errorReport());
+        if (verification != null && !offline()) {
+            final List<JkModuleDepProblem> problems = new ArtifactVerifier(verification, repos,
+                    VerifiedArtifactIndex.of(JkLocator.jerkarRepositoryCache())).verify(mergedNode);
+            if (!problems.isEmpty()) {
+                final List<JkModuleDepProblem> allProblems = new LinkedList<JkModuleDepProblem>(
+                        resolveResult.errorReport().moduleProblems());
+                allProblems.addAll(problems);
+                resolveResult = JkResolveResult.of(mergedNode, JkResolveResult.JkErrorReport.failure(allProblems));
+            }
+        }
         if (JkLog.verbose()) {
             JkLog.info(plurialize(resolveResult.involvedModules().size(), "module") + resolveResult.involvedModules());
             JkLog.info(plurialize(resolveResult.localFiles().size(), "artifact") + ".");
@@ -175,6 +220,61 @@ public final class JkDependencyResolver {
         return resolveResult;
     }
 
+    private JkResolveResult moduleResolveResult(JkVersionProvider transitiveVersionOverride,
+            JkScope ... scopes) {
+        final String key = sharedKey(transitiveVersionOverride, scopes);
+        final JkResolveResult shared = SHARED_RESULTS.get(key);
+        if (shared != null) {
+            JkMetrics.increment("resolution.sharedResults");
+            final JkDependencyNode.ModuleNodeInfo rootInfo = this.module == null ?
+                    JkDependencyNode.ModuleNodeInfo.anonymousRoot() : JkDependencyNode.ModuleNodeInfo.root(this.module);
+            return JkResolveResult.of(JkDependencyNode.ofModuleDep(rootInfo,
+                    shared.dependencyTree().children()), shared.errorReport());
+        }
+        final JkResolveResult result = internalResolver.resolve(module, dependencies.onlyModules(),
+                parameters, transitiveVersionOverride, scopes);
+        if (!result.errorReport().hasErrors()) {
+            SHARED_RESULTS.putIfAbsent(key, result);
+        }
+        return result;
+    }
+
+    // Describes everything the module resolution depends on but the module it is made for
+    private String sharedKey(JkVersionProvider transitiveVersionOverride, JkScope ... scopes) {
+        final StringBuilder result = new StringBuilder();
+        result.append(repos).append('|').append(parameters).append('|').append(transitiveVersionOverride)
+                .append('|').append(new TreeSet<String>(toStrings(scopes)));
+        for (final JkDepExclude exclude : dependencies.excludes()) {
+            append(result.append("|!"), exclude);
+        }
+        for (final JkScopedDependency scopedDependency : dependencies.onlyModules()) {
+            final JkModuleDependency moduleDependency = (JkModuleDependency) scopedDependency.dependency();
+            result.append('|').append(scopedDependency).append(':').append(moduleDependency.ext())
+                    .append(':').append(moduleDependency.transitive());
+            for (final JkDepExclude exclude : moduleDependency.excludes()) {
+                append(result.append(":!"), exclude);
+            }
+        }
+        return result.toString();
+    }
+
+    private static void append(StringBuilder builder, JkDepExclude exclude) {
+        builder.append(exclude.moduleId()).append(':').append(exclude.type()).append(':')
+                .append(exclude.ext()).append(':').append(exclude.getScopes());
+    }
+
+    private static List<String> toStrings(JkScope ... scopes) {
+        final List<String> result = new LinkedList<String>();
+        for (final JkScope scope : scopes) {
+            result.add(scope.name());
+        }
+        return result;
+    }
+
+    private boolean offline() {
+        return parameters != null && parameters.offline();
+    }
+
     /**
      * Returns <code>true</code> if this resolver does not contain any
      * dependencies.
@@ -196,7 +296,7 @@ public final class JkDependencyResolver {
      */
     public JkDependencyResolver withModuleHolder(JkVersionedModule versionedModule) {
         return new JkDependencyResolver(this.internalResolver, dependencies, versionedModule,
-                this.parameters, this.transitiveVersionOverride, this.repos);
+                this.parameters, this.transitiveVersionOverride, this.repos, this.verification);
     }
 
     /**
@@ -204,7 +304,7 @@ public final class JkDependencyResolver {
      */
     public JkDependencyResolver withTransitiveVersionOverride(JkVersionProvider transitiveVersionOverride) {
         return new JkDependencyResolver(this.internalResolver, dependencies, this.module,
-                this.parameters, transitiveVersionOverride, this.repos);
+                this.parameters, transitiveVersionOverride, this.repos, this.verification);
     }
 
 
@@ -215,7 +315,18 @@ public final class JkDependencyResolver {
      */
     public JkDependencyResolver withParams(JkResolutionParameters params) {
         return new JkDependencyResolver(this.internalResolver, this.dependencies, this.module,
-                params, this.transitiveVersionOverride, this.repos);
+                params, this.transitiveVersionOverride, this.repos, this.verification);
+    }
+
+    /**
+     * Verifies the downloaded artifacts against their published checksums
+     * and/or PGP signatures. Artifacts failing verification are reported as
+     * errors in the resolve result. Use <code>null</code> to skip verification
+     * (default).
+     */
+    public JkDependencyResolver withVerification(JkArtifactVerification verification) {
+        return new JkDependencyResolver(this.internalResolver, this.dependencies, this.module,
+                this.parameters, this.transitiveVersionOverride, this.repos, verification);
     }
 
     @Override
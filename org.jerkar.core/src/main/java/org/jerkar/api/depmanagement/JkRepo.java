@@ -75,21 +75,21 @@ public abstract class JkRepo implements Serializable {
      * Returns Maven repository having the specified url.
      */
     public static JkMavenRepository maven(String url) {
-        return new JkMavenRepository(toUrl(url), null, null, null);
+        return new JkMavenRepository(toUrl(url), null, null, null, null, null);
     }
 
     /**
      * Returns Maven repository having the specified url.
      */
     public static JkMavenRepository maven(URL url) {
-        return new JkMavenRepository(url, null, null, null);
+        return new JkMavenRepository(url, null, null, null, null, null);
     }
 
     /**
      * Returns a Maven repository having the specified file root location.
      */
     public static JkMavenRepository maven(File file) {
-        return new JkMavenRepository(JkUtilsFile.toUrl(file), null, null, null);
+        return new JkMavenRepository(JkUtilsFile.toUrl(file), null, null, null, null, null);
     }
 
     /**
@@ -180,7 +180,7 @@ public abstract class JkRepo implements Serializable {
      * Returns a Ivy repository located at the specified url.
      */
     public static JkRepo.JkIvyRepository ivy(URL url) {
-        return new JkIvyRepository(url, null, null, null, null, null);
+        return new JkIvyRepository(url, null, null, null, null, null, null, null);
     }
 
     /**
@@ -213,11 +213,18 @@ public abstract class JkRepo implements Serializable {
 
     private final String password;
 
-    private JkRepo(URL url, String realm, String userName, String password) {
+    private final List<String> groupPrefixes;
+
+    private final JkUpdatePolicy updatePolicy;
+
+    private JkRepo(URL url, String realm, String userName, String password, List<String> groupPrefixes,
+            JkUpdatePolicy updatePolicy) {
         this.url = url;
         this.realm = realm;
         this.userName = userName;
         this.password = password;
+        this.groupPrefixes = groupPrefixes;
+        this.updatePolicy = updatePolicy;
     }
 
     /**
@@ -248,6 +255,43 @@ public abstract class JkRepo implements Serializable {
         return password;
     }
 
+    /**
+     * Returns the group prefixes this repository is restricted to. An empty list means that
+     * this repository is queried for any module.
+     *
+     * @see #withGroupPrefixes(String...)
+     */
+    public final List<String> groupPrefixes() {
+        if (groupPrefixes == null) {
+            return Collections.emptyList();
+        }
+        return groupPrefixes;
+    }
+
+    /**
+     * Returns the policy for checking dynamic and snapshot versions against this repository.
+     * <code>null</code> means that the policy defined in {@link JkResolutionParameters} applies.
+     */
+    public final JkUpdatePolicy updatePolicy() {
+        return updatePolicy;
+    }
+
+    /**
+     * Returns <code>true</code> if this repository may be queried for the specified module according
+     * its group prefixes.
+     */
+    public final boolean accepts(JkModuleId moduleId) {
+        if (groupPrefixes == null || groupPrefixes.isEmpty()) {
+            return true;
+        }
+        for (final String prefix : groupPrefixes) {
+            if (moduleId.group().startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns <code>true</code> if some credential has been set on this repository.
      */
@@ -283,6 +327,20 @@ public abstract class JkRepo implements Serializable {
      */
     public abstract JkRepo withCredential(String username, String password);
 
+    /**
+     * Returns a copy of this repository but restricted to modules whose group starts with one of the
+     * specified prefixes (as <code>com.mycompany.</code>). Modules out of these groups are not looked
+     * up in this repository, saving useless round-trips when several repositories are declared.
+     */
+    public abstract JkRepo withGroupPrefixes(String... groupPrefixes);
+
+    /**
+     * Returns a copy of this repository but having the specified update policy.
+     *
+     * @see #updatePolicy()
+     */
+    public abstract JkRepo withUpdatePolicy(JkUpdatePolicy updatePolicy);
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -338,8 +396,9 @@ public abstract class JkRepo implements Serializable {
 
         private static final long serialVersionUID = 1L;
 
-        private JkMavenRepository(URL url, String realm, String userName, String password) {
-            super(url, realm, userName, password);
+        private JkMavenRepository(URL url, String realm, String userName, String password,
+                List<String> groupPrefixes, JkUpdatePolicy updatePolicy) {
+            super(url, realm, userName, password, groupPrefixes, updatePolicy);
         }
 
         /**
@@ -347,7 +406,8 @@ public abstract class JkRepo implements Serializable {
          */
         @Override
         public JkRepo withCredential(String username, String password) {
-            return new JkMavenRepository(this.url(), this.realm(), username, password);
+            return new JkMavenRepository(this.url(), this.realm(), username, password, this.groupPrefixes(),
+                    this.updatePolicy());
         }
 
         /**
@@ -355,7 +415,20 @@ public abstract class JkRepo implements Serializable {
          */
         @Override
         public JkRepo withRealm(String realm) {
-            return new JkMavenRepository(this.url(), realm, this.userName(), this.password());
+            return new JkMavenRepository(this.url(), realm, this.userName(), this.password(),
+                    this.groupPrefixes(), this.updatePolicy());
+        }
+
+        @Override
+        public JkRepo withGroupPrefixes(String... groupPrefixes) {
+            return new JkMavenRepository(this.url(), this.realm(), this.userName(), this.password(),
+                    Collections.unmodifiableList(Arrays.asList(groupPrefixes)), this.updatePolicy());
+        }
+
+        @Override
+        public JkRepo withUpdatePolicy(JkUpdatePolicy updatePolicy) {
+            return new JkMavenRepository(this.url(), this.realm(), this.userName(), this.password(),
+                    this.groupPrefixes(), updatePolicy);
         }
 
     }
@@ -376,8 +449,9 @@ public abstract class JkRepo implements Serializable {
         private static final String DEFAULT_IVY_IVY_PATTERN = "[organisation]/[module]/ivy-[revision].xml";
 
         private JkIvyRepository(URL url, String realm, String username, String password,
-                List<String> artifactPatterns, List<String> ivyPatterns) {
-            super(url, realm, username, password);
+                List<String> artifactPatterns, List<String> ivyPatterns, List<String> groupPrefixes,
+                JkUpdatePolicy updatePolicy) {
+            super(url, realm, username, password, groupPrefixes, updatePolicy);
             this.artifactPatterns = artifactPatterns;
             this.ivyPatterns = ivyPatterns;
         }
@@ -387,7 +461,8 @@ public abstract class JkRepo implements Serializable {
          */
         public JkIvyRepository artifactPatterns(String... patterns) {
             return new JkIvyRepository(this.url(), this.realm(), this.userName(), this.password(),
-                    Collections.unmodifiableList(Arrays.asList(patterns)), ivyPatterns);
+                    Collections.unmodifiableList(Arrays.asList(patterns)), ivyPatterns, this.groupPrefixes(),
+                    this.updatePolicy());
         }
 
         /**
@@ -395,7 +470,8 @@ public abstract class JkRepo implements Serializable {
          */
         public JkIvyRepository ivyPatterns(String... patterns) {
             return new JkIvyRepository(this.url(), this.realm(), this.userName(), this.password(),
-                    artifactPatterns, Collections.unmodifiableList(Arrays.asList(patterns)));
+                    artifactPatterns, Collections.unmodifiableList(Arrays.asList(patterns)),
+                    this.groupPrefixes(), this.updatePolicy());
         }
 
         /**
@@ -421,13 +497,26 @@ public abstract class JkRepo implements Serializable {
         @Override
         public JkRepo withCredential(String username, String password) {
             return new JkIvyRepository(this.url(), this.realm(), username, password,
-                    this.artifactPatterns, this.ivyPatterns);
+                    this.artifactPatterns, this.ivyPatterns, this.groupPrefixes(), this.updatePolicy());
         }
 
         @Override
         public JkRepo withRealm(String realm) {
             return new JkIvyRepository(this.url(), realm, this.userName(), this.password(),
-                    this.artifactPatterns, this.ivyPatterns);
+                    this.artifactPatterns, this.ivyPatterns, this.groupPrefixes(), this.updatePolicy());
+        }
+
+        @Override
+        public JkRepo withGroupPrefixes(String... groupPrefixes) {
+            return new JkIvyRepository(this.url(), this.realm(), this.userName(), this.password(),
+                    this.artifactPatterns, this.ivyPatterns,
+                    Collections.unmodifiableList(Arrays.asList(groupPrefixes)), this.updatePolicy());
+        }
+
+        @Override
+        public JkRepo withUpdatePolicy(JkUpdatePolicy updatePolicy) {
+            return new JkIvyRepository(this.url(), this.realm(), this.userName(), this.password(),
+                    this.artifactPatterns, this.ivyPatterns, this.groupPrefixes(), updatePolicy);
         }
 
     }
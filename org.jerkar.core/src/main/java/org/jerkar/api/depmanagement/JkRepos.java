@@ -211,7 +211,15 @@ public final class JkRepos implements Iterable<JkRepo>, Serializable {
         return get(JkModuleId.of(moduleGroup, moduleName), version);
     }
 
-    private InternalDepResolver ivyResolver() {
+    /**
+     * Returns the location the specified dependency file has or will have in
+     * the repository cache, <code>null</code> if unknown.
+     */
+    File cacheLocation(JkModuleDependency moduleDependency) {
+        return ivyResolver().cacheLocation(moduleDependency);
+    }
+
+    private synchronized InternalDepResolver ivyResolver() {
         if (ivyResolver == null) {
             ivyResolver = InternalDepResolvers.ivy(this);
         }
@@ -1,6 +1,10 @@
 package org.jerkar.api.depmanagement;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * CInstances of this class are used to parameter the dependency resolution
@@ -17,7 +21,7 @@ public final class JkResolutionParameters implements Serializable {
      * @see #refreshed()
      */
     public static JkResolutionParameters of() {
-        return new JkResolutionParameters(null, true);
+        return new JkResolutionParameters(null, true, false, null, NO_POLICY);
     }
 
     /**
@@ -28,13 +32,21 @@ public final class JkResolutionParameters implements Serializable {
      * @see #refreshed()
      */
     public static JkResolutionParameters defaultScopeMapping(JkScopeMapping scopeMapping) {
-        return new JkResolutionParameters(scopeMapping, true);
+        return new JkResolutionParameters(scopeMapping, true, false, null, NO_POLICY);
     }
 
     private final JkScopeMapping defaultMapping;
 
     private final boolean refreshed;
 
+    private final boolean offline;
+
+    private static final Map<String, JkUpdatePolicy> NO_POLICY = Collections.emptyMap();
+
+    private final JkUpdatePolicy updatePolicy;
+
+    private final Map<String, JkUpdatePolicy> modulePolicies;
+
     /**
      * Returns the default scope mapping to use for the {@link JkDependencies}
      * to be resolved. <code>null</code> means no default scope mapping.
@@ -55,29 +67,123 @@ public final class JkResolutionParameters implements Serializable {
         return refreshed;
     }
 
+    /**
+     * Returns <code>true</code> if the resolution must be achieved using only the local
+     * repository cache (located at {@link org.jerkar.api.system.JkLocator#jerkarRepositoryCache()}).
+     * In this mode, no remote repository is contacted and the resolution fails immediately,
+     * listing the missing modules, if the declared modules are not present in the cache.
+     */
+    public boolean offline() {
+        return offline;
+    }
+
+    /**
+     * Returns the default policy for checking dynamic and snapshot versions against remote
+     * repositories. <code>null</code> means that no policy is defined : dynamic versions are
+     * then checked according {@link #refreshed()} and snapshots are checked at each resolution.
+     * When a policy applies (from these parameters or from a {@link JkRepo}), the
+     * {@link #refreshed()} flag is ignored.
+     */
+    public JkUpdatePolicy updatePolicy() {
+        return updatePolicy;
+    }
+
+    /**
+     * Returns the update policies specific to modules, keyed by module pattern.
+     *
+     * @see #withUpdatePolicy(String, JkUpdatePolicy)
+     */
+    public Map<String, JkUpdatePolicy> moduleUpdatePolicies() {
+        return Collections.unmodifiableMap(modulePolicies);
+    }
+
+    /**
+     * Returns <code>true</code> if an update policy is defined in these parameters.
+     */
+    public boolean hasUpdatePolicy() {
+        return updatePolicy != null || !modulePolicies.isEmpty();
+    }
+
+    /**
+     * Returns the update policy declared for the specified module through a module pattern.
+     * Returns <code>null</code> if no pattern matches.
+     */
+    public JkUpdatePolicy moduleUpdatePolicy(JkModuleId moduleId) {
+        for (final Map.Entry<String, JkUpdatePolicy> entry : modulePolicies.entrySet()) {
+            if (matches(entry.getKey(), moduleId)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(String modulePattern, JkModuleId moduleId) {
+        final StringBuilder regex = new StringBuilder();
+        final String[] parts = modulePattern.split("\\*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(parts[i]));
+        }
+        return Pattern.matches(regex.toString(), moduleId.groupAndName());
+    }
+
     /**
      * @see JkResolutionParameters#refreshed()
      */
     public JkResolutionParameters refreshed(boolean refreshed) {
-        return new JkResolutionParameters(defaultMapping, refreshed);
+        return new JkResolutionParameters(defaultMapping, refreshed, offline, updatePolicy, modulePolicies);
+    }
+
+    /**
+     * @see #offline()
+     */
+    public JkResolutionParameters offline(boolean offline) {
+        return new JkResolutionParameters(defaultMapping, refreshed, offline, updatePolicy, modulePolicies);
+    }
+
+    /**
+     * @see #updatePolicy()
+     */
+    public JkResolutionParameters withUpdatePolicy(JkUpdatePolicy updatePolicy) {
+        return new JkResolutionParameters(defaultMapping, refreshed, offline, updatePolicy, modulePolicies);
+    }
+
+    /**
+     * Returns a copy of these parameters but applying the specified update policy to modules
+     * matching the specified pattern. The pattern is expressed as <code>group:name</code> where
+     * <code>*</code> stands for any sequence of characters (as <code>com.mycompany.*</code> or
+     * <code>*:*-client</code>). Module policies take precedence over repository and default ones,
+     * the first matching pattern wins.
+     */
+    public JkResolutionParameters withUpdatePolicy(String modulePattern, JkUpdatePolicy updatePolicy) {
+        final Map<String, JkUpdatePolicy> map = new LinkedHashMap<String, JkUpdatePolicy>(modulePolicies);
+        map.put(modulePattern, updatePolicy);
+        return new JkResolutionParameters(defaultMapping, refreshed, offline, this.updatePolicy, map);
     }
 
     /**
      * @see #defaultMapping()
      */
     public JkResolutionParameters withDefault(JkScopeMapping defaultMapping) {
-        return new JkResolutionParameters(defaultMapping, refreshed);
+        return new JkResolutionParameters(defaultMapping, refreshed, offline, updatePolicy, modulePolicies);
     }
 
-    private JkResolutionParameters(JkScopeMapping defaultMapping, boolean refreshed) {
+    private JkResolutionParameters(JkScopeMapping defaultMapping, boolean refreshed, boolean offline,
+            JkUpdatePolicy updatePolicy, Map<String, JkUpdatePolicy> modulePolicies) {
         super();
         this.defaultMapping = defaultMapping;
         this.refreshed = refreshed;
+        this.offline = offline;
+        this.updatePolicy = updatePolicy;
+        this.modulePolicies = modulePolicies;
     }
 
     @Override
     public String toString() {
-        return "default mapping : " + defaultMapping + ", refreshed : " + refreshed;
+        return "default mapping : " + defaultMapping + ", refreshed : " + refreshed + ", offline : " + offline
+                + ", update policy : " + updatePolicy + ", module update policies : " + modulePolicies;
     }
 
 }
@@ -156,6 +156,13 @@ public final class JkResolveResult implements Serializable {
             return moduleProblems;
         }
 
+        /**
+         * Returns <code>true</code> if the resolution has encountered errors.
+         */
+        public boolean hasErrors() {
+            return hasErrors;
+        }
+
         private JkErrorReport merge(JkErrorReport other) {
             return new JkErrorReport(JkUtilsIterable.concatLists(this.moduleProblems, other.moduleProblems),
                     this.hasErrors || other.hasErrors);
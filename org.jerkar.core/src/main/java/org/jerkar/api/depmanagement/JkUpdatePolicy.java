@@ -0,0 +1,124 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.Serializable;
+
+/**
+ * Policy telling how often dynamic versions (as <code>1.4+</code> or
+ * <code>[1.0,2.0)</code>) and snapshot versions must be checked against the
+ * remote repository. Between two checks, the metadata stored in the local
+ * repository cache are reused without any network access.
+ *
+ * @author Jerome Angibaud
+ */
+public final class JkUpdatePolicy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long MINUTE = 60 * 1000L;
+
+    /**
+     * Checks remote repository at each resolution.
+     */
+    public static final JkUpdatePolicy ALWAYS = new JkUpdatePolicy(0);
+
+    /**
+     * Checks remote repository at most once a day.
+     */
+    public static final JkUpdatePolicy DAILY = new JkUpdatePolicy(24 * 60 * MINUTE);
+
+    /**
+     * Never checks remote repository once the module is present in the local
+     * repository cache.
+     */
+    public static final JkUpdatePolicy NEVER = new JkUpdatePolicy(Long.MAX_VALUE);
+
+    /**
+     * Checks remote repository at most once per specified number of minutes.
+     */
+    public static JkUpdatePolicy interval(long minutes) {
+        return new JkUpdatePolicy(minutes * MINUTE);
+    }
+
+    /**
+     * Creates a policy from its textual description as <code>always</code>,
+     * <code>daily</code>, <code>never</code> or <code>interval:XXX</code> where
+     * XXX stands for a number of minutes (same as Maven syntax).
+     */
+    public static JkUpdatePolicy of(String description) {
+        final String trimed = description.trim().toLowerCase();
+        if ("always".equals(trimed)) {
+            return ALWAYS;
+        }
+        if ("daily".equals(trimed)) {
+            return DAILY;
+        }
+        if ("never".equals(trimed)) {
+            return NEVER;
+        }
+        if (trimed.startsWith("interval:")) {
+            try {
+                return interval(Long.parseLong(trimed.substring("interval:".length())));
+            } catch (final NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed update policy interval : " + description, e);
+            }
+        }
+        throw new IllegalArgumentException("Update policy should be 'always', 'daily', 'never' or "
+                + "'interval:<minutes>'. Was " + description);
+    }
+
+    private final long ttl;
+
+    private JkUpdatePolicy(long ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns the duration, in milliseconds, during which the metadata of the
+     * local cache are considered up to date.
+     */
+    public long ttl() {
+        return ttl;
+    }
+
+    /**
+     * Returns <code>true</code> if metadata checked at the specified time must
+     * be checked again.
+     */
+    public boolean isExpired(long lastCheckTime) {
+        if (ttl == Long.MAX_VALUE) {
+            return false;
+        }
+        return System.currentTimeMillis() - lastCheckTime >= ttl;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (ttl ^ (ttl >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return ttl == ((JkUpdatePolicy) obj).ttl;
+    }
+
+    @Override
+    public String toString() {
+        if (ttl == 0) {
+            return "always";
+        }
+        if (ttl == Long.MAX_VALUE) {
+            return "never";
+        }
+        if (ttl == DAILY.ttl) {
+            return "daily";
+        }
+        return "interval:" + ttl / MINUTE;
+    }
+
+}
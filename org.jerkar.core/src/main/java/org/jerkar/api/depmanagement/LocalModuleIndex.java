@@ -0,0 +1,308 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.latest.LatestRevisionStrategy;
+import org.apache.ivy.plugins.version.SubVersionMatcher;
+import org.apache.ivy.plugins.version.VersionMatcher;
+import org.apache.ivy.plugins.version.VersionRangeMatcher;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.api.utils.JkUtilsXml;
+import org.w3c.dom.Element;
+
+/**
+ * Not part of the public API.<br/>
+ * Compact index of the modules and versions present in the local repository
+ * cache. The index is stored in a property file located at the root of the
+ * cache where keys are module ids (group:name) and values are comma separated
+ * versions. If this file does not exist, it is created by scanning the cache.<br/>
+ * An entry is trusted only if the matching Ivy file is still present in the
+ * cache, so a partially purged cache does not lead to false positives. Modules
+ * fetched after the index has been written are looked up in the cache
+ * directory itself then added to the index, so online resolutions do not need
+ * to maintain it. This holds for dynamic versions as well : the module
+ * directory is scanned again when no indexed version matches the range.
+ *
+ * @author Jerome Angibaud
+ */
+final class LocalModuleIndex {
+
+    private static final String FILE_NAME = "jerkar-module-index.properties";
+
+    private static final String IVY_FILE_PREFIX = "ivy-";
+
+    private static final String IVY_FILE_SUFFIX = ".xml";
+
+    // Dependencies declared only in these configurations are not fetched transitively
+    private static final Set<String> NON_TRANSITIVE_CONFS = new HashSet<String>();
+
+    static {
+        NON_TRANSITIVE_CONFS.add("test");
+        NON_TRANSITIVE_CONFS.add("provided");
+        NON_TRANSITIVE_CONFS.add("system");
+        NON_TRANSITIVE_CONFS.add("optional");
+    }
+
+    // Matchers for 1.4.+ and [1.0,2.0) like versions, as Ivy does
+    private static final VersionMatcher SUB_VERSION_MATCHER = new SubVersionMatcher();
+
+    private static final VersionMatcher RANGE_MATCHER = new VersionRangeMatcher("range",
+            new LatestRevisionStrategy());
+
+    private final File cacheDir;
+
+    private final Map<JkModuleId, Set<String>> modules;
+
+    private boolean changed;
+
+    private LocalModuleIndex(File cacheDir, Map<JkModuleId, Set<String>> modules, boolean changed) {
+        this.cacheDir = cacheDir;
+        this.modules = modules;
+        this.changed = changed;
+    }
+
+    /**
+     * Returns the index of the specified repository cache directory.
+     */
+    static LocalModuleIndex of(File cacheDir) {
+        final File indexFile = new File(cacheDir, FILE_NAME);
+        if (indexFile.exists()) {
+            final Map<JkModuleId, Set<String>> modules = new HashMap<JkModuleId, Set<String>>();
+            final Map<String, String> props = JkUtilsFile.readPropertyFileAsMap(indexFile);
+            for (final Map.Entry<String, String> entry : props.entrySet()) {
+                final Set<String> versions = new TreeSet<String>();
+                for (final String version : JkUtilsString.split(entry.getValue(), ",")) {
+                    if (!JkUtilsString.isBlank(version)) {
+                        versions.add(version.trim());
+                    }
+                }
+                modules.put(JkModuleId.of(entry.getKey()), versions);
+            }
+            return new LocalModuleIndex(cacheDir, modules, false);
+        }
+        return new LocalModuleIndex(cacheDir, scan(cacheDir), true);
+    }
+
+    // Cache layout is [organisation]/[module]/ivy-[revision].xml
+    private static Map<JkModuleId, Set<String>> scan(File cacheDir) {
+        final Map<JkModuleId, Set<String>> result = new HashMap<JkModuleId, Set<String>>();
+        final File[] groupDirs = cacheDir.listFiles();
+        if (groupDirs == null) {
+            return result;
+        }
+        for (final File groupDir : groupDirs) {
+            final File[] moduleDirs = groupDir.listFiles();
+            if (!groupDir.isDirectory() || moduleDirs == null) {
+                continue;
+            }
+            for (final File moduleDir : moduleDirs) {
+                final Set<String> versions = scanVersions(moduleDir);
+                if (!versions.isEmpty()) {
+                    result.put(JkModuleId.of(groupDir.getName(), moduleDir.getName()), versions);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> scanVersions(File moduleDir) {
+        final Set<String> versions = new TreeSet<String>();
+        final File[] files = moduleDir.listFiles();
+        if (!moduleDir.isDirectory() || files == null) {
+            return versions;
+        }
+        for (final File file : files) {
+            final String name = file.getName();
+            if (name.startsWith(IVY_FILE_PREFIX) && name.endsWith(IVY_FILE_SUFFIX)) {
+                versions.add(name.substring(IVY_FILE_PREFIX.length(),
+                        name.length() - IVY_FILE_SUFFIX.length()));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Returns <code>true</code> if the specified module version is present in
+     * the cache.
+     */
+    boolean contains(JkModuleId moduleId, String version) {
+        final Set<String> versions = versions(moduleId);
+        final boolean present = ivyFile(moduleId, version).exists();
+        if (present) {
+            changed = versions.add(version) || changed;
+        } else {
+            changed = versions.remove(version) || changed;
+        }
+        return present;
+    }
+
+    // Greatest cached version of the module matching the range, null if none
+    private String greatestVersion(JkModuleId moduleId, JkVersionRange versionRange) {
+        final String result = greatestIndexedVersion(moduleId, versionRange);
+        if (result != null) {
+            return result;
+        }
+        final Set<String> scanned = scanVersions(new File(cacheDir, moduleId.group() + "/" + moduleId.name()));
+        if (!versions(moduleId).addAll(scanned)) {
+            return null;
+        }
+        changed = true;
+        return greatestIndexedVersion(moduleId, versionRange);
+    }
+
+    private String greatestIndexedVersion(JkModuleId moduleId, JkVersionRange versionRange) {
+        JkVersion result = null;
+        for (final String version : new TreeSet<String>(versions(moduleId))) {
+            if (matches(moduleId, versionRange, version) && contains(moduleId, version)
+                    && (result == null || JkVersion.name(version).isGreaterThan(result))) {
+                result = JkVersion.name(version);
+            }
+        }
+        return result == null ? null : result.name();
+    }
+
+    private static boolean matches(JkModuleId moduleId, JkVersionRange versionRange, String version) {
+        final String definition = versionRange.definition();
+        if ("+".equals(definition)) {
+            return true;
+        }
+        if (definition.startsWith("latest.")) {
+            return !"latest.release".equals(definition) || !JkVersion.name(version).isSnapshot();
+        }
+        final ModuleRevisionId asked = ModuleRevisionId.newInstance(moduleId.group(), moduleId.name(), definition);
+        final ModuleRevisionId found = ModuleRevisionId.newInstance(moduleId.group(), moduleId.name(), version);
+        if (SUB_VERSION_MATCHER.isDynamic(asked)) {
+            return SUB_VERSION_MATCHER.accept(asked, found);
+        }
+        return RANGE_MATCHER.isDynamic(asked) && RANGE_MATCHER.accept(asked, found);
+    }
+
+    private Set<String> versions(JkModuleId moduleId) {
+        Set<String> versions = modules.get(moduleId);
+        if (versions == null) {
+            versions = new TreeSet<String>();
+            modules.put(moduleId, versions);
+        }
+        return versions;
+    }
+
+    /**
+     * Returns the problems related to the module dependencies declared in the
+     * specified dependencies that are not present in the cache, or that are
+     * transitively required by a present one but not present themselves.
+     * Versions provided by the specified version provider take precedence over
+     * the declared ones.
+     */
+    List<JkModuleDepProblem> missingModules(JkDependencies dependencies, JkVersionProvider versionProvider) {
+        final List<JkModuleDepProblem> result = new LinkedList<JkModuleDepProblem>();
+        final Set<String> visited = new HashSet<String>();
+        for (final JkScopedDependency scopedDependency : dependencies) {
+            if (!(scopedDependency.dependency() instanceof JkModuleDependency)) {
+                continue;
+            }
+            final JkModuleDependency moduleDependency = (JkModuleDependency) scopedDependency.dependency();
+            check(moduleDependency.moduleId(), moduleDependency.versionRange(), null, versionProvider,
+                    visited, result);
+        }
+        return result;
+    }
+
+    private void check(JkModuleId moduleId, JkVersionRange declaredRange, String requiredBy,
+            JkVersionProvider versionProvider, Set<String> visited, List<JkModuleDepProblem> problems) {
+        final JkVersion providedVersion = versionProvider.versionOf(moduleId);
+        final JkVersionRange versionRange = providedVersion == null ? declaredRange
+                : JkVersionRange.of(providedVersion.name());
+        if (versionRange.isUnspecified()
+                || !visited.add(moduleId.groupAndName() + ":" + versionRange.definition())) {
+            return;
+        }
+        final String version;
+        if (versionRange.isDynamicAndResovable()) {
+            version = greatestVersion(moduleId, versionRange);
+        } else {
+            version = contains(moduleId, versionRange.definition()) ? versionRange.definition() : null;
+        }
+        if (version == null) {
+            final String origin = requiredBy == null ? "" : ", required by " + requiredBy;
+            problems.add(JkModuleDepProblem.of(moduleId, versionRange.definition(),
+                    "Not present in local repository cache " + cacheDir.getPath() + origin
+                    + " (offline mode)."));
+            return;
+        }
+        final String module = moduleId.groupAndName() + ":" + version;
+        final Element dependencies = dependenciesElement(ivyFile(moduleId, version));
+        if (dependencies == null) {
+            return;
+        }
+        for (final Element dependency : JkUtilsXml.directChildren(dependencies, "dependency")) {
+            final String rev = dependency.getAttribute("rev");
+            if (!transitive(dependency.getAttribute("conf")) || JkUtilsString.isBlank(rev)
+                    || rev.contains("${")) {
+                continue;
+            }
+            check(JkModuleId.of(dependency.getAttribute("org"), dependency.getAttribute("name")),
+                    JkVersionRange.of(rev), module, versionProvider, visited, problems);
+        }
+    }
+
+    // Unreadable Ivy files are left to Ivy that reports them at resolution time
+    private static Element dependenciesElement(File ivyFile) {
+        try {
+            return JkUtilsXml.directChild(JkUtilsXml.documentFrom(ivyFile).getDocumentElement(),
+                    "dependencies");
+        } catch (final RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Conf attribute is like 'compile->compile(*),master(*);runtime->runtime(*)', no conf means all
+    private static boolean transitive(String conf) {
+        if (JkUtilsString.isBlank(conf)) {
+            return true;
+        }
+        for (final String mapping : JkUtilsString.split(conf, ";")) {
+            final String masterConfs = mapping.contains("->") ? JkUtilsString.substringBeforeFirst(
+                    mapping, "->") : mapping;
+            for (final String masterConf : JkUtilsString.split(masterConfs, ",")) {
+                if (!NON_TRANSITIVE_CONFS.contains(masterConf.trim())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes this index on the file system if it has been modified since it
+     * has been loaded.
+     */
+    void saveIfChanged() {
+        if (!changed) {
+            return;
+        }
+        final Map<String, String> props = new HashMap<String, String>();
+        for (final Map.Entry<JkModuleId, Set<String>> entry : modules.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                props.put(entry.getKey().groupAndName(), JkUtilsString.join(entry.getValue(), ","));
+            }
+        }
+        JkUtilsFile.writePropertyFile(new File(cacheDir, FILE_NAME), props,
+                "Modules present in Jerkar repository cache");
+        changed = false;
+    }
+
+    private File ivyFile(JkModuleId moduleId, String version) {
+        return new File(cacheDir, moduleId.group() + "/" + moduleId.name() + "/" + IVY_FILE_PREFIX
+                + version + IVY_FILE_SUFFIX);
+    }
+
+}
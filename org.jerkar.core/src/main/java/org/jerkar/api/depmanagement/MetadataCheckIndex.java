@@ -0,0 +1,82 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jerkar.api.utils.JkUtilsFile;
+
+/**
+ * Not part of the public API.<br/>
+ * Records, per repository and module revision, the last time the module
+ * metadata has been checked against the remote repository. This index is
+ * stored in a property file located at the root of the repository cache.
+ *
+ * @author Jerome Angibaud
+ */
+final class MetadataCheckIndex {
+
+    private static final String FILE_NAME = "jerkar-metadata-checks.properties";
+
+    private final File file;
+
+    private final Map<String, Long> lastChecks = new HashMap<String, Long>();
+
+    private boolean changed;
+
+    private MetadataCheckIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the index stored in the specified repository cache directory.
+     */
+    static MetadataCheckIndex of(File cacheDir) {
+        final MetadataCheckIndex result = new MetadataCheckIndex(new File(cacheDir, FILE_NAME));
+        if (result.file.exists()) {
+            final Map<String, String> props = JkUtilsFile.readPropertyFileAsMap(result.file);
+            for (final Map.Entry<String, String> entry : props.entrySet()) {
+                result.lastChecks.put(entry.getKey(), Long.parseLong(entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the last time the specified module revision has been checked
+     * against the specified repository, <code>null</code> if never.
+     */
+    synchronized Long lastCheck(String repoName, String moduleRevision) {
+        return lastChecks.get(key(repoName, moduleRevision));
+    }
+
+    /**
+     * Records that the specified module revision is being checked against the
+     * specified repository.
+     */
+    synchronized void checked(String repoName, String moduleRevision) {
+        lastChecks.put(key(repoName, moduleRevision), System.currentTimeMillis());
+        changed = true;
+    }
+
+    /**
+     * Writes this index on the file system if it has been modified since it
+     * has been loaded.
+     */
+    synchronized void saveIfChanged() {
+        if (!changed) {
+            return;
+        }
+        final Map<String, String> props = new HashMap<String, String>();
+        for (final Map.Entry<String, Long> entry : lastChecks.entrySet()) {
+            props.put(entry.getKey(), Long.toString(entry.getValue()));
+        }
+        JkUtilsFile.writePropertyFile(file, props, "Last metadata checks against remote repositories");
+        changed = false;
+    }
+
+    private static String key(String repoName, String moduleRevision) {
+        return moduleRevision + "@" + repoName;
+    }
+
+}
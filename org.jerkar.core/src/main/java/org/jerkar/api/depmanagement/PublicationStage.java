@@ -0,0 +1,148 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ivy.util.ChecksumHelper;
+import org.jerkar.api.crypto.pgp.JkPgp;
+import org.jerkar.api.utils.JkUtilsThrowable;
+
+/**
+ * Not part of the public API.<br/>
+ * Staging area for a publication. Checksums and signatures of the published
+ * files are computed locally, in parallel, and only once whatever the number
+ * of repositories the files are published on. Uploads are run concurrently on
+ * a distinct pool so they never wait for a staging thread being busy with
+ * another upload : each upload only waits for the checksums and signature of
+ * its own file.
+ *
+ * @author Jerome Angibaud
+ */
+final class PublicationStage {
+
+    private static final int UPLOAD_THREADS = 4;
+
+    private final ExecutorService computeExecutor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors());
+
+    private final ExecutorService uploadExecutor = Executors.newFixedThreadPool(UPLOAD_THREADS);
+
+    private final Map<String, Future<String>> checksums = new HashMap<String, Future<String>>();
+
+    private final Map<String, Future<File>> signatures = new HashMap<String, Future<File>>();
+
+    /**
+     * Starts computing checksums and signatures of the specified files.
+     */
+    void prepare(Iterable<File> files, String[] algorithms, JkPgp pgp) {
+        for (final File file : files) {
+            for (final String algorithm : algorithms) {
+                checksumFuture(file, algorithm);
+            }
+            if (pgp != null) {
+                signatureFuture(file, pgp);
+            }
+        }
+    }
+
+    /**
+     * Returns the checksum of the specified file, waiting for its computation
+     * if needed.
+     */
+    String checksum(File file, String algorithm) {
+        return get(checksumFuture(file, algorithm));
+    }
+
+    /**
+     * Returns the detached signature of the specified file, waiting for its
+     * computation if needed.
+     */
+    File signature(File file, JkPgp pgp) {
+        return get(signatureFuture(file, pgp));
+    }
+
+    /**
+     * Runs the specified uploads concurrently and returns once all are
+     * achieved. If one fails, the uploads not started yet are cancelled and
+     * the first failure is thrown.
+     */
+    void upload(List<Callable<Void>> uploads) {
+        final List<Future<Void>> futures = new LinkedList<Future<Void>>();
+        for (final Callable<Void> upload : uploads) {
+            futures.add(uploadExecutor.submit(upload));
+        }
+        try {
+            for (final Future<Void> future : futures) {
+                get(future);
+            }
+        } finally {
+            for (final Future<Void> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Releases the threads of this stage.
+     */
+    void close() {
+        computeExecutor.shutdownNow();
+        uploadExecutor.shutdownNow();
+    }
+
+    private synchronized Future<String> checksumFuture(final File file, final String algorithm) {
+        final String key = file.getAbsolutePath() + "#" + algorithm;
+        Future<String> result = checksums.get(key);
+        if (result == null) {
+            result = computeExecutor.submit(new Callable<String>() {
+
+                @Override
+                public String call() throws Exception {
+                    return ChecksumHelper.computeAsString(file, algorithm);
+                }
+            });
+            checksums.put(key, result);
+        }
+        return result;
+    }
+
+    private synchronized Future<File> signatureFuture(final File file, final JkPgp pgp) {
+        final String key = file.getAbsolutePath() + "#" + System.identityHashCode(pgp);
+        Future<File> result = signatures.get(key);
+        if (result == null) {
+            result = computeExecutor.submit(new Callable<File>() {
+
+                @Override
+                public File call() {
+                    return pgp.sign(file)[0];
+                }
+            });
+            signatures.put(key, result);
+        }
+        return result;
+    }
+
+    private static <T> T get(Future<T> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw JkUtilsThrowable.unchecked(e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw JkUtilsThrowable.unchecked(e);
+        }
+    }
+
+}
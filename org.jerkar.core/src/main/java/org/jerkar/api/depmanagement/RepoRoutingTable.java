@@ -0,0 +1,143 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jerkar.api.utils.JkUtilsFile;
+
+/**
+ * Not part of the public API.<br/>
+ * Remembers, across builds, which repository a module has been found in
+ * (positive routing) and which repositories do not host a given module
+ * revision (negative lookups). Negative lookups expire after a time-to-live so
+ * modules newly deployed in a repository end up being found.<br/>
+ * Data are stored in a property file located at the root of the repository
+ * cache.
+ *
+ * @author Jerome Angibaud
+ */
+final class RepoRoutingTable {
+
+    /** Default time-to-live for negative lookups : 24 hours. */
+    static final long DEFAULT_NEGATIVE_TTL = 24L * 60 * 60 * 1000;
+
+    private static final String FILE_NAME = "jerkar-repo-routing.properties";
+
+    private static final String ROUTE_PREFIX = "route.";
+
+    private static final String MISS_PREFIX = "miss.";
+
+    private static final String MISS_SEPARATOR = "@";
+
+    private final File file;
+
+    private final long negativeTtl;
+
+    private final Map<String, String> routes = new HashMap<String, String>();
+
+    private final Map<String, Long> misses = new HashMap<String, Long>();
+
+    private boolean changed;
+
+    private RepoRoutingTable(File file, long negativeTtl) {
+        this.file = file;
+        this.negativeTtl = negativeTtl;
+    }
+
+    /**
+     * Loads the routing table stored in the specified repository cache directory.
+     */
+    static RepoRoutingTable of(File cacheDir, long negativeTtl) {
+        final RepoRoutingTable result = new RepoRoutingTable(new File(cacheDir, FILE_NAME), negativeTtl);
+        if (!result.file.exists()) {
+            return result;
+        }
+        final long now = System.currentTimeMillis();
+        final Map<String, String> props = JkUtilsFile.readPropertyFileAsMap(result.file);
+        for (final Map.Entry<String, String> entry : props.entrySet()) {
+            final String key = entry.getKey();
+            if (key.startsWith(ROUTE_PREFIX)) {
+                result.routes.put(key.substring(ROUTE_PREFIX.length()), entry.getValue());
+            } else if (key.startsWith(MISS_PREFIX)) {
+                final long timestamp = Long.parseLong(entry.getValue());
+                if (now - timestamp < negativeTtl) {
+                    result.misses.put(key.substring(MISS_PREFIX.length()), timestamp);
+                } else {
+                    result.changed = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the name of the repository where the specified module has been
+     * last found, <code>null</code> if unknown.
+     */
+    synchronized String route(String moduleId) {
+        return routes.get(moduleId);
+    }
+
+    /**
+     * Returns <code>true</code> if the specified module revision has been
+     * recently looked up without success in the specified repository.
+     */
+    synchronized boolean isKnownMissing(String repoName, String moduleRevision) {
+        final String key = moduleRevision + MISS_SEPARATOR + repoName;
+        final Long timestamp = misses.get(key);
+        if (timestamp == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - timestamp >= negativeTtl) {
+            misses.remove(key);
+            changed = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records that the specified module has been found in the specified
+     * repository.
+     */
+    synchronized void found(String moduleId, String moduleRevision, String repoName) {
+        final String previous = routes.put(moduleId, repoName);
+        final Long miss = misses.remove(moduleRevision + MISS_SEPARATOR + repoName);
+        if (!repoName.equals(previous) || miss != null) {
+            changed = true;
+        }
+    }
+
+    /**
+     * Records that the specified module revision is not present in the
+     * specified repository.
+     */
+    synchronized void missing(String moduleId, String moduleRevision, String repoName) {
+        misses.put(moduleRevision + MISS_SEPARATOR + repoName, System.currentTimeMillis());
+        if (repoName.equals(routes.get(moduleId))) {
+            routes.remove(moduleId);
+        }
+        changed = true;
+    }
+
+    /**
+     * Writes this table on the file system if it has been modified since it
+     * has been loaded.
+     */
+    synchronized void saveIfChanged() {
+        if (!changed) {
+            return;
+        }
+        final Map<String, String> props = new HashMap<String, String>();
+        for (final Map.Entry<String, String> entry : routes.entrySet()) {
+            props.put(ROUTE_PREFIX + entry.getKey(), entry.getValue());
+        }
+        for (final Map.Entry<String, Long> entry : misses.entrySet()) {
+            props.put(MISS_PREFIX + entry.getKey(), Long.toString(entry.getValue()));
+        }
+        JkUtilsFile.writePropertyFile(file, props, "Jerkar repository routing table");
+        changed = false;
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jerkar.api.utils.JkUtilsFile;
+
+/**
+ * Not part of the public API.<br/>
+ * Records the artifacts that have already been verified against their
+ * published checksum or signature. An artifact is considered as verified as
+ * long as its size and last modification time have not changed since the
+ * verification. This index is stored in a property file located at the root
+ * of the repository cache.
+ *
+ * @author Jerome Angibaud
+ */
+final class VerifiedArtifactIndex {
+
+    private static final String FILE_NAME = "jerkar-verified-artifacts.properties";
+
+    private final File file;
+
+    private final Map<String, String> verified = new HashMap<String, String>();
+
+    private boolean changed;
+
+    private VerifiedArtifactIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the index stored in the specified repository cache directory.
+     */
+    static VerifiedArtifactIndex of(File cacheDir) {
+        final VerifiedArtifactIndex result = new VerifiedArtifactIndex(new File(cacheDir, FILE_NAME));
+        if (result.file.exists()) {
+            result.verified.putAll(JkUtilsFile.readPropertyFileAsMap(result.file));
+        }
+        return result;
+    }
+
+    /**
+     * Returns <code>true</code> if the specified artifact has been verified
+     * with the specified verification and not modified since.
+     */
+    synchronized boolean isVerified(File artifact, String verification) {
+        return stamp(artifact, verification).equals(verified.get(artifact.getAbsolutePath()));
+    }
+
+    /**
+     * Records that the specified artifact has been verified with the
+     * specified verification.
+     */
+    synchronized void verified(File artifact, String verification) {
+        verified.put(artifact.getAbsolutePath(), stamp(artifact, verification));
+        changed = true;
+    }
+
+    /**
+     * Writes this index on the file system if it has been modified since it
+     * has been loaded.
+     */
+    synchronized void saveIfChanged() {
+        if (!changed) {
+            return;
+        }
+        JkUtilsFile.writePropertyFile(file, verified, "Artifacts verified against published checksums/signatures");
+        changed = false;
+    }
+
+    private static String stamp(File artifact, String verification) {
+        return artifact.length() + ":" + artifact.lastModified() + ":" + verification;
+    }
+
+}
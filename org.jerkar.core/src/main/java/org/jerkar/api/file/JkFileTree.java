@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkMetrics;
 import org.jerkar.api.utils.JkUtilsAssert;
 import org.jerkar.api.utils.JkUtilsFile;
 import org.jerkar.api.utils.JkUtilsIO;
@@ -306,7 +307,10 @@ public final class JkFileTree implements Iterable<File> {
         if (!root.exists()) {
             throw new IllegalStateException("Folder " + root.getAbsolutePath() + " does nor exist.");
         }
-        return JkUtilsFile.filesOf(root, filter.toFileFilter(root), includeFolders);
+        final List<File> result = JkUtilsFile.filesOf(root, filter.toFileFilter(root), includeFolders);
+        JkMetrics.increment("fileTree.scans");
+        JkMetrics.add("fileTree.files", result.size());
+        return result;
     }
 
     /**
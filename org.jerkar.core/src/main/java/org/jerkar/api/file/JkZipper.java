@@ -2,6 +2,7 @@ package org.jerkar.api.file;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -12,6 +13,7 @@ import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkMetrics;
 import org.jerkar.api.utils.JkUtilsAssert;
 import org.jerkar.api.utils.JkUtilsFile;
 import org.jerkar.api.utils.JkUtilsIO;
@@ -166,8 +168,10 @@ public final class JkZipper {
      */
     public JkCheckSumer to(File zipFile, JkPathFilter entryFilter) {
         JkLog.start("Creating zip file : " + zipFile);
-        final ZipOutputStream zos = JkUtilsZip.createZipOutputStream(zipFile,
-                this.jkCompressionLevel.level);
+        final long start = System.nanoTime();
+        JkUtilsFile.createFileIfNotExist(zipFile);
+        final CountingZipOutputStream zos = new CountingZipOutputStream(JkUtilsIO.outputStream(zipFile, false));
+        zos.setLevel(this.jkCompressionLevel.level);
         zos.setMethod(this.jkCompressionMethod.method);
 
         // Adding files to archive
@@ -209,10 +213,30 @@ public final class JkZipper {
         JkUtilsIO.flush(zos);
         JkUtilsIO.finish(zos);
         JkUtilsIO.closeOrFail(zos);
+        JkMetrics.time("zip.time", start);
+        JkMetrics.add("zip.entries", zos.entries);
+        JkMetrics.add("zip.bytes", zipFile.length());
         JkLog.done();
         return new JkCheckSumer(zipFile);
     }
 
+    // Counts entries as they are written
+    private static final class CountingZipOutputStream extends ZipOutputStream {
+
+        private int entries;
+
+        CountingZipOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void putNextEntry(ZipEntry entry) throws IOException {
+            super.putNextEntry(entry);
+            entries++;
+        }
+
+    }
+
     private boolean storedMethod() {
         return JkCompressionMethod.STORED.equals(jkCompressionMethod);
     }
@@ -0,0 +1,449 @@
+package org.jerkar.api.java;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkMetrics;
+import org.jerkar.api.utils.JkUtilsString;
+
+/**
+ * Long-lived javac process serving compilations for a given JDK, so forked
+ * compilations do not pay the JVM startup and javac warm-up each time.
+ * <p>
+ * The client side starts one daemon per JDK home and JVM options, then sends
+ * each compilation as javac options and source files through a local socket.
+ * The daemon compiles through the compiler API and streams back javac output
+ * and diagnostics (kind, line, source and message), followed by a line holding
+ * a random token and the compilation result. Diagnostics are replayed on the
+ * client to a diagnostic listener, so forked compilations report errors as in
+ * process ones do. The same token, passed through the daemon standard input,
+ * must prefix each request and each diagnostic. The daemon stops as soon as
+ * its standard input is closed, that is when the build JVM exits.
+ *
+ * @author Jerome Angibaud
+ */
+final class CompilerDaemon {
+
+    private static final String EXIT = ":exit:";
+
+    private static final String DIAGNOSTIC = ":diagnostic:";
+
+    private static final String OPTION = "option:";
+
+    private static final String SOURCE = "source:";
+
+    private static final String PORT = "port:";
+
+    private static final String UTF8 = "UTF-8";
+
+    private static final Map<String, CompilerDaemon> DAEMONS = new HashMap<String, CompilerDaemon>();
+
+    private final Process process;
+
+    private final int port;
+
+    private final String token;
+
+    private CompilerDaemon(Process process, int port, String token) {
+        this.process = process;
+        this.port = port;
+        this.token = token;
+    }
+
+    /**
+     * Compiles the specified sources with the specified javac options, on a
+     * daemon running on the specified JDK with the specified JVM options. Each
+     * line output by javac is passed to the specified writer while diagnostics
+     * are reported to the specified listener. Returns the javac exit code or
+     * <code>null</code> if no daemon can be run for this JDK.
+     */
+    static Integer compile(File jdkHome, List<String> jvmOptions, List<String> options, List<File> sources,
+            Writer output, DiagnosticListener<JavaFileObject> listener) {
+        final CompilerDaemon daemon = get(jdkHome, jvmOptions);
+        if (daemon == null) {
+            return null;
+        }
+        synchronized (daemon) {
+            try {
+                return daemon.request(options, sources, output, listener);
+            } catch (final IOException e) {
+                throw new IllegalStateException("Compiler daemon on " + jdkHome + " failed.", e);
+            }
+        }
+    }
+
+    private static synchronized CompilerDaemon get(File jdkHome, List<String> jvmOptions) {
+        final String key = jdkHome.getAbsolutePath() + jvmOptions;
+        final CompilerDaemon existing = DAEMONS.get(key);
+        if (existing != null && alive(existing.process)) {
+            return existing;
+        }
+        final CompilerDaemon daemon = start(jdkHome, jvmOptions);
+        if (daemon != null) {
+            JkMetrics.increment("compilation.daemon.started");
+            DAEMONS.put(key, daemon);
+        }
+        return daemon;
+    }
+
+    private static CompilerDaemon start(File jdkHome, List<String> jvmOptions) {
+        final File java = new File(jdkHome, "bin/java");
+        final File classpath = classpath();
+        if (classpath == null) {
+            return null;
+        }
+        final List<String> command = new LinkedList<String>();
+        command.add(java.getAbsolutePath());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(classpath.getAbsolutePath());
+        command.add(CompilerDaemon.class.getName());
+        final byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        final String token = JkUtilsString.toHexString(random);
+        try {
+            final ProcessBuilder builder = new ProcessBuilder(command);
+            builder.redirectErrorStream(true);
+            final Process process = builder.start();
+            final OutputStream stdin = process.getOutputStream();
+            stdin.write((token + "\n").getBytes(UTF8));
+            stdin.flush();
+            final BufferedReader stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF8));
+            String line = stdout.readLine();
+            while (line != null && !line.startsWith(PORT)) {
+                line = stdout.readLine();
+            }
+            if (line == null) {
+                process.destroy();
+                return null;
+            }
+            drain(stdout);
+            final CompilerDaemon daemon = new CompilerDaemon(process,
+                    Integer.parseInt(line.substring(PORT.length())), token);
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+
+                @Override
+                public void run() {
+                    daemon.process.destroy();
+                }
+            });
+            return daemon;
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    // Location of the Jerkar classes, so the daemon can be launched
+    private static File classpath() {
+        try {
+            final String location = CompilerDaemon.class.getProtectionDomain().getCodeSource().getLocation()
+                    .toURI().getPath();
+            return location == null ? null : new File(location);
+        } catch (final Exception e) { // NOSONAR null means daemon can not be launched
+            return null;
+        }
+    }
+
+    private static boolean alive(Process process) {
+        try {
+            process.exitValue();
+            return false;
+        } catch (final IllegalThreadStateException e) {
+            return true;
+        }
+    }
+
+    // Consumes the daemon output so it never blocks on a full pipe
+    private static void drain(final BufferedReader reader) {
+        final Thread thread = new Thread("jerkar-compiler-daemon-output") {
+
+            @Override
+            public void run() {
+                try {
+                    String line = reader.readLine();
+                    while (line != null) {
+                        JkLog.warn(line);
+                        line = reader.readLine();
+                    }
+                } catch (final IOException e) {
+                    // The daemon is gone
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Options and sources are sent one per line, an empty line ends the request
+    private int request(List<String> options, List<File> sources, Writer output,
+            DiagnosticListener<JavaFileObject> listener) throws IOException {
+        final Socket socket = new Socket(InetAddress.getByName("127.0.0.1"), port);
+        try {
+            final StringBuilder request = new StringBuilder(token).append('\n');
+            for (final String option : options) {
+                request.append(OPTION).append(option).append('\n');
+            }
+            for (final File source : sources) {
+                request.append(SOURCE).append(source.getAbsolutePath()).append('\n');
+            }
+            final OutputStream out = socket.getOutputStream();
+            out.write(request.append('\n').toString().getBytes(UTF8));
+            out.flush();
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF8));
+            final String end = token + EXIT;
+            final String diagnostic = token + DIAGNOSTIC;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.startsWith(diagnostic)) {
+                    listener.report(RemoteDiagnostic.parse(line.substring(diagnostic.length())));
+                    continue;
+                }
+                final int endIndex = line.indexOf(end);
+                if (endIndex >= 0) {
+                    if (endIndex > 0) {
+                        output.write(line.substring(0, endIndex));
+                        output.write('\n');
+                        output.flush();
+                    }
+                    return Integer.parseInt(line.substring(endIndex + end.length()));
+                }
+                output.write(line);
+                output.write('\n');
+                output.flush();
+            }
+            throw new IOException("Compiler daemon closed the connection.");
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Entry point of the daemon process.
+     */
+    public static void main(String[] args) throws IOException {
+        final BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in, UTF8));
+        final String token = stdin.readLine();
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (token == null || compiler == null) {
+            JkLog.error("No compiler available on " + System.getProperty("java.home"));
+            System.exit(1);
+        }
+        final Thread watcher = new Thread() {
+
+            @Override
+            public void run() {
+                try {
+                    while (stdin.readLine() != null) {
+                        // Wait for the build JVM to close the stream
+                    }
+                } catch (final IOException e) {
+                    // Exits as well
+                }
+                System.exit(0);
+            }
+        };
+        watcher.setDaemon(true);
+        watcher.start();
+        final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        System.out.println(PORT + serverSocket.getLocalPort());
+        System.out.flush();
+        while (true) {
+            final Socket socket = serverSocket.accept();
+            try {
+                serve(socket, token, compiler);
+            } catch (final IOException e) {
+                JkLog.error("Compilation request failed : " + e.getMessage());
+            } finally {
+                socket.close();
+            }
+        }
+    }
+
+    private static void serve(Socket socket, final String token, JavaCompiler compiler) throws IOException {
+        final InputStream in = socket.getInputStream();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8));
+        if (!token.equals(reader.readLine())) {
+            return;
+        }
+        final List<String> options = new LinkedList<String>();
+        final List<File> sources = new LinkedList<File>();
+        for (String line = reader.readLine(); line != null && line.length() > 0; line = reader.readLine()) {
+            if (line.startsWith(OPTION)) {
+                options.add(line.substring(OPTION.length()));
+            } else if (line.startsWith(SOURCE)) {
+                sources.add(new File(line.substring(SOURCE.length())));
+            }
+        }
+        final PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), UTF8), true);
+        final DiagnosticListener<JavaFileObject> listener = new DiagnosticListener<JavaFileObject>() {
+
+            @Override
+            public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+                out.println(token + DIAGNOSTIC + RemoteDiagnostic.format(diagnostic));
+            }
+        };
+        final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        boolean result;
+        try {
+            result = compiler.getTask(out, fileManager, listener, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sources)).call();
+        } catch (final RuntimeException e) {
+            out.println(e.getMessage());
+            result = false;
+        } finally {
+            fileManager.close();
+        }
+        out.println(token + EXIT + (result ? 0 : 1));
+        out.flush();
+    }
+
+    /**
+     * Diagnostic transmitted from the daemon as a single line holding the
+     * kind, line number, source URI and message separated by tabs. Line breaks
+     * of the message are escaped.
+     */
+    private static final class RemoteDiagnostic implements Diagnostic<JavaFileObject> {
+
+        private final Kind kind;
+
+        private final long line;
+
+        private final JavaFileObject source;
+
+        private final String message;
+
+        private RemoteDiagnostic(Kind kind, long line, JavaFileObject source, String message) {
+            this.kind = kind;
+            this.line = line;
+            this.source = source;
+            this.message = message;
+        }
+
+        static String format(Diagnostic<? extends JavaFileObject> diagnostic) {
+            final String source = diagnostic.getSource() == null ? "" : diagnostic.getSource().toUri().toString();
+            final String message = diagnostic.getMessage(Locale.getDefault());
+            return diagnostic.getKind().name() + "\t" + diagnostic.getLineNumber() + "\t" + source + "\t"
+                    + (message == null ? "" : message.replace("\\", "\\\\").replace("\r", "")
+                            .replace("\n", "\\n"));
+        }
+
+        static RemoteDiagnostic parse(String formatted) {
+            final String[] items = formatted.split("\t", 4);
+            final JavaFileObject source = items[2].length() == 0 ? null : new RemoteSource(URI.create(items[2]));
+            final StringBuilder message = new StringBuilder();
+            for (int i = 0; i < items[3].length(); i++) {
+                final char c = items[3].charAt(i);
+                if (c == '\\' && i + 1 < items[3].length()) {
+                    i++;
+                    message.append(items[3].charAt(i) == 'n' ? '\n' : items[3].charAt(i));
+                } else {
+                    message.append(c);
+                }
+            }
+            return new RemoteDiagnostic(Kind.valueOf(items[0]), Long.parseLong(items[1]), source,
+                    message.toString());
+        }
+
+        @Override
+        public Kind getKind() {
+            return kind;
+        }
+
+        @Override
+        public JavaFileObject getSource() {
+            return source;
+        }
+
+        @Override
+        public long getPosition() {
+            return NOPOS;
+        }
+
+        @Override
+        public long getStartPosition() {
+            return NOPOS;
+        }
+
+        @Override
+        public long getEndPosition() {
+            return NOPOS;
+        }
+
+        @Override
+        public long getLineNumber() {
+            return line;
+        }
+
+        @Override
+        public long getColumnNumber() {
+            return NOPOS;
+        }
+
+        @Override
+        public String getCode() {
+            return null;
+        }
+
+        @Override
+        public String getMessage(Locale locale) {
+            return message;
+        }
+
+        // Same layout as javac diagnostics : 'path:line: kind: message'
+        @Override
+        public String toString() {
+            final StringBuilder result = new StringBuilder();
+            if (source != null) {
+                final URI uri = source.toUri();
+                result.append("file".equals(uri.getScheme()) ? new File(uri).getPath() : uri.toString()).append(':');
+                if (line != NOPOS) {
+                    result.append(line).append(':');
+                }
+                result.append(' ');
+            }
+            if (kind == Kind.ERROR) {
+                result.append("error: ");
+            } else if (kind == Kind.WARNING || kind == Kind.MANDATORY_WARNING) {
+                result.append("warning: ");
+            } else if (kind == Kind.NOTE) {
+                result.append("Note: ");
+            }
+            return result.append(message).toString();
+        }
+
+    }
+
+    private static final class RemoteSource extends SimpleJavaFileObject {
+
+        RemoteSource(URI uri) {
+            super(uri, JavaFileObject.Kind.SOURCE);
+        }
+
+    }
+
+}
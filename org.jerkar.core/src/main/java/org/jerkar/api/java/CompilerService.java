@@ -0,0 +1,236 @@
+package org.jerkar.api.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkMetrics;
+import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.api.utils.JkUtilsThrowable;
+
+/**
+ * Keeps the system java compiler and a file manager warm for all compilations
+ * run in this class loader, so JIT optimizations done on javac classes and
+ * the file manager set up benefit to all compilations. The file manager keeps
+ * the jars it has opened and their indexes between compilations : it is only
+ * flushed after each compilation, and closed when the JVM exits.
+ * <p>
+ * As javac reads path options only for the first task run on a file manager,
+ * paths are set on the file manager itself before each compilation. The file
+ * manager is renewed as soon as a jar it may have indexed has changed on disk.
+ * It is not thread safe : a compilation starting while another one holds it
+ * gets a fresh file manager.
+ *
+ * @author Jerome Angibaud
+ */
+final class CompilerService {
+
+    private static final Map<String, StandardLocation> LOCATION_OPTIONS = new LinkedHashMap<String, StandardLocation>();
+
+    static {
+        LOCATION_OPTIONS.put("-d", StandardLocation.CLASS_OUTPUT);
+        LOCATION_OPTIONS.put("-s", StandardLocation.SOURCE_OUTPUT);
+        LOCATION_OPTIONS.put("-cp", StandardLocation.CLASS_PATH);
+        LOCATION_OPTIONS.put("-classpath", StandardLocation.CLASS_PATH);
+        LOCATION_OPTIONS.put("-sourcepath", StandardLocation.SOURCE_PATH);
+        LOCATION_OPTIONS.put("-processorpath", StandardLocation.ANNOTATION_PROCESSOR_PATH);
+        LOCATION_OPTIONS.put("-bootclasspath", StandardLocation.PLATFORM_CLASS_PATH);
+    }
+
+    // Options altering paths that can not be set on a file manager
+    private static final String[] UNSHARABLE_OPTIONS = { "-extdirs", "-endorseddirs", "-Xbootclasspath/p:",
+        "-Xbootclasspath/a:", "-Xbootclasspath:", "-Djava.ext.dirs=", "-Djava.endorsed.dirs=" };
+
+    private static final CompilerService INSTANCE = new CompilerService();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private JavaCompiler compiler;
+
+    // Read by the shutdown hook, that closes it so jar handles are released
+    private volatile StandardJavaFileManager fileManager;
+
+    // Jars seen by the shared file manager, with their last modified time and length
+    private final Map<File, long[]> jarStamps = new HashMap<File, long[]>();
+
+    private CompilerService() {
+        Runtime.getRuntime().addShutdownHook(new Thread("jerkar-file-manager-close") {
+
+            @Override
+            public void run() {
+                final StandardJavaFileManager shared = fileManager;
+                if (shared != null) {
+                    close(shared);
+                }
+            }
+        });
+    }
+
+    static CompilerService instance() {
+        return INSTANCE;
+    }
+
+    private synchronized JavaCompiler compiler() {
+        if (compiler == null) {
+            compiler = ToolProvider.getSystemJavaCompiler();
+            if (compiler == null) {
+                throw new IllegalStateException("This platform does not provide compiler. Try another JDK or use JkJavaCompiler.andCompiler(JavaCompiler)");
+            }
+        }
+        return compiler;
+    }
+
+    /**
+     * Compiles the specified source files using the specified javac options.
+     * Returns <code>false</code> if a compilation error occurred.
+     */
+    boolean compile(List<String> options, List<File> sourceFiles, Writer out,
+            DiagnosticListener<? super JavaFileObject> diagnosticListener) {
+        final JavaCompiler javaCompiler = compiler();
+        for (final String option : options) {
+            if (JkUtilsString.startsWithAny(option, UNSHARABLE_OPTIONS)) {
+                JkMetrics.increment("compilation.fileManager.created");
+                final StandardJavaFileManager fileManager = javaCompiler.getStandardFileManager(null, null, null);
+                try {
+                    return call(javaCompiler, fileManager, options, sourceFiles, out, diagnosticListener);
+                } finally {
+                    close(fileManager);
+                }
+            }
+        }
+        final StandardJavaFileManager fileManager = acquire(options);
+        try {
+            return call(javaCompiler, fileManager, bindLocations(fileManager, options), sourceFiles, out,
+                    diagnosticListener);
+        } finally {
+            release(fileManager);
+        }
+    }
+
+    private static boolean call(JavaCompiler javaCompiler, StandardJavaFileManager fileManager,
+            List<String> options, List<File> sourceFiles, Writer out,
+            DiagnosticListener<? super JavaFileObject> diagnosticListener) {
+        final Iterable<? extends JavaFileObject> javaFileObjects = fileManager
+                .getJavaFileObjectsFromFiles(sourceFiles);
+        return javaCompiler.getTask(out, fileManager, diagnosticListener, options, null, javaFileObjects)
+                .call();
+    }
+
+    // Sets the paths on the file manager and returns the options left for the compilation task
+    private static List<String> bindLocations(StandardJavaFileManager fileManager, List<String> options) {
+        final Map<StandardLocation, List<File>> locations = new HashMap<StandardLocation, List<File>>();
+        final List<String> result = new LinkedList<String>();
+        for (final Iterator<String> it = options.iterator(); it.hasNext();) {
+            final String option = it.next();
+            final StandardLocation location = LOCATION_OPTIONS.get(option);
+            if (location == null || !it.hasNext()) {
+                result.add(option);
+                continue;
+            }
+            final List<File> files = new LinkedList<File>();
+            for (final String path : it.next().split(File.pathSeparator)) {
+                if (!path.isEmpty()) {
+                    files.add(new File(path));
+                }
+            }
+            locations.put(location, files);
+        }
+        for (final StandardLocation location : LOCATION_OPTIONS.values()) {
+            try {
+                fileManager.setLocation(location, locations.get(location)); // null means default
+            } catch (final IOException e) {
+                throw JkUtilsThrowable.unchecked(e, "Can't set " + location + " to " + locations.get(location));
+            }
+        }
+        return result;
+    }
+
+    private StandardJavaFileManager acquire(List<String> options) {
+        if (!lock.tryLock()) {
+            JkMetrics.increment("compilation.fileManager.created");
+            return compiler().getStandardFileManager(null, null, null);
+        }
+        final Map<File, long[]> stamps = jarStamps(options);
+        if (fileManager != null && !upToDate(stamps)) {
+            JkLog.trace("Classpath jars have changed, renew the shared file manager.");
+            close(fileManager);
+            fileManager = null;
+            jarStamps.clear();
+        }
+        if (fileManager == null) {
+            JkMetrics.increment("compilation.fileManager.created");
+            fileManager = compiler().getStandardFileManager(null, null, null);
+        } else {
+            JkMetrics.increment("compilation.fileManager.reused");
+        }
+        jarStamps.putAll(stamps);
+        return fileManager;
+    }
+
+    private void release(StandardJavaFileManager used) {
+        if (used != fileManager || !lock.isHeldByCurrentThread()) {
+            close(used);
+            return;
+        }
+        try {
+            fileManager.flush();
+        } catch (final IOException e) {
+            close(fileManager);
+            fileManager = null;
+            jarStamps.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean upToDate(Map<File, long[]> stamps) {
+        for (final Map.Entry<File, long[]> entry : stamps.entrySet()) {
+            final long[] known = jarStamps.get(entry.getKey());
+            if (known != null && (known[0] != entry.getValue()[0] || known[1] != entry.getValue()[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<File, long[]> jarStamps(List<String> options) {
+        final Map<File, long[]> result = new HashMap<File, long[]>();
+        for (final Iterator<String> it = options.iterator(); it.hasNext();) {
+            final String option = it.next();
+            if (!LOCATION_OPTIONS.containsKey(option) || "-d".equals(option) || !it.hasNext()) {
+                continue;
+            }
+            for (final String path : it.next().split(File.pathSeparator)) {
+                final File file = new File(path);
+                if (file.isFile()) {
+                    result.put(file, new long[] { file.lastModified(), file.length() });
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void close(StandardJavaFileManager fileManager) {
+        try {
+            fileManager.close();
+        } catch (final IOException e) {
+            JkLog.trace("Unable to close file manager : " + e.getMessage());
+        }
+    }
+
+}
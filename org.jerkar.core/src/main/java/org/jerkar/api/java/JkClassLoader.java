@@ -15,6 +15,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +29,7 @@ import org.jerkar.api.file.JkFileTreeSet;
 import org.jerkar.api.file.JkPathFilter;
 import org.jerkar.api.system.JkLocator;
 import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkMetrics;
 import org.jerkar.api.utils.JkUtilsFile;
 import org.jerkar.api.utils.JkUtilsIO;
 import org.jerkar.api.utils.JkUtilsIterable;
@@ -50,8 +52,24 @@ public final class JkClassLoader {
 
     private static final int JAVA_SUFFIX_LENGTH = ".java".length();
 
+    private static final int MAX_SHARED_LOADERS = 4;
+
     private static File urlCacheDir = new File(JkLocator.jerkarUserHome(), "cache/url-content");
 
+    // Class loaders holding library jars, reused by the layered class loaders having the same jars
+    @SuppressWarnings("serial")
+    private static final Map<String, URLClassLoader> SHARED_LOADERS = new LinkedHashMap<String, URLClassLoader>(
+            16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, URLClassLoader> eldest) {
+            return size() > MAX_SHARED_LOADERS;
+        }
+    };
+
+    // Service names declared in META-INF/services of jar files, keyed by jar stamp
+    private static final Map<String, List<String>> JAR_SERVICES = new HashMap<String, List<String>>();
+
     static {
         urlCacheDir.mkdirs();
     }
@@ -84,8 +102,16 @@ public final class JkClassLoader {
         return urlCacheDir;
     }
 
+    // Marks a Jerkar class looked up but not defined in this class loader
+    private static final Class<?> UNDEFINED = Void.class;
+
     private final URLClassLoader delegate;
 
+    // JkLog and JkMetrics classes as seen by this class loader, looked up on first cross class loader call
+    private volatile Class<?> logClass;
+
+    private volatile Class<?> metricsClass;
+
     private JkClassLoader(URLClassLoader delegate) {
         this.delegate = delegate;
     }
@@ -145,6 +171,51 @@ public final class JkClassLoader {
         return new JkClassLoader(new URLClassLoader(toUrl(entries), this.delegate));
     }
 
+    /**
+     * Creates a <code>JkClassLoader</code> having the specified entries, laid
+     * out on two levels : jar entries go in a parent class loader shared by
+     * all the class loaders created by this method with the same jars (same
+     * paths, sizes and modification times), other entries go in a child class
+     * loader proper to the returned instance. So the libraries common to
+     * several modules are loaded only once in a multi-module build. As with
+     * <code>system().parent().child(entries)</code>, classes of the running
+     * application are not visible.
+     * <p>
+     * Note that the order of the entries is not honored between the two
+     * levels : as loading is parent first, a class or resource present both
+     * in a jar and in a directory entry is taken from the jar.
+     */
+    public static JkClassLoader layered(Iterable<File> entries) {
+        final List<File> jars = new LinkedList<File>();
+        final List<File> others = new LinkedList<File>();
+        final StringBuilder key = new StringBuilder();
+        for (final File entry : entries) {
+            if (entry.isFile()) {
+                jars.add(entry);
+                key.append(stamp(entry)).append(File.pathSeparator);
+            } else {
+                others.add(entry);
+            }
+        }
+        URLClassLoader shared;
+        synchronized (SHARED_LOADERS) {
+            shared = SHARED_LOADERS.get(key.toString());
+            if (shared == null) {
+                shared = new URLClassLoader(toUrl(jars), ClassLoader.getSystemClassLoader().getParent());
+                SHARED_LOADERS.put(key.toString(), shared);
+                JkMetrics.increment("classloader.shared.created");
+            } else {
+                JkLog.trace("Reuse class loader holding " + jars.size() + " jars.");
+                JkMetrics.increment("classloader.shared.reused");
+            }
+        }
+        return new JkClassLoader(new URLClassLoader(toUrl(others), shared));
+    }
+
+    private static String stamp(File file) {
+        return file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified();
+    }
+
     /**
      * Creates a <code>JkClassLoader</code> loader having the same parent and
      * the same entries as this one plus the specified entries. URL entries that
@@ -595,6 +666,7 @@ public final class JkClassLoader {
             return result;
         } finally {
             Thread.currentThread().setContextClassLoader(currentClassLoader);
+            collectMetrics();
         }
     }
 
@@ -636,6 +708,7 @@ public final class JkClassLoader {
             throw new RuntimeException(e);
         } finally {
             Thread.currentThread().setContextClassLoader(currentClassLoader);
+            collectMetrics();
         }
     }
 
@@ -657,21 +730,11 @@ public final class JkClassLoader {
         final Set<Class<?>> serviceClasses = new HashSet<Class<?>>();
         for (final File file : this.fullClasspath()) {
             if (file.isFile()) {
-                JkLog.trace("Scanning " + file.getPath() + " for META-INF/services.");
-                final ZipFile zipFile = JkUtilsZip.zipFile(file);
-                final ZipEntry serviceEntry = zipFile.getEntry("META-INF/services");
-                if (serviceEntry == null) {
-                    continue;
-                }
-                for (final ZipEntry entry : JkUtilsZip.zipEntries(zipFile)) {
-                    if (entry.getName().startsWith("META-INF/services/")) {
-                        final String serviceName = JkUtilsString.substringAfterLast(
-                                entry.getName(), "/");
-                        final Class<?> serviceClass = this.loadIfExist(serviceName);
-                        if (serviceClass != null) {
-                            JkLog.trace("Found service providers for : " + serviceName);
-                            serviceClasses.add(serviceClass);
-                        }
+                for (final String serviceName : jarServices(file)) {
+                    final Class<?> serviceClass = this.loadIfExist(serviceName);
+                    if (serviceClass != null) {
+                        JkLog.trace("Found service providers for : " + serviceName);
+                        serviceClasses.add(serviceClass);
                     }
                 }
             } else {
@@ -695,16 +758,67 @@ public final class JkClassLoader {
         return this;
     }
 
+    // Jars do not change without their stamp changing, so each is scanned once
+    private static List<String> jarServices(File jar) {
+        final String key = stamp(jar);
+        synchronized (JAR_SERVICES) {
+            final List<String> cached = JAR_SERVICES.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        JkLog.trace("Scanning " + jar.getPath() + " for META-INF/services.");
+        final List<String> result = new LinkedList<String>();
+        final ZipFile zipFile = JkUtilsZip.zipFile(jar);
+        try {
+            for (final ZipEntry entry : JkUtilsZip.zipEntries(zipFile)) {
+                if (entry.getName().startsWith("META-INF/services/") && !entry.isDirectory()) {
+                    result.add(JkUtilsString.substringAfterLast(entry.getName(), "/"));
+                }
+            }
+        } finally {
+            JkUtilsIO.closeQuietly(zipFile);
+        }
+        synchronized (JAR_SERVICES) {
+            JAR_SERVICES.put(key, result);
+        }
+        return result;
+    }
+
     private void offsetLog() {
-        if (this.isDefined(JkLog.class.getName())) {
+        if (logClass == null) {
+            logClass = lookup(JkLog.class);
+        }
+        if (logClass != UNDEFINED) {
+
+            // Classes of the other class loader write straight on the console
+            JkLog.flush();
             final int offset = JkLog.offset();
-            final Class<?> toClass = this.load(JkLog.class.getName());
+            final Class<?> toClass = logClass;
             JkUtilsReflect.invokeStaticMethod(toClass, "offset", offset);
             JkUtilsReflect.invokeStaticMethod(toClass, "verbose", JkLog.verbose());
             JkUtilsReflect.invokeStaticMethod(toClass, "silent", JkLog.silent());
         }
     }
 
+    // Brings back the metrics collected by the Jerkar classes loaded in this class loader
+    private void collectMetrics() {
+        if (metricsClass == null) {
+            metricsClass = lookup(JkMetrics.class);
+        }
+        if (metricsClass != UNDEFINED) {
+            final Class<?> fromClass = metricsClass;
+            if (fromClass != JkMetrics.class) {
+                final Map<String, long[]> metrics = JkUtilsReflect.invokeStaticMethod(fromClass, "drain");
+                JkUtilsReflect.invokeStaticMethod(JkMetrics.class, "merge", metrics);
+            }
+        }
+    }
+
+    private Class<?> lookup(Class<?> clazz) {
+        return this.isDefined(clazz.getName()) ? this.load(clazz.getName()) : UNDEFINED;
+    }
+
     private static Object traverseClassLoader(Object object, JkClassLoader to) {
         if (object == null) {
             return null;
@@ -14,7 +14,9 @@ import javax.tools.JavaCompiler.CompilationTask;
 import org.jerkar.api.file.JkFileTree;
 import org.jerkar.api.file.JkPathFilter;
 import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkMetrics;
 import org.jerkar.api.system.JkProcess;
+import org.jerkar.api.utils.JkUtilsFile;
 import org.jerkar.api.utils.JkUtilsString;
 
 /**
@@ -57,7 +59,7 @@ public final class JkJavaCompiler {
         final List<String> options = new LinkedList<String>();
         options.add("-d");
         options.add(outputDir.getAbsolutePath());
-        return new JkJavaCompiler(options, Collections.EMPTY_LIST, true, null, null, null);
+        return new JkJavaCompiler(options, Collections.EMPTY_LIST, true, null, null, null, null);
     }
 
     private final List<String> options;
@@ -68,17 +70,21 @@ public final class JkJavaCompiler {
 
     private final JkProcess fork;
 
+    // Home of the JDK the fork runs javac of, null if the fork runs another compiler
+    private final File forkJdkHome;
+
     private String versionCache;
 
     private final JavaCompiler compiler;
 
     private JkJavaCompiler(List<String> options, List<File> javaSourceFiles, boolean failOnError,
-            JkProcess fork, String versionCache, JavaCompiler compiler) {
+            JkProcess fork, File forkJdkHome, String versionCache, JavaCompiler compiler) {
         super();
         this.options = options;
         this.javaSourceFiles = javaSourceFiles;
         this.failOnError = failOnError;
         this.fork = fork;
+        this.forkJdkHome = forkJdkHome;
         this.versionCache = versionCache;
         this.compiler = compiler;
     }
@@ -89,7 +95,7 @@ public final class JkJavaCompiler {
      * a compilation error will throw a {@link IllegalStateException}.
      */
     public JkJavaCompiler failOnError(boolean fail) {
-        return new JkJavaCompiler(options, javaSourceFiles, fail, fork, versionCache, compiler);
+        return new JkJavaCompiler(options, javaSourceFiles, fail, fork, forkJdkHome, versionCache, compiler);
     }
 
     /**
@@ -104,7 +110,7 @@ public final class JkJavaCompiler {
     public JkJavaCompiler andOptions(String... options) {
         final List<String> newOptions = new LinkedList<String>(this.options);
         newOptions.addAll(Arrays.asList(options));
-        return new JkJavaCompiler(newOptions, javaSourceFiles, failOnError, fork, versionCache, compiler);
+        return new JkJavaCompiler(newOptions, javaSourceFiles, failOnError, fork, forkJdkHome, versionCache, compiler);
     }
 
     /**
@@ -116,7 +122,7 @@ public final class JkJavaCompiler {
     public JkJavaCompiler withOptions(String... options) {
         final List<String> newOptions = new LinkedList<String>(this.options);
         newOptions.addAll(Arrays.asList(options));
-        return new JkJavaCompiler(newOptions, javaSourceFiles, failOnError, fork, versionCache, compiler);
+        return new JkJavaCompiler(newOptions, javaSourceFiles, failOnError, fork, forkJdkHome, versionCache, compiler);
     }
 
     /**
@@ -202,11 +208,14 @@ public final class JkJavaCompiler {
     /**
      * Creates a copy of this {@link JkJavaCompiler} but with forking the javac
      * process. The javac process is created using specified argument defined in
-     * {@link JkProcess#ofJavaTool(String, String...)}
+     * {@link JkProcess#ofJavaTool(String, String...)}. Compilations are served
+     * by a javac daemon process started at first compilation and reused for
+     * the subsequent ones. Its diagnostics are reported as the ones of in
+     * process compilations.
      */
     public JkJavaCompiler fork(String... parameters) {
         return new JkJavaCompiler(new LinkedList<String>(options), javaSourceFiles, failOnError,
-                JkProcess.ofJavaTool("javac", parameters), versionCache, compiler);
+                JkProcess.ofJavaTool("javac", parameters), currentJdkHome(), versionCache, compiler);
     }
 
     /**
@@ -216,10 +225,10 @@ public final class JkJavaCompiler {
     public JkJavaCompiler fork(boolean fork, String... parameters) {
         if (fork) {
             return new JkJavaCompiler(new LinkedList<String>(options), javaSourceFiles,
-                    failOnError, JkProcess.ofJavaTool("javac"), versionCache, compiler);
+                    failOnError, JkProcess.ofJavaTool("javac"), currentJdkHome(), versionCache, compiler);
         } else {
             return new JkJavaCompiler(new LinkedList<String>(options), javaSourceFiles,
-                    failOnError, null, versionCache, compiler);
+                    failOnError, null, null, versionCache, compiler);
         }
 
     }
@@ -234,7 +243,7 @@ public final class JkJavaCompiler {
      */
     public JkJavaCompiler forkOnCompiler(String executable, String... parameters) {
         return new JkJavaCompiler(new LinkedList<String>(options), javaSourceFiles, failOnError,
-                JkProcess.of(executable, parameters), versionCache, compiler);
+                JkProcess.of(executable, parameters), null, versionCache, compiler);
     }
 
     /**
@@ -248,7 +257,7 @@ public final class JkJavaCompiler {
                 newSources.add(file);
             }
         }
-        return new JkJavaCompiler(options, newSources, failOnError, fork, versionCache, compiler);
+        return new JkJavaCompiler(options, newSources, failOnError, fork, forkJdkHome, versionCache, compiler);
     }
 
     /**
@@ -265,11 +274,14 @@ public final class JkJavaCompiler {
      */
     public JkJavaCompiler withCompiler(JavaCompiler compiler) {
         // turn off forking
-        return new JkJavaCompiler(options, javaSourceFiles, failOnError, null, versionCache, compiler);
+        return new JkJavaCompiler(options, javaSourceFiles, failOnError, null, null, versionCache, compiler);
     }
 
     /**
-     * Actually compile the source files to the output directory.
+     * Actually compile the source files to the output directory. Unless a
+     * specific compiler or a fork has been specified, the compilation runs on
+     * the system compiler, kept warm along with its file manager for all the
+     * compilations run in this class loader.
      *
      * @return <code>false</code> if a compilation error occurred.
      *
@@ -277,9 +289,6 @@ public final class JkJavaCompiler {
      *             a compilation error occured and the 'failOnError' flag in on.
      */
     public boolean compile() {
-        final JavaCompiler compiler = this.compiler != null ? this.compiler : getDefaultOrFail();
-        final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null,
-                null);
         String message = "Compiling " + javaSourceFiles.size() + " source files";
         if (JkLog.verbose()) {
             message = message + " using options : " + JkUtilsString
@@ -291,16 +300,24 @@ public final class JkJavaCompiler {
             JkLog.done();
             return true;
         }
+        final long start = System.nanoTime();
         final boolean result;
-        if (this.fork == null) {
+        if (this.fork == null && this.compiler != null) {
+            final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null,
+                    null);
             final Iterable<? extends JavaFileObject> javaFileObjects = fileManager
                     .getJavaFileObjectsFromFiles(this.javaSourceFiles);
             final CompilationTask task = compiler.getTask(new PrintWriter(JkLog.warnStream()),
                     null, new JkDiagnosticListener(), options, null, javaFileObjects);
             result = task.call();
+        } else if (this.fork == null) {
+            result = CompilerService.instance().compile(options, javaSourceFiles,
+                    new PrintWriter(JkLog.warnStream()), new JkDiagnosticListener());
         } else {
             result = runOnFork();
         }
+        JkMetrics.add("compilation.sources", javaSourceFiles.size());
+        JkMetrics.time("compilation.time", start);
         JkLog.done();
         if (!result) {
             if (failOnError) {
@@ -311,22 +328,69 @@ public final class JkJavaCompiler {
         return true;
     }
 
+    // Diagnostics of the daemon are reported as in process ones. Arguments of a javac process are
+    // passed through a file so the command line length limit is never hit.
     private boolean runOnFork() {
-        final List<String> sourcePaths = new LinkedList<String>();
+        final List<String> daemonJvmOptions = daemonJvmOptions();
+        if (forkJdkHome != null && daemonJvmOptions != null && !olderThanJava6()) {
+            final Integer result = CompilerDaemon.compile(forkJdkHome, daemonJvmOptions, options,
+                    javaSourceFiles, new PrintWriter(JkLog.infoStream()), new JkDiagnosticListener());
+            if (result != null) {
+                return result == 0;
+            }
+            JkLog.warn("Can not start a compiler daemon on " + forkJdkHome + ", run javac process instead.");
+        }
+        final List<String> args = new LinkedList<String>(options);
         for (final File file : javaSourceFiles) {
-            sourcePaths.add(file.getAbsolutePath());
+            args.add(file.getAbsolutePath());
+        }
+        final File argFile = JkUtilsFile.tempFile("jerkar-javac", ".args");
+        JkUtilsFile.writeString(argFile, argFileContent(args), false);
+        try {
+            final JkProcess jkProcess = this.fork.andParameters("@" + argFile.getAbsolutePath());
+            final int result = jkProcess.runSync();
+            return (result == 0);
+        } finally {
+            argFile.delete();
+        }
+    }
+
+    // Daemon classes can not be loaded on these JDKs
+    private boolean olderThanJava6() {
+        return versionCache != null && JkUtilsString.equalsAny(versionCache, V1_3, V1_4, V5);
+    }
+
+    // javac -J options of the fork are the JVM options of the daemon. Null if the fork has other parameters.
+    private List<String> daemonJvmOptions() {
+        final List<String> result = new LinkedList<String>();
+        for (final String parameter : fork.parameters()) {
+            if (!parameter.startsWith("-J")) {
+                return null;
+            }
+            result.add(parameter.substring(2));
+        }
+        return result;
+    }
+
+    private static String argFileContent(List<String> args) {
+        final StringBuilder builder = new StringBuilder();
+        for (final String arg : args) {
+            if (arg.contains(" ") || arg.contains("\t") || arg.contains("\"") || arg.contains("'")) {
+                builder.append('"').append(arg.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            } else {
+                builder.append(arg);
+            }
+            builder.append('\n');
         }
-        final JkProcess jkProcess = this.fork.andParameters(options).andParameters(sourcePaths);
-        final int result = jkProcess.runSync();
-        return (result == 0);
+        return builder.toString();
     }
 
-    private static JavaCompiler getDefaultOrFail() {
-        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-        if (compiler == null) {
-            throw new IllegalStateException("This platform does not provide compiler. Try another JDK or use JkJavaCompiler.andCompiler(JavaCompiler)");
+    private static File currentJdkHome() {
+        final File javaHome = new File(System.getProperty("java.home"));
+        if (new File(javaHome, "lib/tools.jar").exists() || !"jre".equals(javaHome.getName())) {
+            return javaHome;
         }
-        return compiler;
+        return javaHome.getParentFile();
     }
 
     static String currentJdkSourceVersion() {
@@ -384,17 +448,18 @@ public final class JkJavaCompiler {
         JkLog.info("Current JDK does not match with source version (" + versionCache + "). Will use JDK "
                 + path);
         final JkProcess process = JkProcess.of(cmd);
-        return new JkJavaCompiler(options, javaSourceFiles, failOnError, process, versionCache, compiler);
+        return new JkJavaCompiler(options, javaSourceFiles, failOnError, process, new File(path), versionCache,
+                compiler);
     }
 
-    private static class JkDiagnosticListener implements DiagnosticListener {
+    private static class JkDiagnosticListener implements DiagnosticListener<JavaFileObject> {
 
         @Override
-        public void report(Diagnostic diagnostic) {
+        public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
             if (!diagnostic.getKind().equals(Diagnostic.Kind.ERROR)) {
                 JkLog.info(diagnostic.toString());
             } else {
-                System.out.println(diagnostic);
+                JkLog.error(diagnostic.toString());
             }
 
         }
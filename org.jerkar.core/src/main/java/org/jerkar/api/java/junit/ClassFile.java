@@ -0,0 +1,316 @@
+package org.jerkar.api.java.junit;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Minimal reader of class files, reading the constant pool, the class header
+ * and the method declarations with their annotations. It lets analyze
+ * compiled classes without loading them.
+ *
+ * @author Jerome Angibaud
+ */
+final class ClassFile {
+
+    static final int ACC_PUBLIC = 0x0001;
+
+    static final int ACC_INTERFACE = 0x0200;
+
+    static final int ACC_ABSTRACT = 0x0400;
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final String ANNOTATIONS_ATTRIBUTE = "RuntimeVisibleAnnotations";
+
+    // Classes already read, by digest of their content
+    private static final Map<String, ClassFile> CACHE = new HashMap<String, ClassFile>();
+
+    private final String name;
+
+    private final String superName;
+
+    private final int access;
+
+    private final Set<String> referencedClasses;
+
+    private final List<Method> methods;
+
+    private ClassFile(String name, String superName, int access, Set<String> referencedClasses,
+            List<Method> methods) {
+        this.name = name;
+        this.superName = superName;
+        this.access = access;
+        this.referencedClasses = referencedClasses;
+        this.methods = methods;
+    }
+
+    /**
+     * Same as {@link #of(byte[])} but returns the instance already read in
+     * this JVM for a content having the specified digest, if any.
+     */
+    static ClassFile of(byte[] bytes, String digest) {
+        synchronized (CACHE) {
+            final ClassFile cached = CACHE.get(digest);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final ClassFile result = of(bytes);
+        synchronized (CACHE) {
+            CACHE.put(digest, result);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the specified class file content.
+     *
+     * @throws IllegalArgumentException
+     *             if the content is not a valid class file.
+     */
+    static ClassFile of(byte[] bytes) {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a class file.");
+            }
+            in.readUnsignedShort(); // minor version
+            in.readUnsignedShort(); // major version
+            final int count = in.readUnsignedShort();
+            final String[] utf8s = new String[count];
+            final int[] classIndexes = new int[count];
+            for (int i = 1; i < count; i++) {
+                final int tag = in.readUnsignedByte();
+                switch (tag) {
+                case 1: // Utf8
+                    utf8s[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classIndexes[i] = in.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+                }
+            }
+            final int access = in.readUnsignedShort();
+            final String name = utf8s[classIndexes[in.readUnsignedShort()]];
+            final int superIndex = in.readUnsignedShort();
+            final String superName = superIndex == 0 ? null : utf8s[classIndexes[superIndex]];
+            final Set<String> referenced = new HashSet<String>();
+            for (int i = 1; i < count; i++) {
+                if (classIndexes[i] != 0) {
+                    addClassName(utf8s[classIndexes[i]], referenced);
+                } else if (utf8s[i] != null) {
+                    addDescriptorTypes(utf8s[i], referenced);
+                }
+            }
+            referenced.remove(name);
+            in.skipBytes(2 * in.readUnsignedShort()); // interfaces
+            final int fieldCount = in.readUnsignedShort();
+            for (int i = 0; i < fieldCount; i++) {
+                in.skipBytes(6);
+                readAnnotations(in, utf8s);
+            }
+            final int methodCount = in.readUnsignedShort();
+            final List<Method> methods = new LinkedList<Method>();
+            for (int i = 0; i < methodCount; i++) {
+                final int methodAccess = in.readUnsignedShort();
+                final String methodName = utf8s[in.readUnsignedShort()];
+                final String descriptor = utf8s[in.readUnsignedShort()];
+                methods.add(new Method(methodName + descriptor, methodAccess, readAnnotations(in, utf8s)));
+            }
+            return new ClassFile(name, superName, access, referenced, methods);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Truncated class file.", e);
+        }
+    }
+
+    // Reads the attributes of a member, returning the internal names of its runtime annotations
+    private static Set<String> readAnnotations(DataInputStream in, String[] utf8s) throws IOException {
+        Set<String> result = Collections.emptySet();
+        final int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            final String attributeName = utf8s[in.readUnsignedShort()];
+            final int length = in.readInt();
+            if (!ANNOTATIONS_ATTRIBUTE.equals(attributeName)) {
+                in.skipBytes(length);
+                continue;
+            }
+            result = new HashSet<String>();
+            final int annotationCount = in.readUnsignedShort();
+            for (int j = 0; j < annotationCount; j++) {
+                final String descriptor = utf8s[in.readUnsignedShort()];
+                result.add(descriptor.substring(1, descriptor.length() - 1));
+                skipElementValuePairs(in);
+            }
+        }
+        return result;
+    }
+
+    private static void skipElementValuePairs(DataInputStream in) throws IOException {
+        final int pairCount = in.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            in.skipBytes(2);
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream in) throws IOException {
+        final int tag = in.readUnsignedByte();
+        if (tag == 'e') { // enum
+            in.skipBytes(4);
+        } else if (tag == '@') { // nested annotation
+            in.skipBytes(2);
+            skipElementValuePairs(in);
+        } else if (tag == '[') { // array
+            final int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                skipElementValue(in);
+            }
+        } else { // constant or class
+            in.skipBytes(2);
+        }
+    }
+
+    // Class entries hold internal names or array descriptors
+    private static void addClassName(String internalName, Set<String> result) {
+        if (internalName.startsWith("[")) {
+            addDescriptorTypes(internalName, result);
+        } else {
+            result.add(internalName);
+        }
+    }
+
+    // Extracts class names out of field, method or generic signature descriptors
+    private static void addDescriptorTypes(String value, Set<String> result) {
+        int index = value.indexOf('L');
+        while (index >= 0) {
+            int end = index + 1;
+            while (end < value.length() && isNameChar(value.charAt(end))) {
+                end++;
+            }
+            if (end < value.length() && end > index + 1
+                    && (value.charAt(end) == ';' || value.charAt(end) == '<')) {
+                result.add(value.substring(index + 1, end));
+            }
+            index = value.indexOf('L', end);
+        }
+    }
+
+    private static boolean isNameChar(char c) {
+        return c != ';' && c != '<' && c != '>' && c != '(' && c != ')' && c != '[' && c != ':'
+                && !Character.isWhitespace(c);
+    }
+
+    /**
+     * Returns the internal name (as <code>foo/Bar$Baz</code>) of this class.
+     */
+    String name() {
+        return name;
+    }
+
+    /**
+     * Returns the internal name of the super class, <code>null</code> for
+     * <code>java.lang.Object</code>.
+     */
+    String superName() {
+        return superName;
+    }
+
+    /**
+     * Returns the access flags of this class.
+     */
+    int access() {
+        return access;
+    }
+
+    /**
+     * Returns the methods declared in this class, constructors and static
+     * initializer included.
+     */
+    List<Method> methods() {
+        return methods;
+    }
+
+    /**
+     * Returns the internal names of the classes this class refers to, in its
+     * code or in its signatures. Strings looking like descriptors are taken in
+     * account as well, so the result may contain names that are not actual
+     * classes.
+     */
+    Set<String> referencedClasses() {
+        return referencedClasses;
+    }
+
+    /**
+     * A method declared in a class file.
+     */
+    static final class Method {
+
+        private final String signature;
+
+        private final int access;
+
+        private final Set<String> annotations;
+
+        Method(String signature, int access, Set<String> annotations) {
+            this.signature = signature;
+            this.access = access;
+            this.annotations = annotations;
+        }
+
+        /**
+         * Returns the name followed by the descriptor, as
+         * <code>foo(Ljava/lang/String;)V</code>.
+         */
+        String signature() {
+            return signature;
+        }
+
+        int access() {
+            return access;
+        }
+
+        /**
+         * Returns the internal names of the runtime visible annotations of
+         * this method.
+         */
+        Set<String> annotations() {
+            return annotations;
+        }
+
+    }
+
+}
@@ -4,16 +4,34 @@ import java.io.File;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jerkar.api.java.JkClassLoader;
 import org.jerkar.api.java.junit.JkUnit.JunitReportDetail;
+import org.jerkar.api.java.junit.JkUnit.Parallelism;
 import org.jerkar.api.system.JkLog;
 import org.jerkar.api.utils.JkUtilsIO;
+import org.jerkar.api.utils.JkUtilsThrowable;
 import org.jerkar.api.utils.JkUtilsTime;
 import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
 import org.junit.runner.Result;
+import org.junit.runner.Runner;
+import org.junit.runner.notification.RunListener;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.RunnerScheduler;
 
 /**
  * Class to run test in a separate process.
@@ -24,48 +42,160 @@ class JUnit4TestExecutor {
         if (args.length == 0) {
             throw new IllegalArgumentException(
                     "There should be at least 2 args. "
-                            + "First is the file where is serialized the result, and others are the classes to test.");
+                            + "First is the file where are recorded the test events, and others are the classes to test.");
         }
-        final File resultFile = new File(args[0]);
+        final File eventFile = new File(args[0]);
         final boolean printEachTestInConsole = Boolean.parseBoolean(args[1]);
-        final JunitReportDetail reportDetail = JunitReportDetail.valueOf(args[2]);
-        final File reportDir = new File(args[3]);
-        final Class<?>[] classes = toClassArray(Arrays.copyOfRange(args, 4, args.length));
-        final JkTestSuiteResult result = launchInProcess(classes, printEachTestInConsole,
-                reportDetail, reportDir, false);
-        JkUtilsIO.serialize(result, resultFile);
+        final boolean failFast = Boolean.parseBoolean(args[2]);
+        final Class<?>[] classes = toClassArray(Arrays.copyOfRange(args, 3, args.length));
+        run(classes, printEachTestInConsole, failFast, false, Parallelism.NONE, 1,
+                Collections.<String> emptySet(), TestEvents.recorder(eventFile));
     }
 
     private static JkTestSuiteResult launchInProcess(Class<?>[] classes,
             boolean printEachTestOnConsole, JunitReportDetail reportDetail, File reportDir,
-            boolean restoreSystemOut) {
-        final JUnitCore jUnitCore = new JUnitCore();
+            boolean failFast, boolean restoreSystemOut, Parallelism parallelism, int threads,
+            String[] sequentialClasses) {
+        final TestResultCollector collector = TestResultCollector.of(
+                reportDetail.equals(JunitReportDetail.FULL) ? reportDir : null);
+        run(classes, printEachTestOnConsole, failFast, restoreSystemOut, parallelism, threads,
+                new HashSet<String>(Arrays.asList(sequentialClasses)), collector);
+        return collector.result();
+    }
 
-        if (reportDetail.equals(JunitReportDetail.FULL)) {
-            jUnitCore.addListener(new JUnitReportListener(reportDir));
-        }
+    // Each test class is run on its own to measure its duration and to stop at the first failure if required
+    private static void run(Class<?>[] classes, boolean printEachTestOnConsole, boolean failFast,
+            boolean restoreSystemOut, Parallelism parallelism, int threads,
+            Set<String> sequentialClasses, TestEvents.Handler handler) {
+        final boolean parallel = parallelism != Parallelism.NONE && threads > 1;
+        final List<RunListener> listeners = new LinkedList<RunListener>();
+        listeners.add(new JUnitReportListener(handler));
         final PrintStream out = System.out;
         final PrintStream err = System.err;
-        if (printEachTestOnConsole) {
-            jUnitCore.addListener(new JUnitConsoleListener());
+        if (printEachTestOnConsole && parallel) {
+            final JUnitCapturingConsoleListener consoleListener = new JUnitCapturingConsoleListener();
+            listeners.add(consoleListener);
+            System.setErr(consoleListener.stream());
+            System.setOut(consoleListener.stream());
+        } else if (printEachTestOnConsole) {
+            listeners.add(new JUnitConsoleListener());
         } else if (!JkLog.verbose()) {
             System.setErr(JkUtilsIO.nopPrintStream());
             System.setOut(JkUtilsIO.nopPrintStream());
         }
 
-        final Properties properties = (Properties) System.getProperties().clone();
+        handler.suiteStarted((Properties) System.getProperties().clone());
         final long start = System.nanoTime();
-        final Result result;
         try {
-            result = jUnitCore.run(classes);
+            if (parallel) {
+                runInParallel(classes, parallelism, threads, sequentialClasses, failFast, listeners,
+                        handler);
+            } else {
+                for (final Class<?> clazz : classes) {
+                    if (!runClass(clazz, listeners, null, handler) && failFast) {
+                        break;
+                    }
+                }
+            }
         } finally {
             if (restoreSystemOut) {
                 System.setErr(err);
                 System.setOut(out);
             }
         }
-        final long durationInMillis = JkUtilsTime.durationInMillis(start);
-        return JkTestSuiteResult.fromJunit4Result(properties, "all", result, durationInMillis);
+        handler.suiteFinished(JkUtilsTime.durationInMillis(start));
+    }
+
+    /*
+     * Classes not marked as sequential run concurrently in the pool, then
+     * sequential ones run one by one. At method level, classes run one by one
+     * while the children of the ones not marked as sequential are scheduled on
+     * the pool. Once a class has failed in fail fast mode, classes not started
+     * yet are skipped.
+     */
+    private static void runInParallel(Class<?>[] classes, Parallelism parallelism, int threads,
+            Set<String> sequentialClasses, final boolean failFast, final List<RunListener> listeners,
+            final TestEvents.Handler handler) {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, new TestThreadFactory());
+        final AtomicBoolean failed = new AtomicBoolean();
+        try {
+            if (parallelism == Parallelism.CLASSES) {
+                final List<Future<?>> futures = new LinkedList<Future<?>>();
+                final List<Class<?>> sequentials = new LinkedList<Class<?>>();
+                for (final Class<?> clazz : classes) {
+                    if (sequentialClasses.contains(clazz.getName())) {
+                        sequentials.add(clazz);
+                        continue;
+                    }
+                    futures.add(executor.submit(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            if (failFast && failed.get()) {
+                                return;
+                            }
+                            if (!runClass(clazz, listeners, null, handler)) {
+                                failed.set(true);
+                            }
+                        }
+
+                    }));
+                }
+                await(futures);
+                for (final Class<?> clazz : sequentials) {
+                    if (failFast && failed.get()) {
+                        break;
+                    }
+                    if (!runClass(clazz, listeners, null, handler)) {
+                        failed.set(true);
+                    }
+                }
+            } else {
+                for (final Class<?> clazz : classes) {
+                    final RunnerScheduler scheduler = sequentialClasses.contains(clazz.getName()) ? null
+                            : new PoolScheduler(executor);
+                    if (!runClass(clazz, listeners, scheduler, handler) && failFast) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Each class has its own JUnitCore so classes can run concurrently. Returns false if the class has failed.
+    private static boolean runClass(Class<?> clazz, List<RunListener> listeners,
+            RunnerScheduler scheduler, TestEvents.Handler handler) {
+        final JUnitCore jUnitCore = new JUnitCore();
+        for (final RunListener listener : listeners) {
+            jUnitCore.addListener(listener);
+        }
+        final Runner runner = Request.aClass(clazz).getRunner();
+        if (scheduler != null && runner instanceof ParentRunner) {
+            ((ParentRunner<?>) runner).setScheduler(scheduler);
+        }
+        final long classStart = System.nanoTime();
+        handler.classStarted(clazz.getName());
+        final Result result = jUnitCore.run(runner);
+        handler.classFinished(clazz.getName(), JkUtilsTime.durationInMillis(classStart));
+        return result.wasSuccessful();
+    }
+
+    private static void await(List<Future<?>> futures) {
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw JkUtilsThrowable.unchecked(e);
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw JkUtilsThrowable.unchecked((Exception) e.getCause());
+            }
+        }
     }
 
     private static Class<?>[] toClassArray(String[] classNames) {
@@ -81,4 +211,46 @@ class JUnit4TestExecutor {
         return classes.toArray(new Class[0]);
     }
 
+    /**
+     * Runs the children of a runner, typically the test methods of a class,
+     * in a pool of threads and waits for all of them to finish.
+     */
+    private static final class PoolScheduler implements RunnerScheduler {
+
+        private final ExecutorService executor;
+
+        private final List<Future<?>> futures = new LinkedList<Future<?>>();
+
+        PoolScheduler(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void schedule(Runnable childStatement) {
+            futures.add(executor.submit(childStatement));
+        }
+
+        @Override
+        public void finished() {
+            await(futures);
+        }
+
+    }
+
+    /**
+     * Creates daemon threads so a hanging test does not prevent the JVM from exiting.
+     */
+    private static final class TestThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "jerkar-test-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
 }
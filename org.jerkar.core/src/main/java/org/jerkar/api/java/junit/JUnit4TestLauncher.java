@@ -8,10 +8,10 @@ import org.jerkar.api.java.JkClassLoader;
 import org.jerkar.api.java.JkClasspath;
 import org.jerkar.api.java.JkJavaProcess;
 import org.jerkar.api.java.junit.JkUnit.JunitReportDetail;
+import org.jerkar.api.java.junit.JkUnit.Parallelism;
 import org.jerkar.api.system.JkLocator;
 import org.jerkar.api.system.JkLog;
 import org.jerkar.api.utils.JkUtilsFile;
-import org.jerkar.api.utils.JkUtilsIO;
 import org.jerkar.api.utils.JkUtilsIterable;
 
 class JUnit4TestLauncher {
@@ -19,20 +19,28 @@ class JUnit4TestLauncher {
     @SuppressWarnings("rawtypes")
     public static JkTestSuiteResult launchInFork(JkJavaProcess jkJavaProcess,
             boolean printEachTestOnConsole, JunitReportDetail reportDetail,
-            Iterable<Class> classes, File reportDir) {
+            Iterable<Class> classes, File reportDir, boolean failFast) {
         final List<String> args = new LinkedList<String>();
-        final File file = JkUtilsFile.tempFile("testResult-", ".ser");
+        final File file = JkUtilsFile.tempFile("testEvents-", ".ser");
         args.add("\"" + file.getAbsolutePath() + "\"");
         args.add(Boolean.toString(printEachTestOnConsole));
-        args.add(reportDetail.name());
-        args.add("\"" + reportDir.getAbsolutePath() + "\"");
+        args.add(Boolean.toString(failFast));
         for (final Class<?> clazz : classes) {
             args.add(clazz.getName());
         }
         final JkJavaProcess process;
         process = jkJavaProcess.andClasspath(JkClasspath.of(JkLocator.jerkarJarFile()));
-        process.runClassSync(JUnit4TestExecutor.class.getName(), args.toArray(new String[0]));
-        return (JkTestSuiteResult) JkUtilsIO.deserialize(file);
+
+        // Reports are written while replaying, so the forked process does not have to write them
+        final TestResultCollector collector = TestResultCollector.of(
+                reportDetail.equals(JunitReportDetail.FULL) ? reportDir : null);
+        try {
+            process.runClassSync(JUnit4TestExecutor.class.getName(), args.toArray(new String[0]));
+            TestEvents.replay(file, collector);
+        } finally {
+            file.delete();
+        }
+        return collector.result();
     }
 
     @SuppressWarnings("rawtypes")
@@ -41,7 +49,8 @@ class JUnit4TestLauncher {
      *            Non-empty <code>Iterable</code>.
      */
     public static JkTestSuiteResult launchInClassLoader(Iterable<Class> classes, boolean verbose,
-            JunitReportDetail reportDetail, File reportDir) {
+            JunitReportDetail reportDetail, File reportDir, boolean failFast, Parallelism parallelism,
+            int threads, String[] sequentialClasses) {
         final JkClassLoader classloader = JkClassLoader.of(classes.iterator().next());
         final Class[] classArray = JkUtilsIterable.arrayOf(classes, Class.class);
         classloader.addEntry(JkLocator.jerkarJarFile());
@@ -54,7 +63,8 @@ class JUnit4TestLauncher {
         classloader.invokeStaticMethod(false, JkLog.class.getName(), "beginOfLine");
 
         return classloader.invokeStaticMethod(true, JUnit4TestExecutor.class.getName(),
-                "launchInProcess", classArray, verbose, reportDetail, reportDir, true);
+                "launchInProcess", classArray, verbose, reportDetail, reportDir, failFast, true,
+                parallelism, threads, sequentialClasses);
     }
 
 }
@@ -0,0 +1,95 @@
+package org.jerkar.api.java.junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import org.jerkar.api.system.JkLog;
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * Console listener for tests running concurrently. What a thread writes in
+ * {@link #stream()} is kept aside, then printed on the console in one block
+ * once the test it runs is finished, so outputs of concurrent tests do not
+ * mix.
+ *
+ * @author Jerome Angibaud
+ */
+class JUnitCapturingConsoleListener extends RunListener {
+
+    private final ThreadLocal<ByteArrayOutputStream> buffers = new ThreadLocal<ByteArrayOutputStream>() {
+
+        @Override
+        protected ByteArrayOutputStream initialValue() {
+            return new ByteArrayOutputStream();
+        }
+
+    };
+
+    private final PrintStream stream = new PrintStream(new OutputStream() {
+
+        @Override
+        public void write(int b) {
+            buffers.get().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffers.get().write(b, off, len);
+        }
+
+    }, true);
+
+    /**
+     * Returns the stream to use as <code>System.out</code> and
+     * <code>System.err</code> while tests run.
+     */
+    PrintStream stream() {
+        return stream;
+    }
+
+    @Override
+    public void testFinished(Description description) throws Exception {
+        print("Ran " + description.getClassName() + "." + description.getMethodName());
+    }
+
+    @Override
+    public void testIgnored(Description description) throws Exception {
+        print("- Test " + description.getDisplayName() + " ignored.");
+    }
+
+    @Override
+    public void testAssumptionFailure(Failure failure) {
+        failure.getException().printStackTrace(stream);
+    }
+
+    @Override
+    public void testFailure(Failure failure) throws Exception {
+        failure.getException().printStackTrace(stream);
+        if (!failure.getDescription().isTest()) {
+            print("Failure in " + failure.getDescription().getDisplayName());
+        }
+    }
+
+    @Override
+    public void testRunFinished(Result result) throws Exception {
+        if (buffers.get().size() > 0) {
+            print("Output of " + Thread.currentThread().getName());
+        }
+    }
+
+    private synchronized void print(String title) {
+        final ByteArrayOutputStream buffer = buffers.get();
+        JkLog.info(title);
+        if (buffer.size() > 0) {
+            final PrintStream out = JkLog.infoStream();
+            out.write(buffer.toByteArray(), 0, buffer.size());
+            out.flush();
+            buffer.reset();
+        }
+    }
+
+}
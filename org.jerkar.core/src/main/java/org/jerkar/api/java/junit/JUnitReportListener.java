@@ -1,107 +1,56 @@
 package org.jerkar.api.java.junit;
 
-import java.io.File;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Properties;
-
 import org.jerkar.api.java.junit.JkTestSuiteResult.ExceptionDescription;
-import org.jerkar.api.java.junit.JkTestSuiteResult.IgnoredCase;
-import org.jerkar.api.java.junit.JkTestSuiteResult.TestCaseFailure;
-import org.jerkar.api.java.junit.JkTestSuiteResult.TestCaseResult;
 import org.jerkar.api.utils.JkUtilsTime;
 import org.junit.runner.Description;
-import org.junit.runner.Result;
 import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunListener;
 
+/**
+ * Translates JUnit notifications into test events, sent to a handler as soon
+ * as each test finishes. Tests may run concurrently : the state of the running
+ * test is kept per thread.
+ */
 class JUnitReportListener extends RunListener {
 
-    private List<JkTestSuiteResult.TestCaseResult> cases;
-
-    private Properties properties;
-
-    private Class<?> currentClass;
-
-    private long suiteTimeNano;
+    private final TestEvents.Handler handler;
 
-    private long testTimeNano;
+    private final ThreadLocal<Long> testTimeNano = new ThreadLocal<Long>();
 
-    private int ignoreCount;
+    private final ThreadLocal<ExceptionDescription> failure = new ThreadLocal<ExceptionDescription>();
 
-    private final File folder;
-
-    private String currentTestName;
-
-    private boolean failureFlag;
-
-    public JUnitReportListener(File folder) {
+    public JUnitReportListener(TestEvents.Handler handler) {
         super();
-        this.folder = folder;
+        this.handler = handler;
     }
 
     @Override
     public void testStarted(Description description) throws Exception {
-        final Class<?> clazz = description.getTestClass();
-        if (!clazz.equals(currentClass)) {
-            dump();
-            init(clazz);
-        }
-        testTimeNano = System.nanoTime();
-        currentTestName = description.getMethodName();
-        failureFlag = false;
+        testTimeNano.set(System.nanoTime());
+        failure.remove();
     }
 
     @Override
     public void testIgnored(Description description) throws Exception {
-        ignoreCount++;
-        final IgnoredCase ignoredCase = new IgnoredCase(currentClass.getName(), currentTestName);
-        this.cases.add(ignoredCase);
+        handler.testIgnored(description.getClassName(), description.getMethodName());
     }
 
     @Override
     public void testFinished(Description description) throws Exception {
-        final float duration = (JkUtilsTime.durationInMillis(testTimeNano)) / 1000f;
-        if (!failureFlag) {
-            final TestCaseResult result = new TestCaseResult(currentClass.getName(),
-                    currentTestName, duration);
-            cases.add(result);
-        }
+        final float duration = (JkUtilsTime.durationInMillis(testTimeNano.get())) / 1000f;
+        handler.testFinished(description.getClassName(), description.getMethodName(), duration,
+                failure.get());
+        failure.remove();
     }
 
     @Override
     public void testFailure(Failure failure) throws Exception {
-        failureFlag = true;
-        final float duration = (JkUtilsTime.durationInMillis(testTimeNano)) / 1000f;
-        final TestCaseFailure caseFailure = new TestCaseFailure(currentClass.getName(),
-                currentTestName, duration, new ExceptionDescription(failure.getException()));
-        cases.add(caseFailure);
-    }
-
-    @Override
-    public void testRunFinished(Result result) throws Exception {
-        dump();
-    }
-
-    private void init(Class<?> clazz) {
-        this.currentClass = clazz;
-        this.properties = new Properties();
-        this.properties.putAll(System.getProperties());
-        this.suiteTimeNano = System.nanoTime();
-        this.cases = new LinkedList<JkTestSuiteResult.TestCaseResult>();
-        this.ignoreCount = 0;
-    }
-
-    private void dump() {
-        if (currentClass == null) {
-            return;
+        final ExceptionDescription exceptionDescription = new ExceptionDescription(failure.getException());
+        if (failure.getDescription().isTest()) {
+            this.failure.set(exceptionDescription);
+        } else {
+            handler.classFailed(failure.getDescription().getClassName(), exceptionDescription);
         }
-        final long duration = JkUtilsTime.durationInMillis(suiteTimeNano);
-        final String suiteName = currentClass.getName();
-        final int count = cases.size();
-        final JkTestSuiteResult result = new JkTestSuiteResult(properties, suiteName, count,
-                ignoreCount, cases, duration);
-        TestReportBuilder.of(result).writeToFileSystem(folder);
     }
 
 }
@@ -1,10 +1,11 @@
 package org.jerkar.api.java.junit;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.jerkar.api.utils.JkUtilsIterable;
@@ -24,19 +25,32 @@ public class JkTestSuiteResult implements Serializable {
     private final int ignoreCount;
     private final long durationInMilis;
     private final Properties systemProperties;
+    private final Map<String, Long> classDurations;
 
     /**
      * Constructs a test suite execution result according specified information.
      */
+    @SuppressWarnings("unchecked")
     JkTestSuiteResult(Properties properties, String suiteName, int totaltestCount,
             int ignoreCount, Iterable<? extends TestCaseResult> testCaseResult,
             long durationInMillis) {
+        this(properties, suiteName, totaltestCount, ignoreCount, testCaseResult, durationInMillis,
+                Collections.EMPTY_MAP);
+    }
+
+    /**
+     * Constructs a test suite execution result mentioning the duration of each test class run.
+     */
+    JkTestSuiteResult(Properties properties, String suiteName, int totaltestCount,
+            int ignoreCount, Iterable<? extends TestCaseResult> testCaseResult,
+            long durationInMillis, Map<String, Long> classDurations) {
         this.systemProperties = properties;
         this.suiteName = suiteName;
         this.runCount = totaltestCount;
         this.ignoreCount = ignoreCount;
         this.testCaseResults = JkUtilsIterable.listOf(testCaseResult);
         this.durationInMilis = durationInMillis;
+        this.classDurations = new LinkedHashMap<String, Long>(classDurations);
     }
 
     @SuppressWarnings("unchecked")
@@ -49,6 +63,14 @@ public class JkTestSuiteResult implements Serializable {
         return testCaseResults;
     }
 
+    /**
+     * Returns the duration in milliseconds of each test class run, in the run
+     * order. This is empty if durations have not been measured class by class.
+     */
+    Map<String, Long> classDurations() {
+        return classDurations;
+    }
+
     List<TestCaseFailure> failures() {
         final List<TestCaseFailure> result = new LinkedList<JkTestSuiteResult.TestCaseFailure>();
         for (final TestCaseResult caseResult : this.testCaseResults) {
@@ -352,30 +374,6 @@ public class JkTestSuiteResult implements Serializable {
 
     }
 
-    static JkTestSuiteResult fromJunit4Result(Properties properties, String suiteName,
-            Object result, long durationInMillis) {
-        final Integer runCount = JkUtilsReflect.invoke(result, "getRunCount");
-        final Integer ignoreCount = JkUtilsReflect.invoke(result, "getIgnoreCount");
-        final List<Object> junitFailures = JkUtilsReflect.invoke(result, "getFailures");
-        final List<JkTestSuiteResult.TestCaseFailure> failures = new ArrayList<JkTestSuiteResult.TestCaseFailure>(
-                junitFailures.size());
-        for (final Object junitFailure : junitFailures) {
-            failures.add(fromJunit4Failure(junitFailure));
-        }
-        return new JkTestSuiteResult(properties, suiteName, runCount, ignoreCount, failures,
-                durationInMillis);
-
-    }
-
-    private static JkTestSuiteResult.TestCaseFailure fromJunit4Failure(Object junit4failure) {
-        final Object junit4Description = JkUtilsReflect.invoke(junit4failure, "getDescription");
-        final String testClassName = JkUtilsReflect.invoke(junit4Description, "getClassName");
-        final String testMethodName = JkUtilsReflect.invoke(junit4Description, "getMethodName");
-        final Throwable exception = JkUtilsReflect.invoke(junit4failure, "getException");
-        final ExceptionDescription description = new ExceptionDescription(exception);
-        return new JkTestSuiteResult.TestCaseFailure(testClassName, testMethodName, -1, description);
-    }
-
     static JkTestSuiteResult.TestCaseFailure fromJunit3Failure(Object junit3failure) {
         final Object failedTest = JkUtilsReflect.invoke(junit3failure, "failedTest");
         final Throwable exception = JkUtilsReflect.invoke(junit3failure, "thrownException");
@@ -4,7 +4,6 @@ import java.io.File;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -17,10 +16,12 @@ import java.util.Properties;
 
 import org.jerkar.api.file.JkFileTree;
 import org.jerkar.api.file.JkFileTreeSet;
+import org.jerkar.api.file.JkPathFilter;
 import org.jerkar.api.java.JkClassLoader;
 import org.jerkar.api.java.JkClasspath;
 import org.jerkar.api.java.JkJavaProcess;
 import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkMetrics;
 import org.jerkar.api.utils.JkUtilsIterable;
 import org.jerkar.api.utils.JkUtilsReflect;
 import org.jerkar.api.utils.JkUtilsString;
@@ -47,13 +48,24 @@ public final class JkUnit {
         FULL;
     }
 
-    private static final String JUNIT4_RUNNER_CLASS_NAME = "org.junit.runner.JUnitCore";
+    /**
+     * Level at which tests run concurrently when they are not forked.
+     */
+    public enum Parallelism {
 
-    private static final String JUNIT3_RUNNER_CLASS_NAME = "junit.textui.TestRunner";
+        /** Tests run one after the other. */
+        NONE,
 
-    private static final String JUNIT4_TEST_ANNOTATION_CLASS_NAME = "org.junit.Test";
+        /** Test classes run concurrently, the tests of a class one after the other. */
+        CLASSES,
 
-    private static final String JUNIT3_TEST_CASE_CLASS_NAME = "junit.framework.TestCase";
+        /** Test classes run one after the other, the tests of a class concurrently. */
+        METHODS;
+    }
+
+    private static final String JUNIT4_RUNNER_CLASS_NAME = "org.junit.runner.JUnitCore";
+
+    private static final String JUNIT3_RUNNER_CLASS_NAME = "junit.textui.TestRunner";
 
     private static final String JUNIT3_TEST_SUITE_CLASS_NAME = "junit.framework.TestSuite";
 
@@ -87,9 +99,27 @@ public final class JkUnit {
 
     private final boolean printOutputOnConsole;
 
+    private final File impactAnalysisDir;
+
+    private final int fullRunPeriod;
+
+    private final File historyDir;
+
+    private final boolean failFast;
+
+    private final boolean shareLibraries;
+
+    private final Parallelism parallelism;
+
+    private final int threads;
+
+    private final String[] sequentialClasses;
+
     private JkUnit(JkClasspath classpath, JunitReportDetail reportDetail, File reportDir,
             JkJavaProcess fork, List<Runnable> runnables, JkFileTreeSet testClasses,
-            boolean crashOnFailed, boolean printOutputOnConsole) {
+            boolean crashOnFailed, boolean printOutputOnConsole, File impactAnalysisDir, int fullRunPeriod,
+            File historyDir, boolean failFast, boolean shareLibraries, Parallelism parallelism,
+            int threads, String[] sequentialClasses) {
         this.classpath = classpath;
         this.reportDetail = reportDetail;
         this.reportDir = reportDir;
@@ -98,14 +128,26 @@ public final class JkUnit {
         this.classesToTest = testClasses;
         this.breakOnFailure = crashOnFailed;
         this.printOutputOnConsole = printOutputOnConsole;
+        this.impactAnalysisDir = impactAnalysisDir;
+        this.fullRunPeriod = fullRunPeriod;
+        this.historyDir = historyDir;
+        this.failFast = failFast;
+        this.shareLibraries = shareLibraries;
+        this.parallelism = parallelism;
+        this.threads = threads;
+        this.sequentialClasses = sequentialClasses;
     }
 
     @SuppressWarnings("unchecked")
     private JkUnit(JkClasspath classpath, JunitReportDetail reportDetail, File reportDir,
             JkJavaProcess fork, JkFileTreeSet testClasses, boolean crashOnFailed,
-            boolean printOutputOnConsole) {
+            boolean printOutputOnConsole, File impactAnalysisDir, int fullRunPeriod, File historyDir,
+            boolean failFast, boolean shareLibraries, Parallelism parallelism, int threads,
+            String[] sequentialClasses) {
         this(classpath, reportDetail, reportDir, fork, Collections.EMPTY_LIST, testClasses,
-                crashOnFailed, printOutputOnConsole);
+                crashOnFailed, printOutputOnConsole, impactAnalysisDir, fullRunPeriod, historyDir, failFast,
+                shareLibraries,
+                parallelism, threads, sequentialClasses);
     }
 
     /**
@@ -113,7 +155,7 @@ public final class JkUnit {
      */
     public static JkUnit ofFork(JkJavaProcess jkJavaProcess) {
         return new JkUnit(null, JunitReportDetail.NONE, null, jkJavaProcess, JkFileTreeSet.empty(),
-                true, true);
+                true, true, null, 0, null, false, false, Parallelism.NONE, 0, new String[0]);
     }
 
     /**
@@ -135,7 +177,7 @@ public final class JkUnit {
      */
     public static JkUnit of(JkClasspath classpath) {
         return new JkUnit(classpath, JunitReportDetail.NONE, null, null, JkFileTreeSet.empty(),
-                true, true);
+                true, true, null, 0, null, false, false, Parallelism.NONE, 0, new String[0]);
     }
 
     /**
@@ -143,7 +185,9 @@ public final class JkUnit {
      */
     public JkUnit withReport(JunitReportDetail reportDetail) {
         return new JkUnit(this.classpath, reportDetail, reportDir, this.forkedProcess,
-                classesToTest, this.breakOnFailure, this.printOutputOnConsole);
+                classesToTest, this.breakOnFailure, this.printOutputOnConsole,
+                impactAnalysisDir, fullRunPeriod, historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
     }
 
     /**
@@ -151,7 +195,9 @@ public final class JkUnit {
      */
     public JkUnit withBreakOnFailure(boolean crashOnFailure) {
         return new JkUnit(this.classpath, reportDetail, reportDir, this.forkedProcess,
-                classesToTest, this.breakOnFailure, this.printOutputOnConsole);
+                classesToTest, this.breakOnFailure, this.printOutputOnConsole,
+                impactAnalysisDir, fullRunPeriod, historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
     }
 
     /**
@@ -159,7 +205,9 @@ public final class JkUnit {
      */
     public JkUnit withReportDir(File reportDir) {
         return new JkUnit(this.classpath, reportDetail, reportDir, this.forkedProcess,
-                classesToTest, this.breakOnFailure, this.printOutputOnConsole);
+                classesToTest, this.breakOnFailure, this.printOutputOnConsole,
+                impactAnalysisDir, fullRunPeriod, historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
     }
 
     /**
@@ -168,7 +216,9 @@ public final class JkUnit {
     public JkUnit forkKeepingSameClassPath(JkJavaProcess process) {
         final JkJavaProcess fork = process.withClasspath(jkClasspath());
         return new JkUnit(null, reportDetail, reportDir, fork, this.classesToTest,
-                this.breakOnFailure, this.printOutputOnConsole);
+                this.breakOnFailure, this.printOutputOnConsole,
+                impactAnalysisDir, fullRunPeriod, historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
     }
 
     /**
@@ -178,7 +228,9 @@ public final class JkUnit {
         final List<Runnable> list = new LinkedList<Runnable>(this.postActions);
         list.add(runnable);
         return new JkUnit(classpath, reportDetail, reportDir, forkedProcess, list,
-                this.classesToTest, this.breakOnFailure, this.printOutputOnConsole);
+                this.classesToTest, this.breakOnFailure, this.printOutputOnConsole,
+                impactAnalysisDir, fullRunPeriod, historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
     }
 
     /**
@@ -209,7 +261,9 @@ public final class JkUnit {
         final JkJavaProcess effectiveProcess = appendClasspath ? process
                 .andClasspath(this.classpath) : process;
                 return new JkUnit(null, reportDetail, reportDir, effectiveProcess, this.classesToTest,
-                        this.breakOnFailure, this.printOutputOnConsole);
+                        this.breakOnFailure, this.printOutputOnConsole,
+                        impactAnalysisDir, fullRunPeriod, historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
     }
 
     /**
@@ -223,7 +277,9 @@ public final class JkUnit {
         }
         if (!fork && forked()) {
             return new JkUnit(forkedProcess.classpath(), reportDetail, reportDir, null,
-                    this.classesToTest, this.breakOnFailure, this.printOutputOnConsole);
+                    this.classesToTest, this.breakOnFailure, this.printOutputOnConsole,
+                    impactAnalysisDir, fullRunPeriod, historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
         }
         return this;
     }
@@ -242,7 +298,9 @@ public final class JkUnit {
      */
     public JkUnit withClassesToTest(JkFileTreeSet classesToTest) {
         return new JkUnit(this.classpath, reportDetail, reportDir, forkedProcess, classesToTest,
-                this.breakOnFailure, this.printOutputOnConsole);
+                this.breakOnFailure, this.printOutputOnConsole,
+                impactAnalysisDir, fullRunPeriod, historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
     }
 
     /**
@@ -250,7 +308,9 @@ public final class JkUnit {
      */
     public JkUnit withOutputOnConsole(boolean outputOnConsole) {
         return new JkUnit(this.classpath, reportDetail, reportDir, forkedProcess, classesToTest,
-                this.breakOnFailure, outputOnConsole);
+                this.breakOnFailure, outputOnConsole, impactAnalysisDir, fullRunPeriod, historyDir, failFast,
+                shareLibraries,
+                parallelism, threads, sequentialClasses);
     }
 
     /**
@@ -258,7 +318,9 @@ public final class JkUnit {
      */
     public JkUnit withClassesToTest(JkFileTree classesToTest) {
         return new JkUnit(this.classpath, reportDetail, reportDir, forkedProcess,
-                JkFileTreeSet.of(classesToTest), this.breakOnFailure, this.printOutputOnConsole);
+                JkFileTreeSet.of(classesToTest), this.breakOnFailure, this.printOutputOnConsole,
+                impactAnalysisDir, fullRunPeriod, historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
     }
 
     /**
@@ -266,7 +328,98 @@ public final class JkUnit {
      */
     public JkUnit withClassesToTest(File... classDirs) {
         return new JkUnit(this.classpath, reportDetail, reportDir, forkedProcess,
-                JkFileTreeSet.of(classDirs), this.breakOnFailure, this.printOutputOnConsole);
+                JkFileTreeSet.of(classDirs), this.breakOnFailure, this.printOutputOnConsole,
+                impactAnalysisDir, fullRunPeriod, historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
+    }
+
+    /**
+     * Returns a copy of this launcher running only the test classes impacted
+     * by the changes made to the tested classes since the last run : test
+     * classes that have failed or that depend, directly or not, on a class
+     * that has changed. Dependencies are found by reading the compiled classes
+     * of the classpath directories. All tests are run when a jar of the
+     * classpath changes and every <code>fullRunPeriod</code> runs (0 for
+     * never). Data needed to compare runs are stored in the specified
+     * directory. Passing <code>null</code> turns off the impact analysis.
+     */
+    public JkUnit withImpactAnalysis(File dataDir, int fullRunPeriod) {
+        return new JkUnit(classpath, reportDetail, reportDir, forkedProcess, postActions,
+                classesToTest, breakOnFailure, printOutputOnConsole,
+                dataDir, fullRunPeriod, historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
+    }
+
+    /**
+     * Returns a copy of this launcher keeping the durations and outcomes of
+     * the test classes in the specified directory, in order to run first the
+     * test classes that have failed recently, then the ones that have changed
+     * since the last run, the fastest first (the slowest first when classes
+     * run concurrently in process). Passing <code>null</code> lets
+     * test classes run in the order they are found.
+     */
+    public JkUnit withHistory(File dataDir) {
+        return new JkUnit(classpath, reportDetail, reportDir, forkedProcess, postActions,
+                classesToTest, breakOnFailure, printOutputOnConsole, impactAnalysisDir, fullRunPeriod,
+                dataDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
+    }
+
+    /**
+     * Returns a copy of this launcher stopping the test run as soon as a test
+     * class fails, so the remaining test classes are not run.
+     */
+    public JkUnit withFailFast(boolean failFast) {
+        return new JkUnit(classpath, reportDetail, reportDir, forkedProcess, postActions,
+                classesToTest, breakOnFailure, printOutputOnConsole, impactAnalysisDir, fullRunPeriod,
+                historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
+    }
+
+    /**
+     * Returns a copy of this launcher loading the jars of the classpath in a
+     * class loader shared with the other launchers having the same jars, when
+     * tests are not forked. Only the test and tested classes are loaded in a
+     * class loader proper to this launcher. It saves memory and class loading
+     * time when testing many modules in a same JVM, but static state held by
+     * libraries is shared between these modules, and classes or resources
+     * present both in a jar and in the test or tested classes are taken from
+     * the jar. Off by default.
+     */
+    public JkUnit withSharedLibraries(boolean shareLibraries) {
+        return new JkUnit(classpath, reportDetail, reportDir, forkedProcess, postActions,
+                classesToTest, breakOnFailure, printOutputOnConsole, impactAnalysisDir, fullRunPeriod,
+                historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
+    }
+
+    /**
+     * Returns a copy of this launcher running tests concurrently in the
+     * specified number of threads, when tests are not forked. A thread count of
+     * 0 means one thread per available processor. Tests have to be
+     * thread-safe : the ones that are not can be run sequentially using
+     * {@link #withSequentialClasses(String...)}.
+     */
+    public JkUnit withParallelism(Parallelism parallelism, int threads) {
+        return new JkUnit(classpath, reportDetail, reportDir, forkedProcess, postActions,
+                classesToTest, breakOnFailure, printOutputOnConsole, impactAnalysisDir, fullRunPeriod,
+                historyDir, failFast, shareLibraries,
+                parallelism, threads, sequentialClasses);
+    }
+
+    /**
+     * Returns a copy of this launcher running one after the other, when tests
+     * run concurrently, the test classes matching one of the specified Ant
+     * patterns. Patterns apply to the class name with dots replaced by slashes
+     * (as <code>com/foo/BarIT</code>). Test classes annotated with an annotation
+     * named <code>NotThreadSafe</code> retained at runtime, as the JCIP one,
+     * run one after the other as well.
+     */
+    public JkUnit withSequentialClasses(String... antPatterns) {
+        return new JkUnit(classpath, reportDetail, reportDir, forkedProcess, postActions,
+                classesToTest, breakOnFailure, printOutputOnConsole, impactAnalysisDir, fullRunPeriod,
+                historyDir, failFast, shareLibraries,
+                parallelism, threads, antPatterns);
     }
 
     /**
@@ -309,13 +462,29 @@ public final class JkUnit {
      */
     @SuppressWarnings({ "rawtypes", "unchecked" })
     public JkTestSuiteResult run() {
-        final Collection<Class> classes = getClassesToTest();
+        Collection<Class> classes = getClassesToTest();
         final String name = getSuiteName(classes);
 
         if (!classes.iterator().hasNext()) {
             JkLog.warn("No test class found.");
             return JkTestSuiteResult.empty((Properties) System.getProperties().clone(), name, 0);
         }
+        TestImpactAnalysis impactAnalysis = null;
+        if (impactAnalysisDir != null) {
+            impactAnalysis = TestImpactAnalysis.of(impactAnalysisDir,
+                    jkClasspath().andHead(classesToTest.roots()), fullRunPeriod);
+            classes = impactAnalysis.select(classes);
+            if (classes.isEmpty()) {
+                JkLog.info("No test impacted by changes.");
+                return JkTestSuiteResult.empty((Properties) System.getProperties().clone(), name, 0);
+            }
+        }
+        TestHistory history = null;
+        if (historyDir != null) {
+            history = TestHistory.of(historyDir);
+            final boolean concurrentClasses = parallelism == Parallelism.CLASSES && forkedProcess == null;
+            classes = history.order(classes, classesToTest.roots(), concurrentClasses);
+        }
         final long start = System.nanoTime();
         final JkClassLoader classLoader = JkClassLoader.of(classes.iterator().next());
 
@@ -325,12 +494,17 @@ public final class JkUnit {
         if (classLoader.isDefined(JUNIT4_RUNNER_CLASS_NAME)) {
             if (this.forkedProcess != null) {
                 JkLog.startln("Run JUnit tests in forked mode");
+                if (parallelism != Parallelism.NONE) {
+                    JkLog.info("Tests run one after the other : parallelism applies only to tests run in process.");
+                }
                 result = JUnit4TestLauncher.launchInFork(forkedProcess, printOutputOnConsole,
-                        reportDetail, classes, reportDir);
+                        reportDetail, classes, reportDir, failFast);
             } else {
                 JkLog.startln("Run JUnit tests");
+                final int threadCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
                 result = JUnit4TestLauncher.launchInClassLoader(classes, printOutputOnConsole,
-                        reportDetail, reportDir);
+                        reportDetail, reportDir, failFast, parallelism, threadCount,
+                        sequentialClassNames(classes));
             }
         } else if (classLoader.isDefined(JUNIT3_RUNNER_CLASS_NAME)) {
             JkLog.startln("Run JUnit tests");
@@ -347,6 +521,18 @@ public final class JkUnit {
         } else {
             throw new IllegalStateException("No Junit found on test classpath.");
         }
+        collectMetrics(result);
+        final Collection<Class> ranClasses = ranClasses(classes, result);
+        if (ranClasses.size() < classes.size()) {
+            JkLog.warn("Stopped at first failure : " + (classes.size() - ranClasses.size())
+                    + " test class(es) not run.");
+        }
+        if (history != null) {
+            history.record(result);
+        }
+        if (impactAnalysis != null) {
+            impactAnalysis.save(ranClasses, result);
+        }
 
         if (result.failureCount() > 0) {
             if (breakOnFailure) {
@@ -371,6 +557,54 @@ public final class JkUnit {
         return result;
     }
 
+    @SuppressWarnings("rawtypes")
+    private static Collection<Class> ranClasses(Collection<Class> classes, JkTestSuiteResult result) {
+        if (result.classDurations().isEmpty()) {
+            return classes;
+        }
+        final List<Class> ranClasses = new LinkedList<Class>();
+        for (final Class clazz : classes) {
+            if (result.classDurations().containsKey(clazz.getName())) {
+                ranClasses.add(clazz);
+            }
+        }
+        return ranClasses;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private String[] sequentialClassNames(Collection<Class> classes) {
+        if (parallelism == Parallelism.NONE) {
+            return new String[0];
+        }
+        final JkPathFilter filter = sequentialClasses.length == 0 ? null : JkPathFilter
+                .include(sequentialClasses);
+        final List<String> result = new LinkedList<String>();
+        for (final Class clazz : classes) {
+            if (isAnnotatedNotThreadSafe(clazz)
+                    || (filter != null && filter.accept(clazz.getName().replace('.', '/')))) {
+                result.add(clazz.getName());
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static boolean isAnnotatedNotThreadSafe(Class clazz) {
+        for (final Annotation annotation : clazz.getAnnotations()) {
+            if (annotation.annotationType().getSimpleName().equals("NotThreadSafe")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void collectMetrics(JkTestSuiteResult result) {
+        JkMetrics.add("tests.run", result.runCount());
+        JkMetrics.add("tests.failures", result.failureCount());
+        JkMetrics.add("tests.ignored", result.ignoreCount());
+        JkMetrics.record("tests.suiteDurationMs", result.durationInMillis());
+    }
+
     private JkClasspath jkClasspath() {
         if (classpath != null) {
             return classpath;
@@ -381,60 +615,27 @@ public final class JkUnit {
     @SuppressWarnings("rawtypes")
     private Collection<Class> getClassesToTest() {
         final JkClasspath classpath = this.jkClasspath().andHead(this.classesToTest.roots());
-        final JkClassLoader classLoader = JkClassLoader.system().parent().child(classpath)
-                .loadAllServices();
+        final JkClassLoader classLoader = shareLibraries ? JkClassLoader.layered(classpath)
+                : JkClassLoader.system().parent().child(classpath);
+        classLoader.loadAllServices();
         return getJunitTestClassesInClassLoader(classLoader, this.classesToTest);
     }
 
     @SuppressWarnings("rawtypes")
     private static Collection<Class> getJunitTestClassesInClassLoader(JkClassLoader classloader,
             JkFileTreeSet jkFileTreeSet) {
-        final Iterable<Class<?>> classes = classloader.loadClassesIn(jkFileTreeSet);
         final List<Class> testClasses = new LinkedList<Class>();
-        if (classloader.isDefined(JUNIT4_RUNNER_CLASS_NAME)) {
-            final Class<Annotation> testAnnotation = classloader
-                    .load(JUNIT4_TEST_ANNOTATION_CLASS_NAME);
-            final Class<?> testCaseClass = classloader.load(JUNIT3_TEST_CASE_CLASS_NAME);
-            for (final Class clazz : classes) {
-                if (isJunit3Test(clazz, testCaseClass) || isJunit4Test(clazz, testAnnotation)) {
-                    testClasses.add(clazz);
-                }
-            }
-        } else if (classloader.isDefined(JUNIT3_RUNNER_CLASS_NAME)) {
-            final Class<?> testCaseClass = classloader.load(JUNIT3_TEST_CASE_CLASS_NAME);
-            for (final Class clazz : classes) {
-                if (isJunit3Test(clazz, testCaseClass)) {
-                    testClasses.add(clazz);
-                }
-            }
-        }
-        return testClasses;
-    }
-
-    private static boolean isJunit3Test(Class<?> candidtateClazz, Class<?> testCaseClass) {
-        if (Modifier.isAbstract(candidtateClazz.getModifiers())) {
-            return false;
-        }
-        return testCaseClass.isAssignableFrom(candidtateClazz);
-    }
-
-    private static boolean isJunit4Test(Class<?> candidateClass, Class<Annotation> testAnnotation) {
-        if (Modifier.isAbstract(candidateClass.getModifiers())) {
-            return false;
+        final boolean junit4 = classloader.isDefined(JUNIT4_RUNNER_CLASS_NAME);
+        if (!junit4 && !classloader.isDefined(JUNIT3_RUNNER_CLASS_NAME)) {
+            return testClasses;
         }
-        return hasConcreteTestMethods(candidateClass, testAnnotation);
-    }
-
-    private static boolean hasConcreteTestMethods(Class<?> candidateClass,
-            Class<Annotation> testAnnotation) {
-        for (final Method method : candidateClass.getMethods()) {
-            final int modifiers = method.getModifiers();
-            if (!Modifier.isAbstract(modifiers) && Modifier.isPublic(modifiers)
-                    && method.getAnnotation(testAnnotation) != null) {
-                return true;
-            }
+        final long start = System.nanoTime();
+        final TestClassFinder finder = TestClassFinder.of(classloader.classloader(), junit4);
+        for (final String className : finder.find(jkFileTreeSet)) {
+            testClasses.add(classloader.load(className));
         }
-        return false;
+        JkMetrics.time("tests.discovery", start);
+        return testClasses;
     }
 
     @SuppressWarnings("rawtypes")
@@ -0,0 +1,147 @@
+package org.jerkar.api.java.junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jerkar.api.file.JkFileTreeSet;
+import org.jerkar.api.file.JkPathFilter;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsIO;
+import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.api.utils.JkUtilsThrowable;
+
+/**
+ * Finds the test classes lying in class directories by reading their class
+ * files, so classes that are not tests (helpers, fixtures, inner classes...)
+ * are neither loaded nor initialized. A class is a test if it is concrete and
+ * either extends <code>junit.framework.TestCase</code> or, when JUnit 4 is
+ * available, has a public concrete method annotated with
+ * <code>org.junit.Test</code>, declared or inherited. Super classes lying
+ * outside the class directories are read through the test class loader.
+ *
+ * @author Jerome Angibaud
+ */
+final class TestClassFinder {
+
+    private static final String TEST_CASE = "junit/framework/TestCase";
+
+    private static final String TEST_ANNOTATION = "org/junit/Test";
+
+    private final ClassLoader classLoader;
+
+    private final boolean junit4;
+
+    // Classes read so far by internal name, null values standing for classes not found
+    private final Map<String, ClassFile> classFiles = new HashMap<String, ClassFile>();
+
+    private TestClassFinder(ClassLoader classLoader, boolean junit4) {
+        this.classLoader = classLoader;
+        this.junit4 = junit4;
+    }
+
+    /**
+     * Creates a finder reading super classes through the specified class
+     * loader. If <code>junit4</code> is <code>false</code>, only JUnit 3
+     * test cases are found.
+     */
+    static TestClassFinder of(ClassLoader classLoader, boolean junit4) {
+        return new TestClassFinder(classLoader, junit4);
+    }
+
+    /**
+     * Returns the names of the test classes found in the specified class
+     * directories, in the order their files are found.
+     */
+    List<String> find(JkFileTreeSet classDirs) {
+        final List<String> candidates = new LinkedList<String>();
+        for (final File file : classDirs.andFilter(JkPathFilter.include("**/*.class")).files(false)) {
+            final ClassFile classFile = read(JkUtilsFile.readAsBytes(file));
+            if (!classFiles.containsKey(classFile.name())) {
+                classFiles.put(classFile.name(), classFile);
+                candidates.add(classFile.name());
+            }
+        }
+        final List<String> result = new LinkedList<String>();
+        for (final String candidate : candidates) {
+            if (isTest(classFiles.get(candidate))) {
+                result.add(candidate.replace('/', '.'));
+            }
+        }
+        return result;
+    }
+
+    private boolean isTest(ClassFile classFile) {
+        if ((classFile.access() & (ClassFile.ACC_ABSTRACT | ClassFile.ACC_INTERFACE)) != 0) {
+            return false;
+        }
+        final Set<String> overridden = new HashSet<String>();
+        ClassFile current = classFile;
+        while (current != null) {
+            if (TEST_CASE.equals(current.name())) {
+                return true;
+            }
+            if (junit4 && hasTestMethod(current, overridden)) {
+                return true;
+            }
+            current = classFile(current.superName());
+        }
+        return false;
+    }
+
+    // Methods overridden in a sub class are judged on the overriding declaration
+    private static boolean hasTestMethod(ClassFile classFile, Set<String> overridden) {
+        for (final ClassFile.Method method : classFile.methods()) {
+            if (!overridden.add(method.signature())) {
+                continue;
+            }
+            final int access = method.access();
+            if ((access & ClassFile.ACC_PUBLIC) != 0 && (access & ClassFile.ACC_ABSTRACT) == 0
+                    && method.annotations().contains(TEST_ANNOTATION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // JDK classes are neither test cases nor declare test methods
+    private ClassFile classFile(String name) {
+        if (name == null || name.startsWith("java/")) {
+            return null;
+        }
+        if (classFiles.containsKey(name)) {
+            return classFiles.get(name);
+        }
+        final InputStream inputStream = classLoader.getResourceAsStream(name + ".class");
+        ClassFile result = null;
+        if (inputStream != null) {
+            try {
+                final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                JkUtilsIO.copy(inputStream, outputStream);
+                result = read(outputStream.toByteArray());
+            } finally {
+                JkUtilsIO.closeQuietly(inputStream);
+            }
+        }
+        classFiles.put(name, result);
+        return result;
+    }
+
+    private static ClassFile read(byte[] bytes) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("MD5").digest(bytes);
+            return ClassFile.of(bytes, JkUtilsString.toHexString(digest));
+        } catch (final NoSuchAlgorithmException e) {
+            throw JkUtilsThrowable.unchecked(e);
+        }
+    }
+
+}
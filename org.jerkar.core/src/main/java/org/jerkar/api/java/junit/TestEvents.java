@@ -0,0 +1,254 @@
+package org.jerkar.api.java.junit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Properties;
+
+import org.jerkar.api.java.junit.JkTestSuiteResult.ExceptionDescription;
+import org.jerkar.api.utils.JkUtilsIO;
+import org.jerkar.api.utils.JkUtilsThrowable;
+
+/**
+ * Events emitted while running a test suite, and the means to record them in
+ * a file as they occur then to replay them. A forked test process records its
+ * events this way, so neither the process nor its parent have to hold the
+ * result of each test case in memory.
+ *
+ * @author Jerome Angibaud
+ */
+final class TestEvents {
+
+    private static final byte SUITE_STARTED = 'B';
+
+    private static final byte CLASS_STARTED = 'S';
+
+    private static final byte TEST_FINISHED = 'T';
+
+    private static final byte TEST_IGNORED = 'I';
+
+    private static final byte CLASS_FAILED = 'F';
+
+    private static final byte CLASS_FINISHED = 'C';
+
+    private static final byte SUITE_FINISHED = 'E';
+
+    private TestEvents() {
+        // Can not instantiate
+    }
+
+    /**
+     * Receiver of the events of a test suite run. Methods are called in the
+     * order tests run.
+     */
+    interface Handler {
+
+        /**
+         * The suite starts to run with the specified system properties.
+         */
+        void suiteStarted(Properties properties);
+
+        /**
+         * A test class starts to run.
+         */
+        void classStarted(String className);
+
+        /**
+         * A test has run. The failure is <code>null</code> if the test has
+         * passed.
+         */
+        void testFinished(String className, String testName, float durationInSecond,
+                ExceptionDescription failure);
+
+        /**
+         * A test has been ignored.
+         */
+        void testIgnored(String className, String testName);
+
+        /**
+         * A failure has occurred outside of any test, as in a class set up.
+         */
+        void classFailed(String className, ExceptionDescription failure);
+
+        /**
+         * A test class has finished to run.
+         */
+        void classFinished(String className, long durationInMillis);
+
+        /**
+         * All the test classes have run.
+         */
+        void suiteFinished(long durationInMillis);
+
+    }
+
+    /**
+     * Creates a handler writing the events in the specified file.
+     */
+    static Recorder recorder(File file) {
+        try {
+            return new Recorder(new ObjectOutputStream(new BufferedOutputStream(
+                    JkUtilsIO.outputStream(file, false))));
+        } catch (final IOException e) {
+            throw JkUtilsThrowable.unchecked(e);
+        }
+    }
+
+    /**
+     * Passes the events recorded in the specified file to the specified
+     * handler.
+     *
+     * @throws IllegalStateException
+     *             if the recording is incomplete, as when the test process
+     *             has crashed.
+     */
+    static void replay(File file, Handler handler) {
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new BufferedInputStream(JkUtilsIO.inputStream(file)));
+            while (true) {
+                final byte event = in.readByte();
+                if (event == SUITE_STARTED) {
+                    handler.suiteStarted((Properties) in.readObject());
+                } else if (event == CLASS_STARTED) {
+                    handler.classStarted(readString(in));
+                } else if (event == TEST_FINISHED) {
+                    handler.testFinished(readString(in), readString(in), in.readFloat(),
+                            (ExceptionDescription) in.readObject());
+                } else if (event == TEST_IGNORED) {
+                    handler.testIgnored(readString(in), readString(in));
+                } else if (event == CLASS_FAILED) {
+                    handler.classFailed(readString(in), (ExceptionDescription) in.readObject());
+                } else if (event == CLASS_FINISHED) {
+                    handler.classFinished(readString(in), in.readLong());
+                } else if (event == SUITE_FINISHED) {
+                    handler.suiteFinished(in.readLong());
+                    return;
+                } else {
+                    throw new IllegalStateException("Unknown test event " + event + " in " + file);
+                }
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Test events in " + file.getPath()
+                    + " end before the end of the test suite : test process has probably crashed.", e);
+        } catch (final ClassNotFoundException e) {
+            throw JkUtilsThrowable.unchecked(e);
+        } finally {
+            JkUtilsIO.closeQuietly((Closeable) in);
+        }
+    }
+
+    private static String readString(ObjectInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Handler writing the events it receives in a stream. Objects are
+     * forgotten by the stream once written, so memory does not grow with the
+     * number of events.
+     */
+    static final class Recorder implements Handler {
+
+        private final ObjectOutputStream out;
+
+        private Recorder(ObjectOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public synchronized void suiteStarted(Properties properties) {
+            try {
+                out.writeByte(SUITE_STARTED);
+                writeObject(properties);
+            } catch (final IOException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            }
+        }
+
+        @Override
+        public synchronized void classStarted(String className) {
+            try {
+                out.writeByte(CLASS_STARTED);
+                writeString(className);
+            } catch (final IOException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            }
+        }
+
+        @Override
+        public synchronized void testFinished(String className, String testName, float durationInSecond,
+                ExceptionDescription failure) {
+            try {
+                out.writeByte(TEST_FINISHED);
+                writeString(className);
+                writeString(testName);
+                out.writeFloat(durationInSecond);
+                writeObject(failure);
+            } catch (final IOException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            }
+        }
+
+        @Override
+        public synchronized void testIgnored(String className, String testName) {
+            try {
+                out.writeByte(TEST_IGNORED);
+                writeString(className);
+                writeString(testName);
+            } catch (final IOException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            }
+        }
+
+        @Override
+        public synchronized void classFailed(String className, ExceptionDescription failure) {
+            try {
+                out.writeByte(CLASS_FAILED);
+                writeString(className);
+                writeObject(failure);
+            } catch (final IOException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            }
+        }
+
+        @Override
+        public synchronized void classFinished(String className, long durationInMillis) {
+            try {
+                out.writeByte(CLASS_FINISHED);
+                writeString(className);
+                out.writeLong(durationInMillis);
+            } catch (final IOException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            }
+        }
+
+        @Override
+        public synchronized void suiteFinished(long durationInMillis) {
+            try {
+                out.writeByte(SUITE_FINISHED);
+                out.writeLong(durationInMillis);
+                out.close();
+            } catch (final IOException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+
+        private void writeObject(Object object) throws IOException {
+            out.writeObject(object);
+            out.reset();
+        }
+
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.jerkar.api.java.junit;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.jerkar.api.java.junit.JkTestSuiteResult.TestCaseFailure;
+import org.jerkar.api.utils.JkUtilsFile;
+
+/**
+ * Durations and outcomes of the past runs of each test class. It is used to
+ * run first the test classes the most likely to fail, so failures show up as
+ * soon as possible.
+ * <p>
+ * Test classes are ordered as follow : classes that have failed recently (the
+ * most recent failure first), then classes that have changed since the last
+ * run or that have never been run, then the other ones. Within each group, the
+ * fastest classes come first when classes run one after the other. When they
+ * run concurrently, the slowest come first instead (longest processing time
+ * first), so long classes do not end up running alone at the end of the run.
+ *
+ * @author Jerome Angibaud
+ */
+final class TestHistory {
+
+    private static final String FILE_NAME = "test-history.properties";
+
+    private static final String RUN = "run";
+
+    private static final String TIME = "time";
+
+    // A failure older than this number of runs is not considered as recent
+    private static final int RECENT_RUNS = 10;
+
+    private final File file;
+
+    private final int run;
+
+    private final long lastRunTime;
+
+    private final long startTime;
+
+    // Duration in milliseconds and number of the last run that has failed, by class name
+    private final Map<String, long[]> classes;
+
+    private TestHistory(File file, int run, long lastRunTime, Map<String, long[]> classes) {
+        this.file = file;
+        this.run = run;
+        this.lastRunTime = lastRunTime;
+        this.startTime = System.currentTimeMillis();
+        this.classes = classes;
+    }
+
+    /**
+     * Creates a history stored in the specified directory.
+     */
+    static TestHistory of(File dir) {
+        final File file = new File(dir, FILE_NAME);
+        final Map<String, String> stored = file.exists() ? JkUtilsFile.readPropertyFileAsMap(file)
+                : new HashMap<String, String>();
+        final Map<String, long[]> classes = new HashMap<String, long[]>();
+        int run = 0;
+        long time = 0;
+        for (final Map.Entry<String, String> entry : stored.entrySet()) {
+            try {
+                if (RUN.equals(entry.getKey())) {
+                    run = Integer.parseInt(entry.getValue());
+                } else if (TIME.equals(entry.getKey())) {
+                    time = Long.parseLong(entry.getValue());
+                } else {
+                    final String[] items = entry.getValue().split(",");
+                    classes.put(entry.getKey(), new long[] { Long.parseLong(items[0]), Long.parseLong(items[1]) });
+                }
+            } catch (final RuntimeException e) { // NOSONAR a corrupted entry is just ignored
+                continue;
+            }
+        }
+        return new TestHistory(file, run, time, classes);
+    }
+
+    /**
+     * Returns the specified test classes in the order they should be run. The
+     * specified directories are the ones containing the test classes, they are
+     * used to detect the test classes that have changed since the last run.
+     * Within each group, the longest classes come first if
+     * <code>longestFirst</code> is <code>true</code>, the fastest otherwise.
+     */
+    @SuppressWarnings("rawtypes")
+    List<Class> order(Collection<Class> testClasses, final Iterable<File> classDirs,
+            final boolean longestFirst) {
+        final List<Class> result = new ArrayList<Class>(testClasses);
+        final Map<Class, long[]> keys = new HashMap<Class, long[]>();
+        for (final Class testClass : testClasses) {
+            final long[] known = classes.get(testClass.getName());
+            final long group;
+            if (known != null && known[1] >= 0 && run - known[1] < RECENT_RUNS) {
+                group = run - known[1];
+            } else if (known == null || changed(testClass, classDirs)) {
+                group = RECENT_RUNS;
+            } else {
+                group = RECENT_RUNS + 1;
+            }
+            keys.put(testClass, new long[] { group, known == null ? 0 : known[0] });
+        }
+        Collections.sort(result, new Comparator<Class>() {
+
+            @Override
+            public int compare(Class class1, Class class2) {
+                final long[] key1 = keys.get(class1);
+                final long[] key2 = keys.get(class2);
+                if (key1[0] != key2[0]) {
+                    return key1[0] < key2[0] ? -1 : 1;
+                }
+                final int fastestFirst = key1[1] < key2[1] ? -1 : (key1[1] == key2[1] ? 0 : 1);
+                return longestFirst ? -fastestFirst : fastestFirst;
+            }
+        });
+        return result;
+    }
+
+    private boolean changed(Class<?> testClass, Iterable<File> classDirs) {
+        final String path = testClass.getName().replace('.', '/') + ".class";
+        for (final File classDir : classDirs) {
+            final File classFile = new File(classDir, path);
+            if (classFile.exists()) {
+                return classFile.lastModified() > lastRunTime;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records the durations and outcomes of the test classes run in the
+     * specified result.
+     */
+    void record(JkTestSuiteResult result) {
+        final Set<String> failedClasses = new HashSet<String>();
+        for (final TestCaseFailure failure : result.failures()) {
+            failedClasses.add(failure.getClassName());
+        }
+        final int currentRun = run + 1;
+        for (final Map.Entry<String, Long> entry : result.classDurations().entrySet()) {
+            final long[] known = classes.get(entry.getKey());
+            final long lastFailure = failedClasses.contains(entry.getKey()) ? currentRun
+                    : (known == null ? -1 : known[1]);
+            classes.put(entry.getKey(), new long[] { entry.getValue(), lastFailure });
+        }
+        final Map<String, String> props = new TreeMap<String, String>();
+        for (final Map.Entry<String, long[]> entry : classes.entrySet()) {
+            props.put(entry.getKey(), entry.getValue()[0] + "," + entry.getValue()[1]);
+        }
+        props.put(RUN, Integer.toString(currentRun));
+        props.put(TIME, Long.toString(startTime));
+        file.getParentFile().mkdirs();
+        JkUtilsFile.writePropertyFile(file, props,
+                "Duration in milliseconds and last failing run of each test class");
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.jerkar.api.java.junit;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.jerkar.api.file.JkFileTree;
+import org.jerkar.api.java.junit.JkTestSuiteResult.TestCaseFailure;
+import org.jerkar.api.system.JkLog;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.api.utils.JkUtilsThrowable;
+
+/**
+ * Selects the test classes to run according the changes made to the compiled
+ * classes since the last run. The classes each test class depends on,
+ * transitively, are found by reading the compiled classes. A digest of these
+ * classes is stored for each test class that has passed, so a test class is
+ * run again only if one of these classes has changed, or if it has not passed
+ * last time.
+ * <p>
+ * All tests are run if a jar of the classpath has changed, or periodically,
+ * to catch dependencies the bytecode does not reveal (reflection, resources).
+ *
+ * @author Jerome Angibaud
+ */
+final class TestImpactAnalysis {
+
+    private static final String FILE_NAME = "test-impact.properties";
+
+    private static final String CLASSPATH = "classpath";
+
+    private static final String SELECTIVE_RUNS = "selectiveRuns";
+
+    private static final String TEST_PREFIX = "test.";
+
+    private final File file;
+
+    private final int fullRunPeriod;
+
+    private final Map<String, String> stored;
+
+    private final String classpathDigest;
+
+    // Classes found in classpath directories, by internal name
+    private final Map<String, ClassFile> classFiles = new HashMap<String, ClassFile>();
+
+    private final Map<String, String> classDigests = new HashMap<String, String>();
+
+    private boolean fullRun;
+
+    private TestImpactAnalysis(File file, int fullRunPeriod, Map<String, String> stored,
+            String classpathDigest) {
+        this.file = file;
+        this.fullRunPeriod = fullRunPeriod;
+        this.stored = stored;
+        this.classpathDigest = classpathDigest;
+    }
+
+    /**
+     * Creates an analysis reading the classes of the specified class path and
+     * storing its data in the specified directory. All tests are run each
+     * <code>fullRunPeriod</code> runs, 0 meaning never.
+     */
+    static TestImpactAnalysis of(File dir, Iterable<File> classpath, int fullRunPeriod) {
+        final File file = new File(dir, FILE_NAME);
+        final Map<String, String> stored = file.exists() ? JkUtilsFile.readPropertyFileAsMap(file)
+                : new HashMap<String, String>();
+        final List<File> jars = new LinkedList<File>();
+        final List<File> classDirs = new LinkedList<File>();
+        for (final File entry : classpath) {
+            if (entry.isDirectory()) {
+                classDirs.add(entry);
+            } else {
+                jars.add(entry);
+            }
+        }
+        final MessageDigest jarDigest = md5();
+        for (final File jar : jars) {
+            jarDigest.update((jar.getAbsolutePath() + ":" + jar.length() + ":" + jar.lastModified() + "\n")
+                    .getBytes());
+        }
+        final TestImpactAnalysis result = new TestImpactAnalysis(file, fullRunPeriod, stored,
+                JkUtilsString.toHexString(jarDigest.digest()));
+        for (final File classDir : classDirs) {
+            for (final File classFile : JkFileTree.of(classDir).include("**/*.class").files(false)) {
+                final byte[] bytes = JkUtilsFile.readAsBytes(classFile);
+                final String digest = JkUtilsString.toHexString(md5().digest(bytes));
+                final ClassFile parsed = ClassFile.of(bytes, digest);
+                if (!result.classFiles.containsKey(parsed.name())) {
+                    result.classFiles.put(parsed.name(), parsed);
+                    result.classDigests.put(parsed.name(), digest);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the test classes, among the specified ones, that have to be run.
+     */
+    @SuppressWarnings("rawtypes")
+    List<Class> select(Collection<Class> testClasses) {
+        final int selectiveRuns = selectiveRuns();
+        if (!classpathDigest.equals(stored.get(CLASSPATH))) {
+            JkLog.info("Classpath jars have changed since last test run : run all tests.");
+            fullRun = true;
+        } else if (fullRunPeriod > 0 && selectiveRuns + 1 >= fullRunPeriod) {
+            JkLog.info("Periodic full test run (each " + fullRunPeriod + " runs) : run all tests.");
+            fullRun = true;
+        }
+        if (fullRun) {
+            return new LinkedList<Class>(testClasses);
+        }
+        final List<Class> result = new LinkedList<Class>();
+        for (final Class testClass : testClasses) {
+            final String digest = digest(testClass.getName());
+            if (digest == null || !digest.equals(stored.get(TEST_PREFIX + testClass.getName()))) {
+                result.add(testClass);
+            }
+        }
+        JkLog.info(result.size() + " test class(es) impacted by changes out of " + testClasses.size() + ".");
+        return result;
+    }
+
+    /**
+     * Records the result of the run of the specified test classes, so test
+     * classes that have passed are not run again until a class they depend on
+     * changes.
+     */
+    @SuppressWarnings("rawtypes")
+    void save(Collection<Class> ranClasses, JkTestSuiteResult result) {
+        final Set<String> failedClasses = new HashSet<String>();
+        for (final TestCaseFailure failure : result.failures()) {
+            failedClasses.add(failure.getClassName());
+        }
+        final Map<String, String> props = new TreeMap<String, String>();
+        if (!fullRun) {
+            props.putAll(stored);
+        }
+        for (final Class testClass : ranClasses) {
+            final String name = testClass.getName();
+            final String digest = digest(name);
+            if (digest == null || failedClasses.contains(name)) {
+                props.remove(TEST_PREFIX + name);
+            } else {
+                props.put(TEST_PREFIX + name, digest);
+            }
+        }
+        props.put(CLASSPATH, classpathDigest);
+        props.put(SELECTIVE_RUNS, Integer.toString(fullRun ? 0 : selectiveRuns() + 1));
+        file.getParentFile().mkdirs();
+        JkUtilsFile.writePropertyFile(file, props, "Digests of the classes each passed test class depends on");
+    }
+
+    private int selectiveRuns() {
+        final String value = stored.get(SELECTIVE_RUNS);
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+
+    // Digest of the specified class and all the classes it depends on transitively
+    private String digest(String className) {
+        final String root = className.replace('.', '/');
+        if (!classFiles.containsKey(root)) {
+            return null;
+        }
+        final Set<String> visited = new HashSet<String>();
+        final LinkedList<String> toVisit = new LinkedList<String>();
+        toVisit.add(root);
+        while (!toVisit.isEmpty()) {
+            final String name = toVisit.poll();
+            final ClassFile classFile = classFiles.get(name);
+            if (classFile == null || !visited.add(name)) {
+                continue;
+            }
+            toVisit.addAll(classFile.referencedClasses());
+        }
+        final MessageDigest digest = md5();
+        for (final String name : new TreeSet<String>(visited)) {
+            digest.update((name + ":" + classDigests.get(name) + "\n").getBytes());
+        }
+        return JkUtilsString.toHexString(digest.digest());
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            throw JkUtilsThrowable.unchecked(e);
+        }
+    }
+
+}
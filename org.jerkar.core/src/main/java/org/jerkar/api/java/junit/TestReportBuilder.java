@@ -1,8 +1,12 @@
 package org.jerkar.api.java.junit;
 
 import java.io.File;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Properties;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -11,7 +15,9 @@ import javax.xml.stream.XMLStreamWriter;
 import org.jerkar.api.java.junit.JkTestSuiteResult.IgnoredCase;
 import org.jerkar.api.java.junit.JkTestSuiteResult.TestCaseFailure;
 import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsIO;
 import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.api.utils.JkUtilsThrowable;
 
 final class TestReportBuilder {
 
@@ -29,6 +35,14 @@ final class TestReportBuilder {
         return new TestReportBuilder(result);
     }
 
+    /**
+     * Creates a writer producing the report of the specified suite in the
+     * specified folder, test case by test case.
+     */
+    static SuiteWriter suiteWriter(File folder, String suiteName, Properties properties) {
+        return new SuiteWriter(folder, suiteName, properties);
+    }
+
     public void writeToFileSystem(File folder) {
         folder.mkdirs();
         final File xmlFile = new File(folder, "TEST-" + result.suiteName() + ".xml");
@@ -37,7 +51,8 @@ final class TestReportBuilder {
             xmlFile.createNewFile();
             textFile.createNewFile();
             writeXmlFile(xmlFile);
-            writeTxtFile(textFile);
+            writeTxtFile(textFile, result.suiteName(), result.runCount(), result.assertErrorCount(),
+                    result.errorCount(), result.ignoreCount(), result.durationInMillis());
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
@@ -45,32 +60,26 @@ final class TestReportBuilder {
         }
     }
 
-    private void writeTxtFile(File txtFile) {
+    private static void writeTxtFile(File txtFile, String suiteName, int runCount, int failureCount,
+            int errorCount, int ignoreCount, long durationInMillis) {
         final StringBuilder builder = new StringBuilder(TEXT_HEAD).append("\n")
-                .append("Test set: ").append(result.suiteName()).append("\n").append(TEXT_HEAD)
-                .append("\n").append("Tests run: ").append(result.runCount()).append(", ")
-                .append("Failures: ").append(result.assertErrorCount()).append(", ")
-                .append("Errors: ").append(result.errorCount()).append(", ").append("Skipped: ")
-                .append(result.ignoreCount()).append(", ").append("Time elapsed: ")
-                .append(result.durationInMillis() / 1000f).append(" sec");
+                .append("Test set: ").append(suiteName).append("\n").append(TEXT_HEAD)
+                .append("\n").append("Tests run: ").append(runCount).append(", ")
+                .append("Failures: ").append(failureCount).append(", ")
+                .append("Errors: ").append(errorCount).append(", ").append("Skipped: ")
+                .append(ignoreCount).append(", ").append("Time elapsed: ")
+                .append(durationInMillis / 1000f).append(" sec");
         JkUtilsFile.writeString(txtFile, builder.toString(), false);
     }
 
     private void writeXmlFile(File xmlFile) throws XMLStreamException, IOException {
         final XMLStreamWriter writer = FACTORY.createXMLStreamWriter(new FileWriter(xmlFile));
-        writer.writeStartDocument();
-        writer.writeCharacters("\n");
-        writer.writeStartElement("testsuite");
-        writer.writeAttribute("skipped", Integer.toString(result.ignoreCount()));
-        writer.writeAttribute("tests", Integer.toString(result.runCount()));
-        writer.writeAttribute("failures", Integer.toString(result.assertErrorCount()));
-        writer.writeAttribute("errors", Integer.toString(result.errorCount()));
-        writer.writeAttribute("name", result.suiteName());
-        writer.writeAttribute("time", Float.toString(result.durationInMillis() / 1000f));
-        writer.writeCharacters("\n");
-
-        writeProperties(writer);
-        writeTestCases(writer);
+        writeHeader(writer, result.suiteName(), result.runCount(), result.assertErrorCount(),
+                result.errorCount(), result.ignoreCount(), result.durationInMillis());
+        writeProperties(writer, result.getSystemProperties());
+        for (final JkTestSuiteResult.TestCaseResult testCaseResult : this.result.testCaseResults()) {
+            writeTestCase(writer, testCaseResult);
+        }
 
         writer.writeEndElement(); // ends 'testsuite'
         writer.writeEndDocument();
@@ -79,54 +88,182 @@ final class TestReportBuilder {
         writer.close();
     }
 
-    private void writeProperties(XMLStreamWriter writer) throws XMLStreamException {
+    private static void writeHeader(XMLStreamWriter writer, String suiteName, int runCount,
+            int failureCount, int errorCount, int ignoreCount, long durationInMillis)
+                    throws XMLStreamException {
+        writer.writeStartDocument();
+        writer.writeCharacters("\n");
+        writer.writeStartElement("testsuite");
+        writer.writeAttribute("skipped", Integer.toString(ignoreCount));
+        writer.writeAttribute("tests", Integer.toString(runCount));
+        writer.writeAttribute("failures", Integer.toString(failureCount));
+        writer.writeAttribute("errors", Integer.toString(errorCount));
+        writer.writeAttribute("name", suiteName);
+        writer.writeAttribute("time", Float.toString(durationInMillis / 1000f));
+        writer.writeCharacters("\n");
+    }
+
+    private static void writeProperties(XMLStreamWriter writer, Properties properties)
+            throws XMLStreamException {
         writer.writeCharacters("  ");
         writer.writeStartElement("properties");
-        for (final Object name : this.result.getSystemProperties().keySet()) {
+        for (final Object name : properties.keySet()) {
             writer.writeCharacters("\n    ");
             writer.writeEmptyElement("property");
-            writer.writeAttribute("value", System.getProperty(name.toString()));
+            writer.writeAttribute("value", properties.getProperty(name.toString(), ""));
             writer.writeAttribute("name", name.toString());
         }
         writer.writeCharacters("\n  ");
         writer.writeEndElement();
     }
 
-    private void writeTestCases(XMLStreamWriter writer) throws XMLStreamException {
-        for (final JkTestSuiteResult.TestCaseResult testCaseResult : this.result.testCaseResults()) {
-            writer.writeCharacters("\n  ");
-            writer.writeStartElement("testcase");
-            writer.writeAttribute("classname", testCaseResult.getClassName());
-            writer.writeAttribute("name", testCaseResult.getTestName());
-            if (testCaseResult.getDurationInSecond() != -1) {
-                writer.writeAttribute("time", Float.toString(testCaseResult.getDurationInSecond()));
-            } else {
-                writer.writeAttribute("time", "0.000");
+    private static void writeTestCase(XMLStreamWriter writer, JkTestSuiteResult.TestCaseResult testCaseResult)
+            throws XMLStreamException {
+        writer.writeCharacters("\n  ");
+        writer.writeStartElement("testcase");
+        writer.writeAttribute("classname", testCaseResult.getClassName());
+        writer.writeAttribute("name", testCaseResult.getTestName() == null ? "" : testCaseResult.getTestName());
+        if (testCaseResult.getDurationInSecond() != -1) {
+            writer.writeAttribute("time", Float.toString(testCaseResult.getDurationInSecond()));
+        } else {
+            writer.writeAttribute("time", "0.000");
+        }
+        if (testCaseResult instanceof TestCaseFailure) {
+            final TestCaseFailure failure = (TestCaseFailure) testCaseResult;
+            final String errorFailure = failure.getExceptionDescription().isAssertError() ? "failure"
+                    : "error";
+            writer.writeCharacters("\n    ");
+            writer.writeStartElement(errorFailure);
+            writer.writeAttribute("message",
+                    JkUtilsString.escapeHtml(failure.getExceptionDescription().getMessage()));
+            writer.writeAttribute("type", failure.getExceptionDescription().getClassName());
+            final StringBuilder stringBuilder = new StringBuilder();
+            for (final String line : failure.getExceptionDescription().stackTracesAsStrings()) {
+                stringBuilder.append(line).append("\n");
+            }
+            stringBuilder.append("      ");
+            writer.writeCData(stringBuilder.toString());
+            writer.writeCharacters("\n    ");
+            writer.writeEndElement();
+        } else if (testCaseResult instanceof IgnoredCase) {
+            writer.writeCharacters("\n    ");
+            writer.writeEmptyElement("skipped");
+        }
+        writer.writeCharacters("\n  ");
+        writer.writeEndElement();
+    }
+
+    /**
+     * Writes the report of a suite test case by test case : test cases are
+     * appended to a temporary file as they come, then the report is assembled
+     * once the suite is finished, the counts it starts with being known.
+     * Memory use does not depend on the number of test cases.
+     */
+    static final class SuiteWriter {
+
+        private final File folder;
+
+        private final String suiteName;
+
+        private final Properties properties;
+
+        private final File bodyFile;
+
+        private final Writer bodyOutput;
+
+        private final XMLStreamWriter body;
+
+        private int runCount;
+
+        private int failureCount;
+
+        private int errorCount;
+
+        private int ignoreCount;
+
+        private SuiteWriter(File folder, String suiteName, Properties properties) {
+            this.folder = folder;
+            this.suiteName = suiteName;
+            this.properties = properties;
+            this.bodyFile = JkUtilsFile.tempFile("TEST-" + suiteName, ".xml");
+            try {
+                this.bodyOutput = new FileWriter(bodyFile);
+                this.body = FACTORY.createXMLStreamWriter(bodyOutput);
+            } catch (final IOException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            } catch (final XMLStreamException e) {
+                throw JkUtilsThrowable.unchecked(e);
             }
-            if (testCaseResult instanceof TestCaseFailure) {
-                final TestCaseFailure failure = (TestCaseFailure) testCaseResult;
-                final String errorFailure = failure.getExceptionDescription().isAssertError() ? "failure"
-                        : "error";
-                writer.writeCharacters("\n    ");
-                writer.writeStartElement(errorFailure);
-                writer.writeAttribute("message",
-                        JkUtilsString.escapeHtml(failure.getExceptionDescription().getMessage()));
-                writer.writeAttribute("type", failure.getExceptionDescription().getClassName());
-                final StringBuilder stringBuilder = new StringBuilder();
-                for (final String line : failure.getExceptionDescription().stackTracesAsStrings()) {
-                    stringBuilder.append(line).append("\n");
+        }
+
+        /**
+         * Appends the specified test case to the report.
+         */
+        void add(JkTestSuiteResult.TestCaseResult testCaseResult) {
+            if (testCaseResult instanceof IgnoredCase) {
+                ignoreCount++;
+            } else if (testCaseResult instanceof TestCaseFailure) {
+                if (((TestCaseFailure) testCaseResult).getExceptionDescription().isAssertError()) {
+                    failureCount++;
+                } else {
+                    errorCount++;
                 }
-                stringBuilder.append("      ");
-                writer.writeCData(stringBuilder.toString());
-                writer.writeCharacters("\n    ");
-                writer.writeEndElement();
-            } else if (testCaseResult instanceof IgnoredCase) {
-                writer.writeCharacters("\n    ");
-                writer.writeEmptyElement("skipped");
             }
-            writer.writeCharacters("\n  ");
-            writer.writeEndElement();
+            try {
+                writeTestCase(body, testCaseResult);
+            } catch (final XMLStreamException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            }
+        }
+
+        /**
+         * Counts a test as run. Tests failing outside of their execution, as
+         * in a class set up, are not counted as run.
+         */
+        void countRun() {
+            runCount++;
+        }
+
+        /**
+         * Writes the report files in the folder.
+         */
+        void finish(long durationInMillis) {
+            folder.mkdirs();
+            final File xmlFile = new File(folder, "TEST-" + suiteName + ".xml");
+            Writer output = null;
+            Reader input = null;
+            try {
+                body.flush();
+                body.close();
+                bodyOutput.close();
+                output = new FileWriter(xmlFile);
+                final XMLStreamWriter writer = FACTORY.createXMLStreamWriter(output);
+                writeHeader(writer, suiteName, runCount, failureCount, errorCount, ignoreCount,
+                        durationInMillis);
+                writeProperties(writer, properties);
+                writer.flush();
+                input = new FileReader(bodyFile);
+                final char[] buffer = new char[8192];
+                int count;
+                while ((count = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, count);
+                }
+                writer.writeEndElement(); // ends 'testsuite'
+                writer.writeEndDocument();
+                writer.flush();
+                writer.close();
+            } catch (final IOException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            } catch (final XMLStreamException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            } finally {
+                JkUtilsIO.closeQuietly(input, output);
+                bodyFile.delete();
+            }
+            writeTxtFile(new File(folder, suiteName + ".txt"), suiteName, runCount, failureCount,
+                    errorCount, ignoreCount, durationInMillis);
         }
+
     }
 
 }
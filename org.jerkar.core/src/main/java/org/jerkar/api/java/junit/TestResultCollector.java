@@ -0,0 +1,133 @@
+package org.jerkar.api.java.junit;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.jerkar.api.java.junit.JkTestSuiteResult.ExceptionDescription;
+import org.jerkar.api.java.junit.JkTestSuiteResult.IgnoredCase;
+import org.jerkar.api.java.junit.JkTestSuiteResult.TestCaseFailure;
+import org.jerkar.api.java.junit.JkTestSuiteResult.TestCaseResult;
+
+/**
+ * Builds the result of a test suite out of its events, keeping only the
+ * counts, the failures and the duration of each test class. If a report
+ * folder is specified, a detailed report is written for each test class as
+ * its tests run.
+ *
+ * @author Jerome Angibaud
+ */
+final class TestResultCollector implements TestEvents.Handler {
+
+    private final File reportDir;
+
+    private final List<TestCaseFailure> failures = new LinkedList<TestCaseFailure>();
+
+    private final Map<String, Long> classDurations = new LinkedHashMap<String, Long>();
+
+    private final Map<String, TestReportBuilder.SuiteWriter> suiteWriters =
+            new LinkedHashMap<String, TestReportBuilder.SuiteWriter>();
+
+    private Properties properties;
+
+    private int runCount;
+
+    private int ignoreCount;
+
+    private JkTestSuiteResult result;
+
+    private TestResultCollector(File reportDir) {
+        this.reportDir = reportDir;
+    }
+
+    /**
+     * Creates a collector writing a detailed report in the specified folder,
+     * or none if it is <code>null</code>.
+     */
+    static TestResultCollector of(File reportDir) {
+        return new TestResultCollector(reportDir);
+    }
+
+    @Override
+    public synchronized void suiteStarted(Properties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public synchronized void classStarted(String className) {
+        if (reportDir != null) {
+            suiteWriters.put(className, TestReportBuilder.suiteWriter(reportDir, className, properties));
+        }
+    }
+
+    @Override
+    public synchronized void testFinished(String className, String testName, float durationInSecond,
+            ExceptionDescription failure) {
+        runCount++;
+        final TestCaseResult caseResult;
+        if (failure == null) {
+            caseResult = new TestCaseResult(className, testName, durationInSecond);
+        } else {
+            caseResult = new TestCaseFailure(className, testName, durationInSecond, failure);
+            failures.add((TestCaseFailure) caseResult);
+        }
+        report(className, caseResult, true);
+    }
+
+    @Override
+    public synchronized void testIgnored(String className, String testName) {
+        ignoreCount++;
+        report(className, new IgnoredCase(className, testName), false);
+    }
+
+    @Override
+    public synchronized void classFailed(String className, ExceptionDescription failure) {
+        final TestCaseFailure caseFailure = new TestCaseFailure(className, null, -1, failure);
+        failures.add(caseFailure);
+        report(className, caseFailure, false);
+    }
+
+    @Override
+    public synchronized void classFinished(String className, long durationInMillis) {
+        classDurations.put(className, durationInMillis);
+        final TestReportBuilder.SuiteWriter suiteWriter = suiteWriters.remove(className);
+        if (suiteWriter != null) {
+            suiteWriter.finish(durationInMillis);
+        }
+    }
+
+    @Override
+    public synchronized void suiteFinished(long durationInMillis) {
+        result = new JkTestSuiteResult(properties, "all", runCount, ignoreCount, failures,
+                durationInMillis, classDurations);
+    }
+
+    /**
+     * Returns the result of the suite, once finished.
+     */
+    synchronized JkTestSuiteResult result() {
+        if (result == null) {
+            throw new IllegalStateException("Test suite not finished.");
+        }
+        return result;
+    }
+
+    // Tests of a class run through an other one (as a suite) go in the report of the running class
+    private void report(String className, TestCaseResult caseResult, boolean run) {
+        if (suiteWriters.isEmpty()) {
+            return;
+        }
+        TestReportBuilder.SuiteWriter suiteWriter = suiteWriters.get(className);
+        if (suiteWriter == null) {
+            suiteWriter = suiteWriters.values().iterator().next();
+        }
+        suiteWriter.add(caseResult);
+        if (run) {
+            suiteWriter.countRun();
+        }
+    }
+
+}
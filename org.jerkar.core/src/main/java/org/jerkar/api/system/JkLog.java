@@ -1,5 +1,8 @@
 package org.jerkar.api.system;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -10,6 +13,14 @@ import org.jerkar.api.utils.JkUtilsTime;
 /**
  * Logger shared globally on the classloader. It provides time tracking method
  * and indentation feature accounting for task/subtask execution.
+ * <p>
+ * Indentation is tracked per thread so threads running concurrently do not mess
+ * up each other logs. It is not inherited : a new thread starts with no
+ * indentation, as pooled threads outlive the context of the thread that
+ * created them. Logs can be written on the console asynchronously (see
+ * {@link #async(boolean)}) and tasks running concurrently can get their own
+ * log context (see {@link #startTask(String)}), starting with the indentation
+ * of the thread starting the task.
  *
  * @author Jerome Angibaud
  */
@@ -21,15 +32,27 @@ public final class JkLog {
 
     private static final ThreadLocal<LinkedList<Long>> START_TIMES = new ThreadLocal<LinkedList<Long>>();
 
-    private static OffsetStream infoWriter = new OffsetStream(System.out);
+    private static final ThreadLocal<LinkedList<String>> START_MESSAGES = new ThreadLocal<LinkedList<String>>();
 
-    private static OffsetStream errorWriter = new OffsetStream(System.err);
+    private static final LogSink OUT = new LogSink(System.out);
 
-    private static OffsetStream warnWriter = new OffsetStream(System.err);
+    private static final LogSink ERR = new LogSink(System.err);
 
-    private static boolean silent;
+    // Not inherited : pooled threads outlive the context of the thread creating them
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<Context>() {
 
-    private static boolean verbose;
+        @Override
+        protected Context initialValue() {
+            return Context.of(OUT, ERR, 0, null, null);
+        }
+
+    };
+
+    private static volatile boolean silent;
+
+    private static volatile boolean verbose;
+
+    private static volatile boolean grouped = true;
 
     /**
      * Set the silent mode to the specified mode.
@@ -73,9 +96,9 @@ public final class JkLog {
         if (silent) {
             return;
         }
-        infoWriter.print(message + " ... ");
+        infoWriter().print(message + " ... ");
         incOffset();
-        startTimer();
+        startTimer(message);
     }
 
     /**
@@ -93,16 +116,20 @@ public final class JkLog {
         return null;
     }
 
-    private static void startTimer() {
+    private static void startTimer(String message) {
         if (silent) {
             return;
         }
         LinkedList<Long> times = START_TIMES.get();
+        LinkedList<String> messages = START_MESSAGES.get();
         if (times == null) {
             times = new LinkedList<Long>();
             START_TIMES.set(times);
+            messages = new LinkedList<String>();
+            START_MESSAGES.set(messages);
         }
         times.push(System.nanoTime());
+        messages.push(message);
     }
 
     /**
@@ -126,7 +153,7 @@ public final class JkLog {
         }
         infoUnderlined(message);
         incOffset();
-        startTimer();
+        startTimer(message);
     }
 
     /**
@@ -138,7 +165,7 @@ public final class JkLog {
         }
         infoHeaded(message);
         incOffset();
-        startTimer();
+        startTimer(message);
     }
 
     /**
@@ -172,9 +199,9 @@ public final class JkLog {
     }
 
     private static void beginOfLine() {
-        infoWriter.beginOfLine = true;
-        warnWriter.beginOfLine = true;
-        errorWriter.beginOfLine = true;
+        infoWriter().beginOfLine = true;
+        warnWriter().beginOfLine = true;
+        errorWriter().beginOfLine = true;
     }
 
     private static void doneMessage(String message) {
@@ -189,7 +216,8 @@ public final class JkLog {
                             + "Please, use 'done' only to mention that the previous 'start' activity is done.");
         }
         final long start = times.poll();
-        infoWriter.println(" \\ " + message + " in " + JkUtilsTime.durationInSeconds(start)
+        JkProfiler.record(START_MESSAGES.get().poll(), start);
+        infoWriter().println(" \\ " + message + " in " + JkUtilsTime.durationInSeconds(start)
         + " seconds.");
 
     }
@@ -201,7 +229,7 @@ public final class JkLog {
         if (silent) {
             return;
         }
-        infoWriter.println(message);
+        infoWriter().println(message);
     }
 
     /**
@@ -212,9 +240,9 @@ public final class JkLog {
         if (silent) {
             return;
         }
-        infoWriter.print(message);
+        infoWriter().print(message);
         for (final String line : lines) {
-            infoWriter.println(line);
+            infoWriter().println(line);
         }
     }
 
@@ -226,7 +254,7 @@ public final class JkLog {
             return;
         }
         for (final String line : lines) {
-            infoWriter.println(line);
+            infoWriter().println(line);
         }
     }
 
@@ -238,7 +266,7 @@ public final class JkLog {
             return;
         }
         for (final String line : lines) {
-            infoWriter.println(JkUtilsString.elipse(line, maxLength));
+            infoWriter().println(JkUtilsString.elipse(line, maxLength));
         }
     }
 
@@ -281,7 +309,7 @@ public final class JkLog {
         if (silent) {
             return;
         }
-        infoWriter.println("WARN : " + message);
+        infoWriter().println("WARN : " + message);
     }
 
     /**
@@ -301,7 +329,7 @@ public final class JkLog {
         if (silent) {
             return;
         }
-        errorWriter.println(message);
+        errorWriter().println(message);
     }
 
     /**
@@ -312,7 +340,7 @@ public final class JkLog {
             return;
         }
         for (final String line : lines) {
-            errorWriter.println(line);
+            errorWriter().println(line);
         }
     }
 
@@ -323,40 +351,40 @@ public final class JkLog {
         if (silent) {
             return;
         }
-        infoWriter.println();
+        infoWriter().println();
     }
 
     /**
      * Returns the stream for infoString level.
      */
     public static PrintStream infoStream() {
-        return infoWriter;
+        return infoWriter();
     }
 
     /**
      * Returns the stream for warn level.
      */
     public static PrintStream warnStream() {
-        return warnWriter;
+        return warnWriter();
     }
 
     /**
      * Returns the stream for error level.
      */
     public static PrintStream errorStream() {
-        return errorWriter;
+        return errorWriter();
     }
 
     private static void decOffset() {
-        infoWriter.dec();
-        warnWriter.dec();
-        errorWriter.dec();
+        infoWriter().dec();
+        warnWriter().dec();
+        errorWriter().dec();
     }
 
     private static void incOffset() {
-        infoWriter.inc();
-        warnWriter.inc();
-        errorWriter.inc();
+        infoWriter().inc();
+        warnWriter().inc();
+        errorWriter().inc();
     }
 
     /**
@@ -364,22 +392,22 @@ public final class JkLog {
      * <code>delta</code> characters to right.
      */
     public static void delta(int delta) {
-        infoWriter.tabLevel += delta;
-        errorWriter.tabLevel += delta;
-        warnWriter.tabLevel += delta;
+        infoWriter().tabLevel += delta;
+        errorWriter().tabLevel += delta;
+        warnWriter().tabLevel += delta;
     }
 
     /**
      * Returns the current left margin size in character.
      */
     public static int offset() {
-        return infoWriter.offsetLevel;
+        return infoWriter().offsetLevel;
     }
 
     static void offset(int offset) {
-        infoWriter.offsetLevel = offset;
-        errorWriter.offsetLevel = offset;
-        warnWriter.offsetLevel = offset;
+        infoWriter().offsetLevel = offset;
+        errorWriter().offsetLevel = offset;
+        warnWriter().offsetLevel = offset;
     }
 
     private static class OffsetStream extends PrintStream {
@@ -392,14 +420,19 @@ public final class JkLog {
 
         private boolean beginOfLine;
 
-        public OffsetStream(PrintStream delegate) {
+        private final String prefix;
+
+        public OffsetStream(OutputStream delegate, int offsetLevel, String prefix) {
             super(delegate);
+            this.offsetLevel = offsetLevel;
+            this.prefix = prefix;
+            this.beginOfLine = true;
         }
 
+        // Line and separator are printed at once so they are not split by another thread output
         @Override
         public void println(String s) {
-            super.println(s);
-            beginOfLine = true;
+            print(s + SEPARATOR);
         }
 
         @Override
@@ -414,24 +447,32 @@ public final class JkLog {
             beginOfLine = s.endsWith(SEPARATOR);
         }
 
+        // Filler and content are written at once so a line is never split by another thread output
         @Override
         public void write(byte[] cbuf, int off, int len) {
             final byte[] filler = getFiller().getBytes();
             final int lenght = filler.length;
             if (lenght > 0 && beginOfLine) {
-                super.write(filler, 0, lenght);
+                final byte[] bytes = new byte[lenght + len];
+                System.arraycopy(filler, 0, bytes, 0, lenght);
+                System.arraycopy(cbuf, off, bytes, lenght, len);
+                super.write(bytes, 0, bytes.length);
+                return;
             }
             super.write(cbuf, off, len);
         }
 
         private String getFiller() {
             if (offsetLevel == 0 && tabLevel == 0) {
-                return "";
+                return prefix == null ? "" : prefix;
             }
-            if (offsetLevel == 1 && tabLevel == 0) {
+            if (offsetLevel == 1 && tabLevel == 0 && prefix == null) {
                 return INDENT;
             }
             final StringBuilder result = new StringBuilder();
+            if (prefix != null) {
+                result.append(prefix);
+            }
             for (int i = 0; i < offsetLevel; i++) {
                 result.append(INDENT);
             }
@@ -453,6 +494,210 @@ public final class JkLog {
 
     }
 
+    /**
+     * Makes all logs emitted by the current thread written to the specified
+     * stream instead of the standard ones, until
+     * {@link #unredirectCurrentThread()} is invoked. Info, warn and error logs
+     * are written in the same stream, starting with no left margin. This is
+     * meant for tasks running concurrently : their logs can be collected
+     * separately and displayed once the task is over.
+     */
+    public static void redirectCurrentThread(OutputStream stream) {
+        CONTEXT.set(Context.of(stream, stream, 0, null, CONTEXT.get()));
+    }
+
+    /**
+     * Restores the streams used by the current thread prior the last
+     * {@link #redirectCurrentThread(OutputStream)} invocation.
+     */
+    public static void unredirectCurrentThread() {
+        final Context context = CONTEXT.get();
+        context.info.flush();
+        if (context.previous != null) {
+            CONTEXT.set(context.previous);
+        }
+    }
+
+    /**
+     * Starts a log context for a task run by the current thread. In grouped
+     * mode (see {@link #grouped(boolean)}), the task logs are kept apart then
+     * displayed at once, with no interleaving, when {@link #endTask()} is
+     * invoked. Otherwise logs are displayed as they come, each line being
+     * prefixed with the task name. Tasks can be nested.
+     */
+    public static void startTask(String name) {
+        final Context current = CONTEXT.get();
+        final int offset = current.info.offsetLevel;
+        if (grouped) {
+            final ByteArrayOutputStream block = new ByteArrayOutputStream();
+            final Context context = Context.of(block, block, offset, current.info.prefix, current);
+            context.block = block;
+            CONTEXT.set(context);
+        } else {
+            final String prefix = (current.info.prefix == null ? "" : current.info.prefix) + "[" + name + "] ";
+            final Context context = Context.of(new LineStream(current.out), new LineStream(current.err), offset,
+                    prefix, current);
+            context.out = current.out;
+            context.err = current.err;
+            CONTEXT.set(context);
+        }
+    }
+
+    /**
+     * Ends the log context started by the last {@link #startTask(String)}
+     * invocation in the current thread. In grouped mode, the task logs are
+     * displayed at this moment.
+     */
+    public static void endTask() {
+        final Context context = CONTEXT.get();
+        if (context.previous == null) {
+            throw new IllegalStateException("No task has been started in this thread.");
+        }
+        CONTEXT.set(context.previous);
+        context.info.flush();
+        context.error.flush();
+        if (context.block != null) {
+            final byte[] bytes = context.block.toByteArray();
+            try {
+                context.previous.out.write(bytes, 0, bytes.length);
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Specifies if logs of tasks must be grouped per task (default) or
+     * displayed as they come. See {@link #startTask(String)}.
+     */
+    public static void grouped(boolean flag) {
+        grouped = flag;
+    }
+
+    /**
+     * Returns <code>true</code> if logs of tasks are grouped per task.
+     */
+    public static boolean grouped() {
+        return grouped;
+    }
+
+    /**
+     * Specifies if logs are written on the console by a dedicated thread
+     * rather than by the logging threads. In asynchronous mode, invoke
+     * {@link #flush()} before writing directly on the console.
+     */
+    public static void async(boolean flag) {
+        LogSink.async(flag);
+    }
+
+    /**
+     * Returns <code>true</code> if logs are written asynchronously.
+     */
+    public static boolean async() {
+        return LogSink.async();
+    }
+
+    /**
+     * Returns once all logs emitted so far are written on the console.
+     */
+    public static void flush() {
+        LogSink.waitForPendingWrites();
+    }
+
+    private static OffsetStream infoWriter() {
+        return CONTEXT.get().info;
+    }
+
+    private static OffsetStream warnWriter() {
+        return CONTEXT.get().warn;
+    }
+
+    private static OffsetStream errorWriter() {
+        return CONTEXT.get().error;
+    }
+
+    private static final class Context {
+
+        private OffsetStream info;
+
+        private OffsetStream warn;
+
+        private OffsetStream error;
+
+        // Raw streams the above ones write to
+        private OutputStream out;
+
+        private OutputStream err;
+
+        private Context previous;
+
+        private ByteArrayOutputStream block;
+
+        static Context of(OutputStream out, OutputStream err, int offset, String prefix, Context previous) {
+            final Context result = new Context();
+            result.info = new OffsetStream(out, offset, prefix);
+            result.warn = new OffsetStream(err, offset, prefix);
+            result.error = new OffsetStream(err, offset, prefix);
+            result.out = out;
+            result.err = err;
+            result.previous = previous;
+            return result;
+        }
+
+    }
+
+    /*
+     * Holds bytes until a line is complete, so lines of tasks displayed as they
+     * come are never split by another task output.
+     */
+    private static final class LineStream extends OutputStream {
+
+        private final OutputStream delegate;
+
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+        LineStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int off, int len) throws IOException {
+            int lineEnd = -1;
+            for (int i = off + len - 1; i >= off; i--) {
+                if (bytes[i] == '\n') {
+                    lineEnd = i;
+                    break;
+                }
+            }
+            if (lineEnd < 0) {
+                pending.write(bytes, off, len);
+                return;
+            }
+            pending.write(bytes, off, lineEnd + 1 - off);
+            final byte[] lines = pending.toByteArray();
+            delegate.write(lines, 0, lines.length);
+            pending.reset();
+            pending.write(bytes, lineEnd + 1, off + len - lineEnd - 1);
+        }
+
+        // Writes the incomplete line, if any
+        @Override
+        public synchronized void flush() throws IOException {
+            if (pending.size() > 0) {
+                final byte[] line = pending.toByteArray();
+                delegate.write(line, 0, line.length);
+                pending.reset();
+            }
+            delegate.flush();
+        }
+
+    }
+
     /**
      * Logs in infoString stream the specified message enclosed as :
      *
@@ -0,0 +1,160 @@
+package org.jerkar.api.system;
+
+import java.io.File;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsTime;
+
+/**
+ * Registry of metrics collected along a build : counters, timers and
+ * histograms. Metrics are identified by a dotted name as
+ * <code>compilation.sources</code> and are collected whatever the log mode.
+ * They can be written as a JSON file so performances can be compared from a
+ * build to another.
+ * <p>
+ * Counters accumulate amounts, timers accumulate durations while histograms
+ * keep the count, sum, min and max of the recorded values.
+ *
+ * @author Jerome Angibaud
+ */
+public final class JkMetrics {
+
+    private static final long COUNTER = 0;
+
+    private static final long TIMER = 1;
+
+    private static final long HISTOGRAM = 2;
+
+    // Each metric is stored as {type, count, sum, min, max} so it can be passed across class loaders
+    private static final Map<String, long[]> METRICS = new HashMap<String, long[]>();
+
+    private JkMetrics() {
+        // Can not instantiate
+    }
+
+    /**
+     * Adds 1 to the specified counter.
+     */
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * Adds the specified amount to the specified counter.
+     */
+    public static void add(String name, long amount) {
+        update(name, COUNTER, amount);
+    }
+
+    /**
+     * Adds the duration elapsed since the specified start time (as returned by
+     * {@link System#nanoTime()}) to the specified timer.
+     */
+    public static void time(String name, long startNanoTime) {
+        update(name, TIMER, System.nanoTime() - startNanoTime);
+    }
+
+    /**
+     * Records the specified value in the specified histogram.
+     */
+    public static void record(String name, long value) {
+        update(name, HISTOGRAM, value);
+    }
+
+    /**
+     * Returns the accumulated value of the specified metric : the amount of a
+     * counter, the total duration in nanoseconds of a timer or the sum of the
+     * values of an histogram. Returns 0 if no such metric has been collected.
+     */
+    public static synchronized long value(String name) {
+        final long[] metric = METRICS.get(name);
+        return metric == null ? 0 : metric[2];
+    }
+
+    /**
+     * Discards all collected metrics.
+     */
+    public static synchronized void reset() {
+        METRICS.clear();
+    }
+
+    /**
+     * Writes the collected metrics in the specified file as a JSON document.
+     * Durations are expressed in milliseconds.
+     */
+    public static void writeJson(File file) {
+        final Map<String, long[]> metrics;
+        synchronized (JkMetrics.class) {
+            metrics = new TreeMap<String, long[]>(METRICS);
+        }
+        final StringBuilder builder = new StringBuilder();
+        builder.append("{\n  \"timestamp\": ").append(JkProfiler.quote(JkUtilsTime.iso(new Date())))
+        .append(",\n  \"metrics\": {");
+        boolean first = true;
+        for (final Map.Entry<String, long[]> entry : metrics.entrySet()) {
+            builder.append(first ? "\n" : ",\n");
+            first = false;
+            final long[] metric = entry.getValue();
+            builder.append("    ").append(JkProfiler.quote(entry.getKey())).append(": ");
+            if (metric[0] == COUNTER) {
+                builder.append("{\"type\": \"counter\", \"value\": ").append(metric[2]).append("}");
+            } else if (metric[0] == TIMER) {
+                builder.append("{\"type\": \"timer\", \"count\": ").append(metric[1])
+                .append(", \"totalMs\": ").append(metric[2] / 1000000)
+                .append(", \"minMs\": ").append(metric[3] / 1000000)
+                .append(", \"maxMs\": ").append(metric[4] / 1000000).append("}");
+            } else {
+                builder.append("{\"type\": \"histogram\", \"count\": ").append(metric[1])
+                .append(", \"sum\": ").append(metric[2])
+                .append(", \"min\": ").append(metric[3])
+                .append(", \"max\": ").append(metric[4])
+                .append(", \"mean\": ").append(metric[2] / metric[1]).append("}");
+            }
+        }
+        builder.append("\n  }\n}\n");
+        JkUtilsFile.writeString(file, builder.toString(), false);
+    }
+
+    private static synchronized void update(String name, long type, long value) {
+        long[] metric = METRICS.get(name);
+        if (metric == null) {
+            metric = new long[] { type, 0, 0, value, value };
+            METRICS.put(name, metric);
+        }
+        metric[1]++;
+        metric[2] += value;
+        metric[3] = Math.min(metric[3], value);
+        metric[4] = Math.max(metric[4], value);
+    }
+
+    /*
+     * Returns and discards the collected metrics. This is used, along with
+     * #merge, to bring back metrics collected by Jerkar classes loaded in
+     * another class loader.
+     */
+    static synchronized Map<String, long[]> drain() {
+        final Map<String, long[]> result = new HashMap<String, long[]>(METRICS);
+        METRICS.clear();
+        return result;
+    }
+
+    static synchronized void merge(Map<String, long[]> metrics) {
+        for (final Map.Entry<String, long[]> entry : metrics.entrySet()) {
+            final long[] other = entry.getValue();
+            final long[] metric = METRICS.get(entry.getKey());
+            if (metric == null) {
+                METRICS.put(entry.getKey(), other.clone());
+                continue;
+            }
+            metric[1] += other[1];
+            metric[2] += other[2];
+            metric[3] = Math.min(metric[3], other[3]);
+            metric[4] = Math.max(metric[4], other[4]);
+        }
+    }
+
+}
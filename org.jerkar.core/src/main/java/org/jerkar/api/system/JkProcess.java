@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -95,6 +96,13 @@ public final class JkProcess implements Runnable {
         return of(command, parameters);
     }
 
+    /**
+     * Returns the parameters passed to the command.
+     */
+    public List<String> parameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+
     /**
      * Returns a <code>JkProcess</code> identical to this one but with the
      * specified extra parameters.
@@ -199,6 +207,7 @@ public final class JkProcess implements Runnable {
             //}
         }
         JkLog.startln("Starting program : " + commands.toString());
+        final long start = System.nanoTime();
         final int result;
         try {
             final ProcessBuilder processBuilder = processBuilder(commands);
@@ -221,6 +230,7 @@ public final class JkProcess implements Runnable {
         } catch (final Exception e) {
             throw new RuntimeException(e);
         }
+        JkMetrics.time("process.time", start);
         JkLog.done(" process exit with return code : " + result);
         return result;
     }
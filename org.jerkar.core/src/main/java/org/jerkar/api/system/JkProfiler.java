@@ -0,0 +1,273 @@
+package org.jerkar.api.system;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsString;
+
+/**
+ * Records the spans delimited by {@link JkLog#start(String)} and
+ * {@link JkLog#done()} invocations so a build can be profiled without attaching
+ * an external profiler. Each span retains its name, thread, start time,
+ * duration and the project it has been run for.
+ * <p>
+ * Recorded spans can be exported as a Chrome trace file (readable by
+ * <code>chrome://tracing</code>) or summarized as the list of the slowest
+ * ones. Nothing is recorded until {@link #start()} is invoked.
+ *
+ * @author Jerome Angibaud
+ */
+public final class JkProfiler {
+
+    private static final InheritableThreadLocal<String> PROJECT = new InheritableThreadLocal<String>();
+
+    private static final List<Span> SPANS = new LinkedList<Span>();
+
+    private static volatile boolean recording;
+
+    private JkProfiler() {
+        // Can not instantiate
+    }
+
+    /**
+     * Starts recording spans, discarding the ones previously recorded.
+     */
+    public static synchronized void start() {
+        SPANS.clear();
+        recording = true;
+    }
+
+    /**
+     * Stops recording spans. Already recorded spans are kept.
+     */
+    public static void stop() {
+        recording = false;
+    }
+
+    /**
+     * Returns <code>true</code> if spans are currently recorded.
+     */
+    public static boolean recording() {
+        return recording;
+    }
+
+    /**
+     * Sets the name of the project the current thread, and the threads it
+     * will create, are working for.
+     */
+    public static void project(String name) {
+        PROJECT.set(name);
+    }
+
+    /**
+     * Records a span of the specified name, started at the specified time (as
+     * returned by {@link System#nanoTime()}) and ending now. Does nothing if
+     * spans are not currently recorded.
+     */
+    public static void record(String name, long startNanoTime) {
+        if (!recording) {
+            return;
+        }
+        final long end = System.nanoTime();
+        final Thread thread = Thread.currentThread();
+        final Span span = new Span(name.trim(), thread.getId(), thread.getName(), PROJECT.get(),
+                startNanoTime, end - startNanoTime);
+        synchronized (JkProfiler.class) {
+            SPANS.add(span);
+        }
+    }
+
+    /**
+     * Returns the spans recorded so far, ordered by start time. Spans starting
+     * at the same time are ordered from the longest to the shortest.
+     */
+    public static synchronized List<Span> spans() {
+        final List<Span> result = new ArrayList<Span>(SPANS);
+        Collections.sort(result, new Comparator<Span>() {
+
+            @Override
+            public int compare(Span span1, Span span2) {
+                if (span1.start == span2.start) {
+                    return compareLongs(span2.duration, span1.duration);
+                }
+                return compareLongs(span1.start, span2.start);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Writes the recorded spans in the specified file using the Chrome Trace
+     * Event format. Times are relative to the start of the first span.
+     */
+    public static void writeChromeTrace(File file) {
+        final List<Span> spans = spans();
+        final long origin = spans.isEmpty() ? 0 : spans.get(0).start;
+        final StringBuilder builder = new StringBuilder();
+        builder.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        final List<Long> namedThreads = new LinkedList<Long>();
+        boolean first = true;
+        for (final Span span : spans) {
+            if (!first) {
+                builder.append(",");
+            }
+            first = false;
+            if (!namedThreads.contains(span.threadId)) {
+                namedThreads.add(span.threadId);
+                builder.append("\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(span.threadId)
+                .append(",\"args\":{\"name\":").append(quote(span.threadName)).append("}},");
+            }
+            builder.append("\n{\"name\":").append(quote(span.name)).append(",\"cat\":\"jerkar\",\"ph\":\"X\"")
+            .append(",\"ts\":").append((span.start - origin) / 1000).append(",\"dur\":")
+            .append(span.duration / 1000).append(",\"pid\":1,\"tid\":").append(span.threadId)
+            .append(",\"args\":{\"project\":").append(quote(span.project)).append("}}");
+        }
+        builder.append("\n]}\n");
+        JkUtilsFile.writeString(file, builder.toString(), false);
+    }
+
+    /**
+     * Returns lines describing the specified number of spans having the
+     * highest self time (duration minus the time spent in nested spans of the
+     * same thread).
+     */
+    public static List<String> summary(int count) {
+        final List<Span> spans = spans();
+        final Map<Span, Long> selfTimes = new HashMap<Span, Long>();
+        final Map<Long, LinkedList<Span>> threadStacks = new HashMap<Long, LinkedList<Span>>();
+        for (final Span span : spans) {
+            selfTimes.put(span, span.duration);
+            LinkedList<Span> stack = threadStacks.get(span.threadId);
+            if (stack == null) {
+                stack = new LinkedList<Span>();
+                threadStacks.put(span.threadId, stack);
+            }
+            while (!stack.isEmpty() && !stack.peek().contains(span)) {
+                stack.pop();
+            }
+            if (!stack.isEmpty()) {
+                final Span parent = stack.peek();
+                selfTimes.put(parent, selfTimes.get(parent) - span.duration);
+            }
+            stack.push(span);
+        }
+        final List<Span> sorted = new ArrayList<Span>(spans);
+        Collections.sort(sorted, new Comparator<Span>() {
+
+            @Override
+            public int compare(Span span1, Span span2) {
+                return compareLongs(selfTimes.get(span2), selfTimes.get(span1));
+            }
+        });
+        final List<String> result = new LinkedList<String>();
+        for (final Span span : sorted.subList(0, Math.min(count, sorted.size()))) {
+            final String project = span.project == null ? "" : " [" + span.project + "]";
+            result.add(seconds(selfTimes.get(span)) + " s self, " + seconds(span.duration) + " s total : "
+                    + JkUtilsString.elipse(span.name, 80) + project + " (" + span.threadName + ")");
+        }
+        return result;
+    }
+
+    private static int compareLongs(long value1, long value2) {
+        if (value1 == value2) {
+            return 0;
+        }
+        return value1 < value2 ? -1 : 1;
+    }
+
+    private static String seconds(long nanos) {
+        return String.format("%8.3f", nanos / 1000000000d);
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        final StringBuilder builder = new StringBuilder("\"");
+        for (final char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * A timed span recorded by the profiler.
+     */
+    public static final class Span {
+
+        private final String name;
+
+        private final long threadId;
+
+        private final String threadName;
+
+        private final String project;
+
+        private final long start;
+
+        private final long duration;
+
+        private Span(String name, long threadId, String threadName, String project, long start,
+                long duration) {
+            this.name = name;
+            this.threadId = threadId;
+            this.threadName = threadName;
+            this.project = project;
+            this.start = start;
+            this.duration = duration;
+        }
+
+        /**
+         * Returns the name of this span, that is the logged message.
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns the name of the thread this span has been run in.
+         */
+        public String threadName() {
+            return threadName;
+        }
+
+        /**
+         * Returns the project this span has been run for, <code>null</code> if
+         * unknown.
+         */
+        public String project() {
+            return project;
+        }
+
+        /**
+         * Returns the duration of this span in nanoseconds.
+         */
+        public long duration() {
+            return duration;
+        }
+
+        private boolean contains(Span other) {
+            return other.start >= start && other.start + other.duration <= start + duration;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + duration / 1000000 + " ms)";
+        }
+
+    }
+
+}
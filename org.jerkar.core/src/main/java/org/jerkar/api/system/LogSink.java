@@ -0,0 +1,158 @@
+package org.jerkar.api.system;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Output stream standing in front of a console stream. In synchronous mode,
+ * bytes are written straight to the console. In asynchronous mode, each write
+ * is appended to a lock-free queue drained by a single writer thread, so
+ * logging threads never wait for a slow console.
+ *
+ * @author Jerome Angibaud
+ */
+final class LogSink extends OutputStream {
+
+    private static final ConcurrentLinkedQueue<Chunk> QUEUE = new ConcurrentLinkedQueue<Chunk>();
+
+    private static final AtomicLong ENQUEUED = new AtomicLong();
+
+    private static final AtomicLong WRITTEN = new AtomicLong();
+
+    // Notified by the writer thread each time the queue is drained
+    private static final Object DRAINED = new Object();
+
+    private static volatile boolean async;
+
+    // Started once, then kept parked while idle
+    private static volatile Thread writer;
+
+    private final PrintStream target;
+
+    LogSink(PrintStream target) {
+        this.target = target;
+    }
+
+    @Override
+    public void write(int b) {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) {
+        if (!async) {
+            synchronized (target) {
+                target.write(bytes, off, len);
+            }
+            return;
+        }
+        final byte[] copy = new byte[len];
+        System.arraycopy(bytes, off, copy, 0, len);
+        QUEUE.add(new Chunk(target, copy));
+        ENQUEUED.incrementAndGet();
+        LockSupport.unpark(writer);
+    }
+
+    @Override
+    public void flush() {
+        if (!async) {
+            target.flush();
+        }
+    }
+
+    static boolean async() {
+        return async;
+    }
+
+    /**
+     * Turns the asynchronous mode on or off. When turned off, it returns once
+     * all pending writes are done.
+     */
+    static synchronized void async(boolean flag) {
+        if (flag && writer == null) {
+            final Thread thread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    drainForever();
+                }
+            }, "jerkar-log-writer");
+            thread.setDaemon(true);
+            writer = thread;
+            thread.start();
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+
+                @Override
+                public void run() {
+                    waitForPendingWrites();
+                }
+            });
+        }
+        async = flag;
+        if (!flag) {
+            waitForPendingWrites();
+        }
+    }
+
+    /**
+     * Returns once all writes enqueued so far are written on the console.
+     */
+    static void waitForPendingWrites() {
+        if (writer == null) {
+            return;
+        }
+        final long target = ENQUEUED.get();
+        synchronized (DRAINED) {
+            while (WRITTEN.get() < target) {
+                LockSupport.unpark(writer);
+                try {
+                    DRAINED.wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        System.out.flush();
+        System.err.flush();
+    }
+
+    private static void drainForever() {
+        PrintStream lastTarget = null;
+        while (true) {
+            final Chunk chunk = QUEUE.poll();
+            if (chunk == null) {
+                if (lastTarget != null) {
+                    lastTarget.flush();
+                }
+                synchronized (DRAINED) {
+                    DRAINED.notifyAll();
+                }
+                LockSupport.park();
+                continue;
+            }
+            synchronized (chunk.target) {
+                chunk.target.write(chunk.bytes, 0, chunk.bytes.length);
+            }
+            lastTarget = chunk.target;
+            WRITTEN.incrementAndGet();
+        }
+    }
+
+    private static final class Chunk {
+
+        private final PrintStream target;
+
+        private final byte[] bytes;
+
+        Chunk(PrintStream target, byte[] bytes) {
+            this.target = target;
+            this.bytes = bytes;
+        }
+
+    }
+
+}
@@ -8,91 +8,86 @@ import java.util.Map;
 import org.jerkar.api.depmanagement.*;
 import org.jerkar.api.file.JkFileTree;
 import org.jerkar.api.file.JkFileTreeSet;
+import org.jerkar.api.system.JkLog;
 import org.jerkar.api.utils.JkUtilsIterable;
-import org.jerkar.api.utils.JkUtilsXml;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import org.jerkar.api.utils.JkUtilsString;
 
 /**
- * Wraps a POM file (Ideally an effective POM file) and provides convenient methods to extract
- * information jump.
+ * Wraps a POM file and provides convenient methods to extract information
+ * jump. The POM is read in process, without running Maven : parents and
+ * imported BOMs are taken in account and <code>${...}</code> expressions are
+ * interpolated, so the information is the one an effective POM would give.
+ * Effective models are cached, so reading all the modules of a large Maven
+ * tree resolves their common parents only once.
  *
  * @author Jerome Angibaud
  */
 public final class JkPom {
 
-    private final Document pomDoc;
+    private final PomModel model;
 
-    private JkPom(Document pomDoc) {
+    private final JkRepos parentRepos;
+
+    private JkPom(PomModel model, JkRepos parentRepos) {
         super();
-        this.pomDoc = pomDoc;
+        this.model = model;
+        this.parentRepos = parentRepos;
     }
 
     /**
-     * Creates a {@link JkPom} jump a POM file, ideally an effective POM file.
+     * Creates a {@link JkPom} jump a POM file. Parent and imported POMs are
+     * looked up at their relative path then in the local Maven repository.
+     * The ones that cannot be found there are ignored.
      */
     public static JkPom of(File file) {
-        final Document document = JkUtilsXml.documentFrom(file);
-        return new JkPom(document);
-    }
-
-    private Element dependenciesElement() {
-        return JkUtilsXml.directChild(projectEl(), "dependencies");
+        return of(file, null);
     }
 
-    private Element dependencyManagementEl() {
-        return JkUtilsXml.directChild(projectEl(), "dependencyManagement");
-    }
-
-    private Element repositoriesEl() {
-        return JkUtilsXml.directChild(projectEl(), "repositories");
-    }
-
-    private Element projectEl() {
-        return pomDoc.getDocumentElement();
+    /**
+     * Creates a {@link JkPom} jump a POM file as {@link #of(File)} does, but
+     * downloads parent and imported POMs from the specified repositories when
+     * they are not found locally.
+     */
+    public static JkPom of(File file, JkRepos repos) {
+        return new JkPom(new PomResolver(repos).effective(file), repos);
     }
 
     /**
      * The groupId for this POM.
      */
     public String groupId() {
-        return JkUtilsXml.directChildText(projectEl(), "groupId");
+        return model.groupId;
     }
 
     /**
      * The artifzctId for this POM.
      */
     public String artifactId() {
-        return JkUtilsXml.directChildText(projectEl(), "artifactId");
+        return model.artifactId;
     }
 
     /**
      * The version for this POM.
      */
     public String version() {
-        return JkUtilsXml.directChildText(projectEl(), "version");
+        return model.version;
     }
 
     /**
-     * The dependencies declared in this POM.
+     * The dependencies declared in this POM or inherited jump its parents.
+     * Dependencies whose version cannot be determined are skipped.
      */
     public JkDependencies dependencies() {
-        return dependencies(dependenciesElement());
+        return dependencies(model.dependencies);
     }
 
     /**
      * The map groupId:ArtifactId -> version provideded by the <code>dependencyManagement</code>
-     * section of this POM.
+     * section of this POM, its parents and the BOMs they import.
      */
     public JkVersionProvider versionProvider() {
         final List<JkVersionedModule> versionedModules = new LinkedList<JkVersionedModule>();
-        if (dependencyManagementEl() == null) {
-            return JkVersionProvider.empty();
-        }
-        final Element dependenciesEl = JkUtilsXml.directChild(dependencyManagementEl(),
-                "dependencies");
-        final JkDependencies dependencies = dependencies(dependenciesEl);
-        for (final JkScopedDependency scopedDependency : dependencies) {
+        for (final JkScopedDependency scopedDependency : dependencies(model.managedDependencies)) {
             final JkModuleDependency moduleDependency = (JkModuleDependency) scopedDependency
                     .dependency();
             final JkVersionedModule versionedModule = JkVersionedModule.of(
@@ -109,13 +104,7 @@ public final class JkPom {
      */
     public JkDependencyExclusions dependencyExclusion() {
         final JkDependencyExclusions.Builder builder = JkDependencyExclusions.builder();
-        if (dependencyManagementEl() == null) {
-            return builder.build();
-        }
-        final Element dependenciesEl = JkUtilsXml.directChild(dependencyManagementEl(),
-                "dependencies");
-        final JkDependencies dependencies = dependencies(dependenciesEl);
-        for (final JkScopedDependency scopedDependency : dependencies) {
+        for (final JkScopedDependency scopedDependency : dependencies(model.managedDependencies)) {
             final JkModuleDependency moduleDependency = (JkModuleDependency) scopedDependency
                     .dependency();
             if (!moduleDependency.excludes().isEmpty()) {
@@ -126,59 +115,60 @@ public final class JkPom {
     }
 
     /**
-     * Repositories declared in this POM.
+     * Repositories declared in this POM or its parents.
      */
     public JkRepos repos() {
-        final List<String> urls = new LinkedList<String>();
-        if (repositoriesEl() == null) {
+        if (model.repositoryUrls.isEmpty()) {
             return JkRepos.of();
         }
-        for (final Element repositoryEl : JkUtilsXml.directChildren(repositoriesEl(), "repository")) {
-            urls.add(JkUtilsXml.directChildText(repositoryEl, "url"));
+        return JkRepos.maven(JkUtilsIterable.arrayOf(model.repositoryUrls, String.class));
+    }
+
+    /**
+     * The POMs of the modules declared in this POM.
+     */
+    public List<JkPom> modules() {
+        final List<JkPom> result = new LinkedList<JkPom>();
+        for (final String module : model.modules) {
+            File file = new File(model.file.getParentFile(), module);
+            if (file.isDirectory()) {
+                file = new File(file, "pom.xml");
+            }
+            result.add(of(file, parentRepos));
         }
-        return JkRepos.maven(JkUtilsIterable.arrayOf(urls, String.class));
+        return result;
     }
 
-    private JkDependencies dependencies(Element dependenciesEl) {
+    private JkDependencies dependencies(List<PomModel.Dependency> mvnDependencies) {
         final JkDependencies.Builder builder = JkDependencies.builder();
-        for (final Element dependencyEl : JkUtilsXml.directChildren(dependenciesEl, "dependency")) {
-            builder.on(jkDependency(dependencyEl));
+        for (final PomModel.Dependency mvnDependency : mvnDependencies) {
+            if (JkUtilsString.isBlank(mvnDependency.version) || mvnDependency.version.contains("${")) {
+                JkLog.warn("No version resolved for dependency " + mvnDependency + " of "
+                        + model.file.getPath() + " : skip it.");
+                continue;
+            }
+            builder.on(jkDependency(mvnDependency));
         }
         return builder.build();
     }
 
-    private JkScopedDependency jkDependency(Element mvnDependency) {
-        final String groupId = JkUtilsXml.directChildText(mvnDependency, "groupId");
-        final String artifactId = JkUtilsXml.directChildText(mvnDependency, "artifactId");
-        final String version = JkUtilsXml.directChildText(mvnDependency, "version");
-        JkModuleDependency moduleDependency = JkModuleDependency.of(groupId, artifactId, version);
-        final String type = JkUtilsXml.directChildText(mvnDependency, "type");
-        if (type != null) {
-            moduleDependency = moduleDependency.ext(type);
+    private static JkScopedDependency jkDependency(PomModel.Dependency mvnDependency) {
+        JkModuleDependency moduleDependency = JkModuleDependency.of(mvnDependency.groupId,
+                mvnDependency.artifactId, mvnDependency.version);
+        if (mvnDependency.type != null) {
+            moduleDependency = moduleDependency.ext(mvnDependency.type);
         }
-        final String classifier = JkUtilsXml.directChildText(mvnDependency, "classifier");
-        if (classifier != null) {
-            moduleDependency = moduleDependency.classifier(classifier);
+        if (mvnDependency.classifier != null) {
+            moduleDependency = moduleDependency.classifier(mvnDependency.classifier);
         }
-        final Element exclusionsEl = JkUtilsXml.directChild(mvnDependency, "exclusions");
-        if (exclusionsEl != null) {
-            for (final Element exclusionElement : JkUtilsXml.directChildren(exclusionsEl,
-                    "exclusion")) {
-                moduleDependency = moduleDependency.andExclude(jkDepExclude(exclusionElement));
-            }
+        for (final String[] exclusion : mvnDependency.exclusions) {
+            moduleDependency = moduleDependency.andExclude(JkDepExclude.of(exclusion[0], exclusion[1]));
         }
-        final String scope = JkUtilsXml.directChildText(mvnDependency, "scope");
+        final String scope = mvnDependency.scope;
         final JkScope jkScope = (scope == null) ? JkScope.of("compile") : JkScope.of(scope);
         return JkScopedDependency.of(moduleDependency, jkScope);
     }
 
-    private JkDepExclude jkDepExclude(Element exclusionEl) {
-        final String groupId = JkUtilsXml.directChildText(exclusionEl, "groupId");
-        final String artifactId = JkUtilsXml.directChildText(exclusionEl, "artifactId");
-        return JkDepExclude.of(groupId, artifactId);
-
-    }
-
     /**
      * The Jerkar build class source equivalent to this POM.
      */
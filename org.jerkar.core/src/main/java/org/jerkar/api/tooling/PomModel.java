@@ -0,0 +1,285 @@
+package org.jerkar.api.tooling;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.api.utils.JkUtilsThrowable;
+
+/**
+ * The part of a Maven POM that matters for dependency management, read in a
+ * single streaming pass. Elements under <code>build</code>,
+ * <code>reporting</code> or <code>profiles</code> are skipped. Instances are
+ * mutable only while being read or resolved by {@link PomResolver}.
+ *
+ * @author Jerome Angibaud
+ */
+final class PomModel {
+
+    final File file;
+
+    final String hash;
+
+    String groupId;
+
+    String artifactId;
+
+    String version;
+
+    String packaging;
+
+    String parentGroupId;
+
+    String parentArtifactId;
+
+    String parentVersion;
+
+    String parentRelativePath;
+
+    final Map<String, String> properties = new LinkedHashMap<String, String>();
+
+    final List<Dependency> dependencies = new LinkedList<Dependency>();
+
+    final List<Dependency> managedDependencies = new LinkedList<Dependency>();
+
+    final List<String> repositoryUrls = new LinkedList<String>();
+
+    final List<String> modules = new LinkedList<String>();
+
+    private PomModel(File file, String hash) {
+        this.file = file;
+        this.hash = hash;
+    }
+
+    /**
+     * Reads the specified POM file as is, without resolving its parent.
+     */
+    static PomModel read(File file) {
+        final byte[] content = JkUtilsFile.readAsBytes(file);
+        final PomModel result = new PomModel(file, md5(content));
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        try {
+            final XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(content));
+            try {
+                new Handler(result).parse(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException e) {
+            throw new IllegalArgumentException("Unable to read POM file " + file.getPath(), e);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an empty model bound to the same file, to be filled with the
+     * effective elements of this one.
+     */
+    PomModel emptyCopy() {
+        final PomModel result = new PomModel(file, hash);
+        result.artifactId = artifactId;
+        result.packaging = packaging;
+        result.parentGroupId = parentGroupId;
+        result.parentArtifactId = parentArtifactId;
+        result.parentVersion = parentVersion;
+        result.parentRelativePath = parentRelativePath;
+        result.modules.addAll(modules);
+        return result;
+    }
+
+    boolean hasParent() {
+        return parentArtifactId != null;
+    }
+
+    private static String md5(byte[] content) {
+        try {
+            return JkUtilsString.toHexString(MessageDigest.getInstance("MD5").digest(content));
+        } catch (final NoSuchAlgorithmException e) {
+            throw JkUtilsThrowable.unchecked(e);
+        }
+    }
+
+    /**
+     * A dependency as declared in the <code>dependencies</code> or
+     * <code>dependencyManagement</code> section.
+     */
+    static final class Dependency {
+
+        String groupId;
+
+        String artifactId;
+
+        String version;
+
+        String type;
+
+        String classifier;
+
+        String scope;
+
+        final List<String[]> exclusions = new LinkedList<String[]>();
+
+        /**
+         * The key Maven uses to tell two dependencies apart.
+         */
+        String key() {
+            return groupId + ":" + artifactId + ":" + (type == null ? "jar" : type) + ":"
+                    + (classifier == null ? "" : classifier);
+        }
+
+        Dependency copy() {
+            final Dependency result = new Dependency();
+            result.groupId = groupId;
+            result.artifactId = artifactId;
+            result.version = version;
+            result.type = type;
+            result.classifier = classifier;
+            result.scope = scope;
+            result.exclusions.addAll(exclusions);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return key() + ":" + version;
+        }
+
+    }
+
+    private static final class Handler {
+
+        private static final String DEPENDENCY = "project/dependencies/dependency";
+
+        private static final String MANAGED_DEPENDENCY = "project/dependencyManagement/dependencies/dependency";
+
+        private final PomModel model;
+
+        private final StringBuilder path = new StringBuilder();
+
+        private final StringBuilder text = new StringBuilder();
+
+        private Dependency dependency;
+
+        private String[] exclusion;
+
+        Handler(PomModel model) {
+            this.model = model;
+        }
+
+        void parse(XMLStreamReader reader) throws XMLStreamException {
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (path.length() > 0) {
+                        path.append('/');
+                    }
+                    path.append(reader.getLocalName());
+                    text.setLength(0);
+                    start(path.toString());
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    text.append(reader.getText());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    end(path.toString(), reader.getLocalName(), text.toString().trim());
+                    text.setLength(0);
+                    final int index = path.lastIndexOf("/");
+                    path.setLength(index < 0 ? 0 : index);
+                }
+            }
+        }
+
+        private void start(String current) {
+            if (current.equals(DEPENDENCY) || current.equals(MANAGED_DEPENDENCY)) {
+                dependency = new Dependency();
+            } else if (dependency != null && current.endsWith("/exclusions/exclusion")) {
+                exclusion = new String[2];
+            }
+        }
+
+        private void end(String current, String name, String value) {
+            final String parent = current.substring(0, Math.max(0, current.length() - name.length() - 1));
+            if (current.equals(DEPENDENCY)) {
+                model.dependencies.add(dependency);
+                dependency = null;
+            } else if (current.equals(MANAGED_DEPENDENCY)) {
+                model.managedDependencies.add(dependency);
+                dependency = null;
+            } else if (exclusion != null && current.endsWith("/exclusions/exclusion")) {
+                dependency.exclusions.add(exclusion);
+                exclusion = null;
+            } else if (exclusion != null) {
+                if (name.equals("groupId")) {
+                    exclusion[0] = value;
+                } else if (name.equals("artifactId")) {
+                    exclusion[1] = value;
+                }
+            } else if (dependency != null && (parent.equals(DEPENDENCY) || parent.equals(MANAGED_DEPENDENCY))) {
+                dependencyElement(name, value);
+            } else if (parent.equals("project")) {
+                projectElement(name, value);
+            } else if (parent.equals("project/parent")) {
+                parentElement(name, value);
+            } else if (parent.equals("project/properties")) {
+                model.properties.put(name, value);
+            } else if (current.equals("project/modules/module")) {
+                model.modules.add(value);
+            } else if (current.equals("project/repositories/repository/url")) {
+                model.repositoryUrls.add(value);
+            }
+        }
+
+        private void projectElement(String name, String value) {
+            if (name.equals("groupId")) {
+                model.groupId = value;
+            } else if (name.equals("artifactId")) {
+                model.artifactId = value;
+            } else if (name.equals("version")) {
+                model.version = value;
+            } else if (name.equals("packaging")) {
+                model.packaging = value;
+            }
+        }
+
+        private void parentElement(String name, String value) {
+            if (name.equals("groupId")) {
+                model.parentGroupId = value;
+            } else if (name.equals("artifactId")) {
+                model.parentArtifactId = value;
+            } else if (name.equals("version")) {
+                model.parentVersion = value;
+            } else if (name.equals("relativePath")) {
+                model.parentRelativePath = value;
+            }
+        }
+
+        private void dependencyElement(String name, String value) {
+            if (name.equals("groupId")) {
+                dependency.groupId = value;
+            } else if (name.equals("artifactId")) {
+                dependency.artifactId = value;
+            } else if (name.equals("version")) {
+                dependency.version = value;
+            } else if (name.equals("type")) {
+                dependency.type = value;
+            } else if (name.equals("classifier")) {
+                dependency.classifier = value;
+            } else if (name.equals("scope")) {
+                dependency.scope = value;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,405 @@
+package org.jerkar.api.tooling;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jerkar.api.depmanagement.JkModuleDependency;
+import org.jerkar.api.depmanagement.JkRepos;
+import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkMetrics;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsString;
+
+/**
+ * Computes effective POM models as Maven does for dependency management :
+ * elements are inherited from parents, then <code>${...}</code> expressions
+ * are interpolated once on the whole inherited model, so properties
+ * overridden by a child apply to the elements declared in its parents. BOMs
+ * imported in <code>dependencyManagement</code> are then expanded and
+ * dependency versions are completed from the managed ones.
+ * <p>
+ * Parents and BOMs are looked up at their relative path, then in the local
+ * Maven repository, then in the repositories passed at construction if any.
+ * The ones that cannot be found are skipped with a warning.
+ * <p>
+ * Raw models are cached by file path and timestamp, inherited and effective
+ * models by the content hashes of the whole parent chain. The effective model
+ * is looked up before interpolation and BOM expansion, imported BOMs being
+ * considered as immutable in a JVM as released POMs are. So modules sharing a
+ * parent merge it once and unchanged files are never parsed nor resolved twice
+ * in a JVM.
+ *
+ * @author Jerome Angibaud
+ */
+final class PomResolver {
+
+    private static final int MAX_DEPTH = 30;
+
+    private static final int MAX_INTERPOLATION_PASSES = 10;
+
+    private static final Map<String, PomModel> RAW_CACHE = new HashMap<String, PomModel>();
+
+    private static final Map<String, Effective> INHERITED_CACHE = new HashMap<String, Effective>();
+
+    private static final Map<String, Effective> EFFECTIVE_CACHE = new HashMap<String, Effective>();
+
+    private final JkRepos repos;
+
+    PomResolver(JkRepos repos) {
+        this.repos = repos;
+    }
+
+    /**
+     * Returns the effective model of the specified POM file.
+     */
+    PomModel effective(File pomFile) {
+        return effective(pomFile, 0).model;
+    }
+
+    private Effective effective(File pomFile, int depth) {
+        final Effective inherited = inherited(pomFile, depth);
+        final Effective cached = cached(EFFECTIVE_CACHE, inherited.key, inherited.model.file);
+        if (cached != null) {
+            return cached;
+        }
+        final PomModel model = inherit(inherited.model, null);
+        interpolate(model);
+        importBoms(model, boms(model, depth));
+        applyManagement(model);
+        return cache(EFFECTIVE_CACHE, new Effective(inherited.key, model));
+    }
+
+    // Merges the raw models of the parent chain, nothing is interpolated yet. Results are shared, so read only
+    private Effective inherited(File pomFile, int depth) {
+        checkDepth(pomFile, depth);
+        final PomModel raw = raw(pomFile);
+        Effective parent = null;
+        if (raw.hasParent()) {
+            final File parentFile = locate(raw.file, raw.parentRelativePath, raw.parentGroupId,
+                    raw.parentArtifactId, raw.parentVersion);
+            if (parentFile == null) {
+                JkLog.warn("Parent POM " + raw.parentGroupId + ":" + raw.parentArtifactId + ":"
+                        + raw.parentVersion + " of " + pomFile.getPath() + " not found : inherited elements ignored.");
+            } else {
+                parent = inherited(parentFile, depth + 1);
+            }
+        }
+        final String key = raw.hash + (parent == null ? "" : "<" + parent.key);
+        final Effective cached = cached(INHERITED_CACHE, key, raw.file);
+        if (cached != null) {
+            return cached;
+        }
+        JkMetrics.increment("pom.inheritances");
+        return cache(INHERITED_CACHE, new Effective(key, inherit(raw, parent == null ? null : parent.model)));
+    }
+
+    // Same content at another location gives another model as 'basedir' differs
+    private static Effective cached(Map<String, Effective> cache, String key, File file) {
+        synchronized (cache) {
+            final Effective cached = cache.get(key);
+            return cached != null && cached.model.file.equals(file) ? cached : null;
+        }
+    }
+
+    private static Effective cache(Map<String, Effective> cache, Effective effective) {
+        synchronized (cache) {
+            cache.put(effective.key, effective);
+        }
+        return effective;
+    }
+
+    private static void checkDepth(File pomFile, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalStateException("Too many parent or imported POMs from " + pomFile.getPath()
+                    + " : there is probably a cycle.");
+        }
+    }
+
+    // Canonical, so a parent located from several modules as '../pom.xml' is the same file
+    private static PomModel raw(File pomFile) {
+        final File file = JkUtilsFile.canonicalFile(pomFile);
+        final String key = file.getPath() + "|" + file.length() + "|" + file.lastModified();
+        synchronized (RAW_CACHE) {
+            final PomModel cached = RAW_CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final PomModel result = PomModel.read(file);
+        JkMetrics.increment("pom.parses");
+        synchronized (RAW_CACHE) {
+            RAW_CACHE.put(key, result);
+        }
+        return result;
+    }
+
+    private static PomModel inherit(PomModel raw, PomModel parent) {
+        final PomModel result = raw.emptyCopy();
+        if (parent == null) {
+            result.groupId = raw.groupId != null ? raw.groupId : raw.parentGroupId;
+            result.version = raw.version != null ? raw.version : raw.parentVersion;
+            result.properties.putAll(raw.properties);
+            result.managedDependencies.addAll(copy(raw.managedDependencies));
+            result.dependencies.addAll(copy(raw.dependencies));
+            result.repositoryUrls.addAll(raw.repositoryUrls);
+            return result;
+        }
+        result.groupId = raw.groupId != null ? raw.groupId : parent.groupId;
+        result.version = raw.version != null ? raw.version : parent.version;
+        result.properties.putAll(parent.properties);
+        result.properties.putAll(raw.properties);
+        result.managedDependencies.addAll(merge(parent.managedDependencies, raw.managedDependencies));
+        result.dependencies.addAll(merge(parent.dependencies, raw.dependencies));
+        result.repositoryUrls.addAll(raw.repositoryUrls);
+        for (final String url : parent.repositoryUrls) {
+            if (!result.repositoryUrls.contains(url)) {
+                result.repositoryUrls.add(url);
+            }
+        }
+        return result;
+    }
+
+    // Child declarations override the parent ones having the same key
+    private static List<PomModel.Dependency> merge(List<PomModel.Dependency> parentDependencies,
+            List<PomModel.Dependency> dependencies) {
+        final Map<String, PomModel.Dependency> result = new LinkedHashMap<String, PomModel.Dependency>();
+        for (final PomModel.Dependency dependency : parentDependencies) {
+            result.put(dependency.key(), dependency.copy());
+        }
+        for (final PomModel.Dependency dependency : dependencies) {
+            result.put(dependency.key(), dependency.copy());
+        }
+        return new LinkedList<PomModel.Dependency>(result.values());
+    }
+
+    private static List<PomModel.Dependency> copy(List<PomModel.Dependency> dependencies) {
+        return merge(Collections.<PomModel.Dependency> emptyList(), dependencies);
+    }
+
+    private static void interpolate(PomModel model) {
+        final Map<String, String> values = new HashMap<String, String>(model.properties);
+        putProjectValue(values, "groupId", model.groupId);
+        putProjectValue(values, "artifactId", model.artifactId);
+        putProjectValue(values, "version", model.version);
+        putProjectValue(values, "packaging", model.packaging == null ? "jar" : model.packaging);
+        putProjectValue(values, "parent.groupId", model.parentGroupId);
+        putProjectValue(values, "parent.artifactId", model.parentArtifactId);
+        putProjectValue(values, "parent.version", model.parentVersion);
+        putProjectValue(values, "basedir", model.file.getParentFile().getPath());
+        final Interpolator interpolator = new Interpolator(values);
+        model.groupId = interpolator.resolve(model.groupId);
+        model.version = interpolator.resolve(model.version);
+        for (final Map.Entry<String, String> entry : model.properties.entrySet()) {
+            entry.setValue(interpolator.resolve(entry.getValue()));
+        }
+        interpolate(interpolator, model.dependencies);
+        interpolate(interpolator, model.managedDependencies);
+        for (int i = 0; i < model.repositoryUrls.size(); i++) {
+            model.repositoryUrls.set(i, interpolator.resolve(model.repositoryUrls.get(i)));
+        }
+    }
+
+    private static void putProjectValue(Map<String, String> values, String name, String value) {
+        if (value != null) {
+            values.put("project." + name, value);
+            values.put("pom." + name, value);
+        }
+    }
+
+    private static void interpolate(Interpolator interpolator, List<PomModel.Dependency> dependencies) {
+        for (final PomModel.Dependency dependency : dependencies) {
+            dependency.groupId = interpolator.resolve(dependency.groupId);
+            dependency.artifactId = interpolator.resolve(dependency.artifactId);
+            dependency.version = interpolator.resolve(dependency.version);
+            dependency.type = interpolator.resolve(dependency.type);
+            dependency.classifier = interpolator.resolve(dependency.classifier);
+            dependency.scope = interpolator.resolve(dependency.scope);
+        }
+    }
+
+    // Effective models of the imported BOMs, null for the ones not found
+    private Map<PomModel.Dependency, Effective> boms(PomModel model, int depth) {
+        final Map<PomModel.Dependency, Effective> result = new LinkedHashMap<PomModel.Dependency, Effective>();
+        for (final PomModel.Dependency dependency : model.managedDependencies) {
+            if (!isBom(dependency)) {
+                continue;
+            }
+            final File bomFile = locate(model.file, null, dependency.groupId, dependency.artifactId,
+                    dependency.version);
+            if (bomFile == null) {
+                JkLog.warn("BOM " + dependency + " imported by " + model.file.getPath()
+                        + " not found : its managed dependencies are ignored.");
+                result.put(dependency, null);
+            } else {
+                result.put(dependency, effective(bomFile, depth + 1));
+            }
+        }
+        return result;
+    }
+
+    private static boolean isBom(PomModel.Dependency dependency) {
+        return "import".equals(dependency.scope) && "pom".equals(dependency.type);
+    }
+
+    // Entries already declared take precedence over the imported ones
+    private static void importBoms(PomModel model, Map<PomModel.Dependency, Effective> boms) {
+        final List<PomModel.Dependency> managed = new LinkedList<PomModel.Dependency>();
+        final Set<String> keys = new HashSet<String>();
+        for (final PomModel.Dependency dependency : model.managedDependencies) {
+            if (!isBom(dependency)) {
+                managed.add(dependency);
+                keys.add(dependency.key());
+            }
+        }
+        for (final Effective bom : boms.values()) {
+            if (bom == null) {
+                continue;
+            }
+            for (final PomModel.Dependency dependency : bom.model.managedDependencies) {
+                if (keys.add(dependency.key())) {
+                    managed.add(dependency.copy());
+                }
+            }
+        }
+        model.managedDependencies.clear();
+        model.managedDependencies.addAll(managed);
+    }
+
+    private static void applyManagement(PomModel model) {
+        final Map<String, PomModel.Dependency> managed = new HashMap<String, PomModel.Dependency>();
+        for (final PomModel.Dependency dependency : model.managedDependencies) {
+            managed.put(dependency.key(), dependency);
+        }
+        for (final PomModel.Dependency dependency : model.dependencies) {
+            final PomModel.Dependency management = managed.get(dependency.key());
+            if (management == null) {
+                continue;
+            }
+            if (JkUtilsString.isBlank(dependency.version)) {
+                dependency.version = management.version;
+            }
+            if (dependency.scope == null) {
+                dependency.scope = management.scope;
+            }
+            if (dependency.exclusions.isEmpty()) {
+                dependency.exclusions.addAll(management.exclusions);
+            }
+        }
+    }
+
+    private File locate(File from, String relativePath, String groupId, String artifactId, String version) {
+        if (groupId == null || artifactId == null || version == null) {
+            return null;
+        }
+        if (relativePath == null || relativePath.length() > 0) {
+            File candidate = new File(from.getParentFile(), relativePath == null ? "../pom.xml" : relativePath);
+            if (candidate.isDirectory()) {
+                candidate = new File(candidate, "pom.xml");
+            }
+            if (candidate.isFile() && matches(raw(candidate), groupId, artifactId, version)) {
+                return candidate;
+            }
+        }
+        final File local = new File(System.getProperty("user.home"), ".m2/repository/" + groupId.replace('.', '/')
+                + "/" + artifactId + "/" + version + "/" + artifactId + "-" + version + ".pom");
+        if (local.isFile()) {
+            return local;
+        }
+        if (repos == null || version.contains("${")) {
+            return null;
+        }
+        try {
+            return repos.get(JkModuleDependency.of(groupId, artifactId, version).ext("pom"));
+        } catch (final RuntimeException e) {
+            JkLog.trace("Unable to download " + groupId + ":" + artifactId + ":" + version + " POM : "
+                    + e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean matches(PomModel raw, String groupId, String artifactId, String version) {
+        final String rawGroupId = raw.groupId != null ? raw.groupId : raw.parentGroupId;
+        final String rawVersion = raw.version != null ? raw.version : raw.parentVersion;
+        return artifactId.equals(raw.artifactId) && groupId.equals(rawGroupId) && version.equals(rawVersion);
+    }
+
+    private static final class Effective {
+
+        final String key;
+
+        final PomModel model;
+
+        Effective(String key, PomModel model) {
+            this.key = key;
+            this.model = model;
+        }
+
+    }
+
+    /**
+     * Replaces <code>${name}</code> expressions by POM properties, then by
+     * environment variables for <code>env.</code> names, then by system
+     * properties. Unknown expressions are left as is.
+     */
+    private static final class Interpolator {
+
+        private final Map<String, String> values;
+
+        Interpolator(Map<String, String> values) {
+            this.values = values;
+        }
+
+        String resolve(String value) {
+            if (value == null || !value.contains("${")) {
+                return value;
+            }
+            String current = value;
+            for (int i = 0; i < MAX_INTERPOLATION_PASSES; i++) {
+                final String next = resolveOnce(current);
+                if (next.equals(current)) {
+                    return next;
+                }
+                current = next;
+            }
+            return current;
+        }
+
+        private String resolveOnce(String value) {
+            final StringBuilder result = new StringBuilder();
+            int index = 0;
+            while (true) {
+                final int start = value.indexOf("${", index);
+                final int end = start < 0 ? -1 : value.indexOf('}', start);
+                if (end < 0) {
+                    result.append(value.substring(index));
+                    return result.toString();
+                }
+                result.append(value.substring(index, start));
+                final String name = value.substring(start + 2, end);
+                final String replacement = lookup(name);
+                result.append(replacement == null ? value.substring(start, end + 1) : replacement);
+                index = end + 1;
+            }
+        }
+
+        private String lookup(String name) {
+            final String value = values.get(name);
+            if (value != null) {
+                return value;
+            }
+            if (name.startsWith("env.")) {
+                return System.getenv(name.substring(4));
+            }
+            return System.getProperty(name);
+        }
+
+    }
+
+}
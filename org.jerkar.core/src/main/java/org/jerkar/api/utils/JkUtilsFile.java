@@ -1,5 +1,6 @@
 package org.jerkar.api.utils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
@@ -208,6 +209,25 @@ public final class JkUtilsFile {
         return JkUtilsIterable.propertiesToMap(properties);
     }
 
+    /**
+     * Writes the specified map in the specified file using the property file
+     * format. The file and its parent directories are created if they do not
+     * exist.
+     */
+    public static void writePropertyFile(File propertyfile, Map<String, String> map, String comment) {
+        final Properties props = new Properties();
+        props.putAll(map);
+        createFileIfNotExist(propertyfile);
+        final OutputStream outputStream = JkUtilsIO.outputStream(propertyfile, false);
+        try {
+            props.store(outputStream, comment);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            JkUtilsIO.closeQuietly(outputStream);
+        }
+    }
+
     /**
      * Returns the content of the specified file as a string.
      */
@@ -228,6 +248,17 @@ public final class JkUtilsFile {
         return result;
     }
 
+    /**
+     * Returns the content of the specified file as a byte array.
+     */
+    public static byte[] readAsBytes(File file) {
+        final FileInputStream fileInputStream = JkUtilsIO.inputStream(file);
+        final ByteArrayOutputStream result = new ByteArrayOutputStream((int) file.length());
+        JkUtilsIO.copy(fileInputStream, result);
+        JkUtilsIO.closeQuietly(fileInputStream);
+        return result.toByteArray();
+    }
+
     /**
      * Copies the given file to the specified directory.
      */
@@ -0,0 +1,135 @@
+package org.jerkar.tool;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.api.utils.JkUtilsThrowable;
+
+/**
+ * Fingerprint of the build definition of a project along the classpath
+ * resulting from its compilation. It is stored in the build class directory so
+ * the build classes are neither compiled nor their classpath resolved again as
+ * long as the fingerprint does not change.
+ *
+ * @author Jerome Angibaud
+ */
+final class BuildFingerprint {
+
+    private static final String FILE_NAME = "jerkar-build-fingerprint.properties";
+
+    private static final String FINGERPRINT = "fingerprint";
+
+    private static final String CLASSPATH = "classpath";
+
+    private final File file;
+
+    private final String fingerprint;
+
+    private final List<File> classpath;
+
+    private BuildFingerprint(File file, String fingerprint, List<File> classpath) {
+        this.file = file;
+        this.fingerprint = fingerprint;
+        this.classpath = classpath;
+    }
+
+    /**
+     * Loads the fingerprint stored in the specified build class directory.
+     */
+    static BuildFingerprint of(File buildClassDir) {
+        final File file = new File(buildClassDir, FILE_NAME);
+        if (!file.exists()) {
+            return new BuildFingerprint(file, null, new LinkedList<File>());
+        }
+        final Map<String, String> props = JkUtilsFile.readPropertyFileAsMap(file);
+        final List<File> classpath = new LinkedList<File>();
+        final String path = props.get(CLASSPATH);
+        if (!JkUtilsString.isBlank(path)) {
+            for (final String entry : path.split(File.pathSeparator)) {
+                classpath.add(new File(entry));
+            }
+        }
+        return new BuildFingerprint(file, props.get(FINGERPRINT), classpath);
+    }
+
+    /**
+     * Computes a fingerprint from the path, size and modification time of the
+     * specified files along the specified extra descriptions.
+     */
+    static String compute(Iterable<File> files, String... descriptions) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            throw JkUtilsThrowable.unchecked(e);
+        }
+        for (final File file : files) {
+            digest.update((file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified() + "\n")
+                    .getBytes());
+        }
+        for (final String description : descriptions) {
+            digest.update((description + "\n").getBytes());
+        }
+        return JkUtilsString.toHexString(digest.digest());
+    }
+
+    /**
+     * Returns <code>true</code> if a fingerprint has been stored.
+     */
+    boolean exists() {
+        return fingerprint != null;
+    }
+
+    /**
+     * Returns the time the fingerprint has been stored.
+     */
+    long lastModified() {
+        return file.lastModified();
+    }
+
+    /**
+     * Returns <code>true</code> if the stored fingerprint equals the specified
+     * one and all entries of the stored classpath still exist.
+     */
+    boolean isUpToDate(String currentFingerprint) {
+        if (currentFingerprint == null || !currentFingerprint.equals(fingerprint)) {
+            return false;
+        }
+        for (final File entry : classpath) {
+            if (!entry.exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the classpath stored along the fingerprint.
+     */
+    List<File> classpath() {
+        return classpath;
+    }
+
+    /**
+     * Stores the specified fingerprint and classpath, replacing the previous
+     * ones.
+     */
+    void save(String newFingerprint, Iterable<File> newClasspath) {
+        final Map<String, String> props = new HashMap<String, String>();
+        props.put(FINGERPRINT, newFingerprint);
+        final List<String> entries = new LinkedList<String>();
+        for (final File entry : newClasspath) {
+            entries.add(entry.getAbsolutePath());
+        }
+        props.put(CLASSPATH, JkUtilsString.join(entries, File.pathSeparator));
+        JkUtilsFile.writePropertyFile(file, props, "Fingerprint of the build definition");
+    }
+
+}
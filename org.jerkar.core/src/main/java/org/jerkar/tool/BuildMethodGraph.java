@@ -0,0 +1,225 @@
+package org.jerkar.tool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.jerkar.api.system.JkLog;
+import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.api.utils.JkUtilsThrowable;
+
+/**
+ * Graph of build methods linked by the dependencies declared on the build
+ * (see {@link JkBuild#methodDependencies(String)}). Each method of the graph is
+ * invoked at most once, after all the methods it depends on.
+ * <p>
+ * Methods are either run sequentially, in a deterministic topological order,
+ * or concurrently on a worker pool. In the later case, if logs are grouped
+ * (see {@link JkLog#grouped()}), the logs of each method are collected
+ * separately and displayed in the same order than for a sequential run.
+ * Otherwise they are displayed as they come, prefixed with the method name.
+ * The first failure stops the execution : no more method is
+ * started and the failure is rethrown.
+ *
+ * @author Jerome Angibaud
+ */
+final class BuildMethodGraph {
+
+    private final JkBuild build;
+
+    // Methods in topological order, with the methods they depend on
+    private final Map<String, List<String>> dependencies;
+
+    private BuildMethodGraph(JkBuild build, Map<String, List<String>> dependencies) {
+        this.build = build;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Creates the graph containing the specified methods and all methods they
+     * transitively depend on.
+     */
+    static BuildMethodGraph of(JkBuild build, Iterable<String> methodNames) {
+        final Map<String, List<String>> dependencies = new LinkedHashMap<String, List<String>>();
+        for (final String methodName : methodNames) {
+            visit(build, methodName, new LinkedList<String>(), dependencies);
+        }
+        return new BuildMethodGraph(build, dependencies);
+    }
+
+    private static void visit(JkBuild build, String methodName, LinkedList<String> path,
+            Map<String, List<String>> result) {
+        if (result.containsKey(methodName)) {
+            return;
+        }
+        if (path.contains(methodName)) {
+            path.add(methodName);
+            throw new JkException("Cycle detected in build method dependencies : "
+                    + JkUtilsString.join(path.subList(path.indexOf(methodName), path.size()), " -> "));
+        }
+        path.add(methodName);
+        final List<String> methodDependencies = build.methodDependencies(methodName);
+        for (final String dependency : methodDependencies) {
+            visit(build, dependency, path, result);
+        }
+        path.removeLast();
+        result.put(methodName, methodDependencies);
+    }
+
+    /**
+     * Returns the methods of this graph in the order they are invoked in a
+     * sequential run.
+     */
+    List<String> methods() {
+        return new LinkedList<String>(dependencies.keySet());
+    }
+
+    /**
+     * Invokes the methods of this graph using the specified number of
+     * threads, given the specified directory as working directory (may be
+     * <code>null</code>). If the number of threads is 1 or less, methods are
+     * invoked sequentially in the current thread.
+     */
+    void run(int threadCount, File fromDir) {
+        if (threadCount <= 1 || dependencies.size() <= 1) {
+            for (final String methodName : dependencies.keySet()) {
+                build.invoke(methodName, fromDir);
+            }
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "jerkar-build-method");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            runConcurrently(new ExecutorCompletionService<Outcome>(executor), fromDir);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runConcurrently(CompletionService<Outcome> completionService, File fromDir) {
+        final List<String> order = methods();
+        final Map<String, ByteArrayOutputStream> outputs = new HashMap<String, ByteArrayOutputStream>();
+        final Set<String> done = new HashSet<String>();
+        int displayed = 0;
+        int running = submitReady(completionService, done, outputs, fromDir);
+        while (running > 0) {
+            final Outcome outcome;
+            try {
+                outcome = completionService.take().get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw JkUtilsThrowable.unchecked(e);
+            } catch (final ExecutionException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            }
+            running--;
+            if (outcome.failure != null) {
+                for (final String methodName : order.subList(displayed, order.size())) {
+                    if (done.contains(methodName)) {
+                        display(outputs.get(methodName));
+                    }
+                }
+                display(outputs.get(outcome.methodName));
+                if (outcome.failure instanceof RuntimeException) {
+                    throw (RuntimeException) outcome.failure;
+                }
+                if (outcome.failure instanceof Error) {
+                    throw (Error) outcome.failure;
+                }
+                throw JkUtilsThrowable.unchecked((Exception) outcome.failure);
+            }
+            done.add(outcome.methodName);
+            while (displayed < order.size() && done.contains(order.get(displayed))) {
+                display(outputs.get(order.get(displayed)));
+                displayed++;
+            }
+            running += submitReady(completionService, done, outputs, fromDir);
+        }
+    }
+
+    // Submits methods whose dependencies are all done and returns the number of submitted ones
+    private int submitReady(CompletionService<Outcome> completionService, Set<String> done,
+            Map<String, ByteArrayOutputStream> outputs, final File fromDir) {
+        int count = 0;
+        for (final Map.Entry<String, List<String>> entry : dependencies.entrySet()) {
+            final String methodName = entry.getKey();
+            if (outputs.containsKey(methodName) || !done.containsAll(entry.getValue())) {
+                continue;
+            }
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            outputs.put(methodName, output);
+            completionService.submit(new Callable<Outcome>() {
+
+                @Override
+                public Outcome call() {
+                    final boolean grouped = JkLog.grouped();
+                    if (grouped) {
+                        JkLog.redirectCurrentThread(output);
+                    } else {
+                        JkLog.startTask(methodName);
+                    }
+                    try {
+                        build.invoke(methodName, fromDir);
+                        return new Outcome(methodName, null);
+                    } catch (final Throwable e) { // NOSONAR failure is rethrown by the calling thread
+                        return new Outcome(methodName, e);
+                    } finally {
+                        if (grouped) {
+                            JkLog.unredirectCurrentThread();
+                        } else {
+                            JkLog.endTask();
+                        }
+                    }
+                }
+            });
+            count++;
+        }
+        return count;
+    }
+
+    private static void display(ByteArrayOutputStream output) {
+        final String content = output.toString();
+        if (content.isEmpty()) {
+            return;
+        }
+        final List<String> lines = new LinkedList<String>();
+        for (final String line : content.split("\r?\n")) {
+            lines.add(line);
+        }
+        JkLog.info(lines);
+    }
+
+    private static final class Outcome {
+
+        private final String methodName;
+
+        private final Throwable failure;
+
+        Outcome(String methodName, Throwable failure) {
+            this.methodName = methodName;
+            this.failure = failure;
+        }
+
+    }
+
+}
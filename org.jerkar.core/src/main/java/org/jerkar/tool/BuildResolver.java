@@ -67,6 +67,17 @@ final class BuildResolver {
             return false;
         }
         final JkFileTree dir = JkFileTree.of(buildSourceDir);
+
+        // Build sources modified since last compilation
+        final BuildFingerprint fingerprint = BuildFingerprint.of(buildClassDir);
+        if (!fingerprint.exists()) {
+            return true;
+        }
+        for (final File file : dir.files(false)) {
+            if (file.lastModified() > fingerprint.lastModified()) {
+                return true;
+            }
+        }
         for (final String path : dir.relativePathes()) {
             if (path.endsWith(".java")) {
                 final String simpleName;
@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -16,6 +17,7 @@ import org.jerkar.api.depmanagement.JkDependencyResolver;
 import org.jerkar.api.file.JkFileTree;
 import org.jerkar.api.file.JkPath;
 import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkProfiler;
 import org.jerkar.api.utils.*;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -32,10 +34,24 @@ public class JkBuild {
 
     private static final ThreadLocal<File> BASE_DIR_CONTEXT = new ThreadLocal<File>();
 
+    // Compilation and loading of build classes can not run concurrently
+    private static final Object PROJECT_LOCK = new Object();
+
     static void baseDirContext(File baseDir) {
         BASE_DIR_CONTEXT.set(baseDir);
     }
 
+    /**
+     * Sets the slave builds instantiated so far in the current thread and
+     * returns the ones previously set. Builds running concurrently have each
+     * their own, so they never share slave build instances.
+     */
+    static Map<SubProjectRef, JkBuild> subProjectContext(Map<SubProjectRef, JkBuild> context) {
+        final Map<SubProjectRef, JkBuild> previous = SUB_PROJECT_CONTEXT.get();
+        SUB_PROJECT_CONTEXT.set(context);
+        return previous;
+    }
+
     private final File baseDir;
 
     private final Date buildTime = JkUtilsTime.now();
@@ -45,6 +61,9 @@ public class JkBuild {
 
     private JkDependencyResolver buildDefDependencyResolver;
 
+    // Value of the offline standard option of the run this build belongs to
+    private boolean offline;
+
     private final JkSlaveBuilds annotatedJkProjectSlaves;
 
     @JkDoc("Help options")
@@ -53,6 +72,10 @@ public class JkBuild {
     @JkDoc("Embed Jerkar jar along bin script in the project while scaffolding so the project can be run without Jerkar installed.")
     boolean scaffoldEmbed;
 
+    @JkDoc({ "Number of threads used to run concurrently the build methods that do not depend on each other.",
+    "1 means that build methods are run sequentially." })
+    int methodThreads = 1;
+
     /**
      * Constructs a {@link JkBuild}
      */
@@ -84,6 +107,14 @@ public class JkBuild {
         this.buildDefDependencyResolver = scriptDependencyResolver;
     }
 
+    void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
+    boolean isOffline() {
+        return offline;
+    }
+
     /**
      * Returns the dependency resolver used to compile/run scripts of this
      * project.
@@ -146,7 +177,7 @@ public class JkBuild {
     /**
      * Invokes the specified method in this build.
      */
-    private void invoke(String methodName, File fromDir) {
+    void invoke(String methodName, File fromDir) {
         final Method method;
         try {
             method = this.getClass().getMethod(methodName);
@@ -174,18 +205,72 @@ public class JkBuild {
             JkLog.info("Method " + methodName + " failed in " + JkUtilsTime.durationInSeconds(time)
             + " seconds.");
             throw e;
+        } finally {
+            JkProfiler.record("Method " + methodName, time);
         }
     }
 
     /**
      * Executes the specified methods given the fromDir as working directory.
+     * If the <code>methodThreads</code> option is greater than 1 and no plugin
+     * method is specified, the methods are run as a graph along the methods
+     * they depend on (see {@link #invokeWithDependencies(String...)}), so
+     * methods that do not depend on each other run concurrently. Otherwise
+     * methods are run sequentially in the specified order.
      */
     public void execute(Iterable<JkModelMethod> methods, File fromDir) {
+        final List<String> methodNames = methodThreads > 1 ? buildMethodNames(methods) : null;
+        if (methodNames != null) {
+            BuildMethodGraph.of(this, methodNames).run(methodThreads, fromDir);
+            return;
+        }
         for (final JkModelMethod method : methods) {
             this.invoke(method, fromDir);
         }
     }
 
+    // Returns null if some of the specified methods are plugin methods
+    private static List<String> buildMethodNames(Iterable<JkModelMethod> methods) {
+        final List<String> result = new LinkedList<String>();
+        for (final JkModelMethod method : methods) {
+            if (method.isMethodPlugin()) {
+                return null;
+            }
+            result.add(method.name());
+        }
+        return result;
+    }
+
+    /**
+     * Invokes the specified methods of this build along the methods they
+     * depend on (see {@link #methodDependencies(String)}). Each method is
+     * invoked only once and after the ones it depends on. Methods that do not
+     * depend on each other run concurrently if the <code>methodThreads</code>
+     * option is greater than 1, otherwise methods are run sequentially.
+     */
+    protected final void invokeWithDependencies(String... methodNames) {
+        BuildMethodGraph.of(this, Arrays.asList(methodNames)).run(methodThreads, null);
+    }
+
+    /**
+     * Returns the names of the build methods that must be invoked prior the
+     * specified one when using {@link #invokeWithDependencies(String...)}. By
+     * default, these are the methods mentioned in the {@link JkDependsOn}
+     * annotation of the specified method, or of the method it overrides.
+     * Override this method to declare dependencies programmatically.
+     */
+    protected List<String> methodDependencies(String methodName) {
+        final Method method = JkUtilsReflect.getMethodOrNull(this.getClass(), methodName);
+        if (method == null) {
+            return Collections.emptyList();
+        }
+        final JkDependsOn dependsOn = JkUtilsReflect.getInheritedAnnotation(method, JkDependsOn.class);
+        if (dependsOn == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(dependsOn.value());
+    }
+
     /**
      * Returns a file located at the specified path relative to the base
      * directory.
@@ -261,6 +346,7 @@ public class JkBuild {
             final Element buildEl = ProjectDef.ProjectBuildClassDef.of(this).toElement(document);
             document.appendChild(buildEl);
             if (help.xmlFile == null) {
+                JkLog.flush();
                 JkUtilsXml.output(document, System.out);
             } else {
                 JkUtilsFile.createFileIfNotExist(help.xmlFile);
@@ -404,14 +490,17 @@ public class JkBuild {
         if (cachedResult != null) {
             return cachedResult;
         }
-        final Project project = new Project(projectDir);
-        final T result = project.getBuild(clazz);
+        final T result;
+        synchronized (PROJECT_LOCK) {
+            result = new Project(projectDir, offline).getBuild(clazz);
+        }
+        result.setOffline(offline);
         JkOptions.populateFields(result);
         SUB_PROJECT_CONTEXT.get().put(projectRef, result);
         return result;
     }
 
-    private static class SubProjectRef {
+    static class SubProjectRef {
 
         final String canonicalFileName;
 
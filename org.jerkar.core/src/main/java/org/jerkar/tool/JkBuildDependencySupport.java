@@ -3,6 +3,7 @@ package org.jerkar.tool;
 import java.io.File;
 
 import org.jerkar.api.crypto.pgp.JkPgp;
+import org.jerkar.api.depmanagement.JkArtifactVerification;
 import org.jerkar.api.depmanagement.JkDependencies;
 import org.jerkar.api.depmanagement.JkDependencyExclusions;
 import org.jerkar.api.depmanagement.JkDependencyNode;
@@ -16,6 +17,7 @@ import org.jerkar.api.depmanagement.JkResolutionParameters;
 import org.jerkar.api.depmanagement.JkResolveResult;
 import org.jerkar.api.depmanagement.JkScope;
 import org.jerkar.api.depmanagement.JkScopeMapping;
+import org.jerkar.api.depmanagement.JkUpdatePolicy;
 import org.jerkar.api.depmanagement.JkVersion;
 import org.jerkar.api.depmanagement.JkVersionProvider;
 import org.jerkar.api.depmanagement.JkVersionedModule;
@@ -53,6 +55,15 @@ public class JkBuildDependencySupport extends JkBuild {
     @JkDoc("Version to inject to this build. If 'null' or blank than the version will be the one returned by #version()")
     protected String version = null;
 
+    /**
+     * Verification of downloaded artifacts : 'none', 'checksum' to check
+     * published SHA-256/SHA-1 checksums or 'pgp' to check PGP signatures as
+     * well.
+     */
+    @JkDoc({ "Verification of downloaded artifacts : 'none', 'checksum' to check published SHA-256/SHA-1 checksums",
+        "or 'pgp' to check PGP signatures as well (public ring taken from pgp.pubring option)." })
+    protected String verifyArtifacts = "none";
+
     /** Options about publication */
     @JkDoc("Publication")
     public JkPublishOptions publication = new JkPublishOptions();
@@ -212,7 +223,7 @@ public class JkBuildDependencySupport extends JkBuild {
     /**
      * Returns the dependency resolver for this build.
      */
-    public final JkDependencyResolver dependencyResolver() {
+    public final synchronized JkDependencyResolver dependencyResolver() {
         if (cachedResolver == null) {
             JkLog.startln("Setting dependency resolver ");
             cachedResolver = JkBuildPlugin.applyDependencyResolver(plugins.getActives(), createDependencyResolver());
@@ -244,11 +255,38 @@ public class JkBuildDependencySupport extends JkBuild {
         if (dependencies.containsModules()) {
             return JkDependencyResolver.managed(downloadRepositories(), dependencies)
                     .withModuleHolder(versionedModule()).withTransitiveVersionOverride(this.versionProvider())
-                    .withParams(JkResolutionParameters.of().withDefault(scopeMapping()));
+                    .withParams(JkResolutionParameters.of().withDefault(scopeMapping()).offline(offline()))
+                    .withVerification(artifactVerification());
         }
         return JkDependencyResolver.unmanaged(dependencies);
     }
 
+    /**
+     * Returns <code>true</code> if dependencies must be resolved against the local repository cache only.
+     * By default, it returns the value of the <code>offline</code> standard option.
+     */
+    protected boolean offline() {
+        return isOffline();
+    }
+
+    /**
+     * Returns the verification applied on downloaded artifacts,
+     * <code>null</code> for no verification. By default, it is built from the
+     * <code>verifyArtifacts</code> option.
+     */
+    protected JkArtifactVerification artifactVerification() {
+        if ("checksum".equalsIgnoreCase(verifyArtifacts)) {
+            return JkArtifactVerification.of();
+        }
+        if ("pgp".equalsIgnoreCase(verifyArtifacts)) {
+            return JkArtifactVerification.of().withPgp(pgp());
+        }
+        if (verifyArtifacts == null || "none".equalsIgnoreCase(verifyArtifacts)) {
+            return null;
+        }
+        throw new JkException("Option verifyArtifacts should be 'none', 'checksum' or 'pgp'. Was " + verifyArtifacts);
+    }
+
     /**
      * Returns the scope mapping used by the underlying dependency manager.
      */
@@ -259,7 +297,7 @@ public class JkBuildDependencySupport extends JkBuild {
     /**
      * Returns the publisher used to actually publish artifacts.
      */
-    protected JkPublisher publisher() {
+    protected synchronized JkPublisher publisher() {
         if (cachedPublisher == null) {
             if (this.publication.local) {
                 cachedPublisher = JkPublisher.of(mavenPublishLocal().asPublishRepo());
@@ -290,8 +328,9 @@ public class JkBuildDependencySupport extends JkBuild {
     /**
      * Creates {@link JkRepo} form Jerkar options. the specified repository name
      * will be turned to <code>repo.[repoName].url</code>,
-     * <code>repo.[repoName].username</code> and
-     * <code>repo.[repoName].password</code> options for creating according
+     * <code>repo.[repoName].username</code>,
+     * <code>repo.[repoName].password</code> and
+     * <code>repo.[repoName].updatePolicy</code> options for creating according
      * repository.
      */
     public static JkRepo repoFromOptions(String repoName) {
@@ -302,7 +341,16 @@ public class JkBuildDependencySupport extends JkBuild {
         }
         final String username = JkOptions.get("repo." + repoName + ".username");
         final String password = JkOptions.get("repo." + repoName + ".password");
-        return JkRepo.of(url.trim()).withOptionalCredentials(username, password);
+        return withUpdatePolicyFromOptions(JkRepo.of(url.trim()).withOptionalCredentials(username, password),
+                repoName);
+    }
+
+    private static JkRepo withUpdatePolicyFromOptions(JkRepo repo, String repoName) {
+        final String updatePolicy = JkOptions.get("repo." + repoName + ".updatePolicy");
+        if (JkUtilsString.isBlank(updatePolicy)) {
+            return repo;
+        }
+        return repo.withUpdatePolicy(JkUpdatePolicy.of(updatePolicy));
     }
 
     /**
@@ -325,7 +373,8 @@ public class JkBuildDependencySupport extends JkBuild {
         final String username = JkOptions.get("repo." + repoName + ".username");
         final String password = JkOptions.get("repo." + repoName + ".password");
         for (final String url : urls.split(",")) {
-            result = result.and(JkRepo.of(url.trim()).withOptionalCredentials(username, password));
+            result = result.and(withUpdatePolicyFromOptions(
+                    JkRepo.of(url.trim()).withOptionalCredentials(username, password), repoName));
         }
         return result;
     }
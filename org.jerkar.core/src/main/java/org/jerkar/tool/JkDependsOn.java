@@ -0,0 +1,25 @@
+package org.jerkar.tool;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the build methods that must be executed prior the annotated one
+ * when build methods are run as a graph (see
+ * {@link JkBuild#invokeWithDependencies(String...)}). Methods that do not
+ * depend on each other may then run concurrently.
+ *
+ * @author Jerome Angibaud
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface JkDependsOn {
+
+    /**
+     * Names of the zero-arg build methods the annotated method depends on.
+     */
+    String[] value();
+
+}
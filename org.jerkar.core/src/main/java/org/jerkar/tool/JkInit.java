@@ -36,7 +36,17 @@ public final class JkInit {
     }
 
     static JkInit of(String[] args) {
-        final LoadResult loadResult = loadOptionsAndSystemProps(args);
+        final LoadResult loadResult = loadOptionsAndSystemProps(args, true);
+        return new JkInit(loadResult, args);
+    }
+
+    /**
+     * As {@link #of(String[])} but for a command line run within a build
+     * already initialized : system properties and log modes are left as they
+     * are.
+     */
+    static JkInit nested(String[] args) {
+        final LoadResult loadResult = loadOptionsAndSystemProps(args, false);
         return new JkInit(loadResult, args);
     }
 
@@ -122,13 +132,36 @@ public final class JkInit {
         return this.loadResult.commandLine;
     }
 
+    /**
+     * Returns <code>true</code> if the execution must be profiled.
+     */
+    boolean profile() {
+        return loadResult.standardOptions.profile;
+    }
+
+    /**
+     * Returns <code>true</code> if metrics collected along the execution must be written.
+     */
+    boolean metrics() {
+        return loadResult.standardOptions.metrics;
+    }
+
     String buildClassHint() {
         return loadResult.standardOptions.buildClass;
     }
 
-    private static LoadResult loadOptionsAndSystemProps(String[] args) {
+    /**
+     * Returns <code>true</code> if dependencies must be resolved using only the local repository cache.
+     */
+    boolean offline() {
+        return loadResult.standardOptions.offline;
+    }
+
+    private static LoadResult loadOptionsAndSystemProps(String[] args, boolean global) {
         final Map<String, String> sysProps = getSpecifiedSystemProps(args);
-        JkUtilsTool.setSystemProperties(sysProps);
+        if (global) {
+            JkUtilsTool.setSystemProperties(sysProps);
+        }
         final Map<String, String> optionMap = new HashMap<String, String>();
         optionMap.putAll(loadOptionsProperties());
         final CommandLine commandLine = CommandLine.of(args);
@@ -139,8 +172,12 @@ public final class JkInit {
         }
         final JkInit.StandardOptions standardOptions = new JkInit.StandardOptions();
         JkOptions.populateFields(standardOptions, optionMap);
-        JkLog.silent(standardOptions.silent);
-        JkLog.verbose(standardOptions.verbose);
+        if (global) {
+            JkLog.silent(standardOptions.silent);
+            JkLog.verbose(standardOptions.verbose);
+            JkLog.async(standardOptions.logAsync);
+            JkLog.grouped(standardOptions.logGrouped);
+        }
 
         JkOptions.populateFields(standardOptions);
         final JkInit.LoadResult loadResult = new JkInit.LoadResult();
@@ -187,6 +224,7 @@ public final class JkInit {
 
     PluginDictionnary<JkBuildPlugin> initProject(JkBuild build) {
         final CommandLine commandLine = this.loadResult.commandLine;
+        build.setOffline(offline());
         JkOptions.populateFields(build, commandLine.getMasterBuildOptions());
         build.init();
 
@@ -198,6 +236,7 @@ public final class JkInit {
             JkLog.startHeaded("Configure slave projects");
             for (final JkBuild subBuild : slaveBuilds) {
                 JkLog.startln("Configure project " + build.baseDir().relativePath(subBuild.baseDir().root()));
+                subBuild.setOffline(offline());
                 configureProject(subBuild, commandLine.getSubProjectPluginSetups(),
                         commandLine.getSubProjectBuildOptions(), dictionnary);
                 JkLog.done();
@@ -276,11 +315,22 @@ public final class JkInit {
 
         boolean silent;
 
+        boolean offline;
+
+        boolean profile;
+
+        boolean metrics;
+
+        boolean logAsync;
+
+        boolean logGrouped = true;
+
         String buildClass;
 
         @Override
         public String toString() {
-            return "buildClass=" + JkUtilsObject.toString(buildClass) + ", verbose=" + verbose + ", silent=" + silent;
+            return "buildClass=" + JkUtilsObject.toString(buildClass) + ", verbose=" + verbose + ", silent=" + silent + ", offline=" + offline + ", profile=" + profile + ", metrics=" + metrics
+                    + ", logAsync=" + logAsync + ", logGrouped=" + logGrouped;
         }
 
     }
@@ -0,0 +1,144 @@
+package org.jerkar.tool;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jerkar.api.file.JkFileTree;
+import org.jerkar.api.java.JkClassLoader;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsIO;
+import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.api.utils.JkUtilsZip;
+
+/**
+ * Index of the plugin classes contained in a jar or a class directory. The
+ * index is a text file located at <code>META-INF/jerkar/plugins</code> listing
+ * the full name of each plugin class, one per line.<br/>
+ * It is generated when Java projects are packed, so Jerkar can discover plugins
+ * by reading this file instead of scanning the whole classpath. Only the
+ * indexes of jars are used to discover plugins : class directories are still
+ * scanned as classes may have been added since their index was generated,
+ * while jars without index are ignored.
+ *
+ * @author Jerome Angibaud
+ */
+public final class JkPluginIndex {
+
+    /**
+     * Location of the index file relative to the jar or class directory root.
+     */
+    public static final String LOCATION = "META-INF/jerkar/plugins";
+
+    // Jars are not supposed to change during a run
+    private static final Map<File, List<String>> JAR_CACHE = new HashMap<File, List<String>>();
+
+    private JkPluginIndex() {
+        // Can not instantiate
+    }
+
+    /**
+     * Generates the index of the plugin classes located in the specified
+     * class directory. The specified classpath is the one needed to load these
+     * classes (Jerkar classes are taken from the current class loader). Only
+     * classes named according the plugin naming convention (containing
+     * 'Plugin' in their simple name) are inspected. If the directory does not
+     * contain any plugin, no index is written. Returns the indexed class
+     * names.
+     */
+    public static List<String> generate(File classDir, Iterable<File> classpath) {
+        final File indexFile = new File(classDir, LOCATION);
+        if (indexFile.exists()) {
+            JkUtilsFile.delete(indexFile);
+        }
+        final List<String> candidates = new LinkedList<String>();
+        for (final String path : JkFileTree.of(classDir).include("**/*Plugin*.class").relativePathes()) {
+            final String className = path.replace('\\', '/').replace('/', '.')
+                    .substring(0, path.length() - ".class".length());
+            final String simpleName = JkUtilsString.substringAfterLast("." + className.replace('$', '.'), ".");
+            if (simpleName.contains("Plugin")) {
+                candidates.add(className);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<File> entries = new LinkedList<File>();
+        entries.add(classDir);
+        for (final File file : classpath) {
+            entries.add(file);
+        }
+        final JkClassLoader classLoader = JkClassLoader.current().child(entries);
+        final TreeSet<String> result = new TreeSet<String>();
+        for (final String candidate : candidates) {
+            final Class<?> clazz;
+            try {
+                clazz = Class.forName(candidate, false, classLoader.classloader());
+            } catch (final Throwable e) { // NOSONAR class may miss its provided dependencies
+                continue;
+            }
+            if (JkBuildPlugin.class.isAssignableFrom(clazz) && !Modifier.isAbstract(clazz.getModifiers())) {
+                result.add(candidate);
+            }
+        }
+        if (!result.isEmpty()) {
+            JkUtilsFile.writeString(indexFile, JkUtilsString.join(result, "\n") + "\n", false);
+        }
+        return new LinkedList<String>(result);
+    }
+
+    /**
+     * Returns the class names listed in the index of the specified jar or
+     * directory, <code>null</code> if it has no index.
+     */
+    static List<String> read(File entry) {
+        if (entry.isDirectory()) {
+            final File indexFile = new File(entry, LOCATION);
+            if (!indexFile.exists()) {
+                return null;
+            }
+            return parse(JkUtilsFile.read(indexFile));
+        }
+        synchronized (JAR_CACHE) {
+            if (JAR_CACHE.containsKey(entry)) {
+                return JAR_CACHE.get(entry);
+            }
+            List<String> result = null;
+            if (entry.isFile()) {
+                final ZipFile zipFile = JkUtilsZip.zipFile(entry);
+                try {
+                    final ZipEntry zipEntry = zipFile.getEntry(LOCATION);
+                    if (zipEntry != null) {
+                        final InputStream inputStream = JkUtilsIO.inputStream(zipFile, zipEntry);
+                        result = parse(JkUtilsIO.readAsString(inputStream));
+                        JkUtilsIO.closeQuietly(inputStream);
+                    }
+                } finally {
+                    JkUtilsIO.closeQuietly(zipFile);
+                }
+            }
+            JAR_CACHE.put(entry, result);
+            return result;
+        }
+    }
+
+    private static List<String> parse(String content) {
+        final List<String> result = new LinkedList<String>();
+        for (final String line : content.split("\n")) {
+            final String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+
+}
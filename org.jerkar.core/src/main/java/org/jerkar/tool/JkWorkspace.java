@@ -0,0 +1,150 @@
+package org.jerkar.tool;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.jerkar.api.file.JkFileTree;
+import org.jerkar.api.system.JkLog;
+import org.jerkar.api.utils.JkUtilsThrowable;
+
+/**
+ * All the projects lying under a root folder, that is the folders having a
+ * <code>build/def</code> sub-folder. Methods are run on all of them in a
+ * single pass : options are loaded once, build classes of all projects are
+ * compiled and instantiated first, then the methods are run on each project
+ * concurrently. Each project has its own build, slave builds and dependency
+ * resolvers, each resolver having its own Ivy instance, so projects run
+ * without locking each other. Yet projects declaring the same module
+ * dependencies on the same repositories share the resolution result (see
+ * {@link org.jerkar.api.depmanagement.JkDependencyResolver}).
+ *
+ * @author Jerome Angibaud
+ */
+public final class JkWorkspace {
+
+    private final List<File> projectDirs;
+
+    private JkWorkspace(List<File> projectDirs) {
+        this.projectDirs = projectDirs;
+    }
+
+    /**
+     * Creates a workspace made of the specified folder and its descendants
+     * having a <code>build/def</code> sub-folder.
+     */
+    public static JkWorkspace of(File rootDir) {
+        final Iterable<File> folders = JkFileTree.of(rootDir)
+                .include("**/" + JkConstants.BUILD_DEF_DIR)
+                .exclude("**/" + JkConstants.BUILD_OUTPUT_PATH + "/**")
+                .files(true);
+        final List<File> projectDirs = new LinkedList<File>();
+        for (final File folder : folders) {
+            projectDirs.add(folder.getParentFile().getParentFile());
+        }
+        return new JkWorkspace(projectDirs);
+    }
+
+    /**
+     * Returns the base directories of the projects of this workspace.
+     */
+    public List<File> projectDirs() {
+        return Collections.unmodifiableList(projectDirs);
+    }
+
+    /**
+     * Runs the specified command line (as <code>idea#generateIml</code>) on
+     * every project of this workspace, using at most the specified number of
+     * threads. The first failure stops the execution : no more project is
+     * started and the failure is rethrown. System properties and log modes
+     * are the ones of the running build.
+     */
+    public void execute(int threads, String... args) {
+        final JkInit init = JkInit.nested(args);
+        final Map<File, Runnable> tasks = new LinkedHashMap<File, Runnable>();
+        for (final File projectDir : projectDirs) {
+            JkLog.startln("Instantiating build of " + projectDir.getPath());
+            final Runnable task = new Project(projectDir).prepare(init);
+            if (task == null) {
+                JkLog.done("No build class found : skip.");
+            } else {
+                tasks.put(projectDir, task);
+                JkLog.done();
+            }
+        }
+        if (threads <= 1 || tasks.size() <= 1) {
+            for (final Runnable task : tasks.values()) {
+                task.run();
+            }
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()),
+                new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "jerkar-workspace");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            runConcurrently(new ExecutorCompletionService<Throwable>(executor), tasks);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void runConcurrently(CompletionService<Throwable> completionService,
+            Map<File, Runnable> tasks) {
+        for (final Map.Entry<File, Runnable> entry : tasks.entrySet()) {
+            completionService.submit(new Callable<Throwable>() {
+
+                @Override
+                public Throwable call() {
+                    JkLog.startTask(entry.getKey().getName());
+                    try {
+                        entry.getValue().run();
+                        return null;
+                    } catch (final Throwable e) { // NOSONAR failure is rethrown by the calling thread
+                        JkLog.error("Project " + entry.getKey().getAbsolutePath() + " failed");
+                        return e;
+                    } finally {
+                        JkLog.endTask();
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            final Throwable failure;
+            try {
+                failure = completionService.take().get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw JkUtilsThrowable.unchecked(e);
+            } catch (final ExecutionException e) {
+                throw JkUtilsThrowable.unchecked(e);
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            if (failure != null) {
+                throw JkUtilsThrowable.unchecked((Exception) failure);
+            }
+        }
+    }
+
+}
@@ -5,6 +5,8 @@ import java.io.InputStream;
 import java.util.List;
 
 import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkMetrics;
+import org.jerkar.api.system.JkProfiler;
 import org.jerkar.api.utils.JkUtilsFile;
 import org.jerkar.api.utils.JkUtilsIO;
 import org.jerkar.api.utils.JkUtilsString;
@@ -17,12 +19,21 @@ import org.jerkar.api.utils.JkUtilsTime;
  */
 public final class Main {
 
+    private static final String PROFILE_FILE_NAME = "jerkar-profile.json";
+
+    private static final int PROFILE_SUMMARY_SIZE = 10;
+
+    private static final String METRICS_FILE_NAME = "jerkar-metrics.json";
+
     /**
      * Entry point for Jerkar application when launched to command-line
      */
     public static void main(String[] args) {
         final long start = System.nanoTime();
         final JkInit init = JkInit.of(args);
+        if (init.profile()) {
+            JkProfiler.start();
+        }
         if (!JkLog.silent()) {
             displayIntro();
         }
@@ -33,12 +44,25 @@ public final class Main {
         JkLog.nextLine();
         try {
             project.execute(init);
+            if (init.metrics()) {
+                writeMetrics(workingDir, start);
+            }
+            if (init.profile()) {
+                writeProfile(workingDir, start);
+            }
             if (!JkLog.silent()) {
                 final int lenght = printAscii(false, "success.ascii");
                 System.out.println(JkUtilsString.repeat(" ", lenght) + "Total build time : "
                         + JkUtilsTime.durationInSeconds(start) + " seconds.");
             }
         } catch (final RuntimeException e) {
+            if (init.metrics()) {
+                writeMetrics(workingDir, start);
+            }
+            if (init.profile()) {
+                writeProfile(workingDir, start);
+            }
+            JkLog.flush();
             System.err.println();
             e.printStackTrace(System.err);
             final int lenght = printAscii(true, "failed.ascii");
@@ -57,9 +81,28 @@ public final class Main {
         project.execute(init);
     }
 
+    private static void writeMetrics(File workingDir, long start) {
+        JkMetrics.time("build.time", start);
+        final File file = new File(workingDir, JkConstants.BUILD_OUTPUT_PATH + "/" + METRICS_FILE_NAME);
+        JkMetrics.writeJson(file);
+        JkLog.info("Metrics written in " + file.getPath());
+    }
+
+    private static void writeProfile(File workingDir, long start) {
+        JkProfiler.project(null);
+        JkProfiler.record("Jerkar run", start);
+        JkProfiler.stop();
+        final File traceFile = new File(workingDir, JkConstants.BUILD_OUTPUT_PATH + "/" + PROFILE_FILE_NAME);
+        JkProfiler.writeChromeTrace(traceFile);
+        JkLog.infoHeaded("Slowest phases");
+        JkLog.info(JkProfiler.summary(PROFILE_SUMMARY_SIZE));
+        JkLog.info("Chrome trace written in " + traceFile.getPath());
+    }
+
     private static int printAscii(boolean error, String fileName) {
         final InputStream inputStream = Main.class.getResourceAsStream(fileName);
         final List<String> lines = JkUtilsIO.readAsLines(inputStream);
+        JkLog.flush();
         int i = 0;
         for (final String line : lines) {
             if (i < line.length()) {
@@ -1,8 +1,11 @@
 package org.jerkar.tool;
 
+import java.io.File;
 import java.lang.reflect.Modifier;
 import java.util.*;
 
+import org.jerkar.api.file.JkFileTree;
+import org.jerkar.api.file.JkPathFilter;
 import org.jerkar.api.java.JkClassLoader;
 import org.jerkar.api.utils.JkUtilsString;
 
@@ -16,6 +19,8 @@ import org.jerkar.api.utils.JkUtilsString;
  * <p>
  * The convention naming is as follow : The class simple name should be prefixed
  * by the simple name of the plugin base class.<br/>
+ * Plugin classes are looked up in the {@link JkPluginIndex} of each classpath
+ * jar, class directories are scanned.<br/>
  * For example, a plugin class for
  * <code>or.jerkar.java.build.JkBuildPlugin</code> class must be named
  * 'my.package.JkJavaBuildPluginXxxxx.class' to be discovered :Xxxxx will be its
@@ -138,7 +143,7 @@ final class PluginDictionnary<T> {
 
     private static <T> Set<JkPluginDescription<T>> loadPlugins(Class<T> templateClass,
             String... patterns) {
-        final Set<Class<?>> matchingClasses = JkClassLoader.of(templateClass).loadClasses(patterns);
+        final Set<Class<?>> matchingClasses = loadMatchingClasses(JkClassLoader.of(templateClass), patterns);
         final Set<Class<?>> result = new HashSet<Class<?>>();
         for (final Class<?> candidate : matchingClasses) {
             if (templateClass.isAssignableFrom(candidate)
@@ -150,6 +155,39 @@ final class PluginDictionnary<T> {
         return toPluginSet(templateClass, result);
     }
 
+    /*
+     * Classes are taken from the plugin index of each classpath jar, jars without index are ignored.
+     * Directories are always scanned : the index they may contain can be older than their classes.
+     */
+    private static Set<Class<?>> loadMatchingClasses(JkClassLoader classLoader, String... patterns) {
+        final List<String> classFilePatterns = new LinkedList<String>();
+        for (final String pattern : patterns) {
+            classFilePatterns.add(pattern + ".class");
+        }
+        final JkPathFilter filter = JkPathFilter.include(classFilePatterns);
+        final Set<Class<?>> result = new HashSet<Class<?>>();
+        for (final File entry : classLoader.fullClasspath()) {
+            final List<String> indexedClassNames = entry.isFile() ? JkPluginIndex.read(entry) : null;
+            if (indexedClassNames != null) {
+                for (final String className : indexedClassNames) {
+                    if (filter.accept(className.replace('.', '/') + ".class")) {
+                        final Class<?> clazz = classLoader.loadIfExist(className);
+                        if (clazz != null) {
+                            result.add(clazz);
+                        }
+                    }
+                }
+            } else if (entry.isDirectory()) {
+                for (final String path : JkFileTree.of(entry).andFilter(filter).relativePathes()) {
+                    final String className = path.replace('\\', '/').replace('/', '.')
+                            .substring(0, path.length() - ".class".length());
+                    result.add(classLoader.load(className));
+                }
+            }
+        }
+        return result;
+    }
+
     @SuppressWarnings("unchecked")
     private static <T> Set<JkPluginDescription<T>> toPluginSet(Class<T> extendingClass,
             Iterable<Class<?>> classes) {
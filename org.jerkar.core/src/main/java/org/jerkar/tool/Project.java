@@ -8,6 +8,7 @@ import org.jerkar.api.depmanagement.JkDependency;
 import org.jerkar.api.depmanagement.JkDependencyResolver;
 import org.jerkar.api.depmanagement.JkRepo;
 import org.jerkar.api.depmanagement.JkRepos;
+import org.jerkar.api.depmanagement.JkResolutionParameters;
 import org.jerkar.api.depmanagement.JkScopeMapping;
 import org.jerkar.api.file.JkFileTree;
 import org.jerkar.api.file.JkPath;
@@ -17,6 +18,7 @@ import org.jerkar.api.java.JkClasspath;
 import org.jerkar.api.java.JkJavaCompiler;
 import org.jerkar.api.system.JkLocator;
 import org.jerkar.api.system.JkLog;
+import org.jerkar.api.system.JkProfiler;
 import org.jerkar.api.utils.JkUtilsFile;
 import org.jerkar.tool.CommandLine.MethodInvocation;
 
@@ -40,6 +42,8 @@ final class Project {
 
     private final BuildResolver resolver;
 
+    private boolean offline;
+
     /**
      * Constructs a project to its base directory and the download repository.
      * Download repository is used in case the build classes need some
@@ -53,6 +57,15 @@ final class Project {
         this.resolver = new BuildResolver(baseDir);
     }
 
+    /**
+     * As {@link #Project(File)} but resolving build class dependencies against
+     * the local repository cache only if the specified flag is <code>true</code>.
+     */
+    Project(File baseDir, boolean offline) {
+        this(baseDir);
+        this.offline = offline;
+    }
+
     private void preCompile() {
         final JavaSourceParser parser = JavaSourceParser.of(this.projectBaseDir,
                 JkFileTree.of(resolver.buildSourceDir).andFilter(BUILD_SOURCE_FILTER));
@@ -74,6 +87,13 @@ final class Project {
         }
         yetCompiledProjects.add(this.projectBaseDir);
         preCompile(); // This enrich dependencies
+        final String fingerprint = fingerprint(new HashSet<File>());
+        final BuildFingerprint storedFingerprint = BuildFingerprint.of(this.resolver.buildClassDir);
+        if (storedFingerprint.isUpToDate(fingerprint)) {
+            JkLog.trace("Build classes of project " + this.projectBaseDir.getName() + " are up to date.");
+            path.addAll(storedFingerprint.classpath());
+            return;
+        }
         JkLog.startHeaded("Compiling build classes for project " + this.projectBaseDir.getName());
         JkLog.startln("Resolving compilation classpath");
         final JkDependencyResolver buildClassDependencyResolver = getBuildDefDependencyResolver();
@@ -83,9 +103,46 @@ final class Project {
         JkLog.done();
         this.compileBuild(JkPath.of(path));
         path.add(this.resolver.buildClassDir);
+        if (fingerprint != null) {
+            storedFingerprint.save(fingerprint, path);
+        }
         JkLog.done();
     }
 
+    /*
+     * Fingerprint of build sources, dependencies and repositories (including the ones
+     * declared with JkImport) and Jerkar libs, recursively on dependent projects.
+     * Returns null if the build depends on dynamic versions, as they must be resolved at each run.
+     */
+    private String fingerprint(Set<File> visitedProjects) {
+        visitedProjects.add(this.projectBaseDir);
+        final JkDependencies dependencies = this.buildDefDependencies();
+        if (dependencies.hasDynamicVersions()) {
+            return null;
+        }
+        final List<File> files = new LinkedList<File>(JkFileTree.of(resolver.buildSourceDir).files(false));
+        files.addAll(dependencies.localFileDependencies().entries());
+        final List<String> descriptions = new LinkedList<String>();
+        descriptions.add(dependencies.toString());
+        descriptions.add(this.buildRepos.toString());
+        for (final File subProject : this.subProjects) {
+            final File canonicalSubProject = JkUtilsFile.canonicalFile(subProject);
+            if (visitedProjects.contains(canonicalSubProject)) {
+                continue;
+            }
+            final Project project = new Project(subProject);
+            if (project.resolver.hasBuildSource()) {
+                project.preCompile();
+                final String subFingerprint = project.fingerprint(visitedProjects);
+                if (subFingerprint == null) {
+                    return null;
+                }
+                descriptions.add(subProject.getPath() + ":" + subFingerprint);
+            }
+        }
+        return BuildFingerprint.compute(files, descriptions.toArray(new String[0]));
+    }
+
     <T extends JkBuild> T getBuild(Class<T> baseClass) {
         if (resolver.needCompile()) {
             this.compile();
@@ -105,6 +162,7 @@ final class Project {
      * of this project.
      */
     void execute(JkInit init) {
+        this.offline = init.offline();
         this.buildDependencies = this.buildDependencies.andScopeless(init.commandLine().dependencies());
         JkPath runtimeClasspath = compile();
         JkLog.startHeaded("Instantiating build class");
@@ -138,6 +196,7 @@ final class Project {
     }
 
     JkBuild instantiate(JkInit init) {
+        this.offline = init.offline();
         final JkPath runtimePath = compile();
         JkLog.nextLine();
         final BuildAndPluginDictionnary buildAndDict = getBuildInstance(init, runtimePath);
@@ -147,6 +206,40 @@ final class Project {
         return buildAndDict.build;
     }
 
+    /**
+     * Compiles and instantiates the build of this project, then returns the
+     * task running on it the methods specified in command line. Returns
+     * <code>null</code> if no build class can be found. The build and the
+     * task have their own slave builds, not shared with other projects.
+     */
+    Runnable prepare(final JkInit init) {
+        final Map<JkBuild.SubProjectRef, JkBuild> slaves = new HashMap<JkBuild.SubProjectRef, JkBuild>();
+        final Map<JkBuild.SubProjectRef, JkBuild> previous = JkBuild.subProjectContext(slaves);
+        final BuildAndPluginDictionnary buildAndDict;
+        this.offline = init.offline();
+        try {
+            final JkPath runtimePath = compile();
+            buildAndDict = getBuildInstance(init, runtimePath);
+        } finally {
+            JkBuild.subProjectContext(previous);
+        }
+        if (buildAndDict == null) {
+            return null;
+        }
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                final Map<JkBuild.SubProjectRef, JkBuild> previous = JkBuild.subProjectContext(slaves);
+                try {
+                    launch(buildAndDict.build, buildAndDict.dictionnary, init.commandLine());
+                } finally {
+                    JkBuild.subProjectContext(previous);
+                }
+            }
+        };
+    }
+
     private BuildAndPluginDictionnary getBuildInstance(JkInit init, JkPath runtimePath) {
         final JkClassLoader classLoader = JkClassLoader.current();
         classLoader.addEntries(runtimePath);
@@ -208,7 +301,7 @@ final class Project {
                     + toRelativePaths(this.projectBaseDir, this.subProjects));
         }
         for (final File file : this.subProjects) {
-            final Project project = new Project(file);
+            final Project project = new Project(file, offline);
             project.compile(yetCompiledProjects, pathEntries);
             jkPath = jkPath.and(file);
         }
@@ -234,6 +327,7 @@ final class Project {
     private static void runProject(JkBuild build, List<MethodInvocation> invokes,
             PluginDictionnary<JkBuildPlugin> dictionnary) {
         JkLog.infoHeaded("Executing build for project " + build.baseDir().root().getName());
+        JkProfiler.project(build.baseDir().root().getName());
         JkLog.info("Build class : " + build.getClass().getName());
         JkLog.info("Base dir : " + build.baseDir().root().getPath());
         JkLog.info("Activated plugins : " + build.plugins.getActives());
@@ -270,7 +364,8 @@ final class Project {
     private JkDependencyResolver getBuildDefDependencyResolver() {
         final JkDependencies deps = this.buildDefDependencies();
         if (deps.containsModules()) {
-            return JkDependencyResolver.managed(this.buildRepos, deps);
+            return JkDependencyResolver.managed(this.buildRepos, deps)
+                    .withParams(JkResolutionParameters.of().offline(offline));
         }
         return JkDependencyResolver.unmanaged(deps);
     }
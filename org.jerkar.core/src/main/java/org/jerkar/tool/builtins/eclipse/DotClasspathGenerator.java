@@ -317,6 +317,8 @@ final class DotClasspathGenerator {
             allDeps = allDeps.and(this.buildDefDependencyResolver.dependenciesToResolve());
             repos = repos.and(buildDefDependencyResolver.repositories());
         }
+        final JkAttachmentResolver attachments = JkAttachmentResolver.of(repos);
+        attachments.prefetch(resolveResult.involvedModules(), "sources");
 
         // Write direct dependencies (maven module + file system lib + computed deps)
         for (final JkScopedDependency scopedDependency : allDeps) {
@@ -328,7 +330,7 @@ final class DotClasspathGenerator {
                 JkModuleId moduleId = moduleDependency.moduleId();
                 JkVersion version = resolveResult.versionOf(moduleId);
                 JkVersionedModule versionedModule = JkVersionedModule.of(moduleId, version);
-                writeModuleEntry(writer, versionedModule, resolveResult.filesOf(moduleId), repos, paths);
+                writeModuleEntry(writer, versionedModule, resolveResult.filesOf(moduleId), attachments, paths);
             }
 
             // Computed dependencies
@@ -361,7 +363,8 @@ final class DotClasspathGenerator {
         }
 
         // Write transitive maven dependencies
-        writeExternalModuleEntries(writer, resolveResult, paths, repos);
+        writeExternalModuleEntries(writer, resolveResult, paths, attachments);
+        attachments.finish();
     }
 
     private void writeDependenciesEntries2(XMLStreamWriter writer, Set<String> allPaths) throws XMLStreamException {
@@ -373,13 +376,15 @@ final class DotClasspathGenerator {
             allDeps = allDeps.and(this.buildDefDependencyResolver.dependenciesToResolve());
             repos = repos.and(buildDefDependencyResolver.repositories());
         }
+        final JkAttachmentResolver attachments = JkAttachmentResolver.of(repos);
+        attachments.prefetch(resolveResult.involvedModules(), "sources");
         for (JkDependencyNode node : resolveResult.dependencyTree().flatten()) {
             // Maven dependency
             if (node.isModuleNode()) {
                 JkDependencyNode.ModuleNodeInfo moduleNodeInfo = node.moduleInfo();
                 writeModuleEntry(writer,
                         JkVersionedModule.of(moduleNodeInfo.moduleId(), moduleNodeInfo.resolvedVersion()),
-                        moduleNodeInfo.files(), repos, allPaths);
+                        moduleNodeInfo.files(), attachments, allPaths);
 
                 // File dependencies (file system + computed)
             } else {
@@ -395,7 +400,7 @@ final class DotClasspathGenerator {
                 }
             }
         }
-
+        attachments.finish();
     }
 
 
@@ -421,23 +426,24 @@ final class DotClasspathGenerator {
     }
 
     private void writeExternalModuleEntries(final XMLStreamWriter writer,
-                                            JkResolveResult resolveResult, Set<String> paths, JkRepos repos) throws XMLStreamException {
+                                            JkResolveResult resolveResult, Set<String> paths,
+                                            JkAttachmentResolver attachments) throws XMLStreamException {
         for (final JkVersionedModule versionedModule : resolveResult.involvedModules()) {
             JkModuleId moduleId = versionedModule.moduleId();
             JkVersion version = resolveResult.versionOf(moduleId);
             if (version != null) {
                 JkVersionedModule resolvedModule = JkVersionedModule.of(moduleId, version);
-                writeModuleEntry(writer, resolvedModule, resolveResult.filesOf(moduleId), repos, paths);
+                writeModuleEntry(writer, resolvedModule, resolveResult.filesOf(moduleId), attachments, paths);
             }
         }
     }
 
     private void writeModuleEntry(XMLStreamWriter writer, JkVersionedModule versionedModule, Iterable<File> files,
-                                  JkRepos repos, Set<String> paths) throws XMLStreamException {
-        File source = repos.get(JkModuleDependency.of(versionedModule).classifier("sources"));
+                                  JkAttachmentResolver attachments, Set<String> paths) throws XMLStreamException {
+        File source = attachments.get(versionedModule, "sources");
         File javadoc = null;
         if (source == null || !source.exists()) {
-            javadoc = repos.get(JkModuleDependency.of(versionedModule).classifier("javadoc"));
+            javadoc = attachments.get(versionedModule, "javadoc");
         }
         for (final File file : files) {
             writeClasspathEntry(writer, file, source, javadoc, paths, true);
@@ -85,18 +85,13 @@ public final class JkBuildPluginEclipse extends JkJavaBuildPlugin {
     }
 
     /** Generate Eclipse files on all sub folders of the current directory **/
-    @JkDoc("Generate Eclipse files on all subfolder of the current directory. Only subfolder having a build/def directory are impacted.")
+    @JkDoc({ "Generate Eclipse files on all subfolder of the current directory. Only subfolder having a build/def directory are impacted.",
+        "All projects are loaded in a single pass and files are generated concurrently." })
     public void generateAll() {
-        final Iterable<File> folders = build.baseDir()
-                .include("**/" + JkConstants.BUILD_DEF_DIR)
-                .exclude("**/build/output/**")
-                .files(true);
-        for (File folder : folders) {
-            File projectFolder = folder.getParentFile().getParentFile();
-            JkLog.startln("Generating Eclipse files on " + projectFolder);
-            Main.exec(projectFolder, "eclipse#generateFiles");
-            JkLog.done();
-        }
+        final JkWorkspace workspace = JkWorkspace.of(build.baseDir().root());
+        JkLog.startln("Generating Eclipse files on " + workspace.projectDirs().size() + " projects");
+        workspace.execute(Runtime.getRuntime().availableProcessors(), "eclipse#generateFiles");
+        JkLog.done();
     }
 
     @Override
@@ -249,12 +249,23 @@ final class ImlGenerator {
 
         final JkResolveResult resolveResult = resolver.resolve();
         final JkDependencyNode tree = resolveResult.dependencyTree();
+        final JkAttachmentResolver attachments = JkAttachmentResolver.of(resolver.repositories());
+        attachments.prefetch(resolveResult.involvedModules(), "sources", "javadoc");
+        try {
+            writeDependencies(tree, attachments, allPaths, allModules, forceTest);
+        } finally {
+            attachments.finish();
+        }
+    }
+
+    private void writeDependencies(JkDependencyNode tree, JkAttachmentResolver attachments, Set<File> allPaths,
+                                   Set<File> allModules, boolean forceTest) throws XMLStreamException {
         for (final JkDependencyNode node : tree.flatten()) {
 
             // Maven dependency
             if (node.isModuleNode()) {
                 String ideScope = forceTest ? "TEST" : ideScope(node.moduleInfo().resolvedScopes());
-                final List<LibPath> paths = toLibPath(node.moduleInfo(), resolver.repositories(), ideScope);
+                final List<LibPath> paths = toLibPath(node.moduleInfo(), attachments, ideScope);
                 for (LibPath libPath : paths) {
                     if (!allPaths.contains(libPath.bin)) {
                         writeOrderEntryForLib(libPath);
@@ -291,7 +302,7 @@ final class ImlGenerator {
         }
     }
 
-    private List<LibPath> toLibPath(JkDependencyNode.ModuleNodeInfo moduleInfo, JkRepos repos,
+    private List<LibPath> toLibPath(JkDependencyNode.ModuleNodeInfo moduleInfo, JkAttachmentResolver attachments,
                                     String scope) {
         final List<LibPath> result = new LinkedList<LibPath>();
         final JkModuleId moduleId = moduleInfo.moduleId();
@@ -302,8 +313,8 @@ final class ImlGenerator {
             LibPath libPath = new LibPath();
             libPath.bin = file;
             libPath.scope = scope;
-            libPath.source = repos.get(JkModuleDependency.of(versionedModule).classifier("sources"));
-            libPath.javadoc = repos.get(JkModuleDependency.of(versionedModule).classifier("javadoc"));
+            libPath.source = attachments.get(versionedModule, "sources");
+            libPath.javadoc = attachments.get(versionedModule, "javadoc");
             result.add(libPath);
         }
         return result;
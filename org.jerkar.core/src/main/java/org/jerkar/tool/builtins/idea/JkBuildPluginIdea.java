@@ -62,18 +62,13 @@ public final class JkBuildPluginIdea extends JkJavaBuildPlugin {
         modulesXmlGenerator.generate();
     }
 
-    @JkDoc("Generates iml files on this folder and its descendant recursively.")
+    @JkDoc({ "Generates iml files on this folder and its descendant recursively.",
+        "All projects are loaded in a single pass and files are generated concurrently." })
     public void generateAllIml() {
-        Iterable<File> folders = build.baseDir()
-                .include("**/" + JkConstants.BUILD_DEF_DIR)
-                .exclude("**/build/output/**")
-                .files(true);
-        for (File folder : folders) {
-            File projectFolder = folder.getParentFile().getParentFile();
-            JkLog.startln("Generating iml file on " + projectFolder);
-            Main.exec(projectFolder, "idea#generateIml");
-            JkLog.done();
-        }
+        final JkWorkspace workspace = JkWorkspace.of(build.baseDir().root());
+        JkLog.startln("Generating iml files on " + workspace.projectDirs().size() + " projects");
+        workspace.execute(Runtime.getRuntime().availableProcessors(), "idea#generateIml");
+        JkLog.done();
     }
 
     @JkDoc(("Shorthand for #generateAllIml + generateModulesXml"))
@@ -26,12 +26,14 @@ import org.jerkar.api.java.JkManifest;
 import org.jerkar.api.java.JkResourceProcessor;
 import org.jerkar.api.java.junit.JkUnit;
 import org.jerkar.api.java.junit.JkUnit.JunitReportDetail;
+import org.jerkar.api.java.junit.JkUnit.Parallelism;
 import org.jerkar.api.system.JkLog;
 import org.jerkar.api.tooling.JkCodeWriterForBuildClass;
-import org.jerkar.api.tooling.JkMvn;
+import org.jerkar.api.tooling.JkPom;
 import org.jerkar.api.utils.JkUtilsJdk;
 import org.jerkar.api.utils.JkUtilsString;
 import org.jerkar.tool.JkBuildDependencySupport;
+import org.jerkar.tool.JkDependsOn;
 import org.jerkar.tool.JkDoc;
 import org.jerkar.tool.JkException;
 import org.jerkar.tool.JkOptions;
@@ -143,6 +145,22 @@ public class JkJavaBuild extends JkBuildDependencySupport {
     @JkDoc("Manifest")
     public final JkManifestOption manifest = new JkManifestOption();
 
+    /**
+     * Packing depends on tests when test classes are packed while verifying
+     * depends on both tests and packaging.
+     */
+    @Override
+    protected List<String> methodDependencies(String methodName) {
+        final List<String> result = new LinkedList<String>(super.methodDependencies(methodName));
+        if ("pack".equals(methodName) && pack.tests) {
+            result.add("unitTest");
+        } else if ("verify".equals(methodName)) {
+            result.add("unitTest");
+            result.add("pack");
+        }
+        return result;
+    }
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     @Override
     protected List<Class<Object>> pluginTemplateClasses() {
@@ -327,7 +345,19 @@ public class JkJavaBuild extends JkBuildDependencySupport {
                     this.tests.jvmOptions);
             result = result.forked(javaProcess, true);
         }
-        return result.withOutputOnConsole(this.tests.output || JkLog.verbose());
+        if (this.tests.selective) {
+            result = result.withImpactAnalysis(new File(this.testReportDir(), "impact"),
+                    this.tests.fullRunPeriod);
+        }
+        if (this.tests.ordered) {
+            result = result.withHistory(new File(this.testReportDir(), "history"));
+        }
+        if (!JkUtilsString.isBlank(this.tests.sequential)) {
+            result = result.withSequentialClasses(JkUtilsString.split(this.tests.sequential, ","));
+        }
+        return result.withFailFast(this.tests.failFast).withSharedLibraries(this.tests.shareLibraries)
+                .withParallelism(this.tests.parallel, this.tests.threads)
+                .withOutputOnConsole(this.tests.output || JkLog.verbose());
     }
 
     /**
@@ -397,10 +427,10 @@ public class JkJavaBuild extends JkBuildDependencySupport {
 
     private Object scaffoldedBuildClassCode() {
         final JkCodeWriterForBuildClass codeWriter = new JkCodeWriterForBuildClass();
-        if (baseDir().file("pom.xml").exists() && JkMvn.INSTALLED) {
-            JkLog.info("pom.xml detected and Maven installed : try to generate build class to existing pom.");
+        if (baseDir().file("pom.xml").exists()) {
+            JkLog.info("pom.xml detected : try to generate build class to existing pom.");
             try {
-                return JkMvn.of(baseDir().root()).createBuildClassCode(null, "Build", baseDir());
+                return JkPom.of(baseDir().file("pom.xml"), downloadRepositories()).jerkarSourceCode(baseDir());
             } catch (final RuntimeException e) {
                 e.printStackTrace();
                 JkLog.info("Maven migration failed. Just generate standard build class.");
@@ -430,6 +460,7 @@ public class JkJavaBuild extends JkBuildDependencySupport {
 
     /** Compiles and runs all unit tests. */
     @JkDoc("Compiles and runs all unit tests.")
+    @JkDependsOn("compile")
     public void unitTest() {
         this.generateUnitTestSources();
         if (!checkProcessTests(unitTestSources())) {
@@ -466,6 +497,7 @@ public class JkJavaBuild extends JkBuildDependencySupport {
     @JkDoc({
         "Creates many jar files containing respectively binaries, sources, test binaries and test sources.",
     "The jar containing the binary is the one that will be used as a depe,dence for other project." })
+    @JkDependsOn("compile")
     public void pack() {
         packer().pack();
     }
@@ -483,21 +515,26 @@ public class JkJavaBuild extends JkBuildDependencySupport {
     "This can work only if a 'publishable' repository has been defined and the artifact has been generated (pack method)." })
     public void publish() {
         final JkDependencies dependencies = dependencyResolver().dependenciesToResolve();
-        final JkVersionProvider resolvedVersions = this.dependencyResolver()
-                .resolve(this.dependencies().involvedScopes()).resolvedVersionProvider();
         if (this.publisher().hasMavenPublishRepo()) {
             final JkMavenPublication publication = mavenPublication();
             final JkDependencies deps = effectiveVersion().isSnapshot() ? dependencies
-                    .resolvedWith(resolvedVersions) : dependencies;
+                    .resolvedWith(resolvedVersions()) : dependencies;
                     this.publisher().publishMaven(versionedModule(), publication, deps);
         }
         if (this.publisher().hasIvyPublishRepo()) {
             final Date date = this.buildTime();
             this.publisher().publishIvy(versionedModule(), ivyPublication(), dependencies, COMPILE,
-                    DEFAULT_SCOPE_MAPPING, date, resolvedVersions);
+                    DEFAULT_SCOPE_MAPPING, date, resolvedVersions());
         }
     }
 
+    // The dependency resolver keeps results in cache so this does not trigger a new resolution
+    // if the build has already resolved these scopes.
+    private JkVersionProvider resolvedVersions() {
+        return this.dependencyResolver().resolve(this.dependencies().involvedScopes())
+                .resolvedVersionProvider();
+    }
+
 
 
     // ----------------------- Overridable sub-methods ---------------------
@@ -686,8 +723,8 @@ public class JkJavaBuild extends JkBuildDependencySupport {
         pack();
     }
 
-    /** Lifecycle method : #doUnitTest + #pack */
-    @JkDoc("Lifecycle method : #doUnitTest + #pack")
+    /** Lifecycle method : #doPack + #verify */
+    @JkDoc("Lifecycle method : #doPack + #verify")
     public void doVerify() {
         doPack();
         verify();
@@ -772,6 +809,44 @@ public class JkJavaBuild extends JkBuildDependencySupport {
         @JkDoc("Turn it on to display System.out and System.err on console while executing tests.")
         public boolean output;
 
+        /** Turn it on to run only the tests impacted by changes since the last run. */
+        @JkDoc({ "Turn it on to run only the test classes impacted by changes since the last run.",
+            "Test classes that have failed or that depend on a changed class are run again." })
+        public boolean selective;
+
+        /** When running selectively, all tests are run each <code>fullRunPeriod</code> runs. */
+        @JkDoc("When running selectively, all tests are run each fullRunPeriod runs (0 for never).")
+        public int fullRunPeriod = 10;
+
+        /** Turn it off to run test classes in the order they are found. */
+        @JkDoc({ "Turn it off to run test classes in the order they are found.",
+            "Otherwise test classes that have failed recently run first, then the ones that have changed, fastest first." })
+        public boolean ordered = true;
+
+        /** Turn it on to stop running tests as soon as a test class fails. */
+        @JkDoc("Turn it on to stop running tests as soon as a test class fails.")
+        public boolean failFast;
+
+        /** Turn it on to share a class loader holding the libraries between modules having the same ones. */
+        @JkDoc({ "Turn it on to share a class loader holding the libraries between modules having the same ones, when tests are not forked.",
+            "Library classes and resources then take precedence over the module ones, and library static state is shared between modules." })
+        public boolean shareLibraries;
+
+        /** Level at which tests run concurrently when they are not forked. */
+        @JkDoc({ "Level at which tests run concurrently when they are not forked : NONE, CLASSES or METHODS.",
+            "Tests have to be thread-safe. Example : -tests.parallel=CLASSES" })
+        public Parallelism parallel = Parallelism.NONE;
+
+        /** Number of threads running tests concurrently, 0 meaning one per processor. */
+        @JkDoc("Number of threads running tests concurrently, 0 meaning one per processor.")
+        public int threads;
+
+        /** Comma separated Ant patterns of the test classes to run one after the other when tests run concurrently. */
+        @JkDoc({ "Comma separated Ant patterns of the test classes to run one after the other when tests run concurrently.",
+            "Patterns apply to class names with dots replaced by slashes. Example : -tests.sequential=**/*IT,com/foo/db/**",
+            "Test classes annotated with a runtime annotation named NotThreadSafe run one after the other as well." })
+        public String sequential;
+
     }
 
     /**
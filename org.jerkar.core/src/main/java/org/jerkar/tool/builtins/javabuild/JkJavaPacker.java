@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Set;
 
 import org.jerkar.api.crypto.pgp.JkPgp;
+import org.jerkar.api.crypto.pgp.JkPgpSigner;
 import org.jerkar.api.file.JkFileTree;
 import org.jerkar.api.file.JkFileTreeSet;
 import org.jerkar.api.file.JkPathFilter;
@@ -15,6 +16,7 @@ import org.jerkar.api.system.JkLog;
 import org.jerkar.api.utils.JkUtilsFile;
 import org.jerkar.api.utils.JkUtilsIterable;
 import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.tool.JkPluginIndex;
 
 /**
  * Jar maker for the {@link JkJavaBuild} template. This maker will get
@@ -167,9 +169,12 @@ public class JkJavaPacker implements Cloneable {
         if (!manifest.isEmpty()) {
             manifest.writeToStandardLocation(build.classDir());
         }
+        if (build.classDir().exists()) {
+            JkPluginIndex.generate(build.classDir(), build.depsFor(JkJavaBuild.COMPILE, JkJavaBuild.PROVIDED));
+        }
         if (doJar && !JkUtilsFile.isEmpty(build.classDir(), false)) {
-            JkFileTreeSet.of(build.classDir()).and(extraFilesInJar).zip().to(jarFile()).md5If(checkSums.contains("MD5"))
-            .sha1If(checkSums.contains("SHA-1"));
+            JkFileTreeSet.of(build.classDir()).and(extraFilesInJar).zip().to(jarFile())
+            .md5If(pgp == null && checkSums.contains("MD5")).sha1If(pgp == null && checkSums.contains("SHA-1"));
         }
         final JkFileTreeSet sourceAndResources = build.sources().and(build.resources());
         if (doSources && sourceAndResources.countFiles(false) > 0) {
@@ -184,8 +189,8 @@ public class JkJavaPacker implements Cloneable {
         }
         if (doFatJar) {
             JkFileTreeSet.of(build.classDir()).and(extraFilesInJar).zip().merge(build.depsFor(JkJavaBuild.RUNTIME))
-            .to(fatJarFile(), fatJarEntryFilter).md5If(checkSums.contains("MD5"))
-            .sha1If(checkSums.contains("SHA-1"));
+            .to(fatJarFile(), fatJarEntryFilter).md5If(pgp == null && checkSums.contains("MD5"))
+            .sha1If(pgp == null && checkSums.contains("SHA-1"));
         }
         for (final JkExtraPacking action : this.extraActions) {
             action.process(build);
@@ -195,8 +200,16 @@ public class JkJavaPacker implements Cloneable {
         }
         if (pgp != null) {
             JkLog.start("Sign artifacts");
-            pgp.sign(jarFile(), jarSourceFile(), jarTestFile(), jarTestSourceFile(), fatJarFile(),
-                    javadocFile());
+            final JkPgpSigner signer = pgp.signer();
+            final List<String> algorithms = new LinkedList<String>();
+            for (final String algorithm : new String[] { "MD5", "SHA-1" }) {
+                if (checkSums.contains(algorithm)) {
+                    algorithms.add(algorithm);
+                }
+            }
+            // Checksums of the jars are computed while signing them, reading each jar once
+            signer.withChecksums(algorithms.toArray(new String[0])).sign(jarFile(), fatJarFile());
+            signer.sign(jarSourceFile(), jarTestFile(), jarTestSourceFile(), javadocFile());
             JkLog.done();
         }
         JkLog.done();
@@ -0,0 +1,94 @@
+package org.jerkar.tool.builtins.javabuild.jee;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jerkar.api.utils.JkUtilsFile;
+
+/**
+ * Keeps an exploded war directory in sync with the files it is made of. A
+ * manifest, stored beside the directory, records the source of each entry
+ * along its size and modification time at the last synchronization. So only
+ * entries whose source has changed are copied again (sources rewritten with
+ * the same content are not), and entries that are not part of the war anymore
+ * are deleted. Files the manifest does not know about (as the ones an
+ * application server may create) are left untouched.
+ *
+ * @author Jerome Angibaud
+ */
+final class ExplodedWarSync {
+
+    private final File dir;
+
+    private final File manifestFile;
+
+    private ExplodedWarSync(File dir, File manifestFile) {
+        this.dir = dir;
+        this.manifestFile = manifestFile;
+    }
+
+    /**
+     * Creates a synchronizer for the specified exploded directory.
+     */
+    static ExplodedWarSync of(File dir) {
+        return new ExplodedWarSync(dir, new File(dir.getParentFile(), dir.getName() + ".sync"));
+    }
+
+    /**
+     * Synchronizes the directory with the specified files, by entry name, and
+     * returns the number of entries copied or deleted.
+     */
+    int sync(Map<String, File> entries) {
+        final Map<String, String> previous = manifestFile.exists() && dir.exists()
+                ? JkUtilsFile.readPropertyFileAsMap(manifestFile) : new HashMap<String, String>();
+        final Map<String, String> current = new TreeMap<String, String>();
+        int changes = 0;
+        for (final Map.Entry<String, File> entry : entries.entrySet()) {
+            final File source = entry.getValue();
+            final String stamp = source.getAbsolutePath() + "|" + source.length() + "|" + source.lastModified();
+            final File target = new File(dir, entry.getKey());
+            if (!target.exists()
+                    || (!stamp.equals(previous.get(entry.getKey())) && !sameContent(source, target))) {
+                JkUtilsFile.copyFile(source, target);
+                changes++;
+            }
+            current.put(entry.getKey(), stamp);
+        }
+        for (final String entryName : previous.keySet()) {
+            if (!current.containsKey(entryName)) {
+                final File target = new File(dir, entryName);
+                if (target.delete()) {
+                    changes++;
+                    deleteEmptyParents(target.getParentFile());
+                }
+            }
+        }
+        if (!current.equals(previous)) {
+            JkUtilsFile.writePropertyFile(manifestFile, current, "Source of each entry of " + dir.getName());
+        }
+        return changes;
+    }
+
+    // Sources regenerated identically, as recompiled classes, do not need to be copied again
+    private static boolean sameContent(File source, File target) {
+        if (!target.exists() || source.length() != target.length()) {
+            return false;
+        }
+        return Arrays.equals(JkUtilsFile.readAsBytes(source), JkUtilsFile.readAsBytes(target));
+    }
+
+    private void deleteEmptyParents(File folder) {
+        File current = folder;
+        while (current != null && !current.equals(dir)) {
+            final String[] children = current.list();
+            if (children == null || children.length > 0 || !current.delete()) {
+                return;
+            }
+            current = current.getParentFile();
+        }
+    }
+
+}
@@ -1,16 +1,30 @@
 package org.jerkar.tool.builtins.javabuild.jee;
 
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipOutputStream;
 
 import org.jerkar.api.file.JkFileTree;
 import org.jerkar.api.file.JkFileTreeSet;
 import org.jerkar.api.file.JkPath;
+import org.jerkar.api.system.JkMetrics;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsIO;
+import org.jerkar.api.utils.JkUtilsString;
+import org.jerkar.api.utils.JkUtilsZip;
 import org.jerkar.tool.builtins.javabuild.JkJavaBuild;
 import org.jerkar.tool.builtins.javabuild.JkJavaPacker.JkExtraPacking;
 
 /**
  * War and Ear maker for {@link JkJavaBuild}. This maker will get information
  * to supplied java builder to create relevant jars.
+ * <p>
+ * Archives are written straight from their sources : files are read once and
+ * written once, with no intermediate exploded directory. Archives embedded in
+ * archives (jars in wars, wars in ears) are stored as is, as they are already
+ * compressed.
  *
  * @author Jerome Angibaud
  */
@@ -27,18 +41,53 @@ class JeePacker {
         this.build = build;
     }
 
-
-    void war(File webappSrc, File warDirDest, JkFileTreeSet extra) {
+    /**
+     * Returns the files making up the war, by entry name. Entries come from
+     * the webapp sources, the compiled classes, the runtime dependencies and
+     * the specified extra resources : when several sources provide a same
+     * entry, the last one wins.
+     */
+    Map<String, File> warEntries(File webappSrc, JkFileTreeSet extra) {
         if (!new File(webappSrc, "WEB-INF/web.xml").exists()) {
             throw new IllegalStateException("The directory " + webappSrc.getPath()
                     + " does not contains WEB-INF" + File.separator + "web.xml file");
         }
+        final Map<String, File> result = new LinkedHashMap<String, File>();
+        addEntries(result, "", JkFileTree.of(webappSrc));
+        addEntries(result, "WEB-INF/classes/", JkFileTree.of(build.classDir()));
         final JkPath path = build.depsFor(JkJavaBuild.RUNTIME);
-        JkFileTree.of(warDirDest).importDirContent(webappSrc)
-                .go("WEB-INF/classes").importDirContent(build.classDir())
-                .go("../lib").importFiles(path);
-        extra.copyTo(warDirDest);
+        for (final File file : path) {
+            if (file.isFile()) {
+                result.put("WEB-INF/lib/" + file.getName(), file);
+            }
+        }
+        for (final JkFileTree fileTree : extra.fileTrees()) {
+            addEntries(result, "", fileTree);
+        }
+        return result;
+    }
+
+    /**
+     * Synchronizes the specified exploded war directory : only the entries
+     * that have changed since the last synchronization are copied and the
+     * ones that are not part of the war anymore are deleted. If something has
+     * changed, the specified reload marker file, relative to the directory, is
+     * touched (if not blank) so application servers watching it redeploy the
+     * application.
+     * Returns the number of entries copied or deleted.
+     */
+    int war(File webappSrc, File warDirDest, JkFileTreeSet extra, String reloadMarker) {
+        final int changes = ExplodedWarSync.of(warDirDest).sync(warEntries(webappSrc, extra));
+        if (changes > 0 && !JkUtilsString.isBlank(reloadMarker)) {
+            final File marker = new File(warDirDest, reloadMarker);
+            JkUtilsFile.createFileIfNotExist(marker);
+            marker.setLastModified(System.currentTimeMillis());
+        }
+        return changes;
+    }
 
+    void warFile(File webappSrc, File destFile, JkFileTreeSet extra) {
+        archive(warEntries(webappSrc, extra), destFile);
     }
 
     JkExtraPacking warExtraPacking(final File webappSrc, final File warDirDest, final JkFileTreeSet extra) {
@@ -46,15 +95,47 @@ class JeePacker {
 
             @Override
             public void process(JkJavaBuild build) {
-                war(webappSrc, warDirDest, extra);
+                war(webappSrc, warDirDest, extra, null);
             }
         };
     }
 
+    public void ear(Iterable<File> warFiles, File earSrc, File destFile) {
+        final Map<String, File> entries = new LinkedHashMap<String, File>();
+        addEntries(entries, "", JkFileTree.of(earSrc));
+        for (final File warFile : warFiles) {
+            entries.put(warFile.getName(), warFile);
+        }
+        archive(entries, destFile);
+    }
+
+    private static void addEntries(Map<String, File> entries, String prefix, JkFileTree fileTree) {
+        if (!fileTree.exists()) {
+            return;
+        }
+        for (final File file : fileTree.files(false)) {
+            final String relativePath = JkUtilsFile.getRelativePath(fileTree.root(), file)
+                    .replace(File.separatorChar, '/');
+            entries.put(prefix + relativePath, file);
+        }
+    }
 
+    private static void archive(Map<String, File> entries, File destFile) {
+        final long start = System.nanoTime();
+        final ZipOutputStream zos = JkUtilsZip.createZipOutputStream(destFile, Deflater.DEFAULT_COMPRESSION);
+        for (final Map.Entry<String, File> entry : entries.entrySet()) {
+            JkUtilsZip.addZipEntry(zos, entry.getValue(), entry.getKey(), isArchive(entry.getKey()));
+        }
+        JkUtilsIO.finish(zos);
+        JkUtilsIO.closeOrFail(zos);
+        JkMetrics.time("zip.time", start);
+        JkMetrics.add("zip.entries", entries.size());
+        JkMetrics.add("zip.bytes", destFile.length());
+    }
 
-    public void ear(Iterable<File> warFiles, File earSrc, File destDir, File destFile) {
-        JkFileTree.of(destDir).importDirContent(earSrc).importFiles(warFiles).zip().to(destFile);
+    private static boolean isArchive(String entryName) {
+        final String name = entryName.toLowerCase();
+        return name.endsWith(".jar") || name.endsWith(".war") || name.endsWith(".zip");
     }
 
 }
@@ -31,6 +31,19 @@ public class JkBuildPluginWar extends JkJavaBuildPlugin {
     @JkDoc("True to produce a regular jar containing classes and resources.")
     public boolean regularJar = false;
 
+    /** True to maintain also an exploded war directory, as for hot deploy. */
+    @JkDoc({ "True to maintain also an exploded war directory, as for hot deploy.",
+        "The war file itself is always written straight from the sources." })
+    public boolean exploded = false;
+
+    /**
+     * File, relative to the exploded war directory, touched when its content changes.
+     * Leave it blank to not touch any file.
+     */
+    @JkDoc({ "File, relative to the exploded war directory, touched when its content changes so the",
+        "application server reloads the application. Leave it blank to not touch any file." })
+    public String reloadMarker = "WEB-INF/web.xml";
+
     private JkFileTreeSet importedStaticResources = JkFileTreeSet.empty();
 
     @Override
@@ -45,6 +58,13 @@ public class JkBuildPluginWar extends JkJavaBuildPlugin {
         return this.build.ouputDir(build.packer().baseName() + ".war");
     }
 
+    /**
+     * Returns the exploded war directory, maintained only if {@link #exploded} is <code>true</code>.
+     */
+    public File explodedWarDir() {
+        return this.build.ouputDir(build.packer().baseName() + "-war");
+    }
+
     private File webappSrcFile() {
         return build.file(webappSrc);
     }
@@ -59,9 +79,11 @@ public class JkBuildPluginWar extends JkJavaBuildPlugin {
                 @Override
                 public void process(JkJavaBuild build) {
                     JkLog.startln("Creating war file");
-                    final File dir = build.ouputDir(packer.baseName() + "-war");
-                    JeePacker.of(build).war(webappSrcFile(), dir, importedStaticResources);
-                    JkFileTree.of(dir).zip().to(warFile());
+                    final JeePacker jeePacker = JeePacker.of(build);
+                    jeePacker.warFile(webappSrcFile(), warFile(), importedStaticResources);
+                    if (exploded) {
+                        jeePacker.war(webappSrcFile(), explodedWarDir(), importedStaticResources, reloadMarker);
+                    }
                     JkLog.done();
                 }
             });
@@ -71,6 +93,20 @@ public class JkBuildPluginWar extends JkJavaBuildPlugin {
         return builder.build();
     }
 
+    /**
+     * Synchronizes the exploded war directory with the webapp sources, the
+     * compiled classes and the runtime dependencies, copying only what has
+     * changed since the last synchronization.
+     */
+    @JkDoc({ "Synchronizes the exploded war directory copying only what has changed since last time,",
+        "then touches the reload marker. Run it after compilation, as 'compile war#sync'." })
+    public void sync() {
+        JkLog.startln("Synchronizing exploded war directory " + explodedWarDir().getPath());
+        final int changes = JeePacker.of(build).war(webappSrcFile(), explodedWarDir(), importedStaticResources,
+                reloadMarker);
+        JkLog.done(changes + " entries copied or deleted");
+    }
+
     /**
      * The content of the specified {@link JkFileTreeSet} will be imported as static resources of the web application.
      */
@@ -3,6 +3,7 @@ package org.jerkar.api.crypto.pgp;
 import java.io.File;
 
 import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.Assert;
 import org.junit.Test;
 
 @SuppressWarnings("javadoc")
@@ -22,6 +23,30 @@ public class JkPgpTest {
         // Assert.assertTrue(result);
     }
 
+    @Test
+    public void testSignSeveralFilesWithChecksums() {
+        final File pubFile = JkUtilsFile.fromUrl(JkPgpTest.class.getResource("pubring.gpg"));
+        final File secringFile = JkUtilsFile.fromUrl(JkPgpTest.class.getResource("secring.gpg"));
+        final JkPgp pgp = JkPgp.of(pubFile, secringFile, "jerkar");
+        final File dir = JkUtilsFile.createTempDir("pgp-signer");
+        final File[] files = new File[5];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = new File(dir, "file" + i + ".txt");
+            JkUtilsFile.writeString(files[i], "content " + i, false);
+        }
+        final File[] signatures = pgp.signer().withChecksums("MD5", "SHA-1").sign(files);
+        for (int i = 0; i < files.length; i++) {
+            Assert.assertEquals(new File(dir, "file" + i + ".txt.asc"), signatures[i]);
+            Assert.assertTrue(pgp.verify(files[i], signatures[i]));
+            Assert.assertEquals(JkUtilsFile.checksum(files[i], "MD5"),
+                    JkUtilsFile.read(new File(dir, "file" + i + ".txt.md5")).trim());
+            Assert.assertEquals(JkUtilsFile.checksum(files[i], "SHA-1"),
+                    JkUtilsFile.read(new File(dir, "file" + i + ".txt.sha1")).trim());
+        }
+        Assert.assertSame(pgp.signer(), pgp.signer());
+        JkUtilsFile.deleteDir(dir);
+    }
+
     @Test(expected = RuntimeException.class)
     public void testSignWithBadSignature() {
         final File pubFile = JkUtilsFile.fromUrl(JkPgpTest.class.getResource("pubring.gpg"));
@@ -0,0 +1,57 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsIterable;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ArtifactVerifierTest {
+
+    @Test
+    public void testChecksums() throws Exception {
+        final File root = File.createTempFile("jerkarVerify", "");
+        root.delete();
+        final File repoDir = new File(root, "repo");
+        final File cacheDir = new File(root, "cache");
+        cacheDir.mkdirs();
+        final File published = new File(repoDir, "org/jerkar/core/1.0/core-1.0.jar");
+        published.getParentFile().mkdirs();
+        JkUtilsFile.writeString(published, "published content", false);
+        final File good = new File(cacheDir, "good/core-1.0.jar");
+        good.getParentFile().mkdirs();
+        JkUtilsFile.copyFile(published, good);
+        final File tampered = new File(cacheDir, "tampered/core-1.0.jar");
+        tampered.getParentFile().mkdirs();
+        JkUtilsFile.writeString(tampered, "tampered content", false);
+        JkUtilsFile.writeString(new File(published.getPath() + ".sha1"),
+                JkUtilsFile.checksum(published, "SHA-1") + "  core-1.0.jar", false);
+
+        final JkArtifactVerification verification = JkArtifactVerification.of().withThreadCount(2);
+        final ArtifactVerifier verifier = new ArtifactVerifier(verification, JkRepos.maven(repoDir),
+                VerifiedArtifactIndex.of(cacheDir));
+        Assert.assertTrue(verifier.verify(tree(good)).isEmpty());
+        Assert.assertTrue(VerifiedArtifactIndex.of(cacheDir).isVerified(good, verification.toString()));
+
+        final List<JkModuleDepProblem> problems = verifier.verify(tree(tampered));
+        Assert.assertEquals(1, problems.size());
+        Assert.assertEquals(JkModuleId.of("org.jerkar:core"), problems.get(0).getModuleId());
+        Assert.assertFalse(tampered.exists());
+        JkUtilsFile.deleteDir(root);
+    }
+
+    private static JkDependencyNode tree(File artifact) {
+        final JkModuleId moduleId = JkModuleId.of("org.jerkar:core");
+        final JkDependencyNode.ModuleNodeInfo info = new JkDependencyNode.ModuleNodeInfo(moduleId,
+                JkVersionRange.of("1.0"), new HashSet<JkScope>(), new HashSet<JkScope>(), JkVersion.name("1.0"),
+                JkUtilsIterable.listOf(artifact));
+        final JkDependencyNode node = JkDependencyNode.ofModuleDep(info, JkUtilsIterable.<JkDependencyNode>listOf());
+        return JkDependencyNode.ofModuleDep(JkDependencyNode.ModuleNodeInfo.anonymousRoot(),
+                JkUtilsIterable.listOf(node));
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.resolve.ResolveData;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class IvyRoutingChainResolverTest {
+
+    private final List<String> queried = Collections.synchronizedList(new LinkedList<String>());
+
+    private File cacheDir;
+
+    private IvySettings settings;
+
+    private IvyRoutingChainResolver chain;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheDir = File.createTempFile("jerkarCache", "");
+        cacheDir.delete();
+        cacheDir.mkdirs();
+        settings = new IvySettings();
+        settings.setDefaultCache(cacheDir);
+        chain = new IvyRoutingChainResolver(RepoRoutingTable.of(cacheDir,
+                RepoRoutingTable.DEFAULT_NEGATIVE_TTL));
+        chain.setName("main");
+        chain.setSettings(settings);
+        chain.add(new RecordingResolver("repo1", false), JkRepo.maven("http://repo1"));
+        chain.add(new RecordingResolver("repo2", true), JkRepo.maven("http://repo2"));
+    }
+
+    @After
+    public void tearDown() {
+        JkUtilsFile.deleteDir(cacheDir);
+    }
+
+    @Test
+    public void routedModuleOnlyHitsItsRepository() throws Exception {
+        chain.routingTable().found("org.foo:bar", "org.foo:bar:1.0", "repo2");
+        final ResolvedModuleRevision result = chain.getDependency(dependency("1.0"), resolveData());
+
+        Assert.assertNotNull(result);
+        Assert.assertEquals("repo2", result.getResolver().getName());
+        Assert.assertEquals(Collections.singletonList("repo2"), queried);
+        Assert.assertEquals(2, chain.getResolvers().size());
+    }
+
+    @Test
+    public void unroutedModuleIsRoutedOnceFound() throws Exception {
+        chain.getDependency(dependency("1.0"), resolveData());
+        Assert.assertEquals("repo2", chain.routingTable().route("org.foo:bar"));
+        Assert.assertEquals(Arrays.asList("repo1", "repo2"), queried);
+        Assert.assertEquals(2, chain.getResolvers().size());
+    }
+
+    private ResolveData resolveData() {
+        return new ResolveData(Ivy.newInstance(settings).getResolveEngine(), new ResolveOptions());
+    }
+
+    private static DependencyDescriptor dependency(String version) {
+        return new DefaultDependencyDescriptor(ModuleRevisionId.newInstance("org.foo", "bar", version),
+                false);
+    }
+
+    // Records the lookups it receives and finds every module if told so
+    private final class RecordingResolver extends FileSystemResolver {
+
+        private final boolean hosting;
+
+        RecordingResolver(String name, boolean hosting) {
+            this.hosting = hosting;
+            setName(name);
+            setSettings(settings);
+        }
+
+        @Override
+        public ResolvedModuleRevision getDependency(DependencyDescriptor dd, ResolveData data)
+                throws ParseException {
+            queried.add(getName());
+            if (!hosting) {
+                return null;
+            }
+            return new ResolvedModuleRevision(this, this,
+                    DefaultModuleDescriptor.newDefaultInstance(dd.getDependencyRevisionId()), null);
+        }
+
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.jerkar.api.system.JkLocator;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class JkAttachmentResolverTest {
+
+    private static final String GROUP = "org.jerkar.attachmenttest";
+
+    private File workDir;
+
+    private File repoDir;
+
+    private File missFile;
+
+    private JkVersionedModule module;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = File.createTempFile("jerkarAttachments", "");
+        workDir.delete();
+        repoDir = new File(workDir, "repo");
+        missFile = new File(workDir, "misses.properties");
+
+        // A version of its own, so nothing is found in the repository cache
+        final String version = Long.toString(System.currentTimeMillis());
+        module = JkVersionedModule.of(JkModuleId.of(GROUP, "bar"), JkVersion.name(version));
+        writeArtifact(version, "sources");
+    }
+
+    @After
+    public void tearDown() {
+        JkUtilsFile.deleteDir(workDir);
+        JkUtilsFile.deleteDir(new File(JkLocator.jerkarRepositoryCache(), GROUP));
+    }
+
+    @Test
+    public void fetchesAttachmentsAndRemembersMissesPerRepositories() throws Exception {
+        final JkRepos repos = JkRepos.maven(repoDir);
+        final JkAttachmentResolver resolver = resolver(repos);
+        resolver.prefetch(Arrays.asList(module), "sources", "javadoc");
+        final File sources = resolver.get(module, "sources");
+        Assert.assertNotNull(sources);
+        Assert.assertTrue(sources.exists());
+        Assert.assertNull(resolver.get(module, "javadoc"));
+        resolver.finish();
+
+        final Map<String, String> misses = JkUtilsFile.readPropertyFileAsMap(missFile);
+        Assert.assertEquals(1, misses.size());
+        Assert.assertTrue(misses.keySet().iterator().next().endsWith(":javadoc"));
+
+        // The miss is remembered for the same repositories, even if the artifact shows up meanwhile
+        writeArtifact(module.version().name(), "javadoc");
+        final JkAttachmentResolver sameRepos = resolver(repos);
+        Assert.assertNull(sameRepos.get(module, "javadoc"));
+        sameRepos.finish();
+
+        // But not for other repositories
+        final File otherRepo = new File(workDir, "other");
+        otherRepo.mkdirs();
+        final JkAttachmentResolver otherRepos = resolver(JkRepos.maven(otherRepo, repoDir));
+        final File javadoc = otherRepos.get(module, "javadoc");
+        otherRepos.finish();
+        Assert.assertNotNull(javadoc);
+        Assert.assertTrue(javadoc.exists());
+    }
+
+    private JkAttachmentResolver resolver(JkRepos repos) {
+        return JkAttachmentResolver.of(repos, 20000, missFile, JkAttachmentResolver.DEFAULT_NEGATIVE_TTL);
+    }
+
+    private void writeArtifact(String version, String classifier) {
+        final File dir = new File(repoDir, GROUP.replace('.', '/') + "/bar/" + version);
+        dir.mkdirs();
+        JkUtilsFile.writeString(new File(dir, "bar-" + version + "-" + classifier + ".jar"), classifier,
+                false);
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+
+import org.jerkar.api.system.JkLocator;
+import org.jerkar.api.system.JkMetrics;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class JkDependencyResolverTest {
+
+    private static final String GROUP = "org.jerkar.sharedresolutiontest";
+
+    private File repoDir;
+
+    private String version;
+
+    @Before
+    public void setUp() throws Exception {
+        repoDir = File.createTempFile("jerkarSharedResolution", "");
+        repoDir.delete();
+
+        // A version of its own, so nothing is found in the repository cache
+        version = Long.toString(System.currentTimeMillis());
+        final File dir = new File(repoDir, GROUP.replace('.', '/') + "/foo/" + version);
+        JkUtilsFile.writeString(new File(dir, "foo-" + version + ".pom"), "<project>"
+                + "<modelVersion>4.0.0</modelVersion><groupId>" + GROUP + "</groupId>"
+                + "<artifactId>foo</artifactId><version>" + version + "</version></project>", false);
+        JkUtilsFile.writeString(new File(dir, "foo-" + version + ".jar"), "foo", false);
+    }
+
+    @After
+    public void tearDown() {
+        JkUtilsFile.deleteDir(repoDir);
+        JkUtilsFile.deleteDir(new File(JkLocator.jerkarRepositoryCache(), GROUP));
+    }
+
+    @Test
+    public void sameDependenciesAreResolvedOnceForAllModules() {
+        final JkDependencies dependencies = JkDependencies.builder().on(GROUP + ":foo:" + version).build();
+        final JkResolveResult first = resolver(dependencies, "first").resolve();
+        Assert.assertFalse(first.errorReport().hasErrors());
+        Assert.assertEquals(1, first.localFiles().size());
+
+        final long shared = JkMetrics.value("resolution.sharedResults");
+        final JkResolveResult second = resolver(dependencies, "second").resolve();
+        Assert.assertEquals(shared + 1, JkMetrics.value("resolution.sharedResults"));
+        Assert.assertEquals(first.localFiles(), second.localFiles());
+        Assert.assertEquals(JkModuleId.of(GROUP, "second"), second.dependencyTree().moduleInfo().moduleId());
+
+        // Other dependencies are resolved on their own
+        final JkDependencies others = JkDependencies.builder().on(GROUP + ":foo:" + version)
+                .excludeGlobally(GROUP + ":bar").build();
+        resolver(others, "third").resolve();
+        Assert.assertEquals(shared + 1, JkMetrics.value("resolution.sharedResults"));
+    }
+
+    private JkDependencyResolver resolver(JkDependencies dependencies, String moduleName) {
+        return JkDependencyResolver.managed(JkRepos.maven(repoDir), dependencies)
+                .withModuleHolder(JkVersionedModule.of(JkModuleId.of(GROUP, moduleName), JkVersion.name("1.0")));
+    }
+
+}
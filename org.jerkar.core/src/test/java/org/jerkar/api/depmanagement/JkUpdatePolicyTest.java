@@ -0,0 +1,31 @@
+package org.jerkar.api.depmanagement;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class JkUpdatePolicyTest {
+
+    @Test
+    public void testOf() {
+        Assert.assertEquals(JkUpdatePolicy.ALWAYS, JkUpdatePolicy.of("always"));
+        Assert.assertEquals(JkUpdatePolicy.NEVER, JkUpdatePolicy.of(" Never"));
+        Assert.assertEquals(JkUpdatePolicy.interval(15), JkUpdatePolicy.of("interval:15"));
+        Assert.assertEquals("interval:15", JkUpdatePolicy.of("interval:15").toString());
+        Assert.assertFalse(JkUpdatePolicy.NEVER.isExpired(0));
+        Assert.assertTrue(JkUpdatePolicy.ALWAYS.isExpired(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void testModulePolicies() {
+        final JkResolutionParameters parameters = JkResolutionParameters.of()
+                .withUpdatePolicy(JkUpdatePolicy.DAILY)
+                .withUpdatePolicy("com.mycompany.*", JkUpdatePolicy.ALWAYS)
+                .withUpdatePolicy("*:*-client", JkUpdatePolicy.NEVER);
+        Assert.assertEquals(JkUpdatePolicy.ALWAYS, parameters.moduleUpdatePolicy(JkModuleId.of("com.mycompany.foo:bar")));
+        Assert.assertEquals(JkUpdatePolicy.NEVER, parameters.moduleUpdatePolicy(JkModuleId.of("org.foo:bar-client")));
+        Assert.assertNull(parameters.moduleUpdatePolicy(JkModuleId.of("org.foo:bar")));
+        Assert.assertEquals(JkUpdatePolicy.DAILY, parameters.updatePolicy());
+    }
+
+}
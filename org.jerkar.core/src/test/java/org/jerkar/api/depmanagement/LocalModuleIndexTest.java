@@ -0,0 +1,101 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+import java.util.List;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class LocalModuleIndexTest {
+
+    @Test
+    public void testMissingModules() throws Exception {
+        final File cacheDir = File.createTempFile("jerkarCache", "");
+        cacheDir.delete();
+        JkUtilsFile.createFileIfNotExist(new File(cacheDir, "org.jerkar/core/ivy-1.0.xml"));
+        final JkDependencies deps = JkDependencies.builder()
+                .on("org.jerkar:core:1.0")
+                .on("org.jerkar:core-plugins:1.0")
+                .on("org.jerkar:other:1.+").build();
+
+        final LocalModuleIndex index = LocalModuleIndex.of(cacheDir);
+        List<JkModuleDepProblem> problems = index.missingModules(deps, JkVersionProvider.empty());
+        Assert.assertEquals(2, problems.size());
+        Assert.assertEquals(JkModuleId.of("org.jerkar:core-plugins"), problems.get(0).getModuleId());
+        index.saveIfChanged();
+
+        // Modules cached after the index has been written are found as well
+        JkUtilsFile.createFileIfNotExist(new File(cacheDir, "org.jerkar/other/ivy-1.2.xml"));
+        problems = LocalModuleIndex.of(cacheDir).missingModules(deps, JkVersionProvider.empty());
+        Assert.assertEquals(1, problems.size());
+
+        // Version provider takes precedence over declared versions
+        problems = LocalModuleIndex.of(cacheDir).missingModules(deps, JkVersionProvider.of("org.jerkar:core", "2.0"));
+        Assert.assertEquals(2, problems.size());
+        JkUtilsFile.deleteDir(cacheDir);
+    }
+
+    @Test
+    public void testDynamicVersions() throws Exception {
+        final File cacheDir = File.createTempFile("jerkarCache", "");
+        cacheDir.delete();
+        JkUtilsFile.createFileIfNotExist(new File(cacheDir, "org.jerkar/lib/ivy-1.0.xml"));
+        JkUtilsFile.writeString(new File(cacheDir, "org.jerkar/lib/ivy-1.5.xml"),
+                "<ivy-module version=\"1.0\">\n"
+                + "  <info organisation=\"org.jerkar\" module=\"lib\" revision=\"1.5\"/>\n"
+                + "  <dependencies>\n"
+                + "    <dependency org=\"org.jerkar\" name=\"absent\" rev=\"1.0\" conf=\"compile->compile(*)\"/>\n"
+                + "  </dependencies>\n"
+                + "</ivy-module>\n", false);
+        JkUtilsFile.createFileIfNotExist(new File(cacheDir, "org.jerkar/lib/ivy-3.1.xml"));
+        final LocalModuleIndex index = LocalModuleIndex.of(cacheDir);
+        index.saveIfChanged();
+
+        // The greatest version within the range is picked, so the dependencies of 1.5 are checked
+        List<JkModuleDepProblem> problems = index.missingModules(JkDependencies.builder()
+                .on("org.jerkar:lib:[1.0,2.0)").build(), JkVersionProvider.empty());
+        Assert.assertEquals(1, problems.size());
+        Assert.assertEquals(JkModuleId.of("org.jerkar:absent"), problems.get(0).getModuleId());
+        problems = index.missingModules(JkDependencies.builder().on("org.jerkar:lib:1.+").build(),
+                JkVersionProvider.empty());
+        Assert.assertEquals(JkModuleId.of("org.jerkar:absent"), problems.get(0).getModuleId());
+        problems = index.missingModules(JkDependencies.builder().on("org.jerkar:lib:[2.0,3.0)").build(),
+                JkVersionProvider.empty());
+        Assert.assertEquals(1, problems.size());
+        Assert.assertEquals(JkModuleId.of("org.jerkar:lib"), problems.get(0).getModuleId());
+
+        // A matching version cached after the index has been written is found as well
+        JkUtilsFile.createFileIfNotExist(new File(cacheDir, "org.jerkar/lib/ivy-2.5.xml"));
+        problems = LocalModuleIndex.of(cacheDir).missingModules(JkDependencies.builder()
+                .on("org.jerkar:lib:[2.0,3.0)").build(), JkVersionProvider.empty());
+        Assert.assertTrue(problems.isEmpty());
+        JkUtilsFile.deleteDir(cacheDir);
+    }
+
+    @Test
+    public void testMissingTransitiveModules() throws Exception {
+        final File cacheDir = File.createTempFile("jerkarCache", "");
+        cacheDir.delete();
+        JkUtilsFile.writeString(new File(cacheDir, "org.jerkar/core/ivy-1.0.xml"),
+                "<ivy-module version=\"1.0\">\n"
+                + "  <info organisation=\"org.jerkar\" module=\"core\" revision=\"1.0\"/>\n"
+                + "  <dependencies>\n"
+                + "    <dependency org=\"org.jerkar\" name=\"lib\" rev=\"2.0\" conf=\"compile->compile(*),master(*)\"/>\n"
+                + "    <dependency org=\"org.jerkar\" name=\"runtime-lib\" rev=\"2.0\" conf=\"runtime->runtime(*)\"/>\n"
+                + "    <dependency org=\"junit\" name=\"junit\" rev=\"4.11\" conf=\"test->runtime(*),master(*)\"/>\n"
+                + "  </dependencies>\n"
+                + "</ivy-module>\n", false);
+        JkUtilsFile.createFileIfNotExist(new File(cacheDir, "org.jerkar/lib/ivy-2.0.xml"));
+        final JkDependencies deps = JkDependencies.builder().on("org.jerkar:core:1.0").build();
+
+        final List<JkModuleDepProblem> problems = LocalModuleIndex.of(cacheDir).missingModules(deps,
+                JkVersionProvider.empty());
+        Assert.assertEquals(1, problems.size());
+        Assert.assertEquals(JkModuleId.of("org.jerkar:runtime-lib"), problems.get(0).getModuleId());
+        Assert.assertTrue(problems.get(0).getProblemText().contains("org.jerkar:core:1.0"));
+        JkUtilsFile.deleteDir(cacheDir);
+    }
+
+}
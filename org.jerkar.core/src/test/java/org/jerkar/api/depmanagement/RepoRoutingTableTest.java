@@ -0,0 +1,41 @@
+package org.jerkar.api.depmanagement;
+
+import java.io.File;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class RepoRoutingTableTest {
+
+    @Test
+    public void testPersistence() throws Exception {
+        final File cacheDir = File.createTempFile("jerkarCache", "");
+        cacheDir.delete();
+        cacheDir.mkdirs();
+        final RepoRoutingTable table = RepoRoutingTable.of(cacheDir, RepoRoutingTable.DEFAULT_NEGATIVE_TTL);
+        table.missing("org.jerkar:core", "org.jerkar:core:1.0", "repo1");
+        table.found("org.jerkar:core", "org.jerkar:core:1.0", "repo2");
+        table.saveIfChanged();
+
+        final RepoRoutingTable reloaded = RepoRoutingTable.of(cacheDir, RepoRoutingTable.DEFAULT_NEGATIVE_TTL);
+        Assert.assertEquals("repo2", reloaded.route("org.jerkar:core"));
+        Assert.assertTrue(reloaded.isKnownMissing("repo1", "org.jerkar:core:1.0"));
+        Assert.assertFalse(reloaded.isKnownMissing("repo2", "org.jerkar:core:1.0"));
+
+        // Expired negative lookups are ignored
+        final RepoRoutingTable expired = RepoRoutingTable.of(cacheDir, -1);
+        Assert.assertFalse(expired.isKnownMissing("repo1", "org.jerkar:core:1.0"));
+        JkUtilsFile.deleteDir(cacheDir);
+    }
+
+    @Test
+    public void testGroupPrefixes() {
+        final JkRepo repo = JkRepo.maven("http://my.repo").withGroupPrefixes("com.mycompany.");
+        Assert.assertTrue(repo.accepts(JkModuleId.of("com.mycompany.foo:bar")));
+        Assert.assertFalse(repo.accepts(JkModuleId.of("org.jerkar:core")));
+        Assert.assertTrue(JkRepo.mavenCentral().accepts(JkModuleId.of("org.jerkar:core")));
+    }
+
+}
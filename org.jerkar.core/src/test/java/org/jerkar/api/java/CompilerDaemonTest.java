@@ -0,0 +1,76 @@
+package org.jerkar.api.java;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileObject;
+
+import org.jerkar.api.system.JkMetrics;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class CompilerDaemonTest {
+
+    @Test
+    public void forkedCompilationsShareDaemon() {
+        final File dir = JkUtilsFile.createTempDir("compiler-daemon");
+        final File source = new File(dir, "src with space/foo/Foo.java");
+        JkUtilsFile.writeString(source, "package foo; public class Foo {}", false);
+        final File broken = new File(dir, "src/foo/Broken.java");
+        JkUtilsFile.writeString(broken, "package foo; public class Broken { int i = \"\"; }", false);
+        final File classes = new File(dir, "classes");
+
+        JkMetrics.reset();
+        Assert.assertTrue(JkJavaCompiler.outputtingIn(classes).andSources(Arrays.asList(source)).fork()
+                .compile());
+        Assert.assertTrue(new File(classes, "foo/Foo.class").exists());
+        Assert.assertFalse(JkJavaCompiler.outputtingIn(classes).andSources(Arrays.asList(broken)).fork()
+                .failOnError(false).compile());
+        Assert.assertEquals(1, JkMetrics.value("compilation.daemon.started"));
+        JkUtilsFile.deleteDir(dir);
+    }
+
+    @Test
+    public void diagnosticsAreReplayedOnClient() {
+        final File dir = JkUtilsFile.createTempDir("compiler-daemon");
+        final File broken = new File(dir, "src/foo/Broken.java");
+        JkUtilsFile.writeString(broken, "package foo;\npublic class Broken {\n int i = \"\";\n}", false);
+        final File classes = new File(dir, "classes");
+        classes.mkdirs();
+
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics =
+                new LinkedList<Diagnostic<? extends JavaFileObject>>();
+        final Integer result = CompilerDaemon.compile(new File(System.getProperty("java.home")),
+                Collections.<String> emptyList(), Arrays.asList("-d", classes.getPath()), Arrays.asList(broken),
+                new StringWriter(), new DiagnosticListener<JavaFileObject>() {
+
+                    @Override
+                    public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+                        diagnostics.add(diagnostic);
+                    }
+                });
+        Assert.assertEquals(Integer.valueOf(1), result);
+        Assert.assertEquals(1, diagnostics.size());
+        final Diagnostic<? extends JavaFileObject> diagnostic = diagnostics.get(0);
+        Assert.assertEquals(Diagnostic.Kind.ERROR, diagnostic.getKind());
+        Assert.assertEquals(3, diagnostic.getLineNumber());
+        Assert.assertEquals(broken.getAbsoluteFile(), new File(diagnostic.getSource().toUri()));
+        Assert.assertTrue(diagnostic.toString().startsWith(broken.getAbsolutePath() + ":3: error: "));
+        JkUtilsFile.deleteDir(dir);
+    }
+
+    @After
+    public void resetMetrics() {
+        JkMetrics.reset();
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.jerkar.api.java;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.jerkar.api.system.JkMetrics;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class CompilerServiceTest {
+
+    @Test
+    public void fileManagerIsReusedUntilClasspathJarChanges() throws IOException {
+        final File dir = JkUtilsFile.createTempDir("compiler-service");
+        final File source = new File(dir, "src/Foo.java");
+        JkUtilsFile.writeString(source, "public class Foo {}", false);
+        final File jar = new File(dir, "lib.jar");
+        writeJar(jar, "a.txt");
+        final JkJavaCompiler compiler = JkJavaCompiler.outputtingIn(new File(dir, "classes"))
+                .withClasspath(Arrays.asList(jar)).andSources(Arrays.asList(source));
+
+        JkMetrics.reset();
+        Assert.assertTrue(compiler.compile());
+        Assert.assertTrue(compiler.compile());
+        Assert.assertEquals(1, JkMetrics.value("compilation.fileManager.reused"));
+
+        writeJar(jar, "a-longer-entry-name.txt");
+        Assert.assertTrue(compiler.compile());
+        Assert.assertEquals(1, JkMetrics.value("compilation.fileManager.reused"));
+        Assert.assertTrue(new File(dir, "classes/Foo.class").exists());
+        JkUtilsFile.deleteDir(dir);
+    }
+
+    @Test
+    public void pathsAreSetForEachCompilation() {
+        final File dir = JkUtilsFile.createTempDir("compiler-service");
+        final File mainSource = new File(dir, "main/foo/Foo.java");
+        JkUtilsFile.writeString(mainSource, "package foo; public class Foo {}", false);
+        final File testSource = new File(dir, "test/foo/FooTest.java");
+        JkUtilsFile.writeString(testSource, "package foo; public class FooTest { Foo foo; }", false);
+        final File mainClasses = new File(dir, "classes");
+        final File testClasses = new File(dir, "test-classes");
+
+        Assert.assertTrue(JkJavaCompiler.outputtingIn(mainClasses).andSources(Arrays.asList(mainSource)).compile());
+        Assert.assertTrue(JkJavaCompiler.outputtingIn(testClasses).withClasspath(Arrays.asList(mainClasses))
+                .andSources(Arrays.asList(testSource)).compile());
+        Assert.assertTrue(new File(testClasses, "foo/FooTest.class").exists());
+        Assert.assertFalse(new File(mainClasses, "foo/FooTest.class").exists());
+        JkUtilsFile.deleteDir(dir);
+    }
+
+    private static void writeJar(File file, String entryName) throws IOException {
+        final JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(file));
+        outputStream.putNextEntry(new ZipEntry(entryName));
+        outputStream.closeEntry();
+        outputStream.close();
+    }
+
+    @After
+    public void resetMetrics() {
+        JkMetrics.reset();
+    }
+
+}
@@ -0,0 +1,32 @@
+package org.jerkar.api.java;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Arrays;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class JkClassLoaderTest {
+
+    @Test
+    public void layeredShareLoaderOfSameJars() throws Exception {
+        final URL jarUrl = Test.class.getProtectionDomain().getCodeSource().getLocation();
+        final File jar = new File(jarUrl.toURI());
+        final File dir1 = JkUtilsFile.createTempDir("module1-classes");
+        final File dir2 = JkUtilsFile.createTempDir("module2-classes");
+        final JkClassLoader loader1 = JkClassLoader.layered(Arrays.asList(dir1, jar)).loadAllServices();
+        final JkClassLoader loader2 = JkClassLoader.layered(Arrays.asList(dir2, jar)).loadAllServices();
+        Assert.assertNotSame(loader1.classloader(), loader2.classloader());
+        Assert.assertSame(loader1.classloader().getParent(), loader2.classloader().getParent());
+        Assert.assertSame(loader1.load(Test.class.getName()), loader2.load(Test.class.getName()));
+        Assert.assertNotSame(Test.class, loader1.load(Test.class.getName()));
+        Assert.assertFalse(loader1.isDefined(JkClassLoaderTest.class.getName()));
+        Assert.assertEquals(Arrays.asList(dir1), loader1.childClasspath().entries());
+        JkUtilsFile.deleteDir(dir1);
+        JkUtilsFile.deleteDir(dir2);
+    }
+
+}
@@ -0,0 +1,152 @@
+package org.jerkar.api.java.junit;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jerkar.api.java.junit.JkUnit.JunitReportDetail;
+import org.jerkar.api.java.junit.JkUnit.Parallelism;
+import org.jerkar.api.utils.JkUtilsReflect;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class JUnit4TestExecutorTest {
+
+    private static final Set<String> METHOD_THREADS = Collections.synchronizedSet(new HashSet<String>());
+
+    private static final Set<String> SEQUENTIAL_THREADS = Collections.synchronizedSet(new HashSet<String>());
+
+    private static final Class<?>[] CLASSES = new Class<?>[] { MethodSample.class,
+        SequentialSample.class, FailingSample.class };
+
+    private static final String[] SEQUENTIAL = new String[] { SequentialSample.class.getName() };
+
+    private static volatile boolean launching;
+
+    @Before
+    public void clearThreads() {
+        METHOD_THREADS.clear();
+        SEQUENTIAL_THREADS.clear();
+    }
+
+    @Test
+    public void runMethodsInParallel() {
+        final JkTestSuiteResult result = launch(Parallelism.METHODS);
+        assertAggregated(result);
+        Assert.assertEquals(4, METHOD_THREADS.size());
+        Assert.assertEquals(Collections.singleton(Thread.currentThread().getName()), SEQUENTIAL_THREADS);
+    }
+
+    @Test
+    public void runClassesInParallel() {
+        final JkTestSuiteResult result = launch(Parallelism.CLASSES);
+        assertAggregated(result);
+        Assert.assertEquals(1, METHOD_THREADS.size());
+        Assert.assertFalse(METHOD_THREADS.contains(Thread.currentThread().getName()));
+        Assert.assertEquals(Collections.singleton(Thread.currentThread().getName()), SEQUENTIAL_THREADS);
+    }
+
+    @Test
+    public void runSequentially() {
+        final JkTestSuiteResult result = launch(Parallelism.NONE);
+        assertAggregated(result);
+        Assert.assertEquals(Collections.singleton(Thread.currentThread().getName()), METHOD_THREADS);
+    }
+
+    private static JkTestSuiteResult launch(Parallelism parallelism) {
+        launching = true;
+        try {
+            return JkUtilsReflect.invokeStaticMethod(JUnit4TestExecutor.class, "launchInProcess", CLASSES,
+                    false, JunitReportDetail.BASIC, null, false, true, parallelism, 4, SEQUENTIAL);
+        } finally {
+            launching = false;
+        }
+    }
+
+    private static void assertAggregated(JkTestSuiteResult result) {
+        Assert.assertEquals(10, result.runCount());
+        Assert.assertEquals(1, result.failureCount());
+        Assert.assertEquals(3, result.classDurations().size());
+    }
+
+    // Samples are public to be run by JUnit, but they make sense only launched by this test
+    public abstract static class Sample {
+
+        @Before
+        public void skipOutsideOfLaunch() {
+            Assume.assumeTrue(launching);
+        }
+
+    }
+
+    public static class MethodSample extends Sample {
+
+        @Test
+        public void first() throws Exception {
+            run();
+        }
+
+        @Test
+        public void second() throws Exception {
+            run();
+        }
+
+        @Test
+        public void third() throws Exception {
+            run();
+        }
+
+        @Test
+        public void fourth() throws Exception {
+            run();
+        }
+
+        private static void run() throws InterruptedException {
+            METHOD_THREADS.add(Thread.currentThread().getName());
+            Thread.sleep(50);
+        }
+
+    }
+
+    public static class SequentialSample extends Sample {
+
+        @Test
+        public void first() {
+            SEQUENTIAL_THREADS.add(Thread.currentThread().getName());
+        }
+
+        @Test
+        public void second() {
+            SEQUENTIAL_THREADS.add(Thread.currentThread().getName());
+        }
+
+        @Test
+        public void third() {
+            SEQUENTIAL_THREADS.add(Thread.currentThread().getName());
+        }
+
+    }
+
+    public static class FailingSample extends Sample {
+
+        @Test
+        public void passing() {
+            Assert.assertTrue(true);
+        }
+
+        @Test
+        public void passingToo() {
+            Assert.assertTrue(true);
+        }
+
+        @Test
+        public void failing() {
+            Assert.fail("expected");
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.jerkar.api.java.junit;
+
+import java.io.File;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.jerkar.api.file.JkFileTree;
+import org.jerkar.api.file.JkFileTreeSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TestClassFinderTest {
+
+    @Test
+    public void findTestsWithoutLoadingClasses() throws Exception {
+        final File classDir = new File(TestClassFinderTest.class.getProtectionDomain().getCodeSource()
+                .getLocation().toURI());
+        final JkFileTreeSet classes = JkFileTreeSet.of(JkFileTree.of(classDir)
+                .include("org/jerkar/api/java/junit/TestClassFinderTest*.class"));
+        final String prefix = TestClassFinderTest.class.getName();
+
+        final List<String> tests = TestClassFinder.of(TestClassFinderTest.class.getClassLoader(), true)
+                .find(classes);
+        Assert.assertTrue(tests.contains(prefix));
+        Assert.assertTrue(tests.contains(prefix + "$InheritingSample"));
+        Assert.assertTrue(tests.contains(prefix + "$Junit3Sample"));
+        Assert.assertFalse(tests.contains(prefix + "$AbstractSample"));
+        Assert.assertFalse(tests.contains(prefix + "$OverridingSample"));
+        Assert.assertFalse(tests.contains(prefix + "$Helper"));
+        Assert.assertEquals(3, tests.size());
+
+        final List<String> junit3Tests = TestClassFinder.of(TestClassFinderTest.class.getClassLoader(), false)
+                .find(classes);
+        Assert.assertEquals(1, junit3Tests.size());
+        Assert.assertEquals(prefix + "$Junit3Sample", junit3Tests.get(0));
+    }
+
+    public abstract static class AbstractSample {
+
+        @Test
+        public void inherited() {
+            Assert.assertNotNull(this);
+        }
+
+    }
+
+    public static class InheritingSample extends AbstractSample {
+    }
+
+    public static class OverridingSample extends AbstractSample {
+
+        @Override
+        public void inherited() {
+            Assert.assertNotNull(this);
+        }
+
+    }
+
+    public static class Junit3Sample extends TestCase {
+
+        public void testNothing() {
+            assertNotNull(this);
+        }
+
+    }
+
+    static class Helper {
+
+        @Test
+        void notPublic() {
+            Assert.assertNotNull(this);
+        }
+
+    }
+
+}
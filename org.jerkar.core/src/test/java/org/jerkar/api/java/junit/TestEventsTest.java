@@ -0,0 +1,80 @@
+package org.jerkar.api.java.junit;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.jerkar.api.java.junit.JkTestSuiteResult.ExceptionDescription;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TestEventsTest {
+
+    @Test
+    public void replayRecordedEvents() {
+        final File file = JkUtilsFile.tempFile("testEvents-", ".ser");
+        final File reportDir = JkUtilsFile.createTempDir("junit-report");
+        final Properties properties = new Properties();
+        properties.setProperty("foo", "bar");
+
+        final TestEvents.Handler recorder = TestEvents.recorder(file);
+        recorder.suiteStarted(properties);
+        recorder.classStarted("foo.FirstTest");
+        for (int i = 0; i < 1000; i++) {
+            recorder.testFinished("foo.FirstTest", "test" + i, 0.001f, null);
+        }
+        recorder.testFinished("foo.FirstTest", "fails", 0.002f,
+                new ExceptionDescription(new AssertionError("expected")));
+        recorder.testIgnored("foo.FirstTest", "ignored");
+        recorder.classFinished("foo.FirstTest", 12);
+        recorder.classStarted("foo.SecondTest");
+        recorder.classFailed("foo.SecondTest", new ExceptionDescription(new IllegalStateException("setup")));
+        recorder.classFinished("foo.SecondTest", 3);
+        recorder.suiteFinished(20);
+
+        final TestResultCollector collector = TestResultCollector.of(reportDir);
+        TestEvents.replay(file, collector);
+        final JkTestSuiteResult result = collector.result();
+        Assert.assertEquals(1001, result.runCount());
+        Assert.assertEquals(1, result.ignoreCount());
+        Assert.assertEquals(2, result.failureCount());
+        Assert.assertEquals(1, result.assertErrorCount());
+        Assert.assertEquals(20, result.durationInMillis());
+        Assert.assertEquals("bar", result.getSystemProperties().getProperty("foo"));
+        Assert.assertEquals(Long.valueOf(12), result.classDurations().get("foo.FirstTest"));
+
+        final String report = JkUtilsFile.read(new File(reportDir, "TEST-foo.FirstTest.xml"));
+        Assert.assertTrue(report.contains("tests=\"1001\" failures=\"1\" errors=\"0\""));
+        Assert.assertTrue(report.contains("name=\"test999\""));
+        Assert.assertTrue(report.trim().endsWith("</testsuite>"));
+        Assert.assertTrue(JkUtilsFile.read(new File(reportDir, "TEST-foo.SecondTest.xml"))
+                .contains("errors=\"1\""));
+        file.delete();
+        JkUtilsFile.deleteDir(reportDir);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void replayIncompleteRecording() throws IOException {
+        final File file = JkUtilsFile.tempFile("testEvents-", ".ser");
+        final TestEvents.Handler recorder = TestEvents.recorder(file);
+        recorder.suiteStarted(new Properties());
+        recorder.classStarted("foo.FirstTest");
+        recorder.suiteFinished(0);
+
+        // Drops the suite end, as if the test process had crashed
+        final byte[] bytes = JkUtilsFile.readAsBytes(file);
+        final FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(Arrays.copyOf(bytes, bytes.length - 9));
+        outputStream.close();
+        try {
+            TestEvents.replay(file, TestResultCollector.of(null));
+        } finally {
+            file.delete();
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.jerkar.api.java.junit;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.jerkar.api.java.junit.JkTestSuiteResult.ExceptionDescription;
+import org.jerkar.api.java.junit.JkTestSuiteResult.TestCaseFailure;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "rawtypes" })
+public class TestHistoryTest {
+
+    private static final List<File> NO_DIR = Collections.emptyList();
+
+    @Test
+    public void failedThenNewThenFastestFirst() {
+        final File dir = JkUtilsFile.createTempDir("test-history");
+        final Map<String, Long> durations = new LinkedHashMap<String, Long>();
+        durations.put(String.class.getName(), 300L);
+        durations.put(Integer.class.getName(), 100L);
+        durations.put(Long.class.getName(), 200L);
+        TestHistory.of(dir).record(result(durations, Long.class));
+
+        final List<Class> order = TestHistory.of(dir).order(
+                Arrays.<Class> asList(String.class, Integer.class, Long.class, Double.class), NO_DIR, false);
+        Assert.assertEquals(Arrays.<Class> asList(Long.class, Double.class, Integer.class, String.class), order);
+        JkUtilsFile.deleteDir(dir);
+    }
+
+    @Test
+    public void longestFirstWhenRunConcurrently() {
+        final File dir = JkUtilsFile.createTempDir("test-history");
+        final Map<String, Long> durations = new LinkedHashMap<String, Long>();
+        durations.put(Integer.class.getName(), 100L);
+        durations.put(String.class.getName(), 300L);
+        durations.put(Short.class.getName(), 50L);
+        durations.put(Long.class.getName(), 200L);
+        durations.put(Byte.class.getName(), 10L);
+        TestHistory.of(dir).record(result(durations, Byte.class));
+
+        final List<Class> order = TestHistory.of(dir).order(Arrays.<Class> asList(Integer.class,
+                String.class, Short.class, Long.class, Byte.class, Double.class), NO_DIR, true);
+        Assert.assertEquals(Arrays.<Class> asList(Byte.class, Double.class, String.class, Long.class,
+                Integer.class, Short.class), order);
+        JkUtilsFile.deleteDir(dir);
+    }
+
+    private static JkTestSuiteResult result(Map<String, Long> durations, Class<?>... failedClasses) {
+        final List<TestCaseFailure> failures = new LinkedList<TestCaseFailure>();
+        for (final Class<?> failedClass : failedClasses) {
+            failures.add(new TestCaseFailure(failedClass.getName(), "test", 0,
+                    new ExceptionDescription(new AssertionError())));
+        }
+        return new JkTestSuiteResult(new Properties(), "all", durations.size(), 0, failures, 0, durations);
+    }
+
+}
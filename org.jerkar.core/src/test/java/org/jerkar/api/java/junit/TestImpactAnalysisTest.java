@@ -0,0 +1,85 @@
+package org.jerkar.api.java.junit;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.jerkar.api.java.JkJavaCompiler;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "rawtypes" })
+public class TestImpactAnalysisTest {
+
+    @Test
+    public void classFileIsRead() {
+        final ClassFile classFile = ClassFile.of(JkUtilsFile.readAsBytes(new File(TestImpactAnalysisTest.class
+                .getResource("TestImpactAnalysisTest.class").getFile())));
+        Assert.assertEquals("org/jerkar/api/java/junit/TestImpactAnalysisTest", classFile.name());
+        Assert.assertEquals("java/lang/Object", classFile.superName());
+        Assert.assertTrue(classFile.referencedClasses().contains("org/jerkar/api/java/JkJavaCompiler"));
+        Assert.assertTrue(classFile.referencedClasses().contains("org/junit/Test"));
+    }
+
+    @Test
+    public void onlyImpactedTestsAreSelected() throws Exception {
+        final File dir = JkUtilsFile.createTempDir("test-impact");
+        final File classes = new File(dir, "classes");
+        final File data = new File(dir, "data");
+        write(dir, "A", "public class A { int a() { return 1; } }");
+        write(dir, "B", "public class B { A a; }");
+        write(dir, "ATest", "public class ATest { A a; }");
+        write(dir, "BTest", "public class BTest { B b; }");
+        write(dir, "CTest", "public class CTest {}");
+        compile(dir, classes);
+        final List<Class> tests = load(classes, "ATest", "BTest", "CTest");
+
+        TestImpactAnalysis analysis = TestImpactAnalysis.of(data, Arrays.asList(classes), 0);
+        Assert.assertEquals(3, analysis.select(tests).size());
+        analysis.save(tests, empty());
+
+        analysis = TestImpactAnalysis.of(data, Arrays.asList(classes), 0);
+        Assert.assertTrue(analysis.select(tests).isEmpty());
+
+        write(dir, "A", "public class A { int a() { return 2; } }");
+        compile(dir, classes);
+        analysis = TestImpactAnalysis.of(data, Arrays.asList(classes), 0);
+        final List<Class> selected = analysis.select(tests);
+        Assert.assertEquals(Arrays.asList(tests.get(0), tests.get(1)), selected);
+        analysis.save(selected, empty());
+
+        analysis = TestImpactAnalysis.of(data, Arrays.asList(classes), 0);
+        Assert.assertTrue(analysis.select(tests).isEmpty());
+        analysis = TestImpactAnalysis.of(data, Arrays.asList(classes), 2);
+        Assert.assertEquals(3, analysis.select(tests).size());
+        JkUtilsFile.deleteDir(dir);
+    }
+
+    private static void write(File dir, String className, String code) {
+        JkUtilsFile.writeString(new File(dir, "src/" + className + ".java"), code, false);
+    }
+
+    private static void compile(File dir, File classes) {
+        Assert.assertTrue(JkJavaCompiler.outputtingIn(classes).andSourceDir(new File(dir, "src")).compile());
+    }
+
+    private static List<Class> load(File classes, String... names) throws MalformedURLException,
+    ClassNotFoundException {
+        final ClassLoader classLoader = new URLClassLoader(new URL[] { classes.toURI().toURL() }, null);
+        final Class[] result = new Class[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = classLoader.loadClass(names[i]);
+        }
+        return Arrays.asList(result);
+    }
+
+    private static JkTestSuiteResult empty() {
+        return JkTestSuiteResult.empty(new Properties(), "tests", 0);
+    }
+
+}
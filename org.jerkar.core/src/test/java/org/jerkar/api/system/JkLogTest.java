@@ -1,7 +1,12 @@
 package org.jerkar.api.system;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedList;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Test;
 
@@ -16,10 +21,60 @@ public class JkLogTest {
         assertTrue(JkLog.silent());
     }
 
+    @Test
+    public void groupedTasksAreNotInterleaved() throws InterruptedException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final List<Thread> threads = new LinkedList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            final String name = "task" + i;
+            threads.add(new Thread() {
+
+                @Override
+                public void run() {
+                    JkLog.redirectCurrentThread(output);
+                    JkLog.startTask(name);
+                    for (int j = 0; j < 20; j++) {
+                        JkLog.info(name);
+                        Thread.yield();
+                    }
+                    JkLog.endTask();
+                    JkLog.unredirectCurrentThread();
+                }
+            });
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        final String[] lines = output.toString().split("\r?\n");
+        assertEquals(80, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(lines[i - i % 20], lines[i]);
+        }
+    }
+
+    @Test
+    public void ungroupedTasksArePrefixed() {
+        JkLog.grouped(false);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        JkLog.redirectCurrentThread(output);
+        JkLog.startTask("compile");
+        JkLog.info("hello");
+        JkLog.endTask();
+        JkLog.info("bye");
+        JkLog.unredirectCurrentThread();
+        final String[] lines = output.toString().split("\r?\n");
+        assertEquals("[compile] hello", lines[0]);
+        assertEquals("bye", lines[1]);
+    }
+
     @After
     public void resetJkLog() {
         JkLog.verbose(false);
         JkLog.silent(false);
+        JkLog.grouped(true);
     }
 
 }
@@ -0,0 +1,46 @@
+package org.jerkar.api.system;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class JkMetricsTest {
+
+    @Test
+    public void testCollectAndWrite() throws Exception {
+        JkMetrics.reset();
+        JkMetrics.increment("a.counter");
+        JkMetrics.add("a.counter", 4);
+        JkMetrics.record("a.histogram", 10);
+        JkMetrics.record("a.histogram", 30);
+        JkMetrics.time("a.timer", System.nanoTime());
+        Assert.assertEquals(5, JkMetrics.value("a.counter"));
+        Assert.assertEquals(40, JkMetrics.value("a.histogram"));
+
+        final Map<String, long[]> other = new HashMap<String, long[]>();
+        other.put("a.counter", new long[] {0, 1, 2, 2, 2});
+        JkMetrics.merge(other);
+        Assert.assertEquals(7, JkMetrics.value("a.counter"));
+
+        final File file = File.createTempFile("jerkarMetrics", ".json");
+        JkMetrics.writeJson(file);
+        final String json = JkUtilsFile.read(file);
+        Assert.assertTrue(json, json.contains("\"a.counter\": {\"type\": \"counter\", \"value\": 7}"));
+        Assert.assertTrue(json, json.contains("\"a.histogram\": {\"type\": \"histogram\", \"count\": 2, \"sum\": 40, "
+                + "\"min\": 10, \"max\": 30, \"mean\": 20}"));
+        Assert.assertTrue(json, json.contains("\"a.timer\": {\"type\": \"timer\", \"count\": 1"));
+        file.delete();
+    }
+
+    @After
+    public void reset() {
+        JkMetrics.reset();
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.jerkar.api.system;
+
+import java.io.File;
+import java.util.List;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class JkProfilerTest {
+
+    @Test
+    public void testRecordNestedSpans() throws Exception {
+        JkLog.silent(false);
+        JkProfiler.start();
+        JkProfiler.project("myProject");
+        JkLog.start("outer");
+        JkLog.start("inner");
+        Thread.sleep(20);
+        JkLog.done();
+        JkLog.done();
+        JkProfiler.stop();
+        JkLog.start("not recorded");
+        JkLog.done();
+
+        final List<JkProfiler.Span> spans = JkProfiler.spans();
+        Assert.assertEquals(2, spans.size());
+        Assert.assertEquals("outer", spans.get(0).name());
+        Assert.assertEquals("inner", spans.get(1).name());
+        Assert.assertEquals("myProject", spans.get(1).project());
+        Assert.assertTrue(spans.get(0).duration() >= spans.get(1).duration());
+
+        final List<String> summary = JkProfiler.summary(1);
+        Assert.assertEquals(1, summary.size());
+        Assert.assertTrue(summary.get(0), summary.get(0).contains("inner [myProject]"));
+
+        final File file = File.createTempFile("jerkarProfile", ".json");
+        JkProfiler.writeChromeTrace(file);
+        final String json = JkUtilsFile.read(file);
+        Assert.assertTrue(json.contains("\"name\":\"outer\""));
+        Assert.assertTrue(json.contains("\"project\":\"myProject\""));
+        file.delete();
+    }
+
+    @After
+    public void reset() {
+        JkProfiler.stop();
+        JkProfiler.project(null);
+    }
+
+}
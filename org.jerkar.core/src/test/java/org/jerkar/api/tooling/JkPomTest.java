@@ -0,0 +1,169 @@
+package org.jerkar.api.tooling;
+
+import java.io.File;
+
+import org.jerkar.api.depmanagement.JkDependencies;
+import org.jerkar.api.depmanagement.JkModuleDependency;
+import org.jerkar.api.depmanagement.JkModuleId;
+import org.jerkar.api.depmanagement.JkScopedDependency;
+import org.jerkar.api.system.JkMetrics;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class JkPomTest {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n<modelVersion>4.0.0</modelVersion>\n";
+
+    @Test
+    public void parentBomAndInterpolation() {
+        final File home = JkUtilsFile.createTempDir("m2-home");
+        final File root = JkUtilsFile.createTempDir("maven-tree");
+        final String userHome = System.getProperty("user.home");
+        System.setProperty("user.home", home.getAbsolutePath());
+        try {
+            write(new File(home, ".m2/repository/org/bom/platform/2.0/platform-2.0.pom"), HEADER
+                    + "<groupId>org.bom</groupId><artifactId>platform</artifactId><version>2.0</version>\n"
+                    + "<dependencyManagement><dependencies>\n"
+                    + dependency("org.lib", "lib-a", "2.0", null)
+                    + dependency("org.lib", "lib-b", "2.0", null)
+                    + "</dependencies></dependencyManagement></project>");
+            write(new File(root, "pom.xml"), HEADER
+                    + "<groupId>org.sample</groupId><artifactId>parent</artifactId><version>1.5</version>\n"
+                    + "<packaging>pom</packaging>\n"
+                    + "<properties><lib.version>1.${minor}</lib.version><minor>7</minor></properties>\n"
+                    + "<modules><module>core</module></modules>\n"
+                    + "<dependencyManagement><dependencies>\n"
+                    + dependency("org.lib", "lib-a", "${lib.version}", null)
+                    + "<dependency><groupId>org.bom</groupId><artifactId>platform</artifactId>"
+                    + "<version>2.0</version><type>pom</type><scope>import</scope></dependency>\n"
+                    + "</dependencies></dependencyManagement>\n"
+                    + "<dependencies>" + dependency("junit", "junit", "4.11", "test") + "</dependencies>\n"
+                    + "<build><plugins><plugin><artifactId>foo</artifactId><dependencies>"
+                    + dependency("org.plugin", "plugin-dep", "1.0", null)
+                    + "</dependencies></plugin></plugins></build></project>");
+            write(new File(root, "core/pom.xml"), HEADER
+                    + "<parent><groupId>org.sample</groupId><artifactId>parent</artifactId>"
+                    + "<version>1.5</version></parent>\n"
+                    + "<artifactId>core</artifactId>\n<dependencies>\n"
+                    + dependency("org.lib", "lib-a", null, null)
+                    + dependency("org.lib", "lib-b", null, null)
+                    + dependency("${project.groupId}", "api", "${project.version}", "provided")
+                    + "</dependencies></project>");
+
+            final JkPom parent = JkPom.of(new File(root, "pom.xml"));
+            Assert.assertEquals(1, parent.modules().size());
+            final JkPom core = parent.modules().get(0);
+            Assert.assertEquals("org.sample", core.groupId());
+            Assert.assertEquals("1.5", core.version());
+            Assert.assertEquals("1.7", core.versionProvider().versionOf(JkModuleId.of("org.lib", "lib-a")).name());
+            Assert.assertEquals("2.0", core.versionProvider().versionOf(JkModuleId.of("org.lib", "lib-b")).name());
+            final JkDependencies dependencies = core.dependencies();
+            Assert.assertEquals("1.7", versionOf(dependencies, "lib-a"));
+            Assert.assertEquals("2.0", versionOf(dependencies, "lib-b"));
+            Assert.assertEquals("1.5", versionOf(dependencies, "api"));
+            Assert.assertEquals("4.11", versionOf(dependencies, "junit"));
+            Assert.assertNull(versionOf(dependencies, "plugin-dep"));
+        } finally {
+            System.setProperty("user.home", userHome);
+            JkUtilsFile.deleteDir(home);
+            JkUtilsFile.deleteDir(root);
+        }
+    }
+
+    @Test
+    public void childPropertiesApplyToParentElements() {
+        final File root = JkUtilsFile.createTempDir("maven-tree");
+        try {
+            write(new File(root, "pom.xml"), HEADER
+                    + "<groupId>org.sample</groupId><artifactId>parent</artifactId><version>1.5</version>\n"
+                    + "<packaging>pom</packaging>\n"
+                    + "<properties><lib.version>1.0</lib.version></properties>\n"
+                    + "<dependencyManagement><dependencies>\n"
+                    + dependency("org.lib", "lib-a", "${lib.version}", null)
+                    + "</dependencies></dependencyManagement>\n"
+                    + "<dependencies>" + dependency("org.sample", "api", "${project.version}", null)
+                    + "</dependencies></project>");
+            write(new File(root, "core/pom.xml"), HEADER
+                    + "<parent><groupId>org.sample</groupId><artifactId>parent</artifactId>"
+                    + "<version>1.5</version></parent>\n"
+                    + "<artifactId>core</artifactId><version>1.6</version>\n"
+                    + "<properties><lib.version>3.0</lib.version></properties>\n<dependencies>\n"
+                    + dependency("org.lib", "lib-a", null, null)
+                    + "</dependencies></project>");
+
+            final JkPom parent = JkPom.of(new File(root, "pom.xml"));
+            Assert.assertEquals("1.0", parent.versionProvider().versionOf(JkModuleId.of("org.lib", "lib-a")).name());
+            Assert.assertEquals("1.5", versionOf(parent.dependencies(), "api"));
+
+            final JkPom core = JkPom.of(new File(root, "core/pom.xml"));
+            Assert.assertEquals("3.0", core.versionProvider().versionOf(JkModuleId.of("org.lib", "lib-a")).name());
+            Assert.assertEquals("3.0", versionOf(core.dependencies(), "lib-a"));
+            Assert.assertEquals("1.6", versionOf(core.dependencies(), "api"));
+        } finally {
+            JkUtilsFile.deleteDir(root);
+        }
+    }
+
+    @Test
+    public void modulesUnderTheSameParentMergeItOnce() {
+        final File root = JkUtilsFile.createTempDir("maven-tree");
+        try {
+            write(new File(root, "pom.xml"), HEADER
+                    + "<groupId>org.sample</groupId><artifactId>parent</artifactId><version>1.5</version>\n"
+                    + "<packaging>pom</packaging>\n"
+                    + "<dependencyManagement><dependencies>\n"
+                    + dependency("org.lib", "lib-a", "1.0", null)
+                    + "</dependencies></dependencyManagement></project>");
+            for (final String module : new String[] {"core", "web"}) {
+                write(new File(root, module + "/pom.xml"), HEADER
+                        + "<parent><groupId>org.sample</groupId><artifactId>parent</artifactId>"
+                        + "<version>1.5</version></parent>\n"
+                        + "<artifactId>" + module + "</artifactId>\n<dependencies>\n"
+                        + dependency("org.lib", "lib-a", null, null)
+                        + "</dependencies></project>");
+            }
+            final JkPom core = JkPom.of(new File(root, "core/pom.xml"));
+            Assert.assertEquals("1.0", versionOf(core.dependencies(), "lib-a"));
+
+            // Only the module itself is parsed and merged, the parent is taken from the cache
+            final long parses = JkMetrics.value("pom.parses");
+            final long inheritances = JkMetrics.value("pom.inheritances");
+            final JkPom web = JkPom.of(new File(root, "web/pom.xml"));
+            Assert.assertEquals("1.0", versionOf(web.dependencies(), "lib-a"));
+            Assert.assertEquals(parses + 1, JkMetrics.value("pom.parses"));
+            Assert.assertEquals(inheritances + 1, JkMetrics.value("pom.inheritances"));
+
+            // Nothing at all for a module already resolved
+            JkPom.of(new File(root, "core/pom.xml"));
+            Assert.assertEquals(parses + 1, JkMetrics.value("pom.parses"));
+            Assert.assertEquals(inheritances + 1, JkMetrics.value("pom.inheritances"));
+        } finally {
+            JkUtilsFile.deleteDir(root);
+        }
+    }
+
+    private static String versionOf(JkDependencies dependencies, String artifactId) {
+        for (final JkScopedDependency scopedDependency : dependencies) {
+            final JkModuleDependency dependency = (JkModuleDependency) scopedDependency.dependency();
+            if (dependency.moduleId().name().equals(artifactId)) {
+                return dependency.versionRange().definition();
+            }
+        }
+        return null;
+    }
+
+    private static String dependency(String groupId, String artifactId, String version, String scope) {
+        return "<dependency><groupId>" + groupId + "</groupId><artifactId>" + artifactId + "</artifactId>"
+                + (version == null ? "" : "<version>" + version + "</version>")
+                + (scope == null ? "" : "<scope>" + scope + "</scope>") + "</dependency>\n";
+    }
+
+    private static void write(File file, String content) {
+        file.getParentFile().mkdirs();
+        JkUtilsFile.writeString(file, content, false);
+    }
+
+}
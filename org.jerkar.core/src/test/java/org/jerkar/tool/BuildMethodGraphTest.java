@@ -0,0 +1,114 @@
+package org.jerkar.tool;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class BuildMethodGraphTest {
+
+    @Test
+    public void testOrderAndConcurrentRun() {
+        final GraphBuild build = new GraphBuild();
+        final BuildMethodGraph graph = BuildMethodGraph.of(build, Arrays.asList("d"));
+        Assert.assertEquals(Arrays.asList("a", "b", "c", "d"), graph.methods());
+
+        graph.run(3, null);
+        Assert.assertEquals(4, build.invoked.size());
+        Assert.assertEquals("a", build.invoked.get(0));
+        Assert.assertEquals("d", build.invoked.get(3));
+    }
+
+    @Test
+    public void testFailFast() {
+        final GraphBuild build = new GraphBuild();
+        build.failing = "b";
+        try {
+            BuildMethodGraph.of(build, Arrays.asList("d")).run(2, null);
+            Assert.fail("Failure expected");
+        } catch (final IllegalStateException e) {
+            Assert.assertEquals("b", e.getMessage());
+        }
+        Assert.assertFalse(build.invoked.contains("d"));
+    }
+
+    @Test
+    public void independentCommandLineMethodsOverlap() {
+        final GraphBuild build = new GraphBuild();
+        build.methodThreads = 2;
+        build.execute(Arrays.asList(JkModelMethod.normal("e"), JkModelMethod.normal("f")), null);
+        Assert.assertEquals("a", build.invoked.get(0));
+        Assert.assertTrue(build.invoked.containsAll(Arrays.asList("e", "f")));
+    }
+
+    @Test(expected = JkException.class)
+    public void testCycle() {
+        BuildMethodGraph.of(new GraphBuild(), Arrays.asList("cycle"));
+    }
+
+    public static class GraphBuild extends JkBuild {
+
+        final List<String> invoked = Collections.synchronizedList(new LinkedList<String>());
+
+        String failing;
+
+        private final CyclicBarrier overlap = new CyclicBarrier(2);
+
+        public void a() {
+            call("a");
+        }
+
+        @JkDependsOn("a")
+        public void b() {
+            call("b");
+        }
+
+        @JkDependsOn("a")
+        public void c() {
+            call("c");
+        }
+
+        @JkDependsOn({ "b", "c" })
+        public void d() {
+            call("d");
+        }
+
+        // e and f only succeed if they run at the same time
+        @JkDependsOn("a")
+        public void e() throws Exception {
+            overlap.await(10, TimeUnit.SECONDS);
+            call("e");
+        }
+
+        @JkDependsOn("a")
+        public void f() throws Exception {
+            overlap.await(10, TimeUnit.SECONDS);
+            call("f");
+        }
+
+        @JkDependsOn("cycleBack")
+        public void cycle() {
+            // never invoked
+        }
+
+        @JkDependsOn("cycle")
+        public void cycleBack() {
+            // never invoked
+        }
+
+        private void call(String name) {
+            if (name.equals(failing)) {
+                throw new IllegalStateException(name);
+            }
+            invoked.add(name);
+        }
+
+    }
+
+}
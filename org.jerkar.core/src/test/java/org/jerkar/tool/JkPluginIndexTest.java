@@ -0,0 +1,39 @@
+package org.jerkar.tool;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import org.jerkar.api.file.JkFileTree;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsIO;
+import org.jerkar.tool.builtins.eclipse.JkBuildPluginEclipse;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class JkPluginIndexTest {
+
+    @Test
+    public void testGenerateAndRead() throws Exception {
+        final File root = File.createTempFile("jerkarPluginIndex", "");
+        root.delete();
+        final File classDir = new File(root, "classes");
+        final String classFile = JkBuildPluginEclipse.class.getName().replace('.', '/') + ".class";
+        final File pluginClass = new File(classDir, classFile);
+        pluginClass.getParentFile().mkdirs();
+        JkUtilsIO.copyUrlToFile(JkBuildPluginEclipse.class.getResource("/" + classFile), pluginClass);
+        Assert.assertNull(JkPluginIndex.read(classDir));
+
+        final List<String> indexed = JkPluginIndex.generate(classDir, Collections.<File>emptyList());
+        Assert.assertEquals(1, indexed.size());
+        Assert.assertEquals(JkBuildPluginEclipse.class.getName(), indexed.get(0));
+        Assert.assertEquals(indexed, JkPluginIndex.read(classDir));
+
+        final File jar = new File(root, "plugins.jar");
+        JkFileTree.of(classDir).zip().to(jar);
+        Assert.assertEquals(indexed, JkPluginIndex.read(jar));
+        JkUtilsFile.deleteDir(root);
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.jerkar.tool;
+
+import java.io.File;
+import java.util.Map;
+
+import org.jerkar.api.system.JkLog;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class JkWorkspaceTest {
+
+    private File root;
+
+    @Before
+    public void setUp() {
+        root = JkUtilsFile.createTempDir("jerkar-workspace");
+        writeBuild("a", "ABuild");
+        writeBuild("b", "BBuild");
+        new File(root, "shared").mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        JkUtilsFile.deleteDir(root);
+    }
+
+    @Test
+    public void projectsRunConcurrentlyOnTheirOwnBuilds() {
+        final JkWorkspace workspace = JkWorkspace.of(root);
+        Assert.assertEquals(2, workspace.projectDirs().size());
+        final boolean async = JkLog.async();
+
+        workspace.execute(2, "mark", "-Djerkar.workspace.test=on", "-logAsync=" + !async);
+
+        final Map<String, String> a = JkUtilsFile.readPropertyFileAsMap(new File(root, "a/mark.properties"));
+        final Map<String, String> b = JkUtilsFile.readPropertyFileAsMap(new File(root, "b/mark.properties"));
+        Assert.assertEquals("ABuild", a.get("build"));
+        Assert.assertEquals("BBuild", b.get("build"));
+        Assert.assertEquals(a.get("sharedDir"), b.get("sharedDir"));
+        Assert.assertFalse("Slave builds are shared", a.get("shared").equals(b.get("shared")));
+
+        // Global settings of the running build are left as is
+        Assert.assertNull(System.getProperty("jerkar.workspace.test"));
+        Assert.assertEquals(async, JkLog.async());
+    }
+
+    private void writeBuild(String project, String className) {
+        JkUtilsFile.writeString(new File(root, project + "/build/def/" + className + ".java"),
+                "import java.util.HashMap;\n"
+                + "import java.util.Map;\n"
+                + "import org.jerkar.api.utils.JkUtilsFile;\n"
+                + "import org.jerkar.tool.JkBuild;\n"
+                + "import org.jerkar.tool.JkProject;\n"
+                + "public class " + className + " extends JkBuild {\n"
+                + "    @JkProject(\"../shared\")\n"
+                + "    JkBuild shared;\n"
+                + "    public void mark() {\n"
+                + "        final Map<String, String> properties = new HashMap<String, String>();\n"
+                + "        properties.put(\"build\", getClass().getSimpleName());\n"
+                + "        properties.put(\"shared\", Integer.toString(System.identityHashCode(shared)));\n"
+                + "        properties.put(\"sharedDir\", shared.baseDir().root().getName());\n"
+                + "        JkUtilsFile.writePropertyFile(file(\"mark.properties\"), properties, null);\n"
+                + "    }\n"
+                + "}\n", false);
+    }
+
+}
@@ -0,0 +1,50 @@
+package org.jerkar.tool.builtins.javabuild.jee;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jerkar.api.utils.JkUtilsFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ExplodedWarSyncTest {
+
+    @Test
+    public void copyOnlyChangedAndDeleteRemoved() {
+        final File sources = JkUtilsFile.createTempDir("war-sources");
+        final File root = JkUtilsFile.createTempDir("war-exploded");
+        final File dir = new File(root, "app-war");
+        final File webXml = source(sources, "web.xml", "<web-app/>");
+        final File foo = source(sources, "Foo.class", "foo");
+        final File bar = source(sources, "Bar.class", "bar");
+        final Map<String, File> entries = new LinkedHashMap<String, File>();
+        entries.put("WEB-INF/web.xml", webXml);
+        entries.put("WEB-INF/classes/foo/Foo.class", foo);
+        entries.put("WEB-INF/classes/bar/Bar.class", bar);
+        final ExplodedWarSync sync = ExplodedWarSync.of(dir);
+        Assert.assertEquals(3, sync.sync(entries));
+        Assert.assertEquals(0, sync.sync(entries));
+
+        JkUtilsFile.writeString(foo, "foo2", false);
+        foo.setLastModified(foo.lastModified() + 2000);
+        entries.remove("WEB-INF/classes/bar/Bar.class");
+        Assert.assertEquals(2, sync.sync(entries));
+        Assert.assertEquals("foo2", JkUtilsFile.read(new File(dir, "WEB-INF/classes/foo/Foo.class")).trim());
+        Assert.assertFalse(new File(dir, "WEB-INF/classes/bar").exists());
+        Assert.assertTrue(new File(dir, "WEB-INF/classes/foo").exists());
+
+        new File(dir, "WEB-INF/web.xml").delete();
+        Assert.assertEquals(1, sync.sync(entries));
+        JkUtilsFile.deleteDir(sources);
+        JkUtilsFile.deleteDir(root);
+    }
+
+    private static File source(File dir, String name, String content) {
+        final File file = new File(dir, name);
+        JkUtilsFile.writeString(file, content, false);
+        return file;
+    }
+
+}
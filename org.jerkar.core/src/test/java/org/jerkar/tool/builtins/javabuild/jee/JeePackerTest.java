@@ -0,0 +1,110 @@
+package org.jerkar.tool.builtins.javabuild.jee;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jerkar.api.depmanagement.JkDependencies;
+import org.jerkar.api.file.JkFileTreeSet;
+import org.jerkar.api.utils.JkUtilsFile;
+import org.jerkar.api.utils.JkUtilsIO;
+import org.jerkar.tool.builtins.javabuild.JkJavaBuild;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class JeePackerTest {
+
+    private File root;
+
+    private File webappSrc;
+
+    private File extra;
+
+    private SampleBuild build;
+
+    @Before
+    public void setUp() {
+        root = JkUtilsFile.createTempDir("jee-packer");
+        webappSrc = new File(root, "webapp");
+        write(webappSrc, "WEB-INF/web.xml", "<web-app/>");
+        write(webappSrc, "index.html", "webapp index");
+        write(webappSrc, "WEB-INF/classes/foo/Foo.class", "webapp foo");
+        extra = new File(root, "extra");
+        write(extra, "index.html", "extra index");
+        build = new SampleBuild(new File(root, "classes"), write(new File(root, "libs"), "lib.jar",
+                "not really a jar"));
+        write(build.classDir(), "foo/Foo.class", "compiled foo");
+    }
+
+    @After
+    public void tearDown() {
+        JkUtilsFile.deleteDir(root);
+    }
+
+    @Test
+    public void warFileHoldsLastSourceOfEachEntryAndStoresJars() throws Exception {
+        final File war = new File(root, "app.war");
+        JeePacker.of(build).warFile(webappSrc, war, JkFileTreeSet.of(extra));
+
+        final Map<String, ZipEntry> entries = new HashMap<String, ZipEntry>();
+        final Map<String, String> contents = new HashMap<String, String>();
+        final ZipFile zipFile = new ZipFile(war);
+        try {
+            final Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+            while (enumeration.hasMoreElements()) {
+                final ZipEntry entry = enumeration.nextElement();
+                entries.put(entry.getName(), entry);
+                contents.put(entry.getName(), JkUtilsIO.readAsString(zipFile.getInputStream(entry)).trim());
+            }
+        } finally {
+            zipFile.close();
+        }
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("WEB-INF/web.xml", "index.html",
+                "WEB-INF/classes/foo/Foo.class", "WEB-INF/lib/lib.jar")), entries.keySet());
+
+        // Compiled classes override webapp sources, extra resources override both
+        Assert.assertEquals("compiled foo", contents.get("WEB-INF/classes/foo/Foo.class"));
+        Assert.assertEquals("extra index", contents.get("index.html"));
+
+        Assert.assertEquals(ZipEntry.STORED, entries.get("WEB-INF/lib/lib.jar").getMethod());
+        Assert.assertEquals(ZipEntry.DEFLATED, entries.get("index.html").getMethod());
+    }
+
+    private static File write(File dir, String relativePath, String content) {
+        final File file = new File(dir, relativePath);
+        JkUtilsFile.writeString(file, content, false);
+        return file;
+    }
+
+    static class SampleBuild extends JkJavaBuild {
+
+        private final File classDir;
+
+        private final File lib;
+
+        SampleBuild(File classDir, File lib) {
+            this.classDir = classDir;
+            this.lib = lib;
+        }
+
+        @Override
+        public File classDir() {
+            return classDir;
+        }
+
+        @Override
+        protected JkDependencies dependencies() {
+            return JkDependencies.of().and(RUNTIME, lib);
+        }
+
+    }
+
+}